@@ -0,0 +1,88 @@
+package com.transaction.processing.benchmarks;
+
+import com.transaction.processing.model.CurrencyCode;
+import com.transaction.processing.model.TransactionStatus;
+import com.transaction.processing.model.TransactionType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the enum code lookups for valid and invalid codes: the throwing {@code fromCode} methods,
+ * the table-backed {@code find} methods and, for comparison, the original linear scan over {@code values()}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CodeLookupBenchmark {
+    // Fields rather than constants, so the JIT cannot fold the lookups
+    private String type = "TRI";
+    private String currency = "840";
+    private String status = "02";
+    private String invalidType = "XYZ";
+
+    @Benchmark
+    public TransactionType typeLinearScan() {
+        for (TransactionType candidate : TransactionType.values()) {
+            if (candidate.name().equals(type)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    @Benchmark
+    public TransactionType typeFromCode() {
+        return TransactionType.fromCode(type);
+    }
+
+    @Benchmark
+    public TransactionType typeFind() {
+        return TransactionType.find(type);
+    }
+
+    @Benchmark
+    public Object invalidTypeFromCode() {
+        try {
+            return TransactionType.fromCode(invalidType);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public TransactionType invalidTypeFind() {
+        return TransactionType.find(invalidType);
+    }
+
+    @Benchmark
+    public CurrencyCode currencyFromNumericCode() {
+        return CurrencyCode.fromNumericCode(currency);
+    }
+
+    @Benchmark
+    public CurrencyCode currencyFind() {
+        return CurrencyCode.find(currency);
+    }
+
+    @Benchmark
+    public TransactionStatus statusFromCode() {
+        return TransactionStatus.fromCode(status);
+    }
+
+    @Benchmark
+    public TransactionStatus statusFind() {
+        return TransactionStatus.find(status);
+    }
+}
@@ -0,0 +1,82 @@
+package com.transaction.processing.benchmarks;
+
+import com.transaction.processing.model.Transaction;
+import com.transaction.processing.service.AsyncLogWriter;
+import com.transaction.processing.service.FileLogSink;
+import com.transaction.processing.service.LogSink;
+import com.transaction.processing.service.LoggingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link LoggingService#logTransaction(Transaction)} with the entry discarded, appended to a file
+ * per write, or queued to an {@link AsyncLogWriter}. See {@link TransactionLogFormatterBenchmark} for the
+ * formatting alone.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoggingBenchmark {
+    @Param({"null", "file", "async"})
+    public String sink;
+
+    private final Transaction transaction = new Transaction("1000001234567890", "APP", 1234, "978", "01");
+    private Path directory;
+    private LogSink benchmarkSink;
+    private LogSink previousSink;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("logging-benchmark");
+        Path logFile = directory.resolve("benchmark.log");
+        if (sink.equals("file")) {
+            benchmarkSink = new FileLogSink(logFile.toString());
+        } else if (sink.equals("async")) {
+            benchmarkSink = AsyncLogWriter.builder(logFile)
+                    .overflowPolicy(AsyncLogWriter.OverflowPolicy.BLOCK)
+                    .build();
+        } else {
+            benchmarkSink = new NullLogSink();
+        }
+        previousSink = LoggingService.setSink(benchmarkSink);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        LoggingService.setSink(previousSink);
+        benchmarkSink.close();
+        Files.deleteIfExists(directory.resolve("benchmark.log"));
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public void logTransaction() {
+        LoggingService.logTransaction(transaction);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void logTransaction4Threads() {
+        LoggingService.logTransaction(transaction);
+    }
+}
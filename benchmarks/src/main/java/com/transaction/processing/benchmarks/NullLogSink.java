@@ -0,0 +1,24 @@
+package com.transaction.processing.benchmarks;
+
+import com.transaction.processing.service.LogSink;
+
+/**
+ * Sink that discards log entries, so benchmarks measure formatting without disk I/O.
+ * The length of the entries is summed so the JIT cannot drop the formatting work.
+ */
+public class NullLogSink implements LogSink {
+    private long writtenChars;
+
+    @Override
+    public void write(CharSequence entry) {
+        writtenChars += entry.length();
+    }
+
+    @Override
+    public void close() {
+    }
+
+    public long getWrittenChars() {
+        return writtenChars;
+    }
+}
@@ -0,0 +1,69 @@
+package com.transaction.processing.benchmarks;
+
+import com.transaction.processing.util.PANParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the original regex + {@code Long.parseLong} PAN check with the single-pass {@link PANParser}.
+ * Run with {@code -prof gc} to see the allocation difference.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PANParserBenchmark {
+    private static final int SAMPLES = 1024;
+
+    private final String[] pans = new String[SAMPLES];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < SAMPLES; i++) {
+            StringBuilder pan = new StringBuilder();
+            for (int j = 0; j < 16; j++) {
+                pan.append((char) ('0' + random.nextInt(10)));
+            }
+            // One in eight PANs is invalid
+            if (i % 8 == 0) {
+                pan.setCharAt(random.nextInt(16), 'x');
+            }
+            pans[i] = pan.toString();
+        }
+    }
+
+    @Benchmark
+    public long legacyRegexAndParseLong() {
+        String pan = pans[next++ & (SAMPLES - 1)];
+        if (pan == null || !pan.matches("\\d{16}")) {
+            return PANParser.INVALID;
+        }
+        return Long.parseLong(pan);
+    }
+
+    @Benchmark
+    public long singlePass() {
+        return PANParser.parse(pans[next++ & (SAMPLES - 1)]);
+    }
+
+    @Benchmark
+    public long singlePassWithLuhn() {
+        return PANParser.parseWithLuhn(pans[next++ & (SAMPLES - 1)]);
+    }
+}
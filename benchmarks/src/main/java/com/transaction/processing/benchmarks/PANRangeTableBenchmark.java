@@ -0,0 +1,63 @@
+package com.transaction.processing.benchmarks;
+
+import com.transaction.processing.model.TransactionType;
+import com.transaction.processing.util.PANRangeTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup cost of {@link PANRangeTable#contains(TransactionType, long)} as the number of ranges grows.
+ * Half of the probed PANs fall inside a range, half are random.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PANRangeTableBenchmark {
+    private static final int PROBES = 4096;
+
+    @Param({"1", "1000", "100000"})
+    public int rangeCount;
+
+    private PANRangeTable table;
+    private final long[] probes = new long[PROBES];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        PANRangeTable.Builder builder = PANRangeTable.builder();
+        long[] lows = new long[rangeCount];
+        for (int i = 0; i < rangeCount; i++) {
+            lows[i] = 1000000000000000L + (long) (random.nextDouble() * 1_000_000_000_000L);
+            builder.add(TransactionType.APP, lows[i], lows[i] + random.nextInt(1_000_000));
+        }
+        table = builder.build();
+        for (int i = 0; i < PROBES; i++) {
+            probes[i] = i % 2 == 0
+                    ? lows[random.nextInt(rangeCount)] + random.nextInt(1_000_000)
+                    : 1000000000000000L + (long) (random.nextDouble() * 1_000_000_000_000L);
+        }
+    }
+
+    @Benchmark
+    public boolean contains() {
+        long pan = probes[next++ & (PROBES - 1)];
+        return table.contains(TransactionType.APP, pan);
+    }
+}
@@ -0,0 +1,70 @@
+package com.transaction.processing.benchmarks;
+
+import com.transaction.processing.model.TransactionType;
+import com.transaction.processing.util.PANValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link PANValidator#isValidPANForType(String, TransactionType)} for a mix of PANs inside the
+ * configured ranges, outside them and malformed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PANValidatorBenchmark {
+    private static final int SAMPLES = 1024;
+    private static final TransactionType[] TYPES = TransactionType.values();
+
+    private final String[] pans = new String[SAMPLES];
+    private final TransactionType[] types = new TransactionType[SAMPLES];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < SAMPLES; i++) {
+            types[i] = TYPES[random.nextInt(TYPES.length)];
+            switch (random.nextInt(3)) {
+                case 0:
+                    pans[i] = (types[i].ordinal() + 1) + "00000000000000" + random.nextInt(10);
+                    break;
+                case 1:
+                    pans[i] = String.valueOf(4000000000000000L + random.nextInt(Integer.MAX_VALUE));
+                    break;
+                default:
+                    pans[i] = "12345678901234x" + random.nextInt(10);
+                    break;
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean isValidPANForType() {
+        int index = next++ & (SAMPLES - 1);
+        return PANValidator.isValidPANForType(pans[index], types[index]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean isValidPANForType4Threads() {
+        int index = next++ & (SAMPLES - 1);
+        return PANValidator.isValidPANForType(pans[index], types[index]);
+    }
+}
@@ -0,0 +1,112 @@
+package com.transaction.processing.benchmarks;
+
+import com.transaction.processing.model.Transaction;
+import com.transaction.processing.model.TransactionStatus;
+import com.transaction.processing.service.LogSink;
+import com.transaction.processing.service.LoggingService;
+import com.transaction.processing.service.PaymentService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link PaymentService#process(Transaction)} including validation and log formatting,
+ * for all-approved, all-declined and mixed traffic. Log entries go to a {@link NullLogSink}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PaymentServiceBenchmark {
+    private static final int SAMPLES = 1024;
+
+    @Param({"approved", "declined", "mixed"})
+    public String mix;
+
+    private PaymentService paymentService;
+    private LogSink previousSink;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        paymentService = new PaymentService();
+        previousSink = LoggingService.setSink(new NullLogSink());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        LoggingService.setSink(previousSink);
+    }
+
+    /**
+     * Transactions owned by one benchmark thread, since processing updates their status.
+     */
+    @State(Scope.Thread)
+    public static class Traffic {
+        private final Transaction[] transactions = new Transaction[SAMPLES];
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setUp(PaymentServiceBenchmark benchmark) {
+            Random random = new Random(42);
+            for (int i = 0; i < SAMPLES; i++) {
+                boolean approved = benchmark.mix.equals("approved")
+                        || benchmark.mix.equals("mixed") && random.nextInt(4) != 0;
+                transactions[i] = approved ? approvedTransaction(random) : declinedTransaction(random);
+            }
+        }
+
+        Transaction next() {
+            Transaction transaction = transactions[next++ & (SAMPLES - 1)];
+            transaction.setStatus(TransactionStatus.ACTIVE.getCode());
+            return transaction;
+        }
+    }
+
+    @Benchmark
+    public Transaction process(Traffic traffic) {
+        return paymentService.process(traffic.next());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Transaction process4Threads(Traffic traffic) {
+        return paymentService.process(traffic.next());
+    }
+
+    private static Transaction approvedTransaction(Random random) {
+        return new Transaction("10000" + (10000000000L + random.nextInt(50000000)), "APP",
+                100 + random.nextInt(4900), "978", "00");
+    }
+
+    // One of every decline reason, so no single check dominates
+    private static Transaction declinedTransaction(Random random) {
+        switch (random.nextInt(5)) {
+            case 0:
+                return new Transaction("1000000000000000", "APP", 1000, "978", "01");
+            case 1:
+                return new Transaction("1000000000000000", "XYZ", 1000, "978", "00");
+            case 2:
+                return new Transaction("1000000000000000", "APP", 1000, "999", "00");
+            case 3:
+                return new Transaction("9999999999999999", "APP", 1000, "978", "00");
+            default:
+                return new Transaction("1000000000000000", "APP", 9000, "978", "00");
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.transaction.processing.benchmarks;
+
+import com.transaction.processing.model.Transaction;
+import com.transaction.processing.service.TransactionLogFormatter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of formatting a transaction log entry with a reused {@link TransactionLogFormatter}, one per benchmark thread.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TransactionLogFormatterBenchmark {
+    private final Transaction transaction = new Transaction("1000001234567890", "APP", 1234, "978", "01");
+    private final TransactionLogFormatter formatter = new TransactionLogFormatter();
+
+    @Benchmark
+    public int formatTransactionEntry() {
+        return formatter.formatTransactionEntry(transaction, System.currentTimeMillis()).length();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int formatTransactionEntry4Threads() {
+        return formatter.formatTransactionEntry(transaction, System.currentTimeMillis()).length();
+    }
+}
@@ -1,10 +1,133 @@
 package com.transaction.processing;
 
 import com.transaction.processing.model.Transaction;
+import com.transaction.processing.service.BinaryLogReader;
+import com.transaction.processing.service.FileIngestService;
+import com.transaction.processing.service.IngestResult;
+import com.transaction.processing.service.LoadGenerator;
+import com.transaction.processing.service.LoadHarness;
+import com.transaction.processing.service.LogIndex;
+import com.transaction.processing.service.LogIndexer;
+import com.transaction.processing.service.LogHousekeeper;
+import com.transaction.processing.service.LoggingService;
+import com.transaction.processing.service.PaymentServer;
 import com.transaction.processing.service.PaymentService;
+import com.transaction.processing.service.RecordFormat;
+import com.transaction.processing.service.TrafficGenerator;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalTime;
 
 public class App {
-    public static void main( String[] args ) {
+    public static void main( String[] args ) throws IOException {
+        if (args.length == 4 && args[0].equals("ingest")) {
+            // ingest <CSV|FIXED_WIDTH> <input file> <output file>
+            FileIngestService ingest = FileIngestService.builder(RecordFormat.valueOf(args[1])).build();
+            IngestResult result = ingest.ingest(Paths.get(args[2]), Paths.get(args[3]));
+            System.out.println(result);
+            return;
+        }
+        if ((args.length == 2 || args.length == 3) && args[0].equals("search-logs")) {
+            // search-logs <text> [<days back>], searching plain and compressed log files (default 7 days)
+            LocalDate today = LocalDate.now();
+            LocalDate from = today.minusDays(args.length == 3 ? Integer.parseInt(args[2]) : 7);
+            try (LogHousekeeper housekeeper = LogHousekeeper.builder(LoggingService.getDailyLogFile()).build()) {
+                housekeeper.search(from, today, line -> line.contains(args[1]), System.out::println);
+            }
+            return;
+        }
+        if (args.length == 2 && args[0].equals("index-log")) {
+            // index-log <log file>, building or completing the index of a log written without an indexer
+            long indexed = LogIndexer.index(Paths.get(args[1]), LogIndexer.DEFAULT_BLOCK_SIZE);
+            System.out.println("Indexed " + indexed + " bytes of " + args[1]);
+            return;
+        }
+        if ((args.length == 4 || args.length == 5) && args[0].equals("find-log")) {
+            // find-log <log file> pan <PAN or masked PAN> | find-log <log file> time <from HH:mm[:ss]> <to HH:mm[:ss]>
+            try (LogIndex index = LogIndex.open(Paths.get(args[1]))) {
+                if (args.length == 4 && args[2].equals("pan")) {
+                    index.findByPan(args[3], System.out::println);
+                } else if (args.length == 5 && args[2].equals("time")) {
+                    index.findByTime(LocalTime.parse(args[3]), LocalTime.parse(args[4]), System.out::println);
+                } else {
+                    System.err.println("Usage: find-log <log file> pan <pan> | find-log <log file> time <from> <to>");
+                }
+            }
+            return;
+        }
+        if ((args.length == 2 || args.length == 3) && args[0].equals("decode-log")) {
+            // decode-log <binary log file> [<text log file>], printed to standard output without a text log file
+            BinaryLogReader reader = new BinaryLogReader();
+            if (args.length == 2) {
+                reader.decode(Paths.get(args[1]), System.out);
+                System.out.flush();
+            } else {
+                try (Writer out = Files.newBufferedWriter(Paths.get(args[2]), StandardCharsets.UTF_8)) {
+                    reader.decode(Paths.get(args[1]), out);
+                }
+            }
+            return;
+        }
+        if (args.length >= 1 && args.length <= 3 && args[0].equals("serve")) {
+            // serve [<port> [<host>]], authorizing requests until the process is stopped (default 7070 on
+            // localhost); the protocol is not authenticated, so only pass "0.0.0.0" behind a trusted network
+            String host = args.length == 3 ? args[2] : "localhost";
+            PaymentServer server = PaymentServer.builder(new PaymentService())
+                    .host(host)
+                    .port(args.length >= 2 ? Integer.parseInt(args[1]) : 7070)
+                    .build();
+            System.out.println("Listening on " + host + ":" + server.getPort());
+            try {
+                server.awaitTermination();
+            } catch (InterruptedException e) {
+                server.close();
+            }
+            return;
+        }
+        if ((args.length == 4 || args.length == 6) && args[0].equals("loadgen")) {
+            // loadgen <connections> <requests per connection> <pipeline depth> [<host> <port>],
+            // against a server started in this process on localhost without host and port
+            int connections = Integer.parseInt(args[1]);
+            int requests = Integer.parseInt(args[2]);
+            int depth = Integer.parseInt(args[3]);
+            if (args.length == 6) {
+                InetSocketAddress address = new InetSocketAddress(args[4], Integer.parseInt(args[5]));
+                System.out.println(new LoadGenerator(address, connections, requests, depth).run());
+            } else {
+                try (PaymentServer server = PaymentServer.builder(new PaymentService()).port(0).build()) {
+                    InetSocketAddress address = new InetSocketAddress("localhost", server.getPort());
+                    System.out.println(new LoadGenerator(address, connections, requests, depth).run());
+                }
+            }
+            return;
+        }
+        if ((args.length == 4 || args.length == 5) && args[0].equals("harness")) {
+            // harness synthetic <count> <threads> [<seed>] | harness replay <log file> <speed|max> <threads>,
+            // driving an in-process service and printing the report as JSON
+            LoadHarness.Builder harness = LoadHarness.builder(new PaymentService());
+            if (args[1].equals("synthetic")) {
+                harness.synthetic(TrafficGenerator.builder().build(), Long.parseLong(args[2]),
+                                args.length == 5 ? Long.parseLong(args[4]) : 1)
+                        .threads(Integer.parseInt(args[3]));
+            } else if (args.length == 5 && args[1].equals("replay")) {
+                harness.replay(Paths.get(args[2]))
+                        .speed(args[3].equals("max") ? 0 : Double.parseDouble(args[3]))
+                        .threads(Integer.parseInt(args[4]));
+            } else {
+                System.err.println("Usage: harness synthetic <count> <threads> [<seed>]"
+                        + " | harness replay <log file> <speed|max> <threads>");
+                return;
+            }
+            System.out.println(harness.build().run().toJson());
+            return;
+        }
+
         Transaction transaction = new Transaction(
                 "1000000000000000",
                 "APP",
@@ -0,0 +1,199 @@
+package com.transaction.processing.model;
+
+import com.transaction.processing.util.PANParser;
+
+/**
+ * Mutable, reusable transaction with all fields parsed into primitives: the PAN as a {@code long}, the type and
+ * status as enum ordinals, the currency as its numeric code and the decline reason as its code. The fields use
+ * the same encoding as the columns of a {@link TransactionBatch}, including {@link TransactionBatch#INVALID_PAN}
+ * and {@link TransactionBatch#INVALID_CODE} for values that could not be parsed.
+ * <p>
+ * The strings of a {@link Transaction} are parsed once, when it enters the system; after that the transaction is
+ * validated on primitives only. A hot loop can keep one instance per thread and refill it with
+ * {@link #set(Transaction)} or {@link #set(long, byte, int, short, byte)} for every transaction, so processing does
+ * not allocate. Instances are not thread-safe; hand the outcome to other threads as an immutable
+ * {@link TransactionResult} instead.
+ */
+public final class CompactTransaction {
+    private static final TransactionType[] TYPES = TransactionType.values();
+    private static final TransactionStatus[] STATUSES = TransactionStatus.values();
+    private static final byte NOT_DECLINED = 0;
+
+    private long pan = TransactionBatch.INVALID_PAN;
+    private byte type = TransactionBatch.INVALID_CODE;
+    private int amount;
+    private short currency = TransactionBatch.INVALID_CODE;
+    private byte status = TransactionBatch.INVALID_CODE;
+    private byte declineReason;
+    private long rulesVersion;
+
+    /**
+     * Parses a transaction into a new compact transaction.
+     *
+     * @param transaction The transaction to parse.
+     * @return A new compact transaction with the values of the transaction.
+     */
+    public static CompactTransaction from(Transaction transaction) {
+        return new CompactTransaction().set(transaction);
+    }
+
+    /**
+     * Refills this instance with the parsed values of a transaction, including its outcome if it was processed.
+     *
+     * @param transaction The transaction to parse.
+     * @return This instance.
+     */
+    public CompactTransaction set(Transaction transaction) {
+        set(PANParser.parse(transaction.getPan()), TransactionBatch.typeOrdinal(transaction.getType()),
+                transaction.getAmount(), TransactionBatch.parseCurrency(transaction.getCurrency()),
+                TransactionBatch.statusOrdinal(transaction.getStatus()));
+        DeclineReason reason = transaction.getDeclineReason();
+        declineReason = reason == null ? NOT_DECLINED : (byte) reason.getCode();
+        rulesVersion = transaction.getRulesVersion();
+        return this;
+    }
+
+    /**
+     * Refills this instance with already parsed values and clears the outcome.
+     *
+     * @param pan      The PAN as a number, or {@link TransactionBatch#INVALID_PAN}.
+     * @param type     The {@link TransactionType} ordinal, or {@link TransactionBatch#INVALID_CODE}.
+     * @param amount   The amount in subunits.
+     * @param currency The numeric currency code, or {@link TransactionBatch#INVALID_CODE}.
+     * @param status   The {@link TransactionStatus} ordinal, or {@link TransactionBatch#INVALID_CODE}.
+     * @return This instance.
+     */
+    public CompactTransaction set(long pan, byte type, int amount, short currency, byte status) {
+        this.pan = pan;
+        this.type = type;
+        this.amount = amount;
+        this.currency = currency;
+        this.status = status;
+        this.declineReason = NOT_DECLINED;
+        this.rulesVersion = 0;
+        return this;
+    }
+
+    /**
+     * Restores the outcome of a {@link TransactionResult}.
+     */
+    CompactTransaction restore(byte declineReason, long rulesVersion) {
+        this.declineReason = declineReason;
+        this.rulesVersion = rulesVersion;
+        return this;
+    }
+
+    /**
+     * Records the outcome of validation: Approved without a reason, Declined with one.
+     *
+     * @param reason       The reason the transaction was declined, or null if it was approved.
+     * @param rulesVersion The version of the validation rules the transaction was processed with.
+     */
+    public void complete(DeclineReason reason, long rulesVersion) {
+        this.status = (byte) (reason == null ? TransactionStatus.APPROVED : TransactionStatus.DECLINED).ordinal();
+        this.declineReason = reason == null ? NOT_DECLINED : (byte) reason.getCode();
+        this.rulesVersion = rulesVersion;
+    }
+
+    /**
+     * @return The PAN as a number, or {@link TransactionBatch#INVALID_PAN} if it was not 16 digits.
+     */
+    public long getPan() {
+        return pan;
+    }
+
+    /**
+     * @return The {@link TransactionType} ordinal, or {@link TransactionBatch#INVALID_CODE} if the type is unknown.
+     */
+    public byte getTypeOrdinal() {
+        return type;
+    }
+
+    /**
+     * @return The transaction type, or null if it is unknown.
+     */
+    public TransactionType getType() {
+        return type < 0 ? null : TYPES[type];
+    }
+
+    public int getAmount() {
+        return amount;
+    }
+
+    /**
+     * @return The numeric currency code, or {@link TransactionBatch#INVALID_CODE} if it was not 3 digits.
+     */
+    public short getCurrency() {
+        return currency;
+    }
+
+    /**
+     * @return The {@link TransactionStatus} ordinal, or {@link TransactionBatch#INVALID_CODE} if it is unknown.
+     */
+    public byte getStatusOrdinal() {
+        return status;
+    }
+
+    /**
+     * @return The status, or null if it is unknown.
+     */
+    public TransactionStatus getStatus() {
+        return status < 0 ? null : STATUSES[status];
+    }
+
+    /**
+     * @return The reason the transaction was declined, or null if it was approved or not processed yet.
+     */
+    public DeclineReason getDeclineReason() {
+        return DeclineReason.find(declineReason);
+    }
+
+    /**
+     * @return The version of the validation rules the transaction was processed with (0 if not processed yet).
+     */
+    public long getRulesVersion() {
+        return rulesVersion;
+    }
+
+    /**
+     * Converts this instance into a new {@link Transaction}. Values that could not be parsed are returned as null.
+     *
+     * @return A new transaction with the values and the outcome of this instance.
+     */
+    public Transaction toTransaction() {
+        Transaction transaction = new Transaction(
+                TransactionBatch.formatPan(pan),
+                type < 0 ? null : TYPES[type].name(),
+                amount,
+                currency < 0 ? null : TransactionBatch.formatCurrency(currency),
+                status < 0 ? null : STATUSES[status].getCode()
+        );
+        copyOutcomeTo(transaction);
+        return transaction;
+    }
+
+    /**
+     * Writes the status, decline reason and rules version back into the transaction this instance was parsed from.
+     *
+     * @param transaction The transaction to update.
+     */
+    public void copyOutcomeTo(Transaction transaction) {
+        if (status >= 0) {
+            transaction.setStatus(STATUSES[status].getCode());
+        }
+        transaction.setDeclineReason(getDeclineReason());
+        transaction.setRulesVersion(rulesVersion);
+    }
+
+    /**
+     * @return An immutable copy of this instance.
+     */
+    public TransactionResult toResult() {
+        return new TransactionResult(pan, type, amount, currency, status, declineReason, rulesVersion);
+    }
+
+    @Override
+    public String toString() {
+        return toResult().toString();
+    }
+}
@@ -1,35 +1,234 @@
 package com.transaction.processing.model;
 
+import java.util.Locale;
+
 /**
- * Enum representing supported currencies and their associated metadata.
- * Each currency has a numeric code and a symbol for identification.
+ * Enum representing the currencies of ISO 4217 and their associated metadata.
+ * Each currency has a numeric code, an alphabetic code and the number of minor units (decimal places) its
+ * amounts are given in, e.g. 2 for EUR (1.00 EUR = 100 subunits) and 0 for JPY.
+ * <p>
+ * The codes for precious metals, bond market units, special drawing rights, testing and "no currency"
+ * (XAU, XBA, XDR, XTS, XXX and the like) are not included, as card transactions are never made in them.
+ * Lookups by numeric code go through a dense array indexed by the code, so they take constant time.
  */
 public enum CurrencyCode {
-    EUR("978", "eur"),
-    USD("840", "usd");
+    AED("784", 2),
+    AFN("971", 2),
+    ALL("008", 2),
+    AMD("051", 2),
+    ANG("532", 2),
+    AOA("973", 2),
+    ARS("032", 2),
+    AUD("036", 2),
+    AWG("533", 2),
+    AZN("944", 2),
+    BAM("977", 2),
+    BBD("052", 2),
+    BDT("050", 2),
+    BGN("975", 2),
+    BHD("048", 3),
+    BIF("108", 0),
+    BMD("060", 2),
+    BND("096", 2),
+    BOB("068", 2),
+    BOV("984", 2),
+    BRL("986", 2),
+    BSD("044", 2),
+    BTN("064", 2),
+    BWP("072", 2),
+    BYN("933", 2),
+    BZD("084", 2),
+    CAD("124", 2),
+    CDF("976", 2),
+    CHE("947", 2),
+    CHF("756", 2),
+    CHW("948", 2),
+    CLF("990", 4),
+    CLP("152", 0),
+    CNY("156", 2),
+    COP("170", 2),
+    COU("970", 2),
+    CRC("188", 2),
+    CUC("931", 2),
+    CUP("192", 2),
+    CVE("132", 2),
+    CZK("203", 2),
+    DJF("262", 0),
+    DKK("208", 2),
+    DOP("214", 2),
+    DZD("012", 2),
+    EGP("818", 2),
+    ERN("232", 2),
+    ETB("230", 2),
+    EUR("978", 2),
+    FJD("242", 2),
+    FKP("238", 2),
+    GBP("826", 2),
+    GEL("981", 2),
+    GHS("936", 2),
+    GIP("292", 2),
+    GMD("270", 2),
+    GNF("324", 0),
+    GTQ("320", 2),
+    GYD("328", 2),
+    HKD("344", 2),
+    HNL("340", 2),
+    HTG("332", 2),
+    HUF("348", 2),
+    IDR("360", 2),
+    ILS("376", 2),
+    INR("356", 2),
+    IQD("368", 3),
+    IRR("364", 2),
+    ISK("352", 0),
+    JMD("388", 2),
+    JOD("400", 3),
+    JPY("392", 0),
+    KES("404", 2),
+    KGS("417", 2),
+    KHR("116", 2),
+    KMF("174", 0),
+    KPW("408", 2),
+    KRW("410", 0),
+    KWD("414", 3),
+    KYD("136", 2),
+    KZT("398", 2),
+    LAK("418", 2),
+    LBP("422", 2),
+    LKR("144", 2),
+    LRD("430", 2),
+    LSL("426", 2),
+    LYD("434", 3),
+    MAD("504", 2),
+    MDL("498", 2),
+    MGA("969", 2),
+    MKD("807", 2),
+    MMK("104", 2),
+    MNT("496", 2),
+    MOP("446", 2),
+    MRU("929", 2),
+    MUR("480", 2),
+    MVR("462", 2),
+    MWK("454", 2),
+    MXN("484", 2),
+    MXV("979", 2),
+    MYR("458", 2),
+    MZN("943", 2),
+    NAD("516", 2),
+    NGN("566", 2),
+    NIO("558", 2),
+    NOK("578", 2),
+    NPR("524", 2),
+    NZD("554", 2),
+    OMR("512", 3),
+    PAB("590", 2),
+    PEN("604", 2),
+    PGK("598", 2),
+    PHP("608", 2),
+    PKR("586", 2),
+    PLN("985", 2),
+    PYG("600", 0),
+    QAR("634", 2),
+    RON("946", 2),
+    RSD("941", 2),
+    RUB("643", 2),
+    RWF("646", 0),
+    SAR("682", 2),
+    SBD("090", 2),
+    SCR("690", 2),
+    SDG("938", 2),
+    SEK("752", 2),
+    SGD("702", 2),
+    SHP("654", 2),
+    SLE("925", 2),
+    SOS("706", 2),
+    SRD("968", 2),
+    SSP("728", 2),
+    STN("930", 2),
+    SVC("222", 2),
+    SYP("760", 2),
+    SZL("748", 2),
+    THB("764", 2),
+    TJS("972", 2),
+    TMT("934", 2),
+    TND("788", 3),
+    TOP("776", 2),
+    TRY("949", 2),
+    TTD("780", 2),
+    TWD("901", 2),
+    TZS("834", 2),
+    UAH("980", 2),
+    UGX("800", 0),
+    USD("840", 2),
+    USN("997", 2),
+    UYI("940", 0),
+    UYU("858", 2),
+    UYW("927", 4),
+    UZS("860", 2),
+    VED("926", 2),
+    VES("928", 2),
+    VND("704", 0),
+    VUV("548", 0),
+    WST("882", 2),
+    XAF("950", 0),
+    XCD("951", 2),
+    XOF("952", 0),
+    XPF("953", 0),
+    YER("886", 2),
+    ZAR("710", 2),
+    ZMW("967", 2),
+    ZWG("924", 2),
+    ZWL("932", 2);
+
+    private static final CurrencyCode[] BY_NUMERIC_CODE = new CurrencyCode[1000];
+
+    static {
+        for (CurrencyCode currency : values()) {
+            BY_NUMERIC_CODE[currency.numericValue] = currency;
+        }
+    }
 
     private final String numericCode;
+    private final int numericValue;
     private final String alphaCode;
+    private final int minorUnits;
 
     /**
      * Constructor for initializing a CurrencyCode object with all attributes.
+     * The alphabetic code is the lower-case name of the constant.
      *
      * @param numericCode The currency code in numeric format (978 = EUR, 840 = USD).
-     * @param alphaCode Symbol code for the currency ("EUR", "USD").
+     * @param minorUnits  The number of decimal places of the currency (2 for EUR, 0 for JPY).
      */
-    CurrencyCode(String numericCode, String alphaCode) {
+    CurrencyCode(String numericCode, int minorUnits) {
         this.numericCode = numericCode;
-        this.alphaCode = alphaCode;
+        this.numericValue = Integer.parseInt(numericCode);
+        this.alphaCode = name().toLowerCase(Locale.ROOT);
+        this.minorUnits = minorUnits;
     }
 
     public String getNumericCode() {
         return numericCode;
     }
 
+    /**
+     * @return The numeric code as a number (978 = EUR, 840 = USD).
+     */
+    public int getNumericValue() {
+        return numericValue;
+    }
+
     public String getAlphaCode() {
         return alphaCode;
     }
 
+    /**
+     * @return The number of decimal places of the currency: amounts are given in units of 10^-minorUnits.
+     */
+    public int getMinorUnits() {
+        return minorUnits;
+    }
+
     /**
      * Finds the corresponding CurrencyCode for the given numeric currency code.
      *
@@ -38,11 +237,39 @@ public enum CurrencyCode {
      * @throws IllegalArgumentException If no matching currency code is found.
      */
     public static CurrencyCode fromNumericCode(String numericCode) {
-        for (CurrencyCode currency : values()) {
-            if (currency.getNumericCode().equals(numericCode)) {
-                return currency;
+        CurrencyCode currency = find(numericCode);
+        if (currency == null) {
+            throw new IllegalArgumentException("Invalid currency code: " + numericCode);
+        }
+        return currency;
+    }
+
+    /**
+     * Finds the corresponding CurrencyCode for the given numeric currency code without throwing.
+     *
+     * @param numericCode The currency code in numeric format (978 = EUR, 840 = USD).
+     * @return The matching CurrencyCode, or null if the code is not three digits or unknown.
+     */
+    public static CurrencyCode find(String numericCode) {
+        if (numericCode == null || numericCode.length() != 3) {
+            return null;
+        }
+        int code = 0;
+        for (int i = 0; i < 3; i++) {
+            int digit = numericCode.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return null;
             }
+            code = code * 10 + digit;
         }
-        throw new IllegalArgumentException("Invalid currency code: " + numericCode);
+        return BY_NUMERIC_CODE[code];
+    }
+
+    /**
+     * @param numericCode The currency code as a number (978 = EUR, 840 = USD).
+     * @return The matching CurrencyCode, or null if the code is unknown.
+     */
+    public static CurrencyCode find(int numericCode) {
+        return numericCode >= 0 && numericCode < BY_NUMERIC_CODE.length ? BY_NUMERIC_CODE[numericCode] : null;
     }
 }
@@ -0,0 +1,54 @@
+package com.transaction.processing.model;
+
+/**
+ * Enum representing the reasons a transaction can be declined.
+ * Each reason has a unique numeric code and the message used when the decline is logged.
+ */
+public enum DeclineReason {
+    INACTIVE_STATUS(1, "Transaction status is not active"),
+    INVALID_TYPE(2, "Invalid transaction type"),
+    INVALID_CURRENCY(3, "Invalid currency code"),
+    INVALID_PAN(4, "Invalid PAN for type"),
+    AMOUNT_EXCEEDS_LIMIT(5, "Transaction amount exceeds limit"),
+    VELOCITY_LIMIT_EXCEEDED(6, "Velocity limit for card exceeded");
+
+    private static final DeclineReason[] BY_CODE = new DeclineReason[values().length + 1];
+
+    static {
+        for (DeclineReason reason : values()) {
+            BY_CODE[reason.code] = reason;
+        }
+    }
+
+    private final int code;
+    private final String message;
+
+    /**
+     * Constructor for initializing a DeclineReason object with all attributes.
+     *
+     * @param code    The numeric code of the reason (1 - 6); 0 is reserved for "not declined".
+     * @param message The message logged for a transaction declined for this reason.
+     */
+    DeclineReason(int code, String message) {
+        this.code = code;
+        this.message = message;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Finds the corresponding DeclineReason for the given numeric code without throwing.
+     *
+     * @param code The numeric code of the reason.
+     * @return The matching DeclineReason, or null if the code is 0 or unknown.
+     */
+    public static DeclineReason find(int code) {
+        return code > 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+}
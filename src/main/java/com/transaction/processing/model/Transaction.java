@@ -15,6 +15,8 @@ public class Transaction {
     private final int amount;
     private final String currency;
     private String status;
+    private long rulesVersion;
+    private DeclineReason declineReason;
 
     /**
      * Constructor for initializing a Transaction object with all attributes.
@@ -57,6 +59,28 @@ public class Transaction {
         this.status = status;
     }
 
+    /**
+     * @return The version of the validation rules the transaction was processed with (0 if not processed yet).
+     */
+    public long getRulesVersion() {
+        return rulesVersion;
+    }
+
+    public void setRulesVersion(long rulesVersion) {
+        this.rulesVersion = rulesVersion;
+    }
+
+    /**
+     * @return The reason the transaction was declined, or null if it was approved or not processed yet.
+     */
+    public DeclineReason getDeclineReason() {
+        return declineReason;
+    }
+
+    public void setDeclineReason(DeclineReason declineReason) {
+        this.declineReason = declineReason;
+    }
+
     @Override
     public String toString() {
         return "Transaction{" +
@@ -0,0 +1,249 @@
+package com.transaction.processing.model;
+
+import com.transaction.processing.util.PANParser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Columnar, primitive-only representation of many transactions.
+ * Instead of one object with four strings per transaction, every attribute is stored in its own array:
+ * <ul>
+ *   <li>{@code pans} - the PAN as a number, {@link #INVALID_PAN} if it was not 16 digits.</li>
+ *   <li>{@code types} - the {@link TransactionType} ordinal, {@link #INVALID_CODE} if unknown.</li>
+ *   <li>{@code amounts} - the amount in subunits.</li>
+ *   <li>{@code currencies} - the numeric currency code, {@link #INVALID_CODE} if it was not 3 digits.</li>
+ *   <li>{@code statuses} - the {@link TransactionStatus} ordinal, {@link #INVALID_CODE} if unknown.</li>
+ * </ul>
+ * Bulk jobs can validate such a batch column by column in tight loops over primitive arrays.
+ */
+public class TransactionBatch {
+    /** Value of the PAN column for PANs that are not 16 digits. */
+    public static final long INVALID_PAN = PANParser.INVALID;
+    /** Value of the type, currency and status columns for codes that could not be parsed. */
+    public static final byte INVALID_CODE = -1;
+
+    private static final TransactionType[] TYPES = TransactionType.values();
+    private static final TransactionStatus[] STATUSES = TransactionStatus.values();
+
+    private long[] pans;
+    private byte[] types;
+    private int[] amounts;
+    private short[] currencies;
+    private byte[] statuses;
+    private int size;
+
+    /**
+     * Constructor for an empty batch.
+     *
+     * @param capacity The number of transactions the batch can hold before its columns grow.
+     */
+    public TransactionBatch(int capacity) {
+        pans = new long[capacity];
+        types = new byte[capacity];
+        amounts = new int[capacity];
+        currencies = new short[capacity];
+        statuses = new byte[capacity];
+    }
+
+    /**
+     * Converts transactions into a columnar batch.
+     *
+     * @param transactions The transactions to convert.
+     * @return A batch with one row per transaction, in the same order.
+     */
+    public static TransactionBatch from(List<Transaction> transactions) {
+        TransactionBatch batch = new TransactionBatch(transactions.size());
+        for (Transaction transaction : transactions) {
+            batch.add(transaction);
+        }
+        return batch;
+    }
+
+    /**
+     * Appends a transaction, parsing its string fields into the primitive columns.
+     *
+     * @param transaction The transaction to append.
+     * @return The row index of the transaction.
+     */
+    public int add(Transaction transaction) {
+        return add(PANParser.parse(transaction.getPan()), typeOrdinal(transaction.getType()), transaction.getAmount(),
+                parseCurrency(transaction.getCurrency()), statusOrdinal(transaction.getStatus()));
+    }
+
+    /**
+     * Appends a transaction given as already parsed column values.
+     *
+     * @return The row index of the transaction.
+     */
+    public int add(long pan, byte type, int amount, short currency, byte status) {
+        if (size == pans.length) {
+            grow();
+        }
+        pans[size] = pan;
+        types[size] = type;
+        amounts[size] = amount;
+        currencies[size] = currency;
+        statuses[size] = status;
+        return size++;
+    }
+
+    /**
+     * Converts a row back into a {@link Transaction}. Values that could not be parsed when the row was
+     * added are returned as null.
+     *
+     * @param index The row index.
+     * @return A new transaction with the values of the row.
+     */
+    public Transaction toTransaction(int index) {
+        checkIndex(index);
+        return new Transaction(
+                formatPan(pans[index]),
+                types[index] < 0 ? null : TYPES[types[index]].name(),
+                amounts[index],
+                currencies[index] < 0 ? null : formatCurrency(currencies[index]),
+                statuses[index] < 0 ? null : STATUSES[statuses[index]].getCode()
+        );
+    }
+
+    /**
+     * @return Every row converted into a {@link Transaction}, see {@link #toTransaction(int)}.
+     */
+    public List<Transaction> toTransactions() {
+        List<Transaction> transactions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            transactions.add(toTransaction(i));
+        }
+        return transactions;
+    }
+
+    /**
+     * Writes the status column back into the transactions the batch was created from.
+     *
+     * @param transactions The transactions, in the order they were added.
+     */
+    public void copyStatusesTo(List<Transaction> transactions) {
+        if (transactions.size() != size) {
+            throw new IllegalArgumentException("Expected " + size + " transactions, got " + transactions.size());
+        }
+        for (int i = 0; i < size; i++) {
+            if (statuses[i] >= 0) {
+                transactions.get(i).setStatus(STATUSES[statuses[i]].getCode());
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes all rows but keeps the allocated columns for reuse.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return The PAN column; only the first {@link #size()} entries are valid.
+     */
+    public long[] pans() {
+        return pans;
+    }
+
+    /**
+     * @return The transaction type column; only the first {@link #size()} entries are valid.
+     */
+    public byte[] types() {
+        return types;
+    }
+
+    /**
+     * @return The amount column; only the first {@link #size()} entries are valid.
+     */
+    public int[] amounts() {
+        return amounts;
+    }
+
+    /**
+     * @return The currency column; only the first {@link #size()} entries are valid.
+     */
+    public short[] currencies() {
+        return currencies;
+    }
+
+    /**
+     * @return The status column; only the first {@link #size()} entries are valid.
+     */
+    public byte[] statuses() {
+        return statuses;
+    }
+
+    /**
+     * @return The {@link TransactionType} ordinal for a type name, or {@link #INVALID_CODE} if it is unknown.
+     */
+    public static byte typeOrdinal(String type) {
+        TransactionType found = TransactionType.find(type);
+        return found == null ? INVALID_CODE : (byte) found.ordinal();
+    }
+
+    /**
+     * @return The {@link TransactionStatus} ordinal for a status code, or {@link #INVALID_CODE} if it is unknown.
+     */
+    public static byte statusOrdinal(String code) {
+        TransactionStatus found = TransactionStatus.find(code);
+        return found == null ? INVALID_CODE : (byte) found.ordinal();
+    }
+
+    /**
+     * @return The numeric value of a 3 digit currency code, or {@link #INVALID_CODE} if it is not 3 digits.
+     */
+    public static short parseCurrency(String numericCode) {
+        if (numericCode == null || numericCode.length() != 3) {
+            return INVALID_CODE;
+        }
+        int code = 0;
+        for (int i = 0; i < 3; i++) {
+            int digit = numericCode.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return INVALID_CODE;
+            }
+            code = code * 10 + digit;
+        }
+        return (short) code;
+    }
+
+    static String formatPan(long pan) {
+        if (pan < 0) {
+            return null;
+        }
+        char[] digits = new char[16];
+        long remaining = pan;
+        for (int i = 15; i >= 0; i--) {
+            digits[i] = (char) ('0' + remaining % 10);
+            remaining /= 10;
+        }
+        return new String(digits);
+    }
+
+    static String formatCurrency(short code) {
+        return new String(new char[]{
+                (char) ('0' + code / 100), (char) ('0' + code / 10 % 10), (char) ('0' + code % 10)});
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Row " + index + " of batch with " + size + " rows");
+        }
+    }
+
+    private void grow() {
+        int capacity = Math.max(16, pans.length * 2);
+        pans = Arrays.copyOf(pans, capacity);
+        types = Arrays.copyOf(types, capacity);
+        amounts = Arrays.copyOf(amounts, capacity);
+        currencies = Arrays.copyOf(currencies, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+    }
+}
@@ -0,0 +1,144 @@
+package com.transaction.processing.model;
+
+import java.util.Objects;
+
+/**
+ * Immutable, compact snapshot of a transaction and its outcome, with the same primitive encoding as
+ * {@link CompactTransaction}. Results are value objects: two results with the same fields are equal, so they can be
+ * shared between threads, queued or used as map keys without copying.
+ */
+public final class TransactionResult {
+    private static final TransactionType[] TYPES = TransactionType.values();
+    private static final TransactionStatus[] STATUSES = TransactionStatus.values();
+
+    private final long pan;
+    private final byte type;
+    private final int amount;
+    private final short currency;
+    private final byte status;
+    private final byte declineReason;
+    private final long rulesVersion;
+
+    /**
+     * Constructor for initializing a TransactionResult object with all attributes.
+     *
+     * @param pan           The PAN as a number, or {@link TransactionBatch#INVALID_PAN}.
+     * @param type          The {@link TransactionType} ordinal, or {@link TransactionBatch#INVALID_CODE}.
+     * @param amount        The amount in subunits.
+     * @param currency      The numeric currency code, or {@link TransactionBatch#INVALID_CODE}.
+     * @param status        The {@link TransactionStatus} ordinal, or {@link TransactionBatch#INVALID_CODE}.
+     * @param declineReason The {@link DeclineReason} code, 0 if the transaction was not declined.
+     * @param rulesVersion  The version of the validation rules the transaction was processed with.
+     */
+    TransactionResult(long pan, byte type, int amount, short currency, byte status, byte declineReason,
+                      long rulesVersion) {
+        this.pan = pan;
+        this.type = type;
+        this.amount = amount;
+        this.currency = currency;
+        this.status = status;
+        this.declineReason = declineReason;
+        this.rulesVersion = rulesVersion;
+    }
+
+    /**
+     * Parses a transaction into a result.
+     *
+     * @param transaction The transaction to parse.
+     * @return A result with the values and the outcome of the transaction.
+     */
+    public static TransactionResult of(Transaction transaction) {
+        return CompactTransaction.from(transaction).toResult();
+    }
+
+    /**
+     * @return The PAN as a number, or {@link TransactionBatch#INVALID_PAN} if it was not 16 digits.
+     */
+    public long getPan() {
+        return pan;
+    }
+
+    /**
+     * @return The transaction type, or null if it is unknown.
+     */
+    public TransactionType getType() {
+        return type < 0 ? null : TYPES[type];
+    }
+
+    public int getAmount() {
+        return amount;
+    }
+
+    /**
+     * @return The numeric currency code, or {@link TransactionBatch#INVALID_CODE} if it was not 3 digits.
+     */
+    public short getCurrency() {
+        return currency;
+    }
+
+    /**
+     * @return The status, or null if it is unknown.
+     */
+    public TransactionStatus getStatus() {
+        return status < 0 ? null : STATUSES[status];
+    }
+
+    /**
+     * @return The reason the transaction was declined, or null if it was approved or not processed yet.
+     */
+    public DeclineReason getDeclineReason() {
+        return DeclineReason.find(declineReason);
+    }
+
+    public long getRulesVersion() {
+        return rulesVersion;
+    }
+
+    /**
+     * @return A new compact transaction with the values of this result, e.g. to process it again.
+     */
+    public CompactTransaction toCompact() {
+        return new CompactTransaction().set(pan, type, amount, currency, status).restore(declineReason, rulesVersion);
+    }
+
+    /**
+     * Converts this result into a new {@link Transaction}. Values that could not be parsed are returned as null.
+     *
+     * @return A new transaction with the values and the outcome of this result.
+     */
+    public Transaction toTransaction() {
+        return toCompact().toTransaction();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TransactionResult)) {
+            return false;
+        }
+        TransactionResult other = (TransactionResult) o;
+        return pan == other.pan && type == other.type && amount == other.amount && currency == other.currency
+                && status == other.status && declineReason == other.declineReason
+                && rulesVersion == other.rulesVersion;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(pan, type, amount, currency, status, declineReason, rulesVersion);
+    }
+
+    @Override
+    public String toString() {
+        return "TransactionResult{" +
+                "pan=" + pan +
+                ", type=" + getType() +
+                ", amount=" + amount +
+                ", currency=" + currency +
+                ", status=" + getStatus() +
+                ", declineReason=" + getDeclineReason() +
+                ", rulesVersion=" + rulesVersion +
+                '}';
+    }
+}
@@ -9,6 +9,14 @@ public enum TransactionStatus {
     APPROVED("01"),
     DECLINED("02");
 
+    private static final TransactionStatus[] BY_CODE = new TransactionStatus[100];
+
+    static {
+        for (TransactionStatus status : values()) {
+            BY_CODE[Integer.parseInt(status.code)] = status;
+        }
+    }
+
     private final String code;
 
     /**
@@ -32,11 +40,28 @@ public enum TransactionStatus {
      * @throws IllegalArgumentException If no matching status code is found.
      */
     public static TransactionStatus fromCode(String code) {
-        for (TransactionStatus status : values()) {
-            if (status.getCode().equals(code)) {
-                return status;
-            }
+        TransactionStatus status = find(code);
+        if (status == null) {
+            throw new IllegalArgumentException("Invalid transaction status code: " + code);
+        }
+        return status;
+    }
+
+    /**
+     * Finds the corresponding TransactionStatus for the given status code without throwing.
+     *
+     * @param code The status of the transaction (00 = Active, 01 = Approved, 02 = Declined).
+     * @return The matching TransactionStatus, or null if the code is not two digits or unknown.
+     */
+    public static TransactionStatus find(String code) {
+        if (code == null || code.length() != 2) {
+            return null;
+        }
+        int tens = code.charAt(0) - '0';
+        int ones = code.charAt(1) - '0';
+        if (tens < 0 || tens > 9 || ones < 0 || ones > 9) {
+            return null;
         }
-        throw new IllegalArgumentException("Invalid transaction status code: " + code);
+        return BY_CODE[tens * 10 + ones];
     }
 }
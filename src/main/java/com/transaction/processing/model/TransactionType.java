@@ -1,5 +1,8 @@
 package com.transaction.processing.model;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Enum representing transaction types and their associated metadata.
  * Each type has a unique code and a maximum allowed transaction amount.
@@ -9,7 +12,18 @@ public enum TransactionType {
     BRW("02", 10000),
     TRI("03", 2000);
 
+    private static final Map<String, TransactionType> BY_NAME = new HashMap<>();
+    private static final TransactionType[] BY_NUMERIC_CODE = new TransactionType[100];
+
+    static {
+        for (TransactionType type : values()) {
+            BY_NAME.put(type.name(), type);
+            BY_NUMERIC_CODE[type.numericValue] = type;
+        }
+    }
+
     private final String code;
+    private final int numericValue;
     private final int maxAmount;
 
     /**
@@ -20,6 +34,7 @@ public enum TransactionType {
      */
     TransactionType(String code, int maxAmount) {
         this.code = code;
+        this.numericValue = Integer.parseInt(code);
         this.maxAmount = maxAmount;
     }
 
@@ -27,6 +42,14 @@ public enum TransactionType {
         return code;
     }
 
+    /**
+     * @return The numeric code as a number (1 = APP, 2 = BRW, 3 = TRI), which unlike the ordinal never changes
+     * when types are added or reordered, so it can be stored.
+     */
+    public int getNumericValue() {
+        return numericValue;
+    }
+
     public int getMaxAmount() {
         return maxAmount;
     }
@@ -39,11 +62,28 @@ public enum TransactionType {
      * @throws IllegalArgumentException If no matching transaction type is found.
      */
     public static TransactionType fromCode(String code) {
-        for (TransactionType type : values()) {
-            if (type.name().equals(code)) {
-                return type;
-            }
+        TransactionType type = find(code);
+        if (type == null) {
+            throw new IllegalArgumentException("Invalid transaction type code: " + code);
         }
-        throw new IllegalArgumentException("Invalid transaction type code: " + code);
+        return type;
+    }
+
+    /**
+     * Finds the corresponding TransactionType for a given code without throwing.
+     *
+     * @param code The type of the transaction (APP, BRW, 3RI).
+     * @return The matching TransactionType, or null if the code is unknown.
+     */
+    public static TransactionType find(String code) {
+        return code == null ? null : BY_NAME.get(code);
+    }
+
+    /**
+     * @param numericCode The numeric code as a number, see {@link #getNumericValue()}.
+     * @return The matching TransactionType, or null if the code is unknown.
+     */
+    public static TransactionType find(int numericCode) {
+        return numericCode >= 0 && numericCode < BY_NUMERIC_CODE.length ? BY_NUMERIC_CODE[numericCode] : null;
     }
 }
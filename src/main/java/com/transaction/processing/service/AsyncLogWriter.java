@@ -0,0 +1,360 @@
+package com.transaction.processing.service;
+
+import com.transaction.processing.util.BoundedRingBuffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Log sink that keeps the log file open and writes entries asynchronously (group commit).
+ * <ul>
+ *   <li>Producer threads only place entries in a bounded lock-free ring buffer.</li>
+ *   <li>A dedicated writer thread drains up to {@code batchSize} entries at a time and writes them
+ *       to the file with a single channel write.</li>
+ *   <li>If fewer than {@code batchSize} entries are queued, the writer waits at most the flush interval
+ *       before writing what it has.</li>
+ *   <li>When the buffer is full, the {@link OverflowPolicy} decides what happens to new entries.</li>
+ *   <li>Once the writer is closed, new entries are rejected with an {@link IOException}; every entry accepted
+ *       before is written.</li>
+ * </ul>
+ */
+public class AsyncLogWriter implements LogSink {
+    /**
+     * Behaviour of {@link #write(CharSequence)} when the ring buffer is full.
+     */
+    public enum OverflowPolicy {
+        /** The caller waits until the writer thread has made room. */
+        BLOCK,
+        /** The entry is discarded and counted in {@link #getDroppedCount()}. */
+        DROP,
+        /** The caller writes the entry to the file itself. */
+        CALLER_RUNS
+    }
+
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final BoundedRingBuffer<String> queue;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final OverflowPolicy overflowPolicy;
+    private final FileChannel channel;
+    private final ReentrantLock ioLock = new ReentrantLock();
+    private final StringBuilder batch = new StringBuilder(4096);
+    private final Consumer<String> appendToBatch = line -> batch.append(line).append(System.lineSeparator());
+    private final ByteBuffer byteBuffer = ByteBuffer.allocateDirect(64 * 1024);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final AtomicInteger producers = new AtomicInteger();
+    private final Thread writerThread;
+    private volatile boolean running = true;
+    private volatile boolean closed;
+
+    private AsyncLogWriter(Builder builder) throws IOException {
+        this.queue = new BoundedRingBuffer<>(builder.capacity);
+        this.batchSize = builder.batchSize;
+        this.flushIntervalNanos = builder.flushIntervalNanos;
+        this.overflowPolicy = builder.overflowPolicy;
+        this.channel = FileChannel.open(builder.file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.writerThread = new Thread(this::runWriter, builder.threadName);
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Creates a builder for a writer appending to the given file.
+     *
+     * @param file The log file, created if it does not exist.
+     * @return A builder with default settings.
+     */
+    public static Builder builder(Path file) {
+        return new Builder(file);
+    }
+
+    /**
+     * Convenience factory for a writer with default settings appending to the given file.
+     *
+     * @param fileName The log file name.
+     * @return The started writer.
+     * @throws IOException If the log file could not be opened.
+     */
+    public static AsyncLogWriter open(String fileName) throws IOException {
+        return builder(Paths.get(fileName)).build();
+    }
+
+    /**
+     * Queues a log entry for the writer thread.
+     *
+     * @param entry The complete log entry without a trailing line separator.
+     * @throws IOException If the writer is closed, or the overflow policy is {@link OverflowPolicy#CALLER_RUNS}
+     *                     and the direct write fails.
+     */
+    @Override
+    public void write(CharSequence entry) throws IOException {
+        String line = entry.toString();
+        // Registering before checking the flag lets close() wait for every producer that saw the writer open,
+        // so no entry is queued after the last drain
+        producers.incrementAndGet();
+        try {
+            if (closed) {
+                throw new IOException("Log sink is closed");
+            }
+            enqueue(line);
+        } finally {
+            producers.decrementAndGet();
+        }
+    }
+
+    private void enqueue(String line) throws IOException {
+        if (queue.offer(line)) {
+            if (queue.size() >= batchSize) {
+                LockSupport.unpark(writerThread);
+            }
+            return;
+        }
+        switch (overflowPolicy) {
+            case DROP:
+                dropped.increment();
+                break;
+            case CALLER_RUNS:
+                writeDirect(line);
+                break;
+            default:
+                while (!queue.offer(line)) {
+                    if (closed) {
+                        throw new IOException("Log sink is closed");
+                    }
+                    LockSupport.unpark(writerThread);
+                    LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+                }
+        }
+    }
+
+    /**
+     * Wakes up the writer thread so queued entries are written without waiting for the flush interval.
+     */
+    @Override
+    public void flush() {
+        LockSupport.unpark(writerThread);
+    }
+
+    /**
+     * Stops accepting entries, drains everything still queued to the file and closes it.
+     *
+     * @throws IOException If the file could not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        // The writer thread keeps draining, so producers waiting for room finish as well
+        while (producers.get() != 0) {
+            Thread.yield();
+        }
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        ioLock.lock();
+        try {
+            // Entries queued while the writer was finishing its last batch
+            while (writeBatch() > 0) {
+                // keep draining
+            }
+            channel.close();
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    private void runWriter() {
+        while (running || !queue.isEmpty()) {
+            int count;
+            ioLock.lock();
+            try {
+                count = writeBatch();
+            } finally {
+                ioLock.unlock();
+            }
+            if (count < batchSize && running) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+        }
+    }
+
+    /**
+     * Drains up to one batch from the queue and writes it to the file. Must be called while holding {@code ioLock}.
+     *
+     * @return The number of entries written.
+     */
+    private int writeBatch() {
+        batch.setLength(0);
+        int count = queue.drainTo(appendToBatch, batchSize);
+        if (count == 0) {
+            return 0;
+        }
+        try {
+            encodeAndWrite(CharBuffer.wrap(batch));
+            written.add(count);
+            batches.increment();
+        } catch (IOException e) {
+            dropped.add(count);
+            System.err.println("Failed to write to log file: " + e.getMessage());
+        }
+        return count;
+    }
+
+    private void writeDirect(String line) throws IOException {
+        ioLock.lock();
+        try {
+            if (!channel.isOpen()) {
+                dropped.increment();
+                return;
+            }
+            encodeAndWrite(CharBuffer.wrap(line + System.lineSeparator()));
+            written.increment();
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
+    private void encodeAndWrite(CharBuffer chars) throws IOException {
+        encoder.reset();
+        byteBuffer.clear();
+        CoderResult result;
+        do {
+            result = encoder.encode(chars, byteBuffer, true);
+            if (result.isError()) {
+                result.throwException();
+            }
+            drainByteBuffer();
+        } while (result.isOverflow());
+        do {
+            result = encoder.flush(byteBuffer);
+            drainByteBuffer();
+        } while (result.isOverflow());
+    }
+
+    private void drainByteBuffer() throws IOException {
+        byteBuffer.flip();
+        while (byteBuffer.hasRemaining()) {
+            channel.write(byteBuffer);
+        }
+        byteBuffer.clear();
+    }
+
+    /**
+     * Builder for {@link AsyncLogWriter} instances.
+     */
+    public static class Builder {
+        private final Path file;
+        private int capacity = 8192;
+        private int batchSize = 256;
+        private long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(10);
+        private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+        private String threadName = "transaction-log-writer";
+
+        private Builder(Path file) {
+            this.file = file;
+        }
+
+        /**
+         * @param capacity Number of entries the ring buffer can hold, must be a power of two (default 8192).
+         * @return This builder.
+         */
+        public Builder capacity(int capacity) {
+            this.capacity = capacity;
+            return this;
+        }
+
+        /**
+         * @param batchSize Maximum number of entries written per channel write (default 256).
+         * @return This builder.
+         */
+        public Builder batchSize(int batchSize) {
+            if (batchSize <= 0) {
+                throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+            }
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * @param interval Maximum time an entry waits in the queue before being written (default 10 ms).
+         * @param unit     The unit of the interval.
+         * @return This builder.
+         */
+        public Builder flushInterval(long interval, TimeUnit unit) {
+            if (interval <= 0) {
+                throw new IllegalArgumentException("Flush interval must be positive: " + interval);
+            }
+            this.flushIntervalNanos = unit.toNanos(interval);
+            return this;
+        }
+
+        /**
+         * @param overflowPolicy What to do with new entries when the ring buffer is full (default BLOCK).
+         * @return This builder.
+         */
+        public Builder overflowPolicy(OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+            return this;
+        }
+
+        /**
+         * @param threadName Name of the writer thread.
+         * @return This builder.
+         */
+        public Builder threadName(String threadName) {
+            this.threadName = threadName;
+            return this;
+        }
+
+        /**
+         * Opens the log file and starts the writer thread.
+         *
+         * @return The started writer.
+         * @throws IOException If the log file could not be opened.
+         */
+        public AsyncLogWriter build() throws IOException {
+            return new AsyncLogWriter(this);
+        }
+    }
+}
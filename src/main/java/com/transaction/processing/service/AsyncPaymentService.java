@@ -0,0 +1,137 @@
+package com.transaction.processing.service;
+
+import com.transaction.processing.model.Transaction;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous front-end for {@link PaymentService}.
+ * Every submitted transaction is processed on its own virtual thread when the JVM supports them
+ * (Java 21+), otherwise on a bounded pool of platform threads. At most {@code maxConcurrency}
+ * transactions are processed at the same time; further submissions wait for a permit without
+ * blocking the submitting thread.
+ * <p>
+ * {@link AsyncLogWriter} and {@link MappedLogSink} guard their file I/O with
+ * {@link java.util.concurrent.locks.ReentrantLock}s instead of {@code synchronized} blocks, so a virtual
+ * thread waiting for the log does not pin its carrier thread. With an {@link AsyncLogWriter} the file
+ * writes are moved off the processing threads entirely, which is the recommended setup for this service.
+ */
+public class AsyncPaymentService implements AutoCloseable {
+    private final PaymentService paymentService;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final int maxConcurrency;
+    private final boolean virtualThreads;
+
+    /**
+     * Constructor for initializing an AsyncPaymentService object with all attributes.
+     *
+     * @param paymentService The service that processes the submitted transactions.
+     * @param maxConcurrency Maximum number of transactions processed at the same time.
+     */
+    public AsyncPaymentService(PaymentService paymentService, int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Max concurrency must be positive: " + maxConcurrency);
+        }
+        this.paymentService = paymentService;
+        this.maxConcurrency = maxConcurrency;
+        this.permits = new Semaphore(maxConcurrency);
+        ExecutorService virtualThreadExecutor = newVirtualThreadExecutor();
+        this.virtualThreads = virtualThreadExecutor != null;
+        this.executor = virtualThreads ? virtualThreadExecutor : newPlatformThreadExecutor(maxConcurrency);
+    }
+
+    /**
+     * Submits a transaction for asynchronous processing.
+     *
+     * @param transaction The transaction to process.
+     * @return A future completed with the processed transaction, or exceptionally if processing failed
+     *         or the service has been closed.
+     */
+    public CompletableFuture<Transaction> submit(Transaction transaction) {
+        CompletableFuture<Transaction> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> run(transaction, result));
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * @return True if transactions run on virtual threads, false if the platform thread fallback is used.
+     */
+    public boolean isUsingVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Stops accepting new transactions and waits for the submitted ones to finish.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                // keep waiting for in-flight transactions
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run(Transaction transaction, CompletableFuture<Transaction> result) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.completeExceptionally(e);
+            return;
+        }
+        try {
+            result.complete(paymentService.process(transaction));
+        } catch (Throwable t) {
+            result.completeExceptionally(t);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Creates a virtual-thread-per-task executor through reflection, so the class still runs on Java 8-20.
+     *
+     * @return The executor, or null if the running JVM has no (enabled) virtual threads.
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService newPlatformThreadExecutor(int maxConcurrency) {
+        int threads = Math.min(maxConcurrency, Runtime.getRuntime().availableProcessors() * 8);
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "payment-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newFixedThreadPool(threads, threadFactory);
+    }
+}
@@ -0,0 +1,75 @@
+package com.transaction.processing.service;
+
+import com.transaction.processing.model.Transaction;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Result of processing a batch of transactions with {@link PaymentService#processBatch(List)}.
+ * Contains the processed transactions in input order together with statistics about the batch.
+ */
+public class BatchResult {
+    private final List<Transaction> transactions;
+    private final int approvedCount;
+    private final int declinedCount;
+    private final long elapsedNanos;
+    private final boolean parallel;
+
+    /**
+     * Constructor for initializing a BatchResult object with all attributes.
+     *
+     * @param transactions  The processed transactions in input order.
+     * @param approvedCount Number of approved transactions.
+     * @param declinedCount Number of declined transactions.
+     * @param elapsedNanos  Wall-clock time spent processing the batch.
+     * @param parallel      Whether the batch was split across the fork-join pool.
+     */
+    public BatchResult(List<Transaction> transactions, int approvedCount, int declinedCount,
+                       long elapsedNanos, boolean parallel) {
+        this.transactions = transactions;
+        this.approvedCount = approvedCount;
+        this.declinedCount = declinedCount;
+        this.elapsedNanos = elapsedNanos;
+        this.parallel = parallel;
+    }
+
+    public List<Transaction> getTransactions() {
+        return transactions;
+    }
+
+    public int getApprovedCount() {
+        return approvedCount;
+    }
+
+    public int getDeclinedCount() {
+        return declinedCount;
+    }
+
+    public int size() {
+        return transactions.size();
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult{" +
+                "size=" + size() +
+                ", approvedCount=" + approvedCount +
+                ", declinedCount=" + declinedCount +
+                ", elapsedMillis=" + getElapsedMillis() +
+                ", parallel=" + parallel +
+                '}';
+    }
+}
@@ -0,0 +1,229 @@
+package com.transaction.processing.service;
+
+import com.transaction.processing.model.CompactTransaction;
+import com.transaction.processing.model.DeclineReason;
+import com.transaction.processing.model.TransactionBatch;
+import com.transaction.processing.model.TransactionStatus;
+import com.transaction.processing.model.TransactionType;
+import com.transaction.processing.util.FxRateTable;
+import com.transaction.processing.util.PANParser;
+import com.transaction.processing.util.PANRangeTable;
+
+import java.util.Arrays;
+
+/**
+ * Applies the {@link PaymentService} validation rules to a columnar {@link TransactionBatch}.
+ * Each {@link ValidationCheck} is evaluated for the whole batch in its own loop over one or two primitive
+ * columns, which keeps the loops short and branch-light so the JIT can unroll and vectorize them. The checks
+ * run in the order configured in the rules; the first check a row fails is recorded as its
+ * {@link DeclineReason} code and later checks skip that row, so the result is the same as validating each
+ * transaction on its own.
+ * <p>
+ * Single transactions that were parsed once into a {@link CompactTransaction} are validated with the same rules
+ * by {@link #validate(CompactTransaction)}, without touching strings or allocating.
+ * <p>
+ * Unlike {@link PaymentService#process}, the batch validator does not log; callers that need the log
+ * entries can convert the rows back with {@link TransactionBatch#toTransactions()}.
+ */
+public class BatchValidator {
+    /** Failed-check value of a row that passed every check; other values are {@link DeclineReason} codes. */
+    public static final byte PASSED = 0;
+
+    private static final byte INACTIVE_STATUS = (byte) DeclineReason.INACTIVE_STATUS.getCode();
+    private static final byte INVALID_TYPE = (byte) DeclineReason.INVALID_TYPE.getCode();
+    private static final byte INVALID_CURRENCY = (byte) DeclineReason.INVALID_CURRENCY.getCode();
+    private static final byte INVALID_PAN = (byte) DeclineReason.INVALID_PAN.getCode();
+    private static final byte AMOUNT_EXCEEDS_LIMIT = (byte) DeclineReason.AMOUNT_EXCEEDS_LIMIT.getCode();
+    private static final byte ACTIVE = (byte) TransactionStatus.ACTIVE.ordinal();
+    private static final byte APPROVED = (byte) TransactionStatus.APPROVED.ordinal();
+    private static final byte DECLINED = (byte) TransactionStatus.DECLINED.ordinal();
+    private static final TransactionType[] TYPES = TransactionType.values();
+
+    private final RulesRepository rules;
+
+    /**
+     * Constructor for a validator using the default validation rules.
+     */
+    public BatchValidator() {
+        this(new RulesRepository());
+    }
+
+    /**
+     * Constructor for initializing a BatchValidator object with all attributes.
+     *
+     * @param rules The repository holding the current validation rules.
+     */
+    public BatchValidator(RulesRepository rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * Validates every row of the batch and sets its status to Approved or Declined.
+     *
+     * @param batch        The batch to validate; its status column is updated in place.
+     * @param failedChecks Receives the {@link DeclineReason} code per row ({@link #PASSED} if approved); may be null.
+     *                     Must hold at least {@code batch.size()} entries when given.
+     * @return The number of approved rows.
+     */
+    public int validate(TransactionBatch batch, byte[] failedChecks) {
+        int size = batch.size();
+        byte[] failed = failedChecks != null ? failedChecks : new byte[size];
+        if (failed.length < size) {
+            throw new IllegalArgumentException("Failed check array holds " + failed.length + " rows, batch has " + size);
+        }
+        ValidationRules snapshot = rules.current();
+        byte[] statuses = batch.statuses();
+        byte[] types = batch.types();
+        short[] currencies = batch.currencies();
+        long[] pans = batch.pans();
+        int[] amounts = batch.amounts();
+
+        Arrays.fill(failed, 0, size, PASSED);
+        for (ValidationCheck check : snapshot.checks()) {
+            switch (check) {
+                case STATUS:
+                    checkStatus(statuses, failed, size);
+                    break;
+                case TYPE:
+                    checkType(types, failed, size);
+                    break;
+                case CURRENCY:
+                    checkCurrency(currencies, failed, size, snapshot);
+                    break;
+                case PAN:
+                    checkPan(pans, types, failed, size, snapshot);
+                    break;
+                case AMOUNT:
+                    checkAmount(amounts, types, currencies, failed, size, snapshot);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown validation check: " + check);
+            }
+        }
+
+        // Approve the rows that passed every check
+        int approved = 0;
+        for (int i = 0; i < size; i++) {
+            boolean passed = failed[i] == PASSED;
+            statuses[i] = passed ? APPROVED : DECLINED;
+            approved += passed ? 1 : 0;
+        }
+        return approved;
+    }
+
+    /**
+     * Validates a single compact transaction and records the outcome in it.
+     *
+     * @param transaction The transaction to validate; its status, decline reason and rules version are updated.
+     * @return True if the transaction was approved.
+     */
+    public boolean validate(CompactTransaction transaction) {
+        ValidationRules snapshot = rules.current();
+        DeclineReason reason = null;
+        for (ValidationCheck check : snapshot.checks()) {
+            reason = check(check, transaction, snapshot);
+            if (reason != null) {
+                break;
+            }
+        }
+        transaction.complete(reason, snapshot.getVersion());
+        return reason == null;
+    }
+
+    // Same conditions as the column loops below, for one transaction
+    private static DeclineReason check(ValidationCheck check, CompactTransaction transaction,
+                                       ValidationRules snapshot) {
+        int type = transaction.getTypeOrdinal();
+        switch (check) {
+            case STATUS:
+                return transaction.getStatusOrdinal() != ACTIVE ? DeclineReason.INACTIVE_STATUS : null;
+            case TYPE:
+                return type < 0 ? DeclineReason.INVALID_TYPE : null;
+            case CURRENCY:
+                return !snapshot.isCurrencyAllowed(transaction.getCurrency()) ? DeclineReason.INVALID_CURRENCY : null;
+            case PAN:
+                long pan = transaction.getPan();
+                boolean invalid = type >= 0 && (pan == TransactionBatch.INVALID_PAN
+                        || !snapshot.getPanRanges().contains(type, pan)
+                        || snapshot.isLuhnCheckEnabled() && !PANParser.isLuhnValid(pan));
+                return invalid ? DeclineReason.INVALID_PAN : null;
+            case AMOUNT:
+                if (type < 0) {
+                    return null;
+                }
+                FxRateTable rates = snapshot.getFxRates();
+                long amount = rates == null
+                        ? transaction.getAmount()
+                        : rates.toBase(transaction.getAmount(), transaction.getCurrency());
+                boolean exceeds = amount != FxRateTable.NO_RATE && amount > snapshot.getMaxAmount(TYPES[type]);
+                return exceeds ? DeclineReason.AMOUNT_EXCEEDS_LIMIT : null;
+            default:
+                throw new IllegalArgumentException("Unknown validation check: " + check);
+        }
+    }
+
+    private static void checkStatus(byte[] statuses, byte[] failed, int size) {
+        for (int i = 0; i < size; i++) {
+            if (failed[i] == PASSED && statuses[i] != ACTIVE) {
+                failed[i] = INACTIVE_STATUS;
+            }
+        }
+    }
+
+    private static void checkType(byte[] types, byte[] failed, int size) {
+        for (int i = 0; i < size; i++) {
+            if (failed[i] == PASSED && types[i] < 0) {
+                failed[i] = INVALID_TYPE;
+            }
+        }
+    }
+
+    private static void checkCurrency(short[] currencies, byte[] failed, int size, ValidationRules snapshot) {
+        for (int i = 0; i < size; i++) {
+            if (failed[i] == PASSED && !snapshot.isCurrencyAllowed(currencies[i])) {
+                failed[i] = INVALID_CURRENCY;
+            }
+        }
+    }
+
+    // Rows with an unknown type pass the PAN and amount checks; the type check declines them
+    private static void checkPan(long[] pans, byte[] types, byte[] failed, int size, ValidationRules snapshot) {
+        PANRangeTable ranges = snapshot.getPanRanges();
+        boolean luhn = snapshot.isLuhnCheckEnabled();
+        for (int i = 0; i < size; i++) {
+            if (failed[i] == PASSED && types[i] >= 0) {
+                long pan = pans[i];
+                if (pan == TransactionBatch.INVALID_PAN || !ranges.contains(types[i], pan)
+                        || luhn && !PANParser.isLuhnValid(pan)) {
+                    failed[i] = INVALID_PAN;
+                }
+            }
+        }
+    }
+
+    private static void checkAmount(int[] amounts, byte[] types, short[] currencies, byte[] failed, int size,
+                                    ValidationRules snapshot) {
+        int[] maxAmounts = new int[TYPES.length];
+        for (TransactionType type : TYPES) {
+            maxAmounts[type.ordinal()] = snapshot.getMaxAmount(type);
+        }
+        FxRateTable rates = snapshot.getFxRates();
+        if (rates == null) {
+            for (int i = 0; i < size; i++) {
+                if (failed[i] == PASSED && types[i] >= 0 && amounts[i] > maxAmounts[types[i]]) {
+                    failed[i] = AMOUNT_EXCEEDS_LIMIT;
+                }
+            }
+            return;
+        }
+        // Rows in a currency without a rate pass; the currency check declines them
+        for (int i = 0; i < size; i++) {
+            if (failed[i] == PASSED && types[i] >= 0) {
+                long amount = rates.toBase(amounts[i], currencies[i]);
+                if (amount != FxRateTable.NO_RATE && amount > maxAmounts[types[i]]) {
+                    failed[i] = AMOUNT_EXCEEDS_LIMIT;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.transaction.processing.service;
+
+import com.transaction.processing.model.DeclineReason;
+import com.transaction.processing.model.Transaction;
+import com.transaction.processing.model.TransactionType;
+import com.transaction.processing.util.PANParser;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Layout of the binary transaction log written by {@link BinaryLogWriter} and read by {@link BinaryLogReader}.
+ * A file starts with an 8 byte header (magic {@code "TXLG"}, version and record size), followed by fixed-size
+ * big-endian records of {@value #RECORD_SIZE} bytes, one per processed transaction:
+ * <pre>
+ *  offset  size  field
+ *       0     8  timestamp in microseconds since the epoch
+ *       8     4  first 6 digits of the PAN, -1 if the PAN is not 16 digits
+ *      12     2  last 4 digits of the PAN, -1 if the PAN is not 16 digits
+ *      14     2  numeric currency code, -1 if it is not 3 digits
+ *      16     4  amount in subunits
+ *      20     1  numeric transaction type code, -1 if the type is unknown
+ *      21     1  numeric status code, -1 if it is not 2 digits
+ *      22     1  decline reason code, 0 if the transaction was approved
+ *      23     1  reserved
+ * </pre>
+ * Only the masked parts of the PAN are stored, so the file holds no more card data than the text log.
+ * Values that have no numeric form (e.g. an unknown type name) are stored as -1 and decoded as {@code "?"}.
+ */
+public final class BinaryLogFormat {
+    /** First four bytes of every binary log file. */
+    public static final int MAGIC = 0x54584C47;
+    public static final short VERSION = 2;
+    public static final int HEADER_SIZE = 8;
+    public static final int RECORD_SIZE = 24;
+
+    private static final String UNKNOWN = "?";
+
+    private BinaryLogFormat() {
+    }
+
+    /**
+     * Writes the file header at the buffer's position.
+     *
+     * @param out The buffer to write to.
+     */
+    public static void writeHeader(ByteBuffer out) {
+        out.putInt(MAGIC).putShort(VERSION).putShort((short) RECORD_SIZE);
+    }
+
+    /**
+     * Checks the file header at the buffer's position.
+     *
+     * @param in The buffer to read from.
+     * @return True if the header belongs to a binary log this class can read.
+     */
+    public static boolean readHeader(ByteBuffer in) {
+        return in.remaining() >= HEADER_SIZE
+                && in.getInt() == MAGIC
+                && in.getShort() == VERSION
+                && in.getShort() == RECORD_SIZE;
+    }
+
+    /**
+     * Writes one record at the buffer's position.
+     *
+     * @param out         The buffer to write to, with at least {@link #RECORD_SIZE} bytes remaining.
+     * @param transaction The processed transaction.
+     * @param epochMicros The time the transaction was processed.
+     */
+    public static void encode(ByteBuffer out, Transaction transaction, long epochMicros) {
+        long pan = PANParser.parse(transaction.getPan());
+        TransactionType type = TransactionType.find(transaction.getType());
+        DeclineReason reason = transaction.getDeclineReason();
+        out.putLong(epochMicros);
+        out.putInt(pan == PANParser.INVALID ? -1 : PANParser.maskedPrefix(pan));
+        out.putShort(pan == PANParser.INVALID ? -1 : (short) PANParser.maskedSuffix(pan));
+        out.putShort((short) parseCode(transaction.getCurrency(), 3));
+        out.putInt(transaction.getAmount());
+        out.put(type == null ? -1 : (byte) type.getNumericValue());
+        out.put((byte) parseCode(transaction.getStatus(), 2));
+        out.put(reason == null ? 0 : (byte) reason.getCode());
+        out.put((byte) 0);
+    }
+
+    /**
+     * @param in     The buffer holding the record.
+     * @param offset The absolute index of the record.
+     * @return The timestamp of the record in microseconds since the epoch.
+     */
+    public static long epochMicros(ByteBuffer in, int offset) {
+        return in.getLong(offset);
+    }
+
+    /**
+     * Rebuilds the transaction of a record. The PAN is the masked PAN, which the log formatter leaves unchanged.
+     *
+     * @param in     The buffer holding the record.
+     * @param offset The absolute index of the record.
+     * @return The transaction with its status and decline reason.
+     */
+    public static Transaction decode(ByteBuffer in, int offset) {
+        int panPrefix = in.getInt(offset + 8);
+        int panSuffix = in.getShort(offset + 12);
+        short currency = in.getShort(offset + 14);
+        int amount = in.getInt(offset + 16);
+        byte type = in.get(offset + 20);
+        byte status = in.get(offset + 21);
+        byte reason = in.get(offset + 22);
+
+        TransactionType transactionType = TransactionType.find(type);
+        String pan = UNKNOWN;
+        if (panPrefix >= 0 && panSuffix >= 0) {
+            StringBuilder masked = new StringBuilder(PANParser.PAN_LENGTH);
+            PANParser.appendMasked(masked, panPrefix, panSuffix);
+            pan = masked.toString();
+        }
+        Transaction transaction = new Transaction(pan,
+                transactionType != null ? transactionType.name() : UNKNOWN,
+                amount,
+                formatCode(currency, 3),
+                formatCode(status, 2));
+        transaction.setDeclineReason(DeclineReason.find(reason));
+        return transaction;
+    }
+
+    /**
+     * @return The value of a code of exactly {@code digits} decimal digits, or -1 if it is anything else.
+     */
+    static int parseCode(String code, int digits) {
+        if (code == null || code.length() != digits) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = 0; i < digits; i++) {
+            int digit = code.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static String formatCode(int value, int digits) {
+        if (value < 0) {
+            return UNKNOWN;
+        }
+        char[] chars = new char[digits];
+        for (int i = digits - 1; i >= 0; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,106 @@
+package com.transaction.processing.service;
+
+import com.transaction.processing.model.DeclineReason;
+import com.transaction.processing.model.Transaction;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneId;
+import java.util.Locale;
+
+/**
+ * Decodes a binary log written by {@link BinaryLogWriter} back into the text log format.
+ * Every record becomes the same entries {@link LoggingService#logProcessed(Transaction)} writes to a text log:
+ * the decline reason as ERROR entry if the transaction was declined, followed by the INFO entry of the transaction.
+ * Since the binary log only stores the masked PAN, the PAN in a decline reason is masked as well.
+ */
+public class BinaryLogReader {
+    private static final int READ_BUFFER_RECORDS = 4096;
+
+    private final TransactionLogFormatter formatter;
+
+    /**
+     * Constructor for a reader using the system default time zone and locale, like the text log.
+     */
+    public BinaryLogReader() {
+        this(ZoneId.systemDefault(), Locale.getDefault(Locale.Category.FORMAT));
+    }
+
+    /**
+     * Constructor for initializing a BinaryLogReader object with all attributes.
+     *
+     * @param zone   The time zone used for the timestamps.
+     * @param locale The locale whose decimal separator is used for amounts.
+     */
+    public BinaryLogReader(ZoneId zone, Locale locale) {
+        this.formatter = new TransactionLogFormatter(zone, locale);
+    }
+
+    /**
+     * Decodes a binary log file into text log entries, each followed by a line separator.
+     * An incomplete record at the end of the file (e.g. one being written) is ignored.
+     *
+     * @param binaryLog The binary log file.
+     * @param out       The destination of the text entries.
+     * @return The number of records decoded.
+     * @throws IOException If the file cannot be read or is not a binary log.
+     */
+    public long decode(Path binaryLog, Appendable out) throws IOException {
+        try (FileChannel channel = FileChannel.open(binaryLog, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BinaryLogFormat.RECORD_SIZE * READ_BUFFER_RECORDS);
+            buffer.limit(BinaryLogFormat.HEADER_SIZE);
+            readFully(channel, buffer);
+            buffer.flip();
+            if (!BinaryLogFormat.readHeader(buffer)) {
+                throw new IOException("Not a binary transaction log: " + binaryLog);
+            }
+
+            long records = 0;
+            buffer.clear();
+            while (channel.read(buffer) > 0) {
+                buffer.flip();
+                int offset = buffer.position();
+                while (buffer.limit() - offset >= BinaryLogFormat.RECORD_SIZE) {
+                    appendEntries(out, buffer, offset);
+                    offset += BinaryLogFormat.RECORD_SIZE;
+                    records++;
+                }
+                buffer.position(offset);
+                buffer.compact();
+            }
+            return records;
+        }
+    }
+
+    /**
+     * Appends the text entries of the record at the given offset.
+     */
+    private void appendEntries(Appendable out, ByteBuffer buffer, int offset) throws IOException {
+        Transaction transaction = BinaryLogFormat.decode(buffer, offset);
+        long epochMillis = Math.floorDiv(BinaryLogFormat.epochMicros(buffer, offset), 1_000L);
+        DeclineReason reason = transaction.getDeclineReason();
+        if (reason != null) {
+            appendLine(out, formatter.formatEntry("ERROR", ValidationCheck.describe(transaction, reason), epochMillis));
+        }
+        String formatError = TransactionLogFormatter.findFormatError(transaction);
+        if (formatError == null) {
+            appendLine(out, formatter.formatTransactionEntry(transaction, epochMillis));
+        } else {
+            appendLine(out, formatter.formatEntry("ERROR", "Error during logging transaction: " + formatError,
+                    epochMillis));
+        }
+    }
+
+    private static void appendLine(Appendable out, CharSequence entry) throws IOException {
+        out.append(entry).append(System.lineSeparator());
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            // keep reading until the buffer is full or the file ends
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.transaction.processing.service;
+
+import com.transaction.processing.model.Transaction;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Appends processed transactions to a binary log in the {@link BinaryLogFormat} layout.
+ * A record is {@value BinaryLogFormat#RECORD_SIZE} bytes instead of the roughly 300 characters of a text log entry;
+ * {@link BinaryLogReader} turns the file back into the text format when it has to be read by a person.
+ * The file is kept open between writes and reopened when the daily file name changes.
+ * <p>
+ * Writes are grouped: callers only append their records to an in-memory buffer, and a background thread writes
+ * the buffer to the file with a single channel write every flush interval. Only when the buffer is full does a
+ * caller write it out itself. Both the buffer and the file are guarded by {@link ReentrantLock}s, so one writer can
+ * be shared by all threads, including virtual threads, which do not pin their carrier while they wait. Records are
+ * on disk once {@link #flush()} or {@link #close()} returns.
+ */
+public class BinaryLogWriter implements Closeable {
+    /** Extension of the daily binary log files. */
+    public static final String EXTENSION = ".tlog";
+
+    private static final int BUFFER_SIZE = BinaryLogFormat.RECORD_SIZE * 4096;
+    private static final long FLUSH_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final Supplier<String> fileName;
+    private final Clock clock;
+    private final Thread flusher;
+    // Guards pending and pendingFileName; taken after ioLock when both are needed
+    private final ReentrantLock bufferLock = new ReentrantLock();
+    // Guards the channel and the buffer being written
+    private final ReentrantLock ioLock = new ReentrantLock();
+    private ByteBuffer pending = ByteBuffer.allocate(BUFFER_SIZE);
+    private ByteBuffer writing = ByteBuffer.allocate(BUFFER_SIZE);
+    private String pendingFileName;
+    private FileChannel channel;
+    private String openFileName;
+    private volatile boolean running = true;
+
+    /**
+     * Constructor for a writer that always appends to the same file.
+     *
+     * @param file The binary log file.
+     */
+    public BinaryLogWriter(Path file) {
+        String name = file.toString();
+        this.fileName = () -> name;
+        this.clock = Clock.systemUTC();
+        this.flusher = startFlusher();
+    }
+
+    /**
+     * Constructor for a writer that appends to the binary log file of the current day.
+     *
+     * @param dailyLogFile Resolves the file name for the current date, e.g. with the {@link #EXTENSION} extension.
+     */
+    public BinaryLogWriter(DailyLogFile dailyLogFile) {
+        this.fileName = dailyLogFile::current;
+        this.clock = dailyLogFile.getClock();
+        this.flusher = startFlusher();
+    }
+
+    /**
+     * Appends the record of a processed transaction, time-stamped with the current time.
+     *
+     * @param transaction The processed transaction.
+     * @throws IOException If the buffer was full and could not be written.
+     */
+    public void write(Transaction transaction) throws IOException {
+        long micros = currentTimeMicros();
+        while (true) {
+            bufferLock.lock();
+            try {
+                if (hasRoom(BinaryLogFormat.RECORD_SIZE)) {
+                    BinaryLogFormat.encode(pending, transaction, micros);
+                    return;
+                }
+            } finally {
+                bufferLock.unlock();
+            }
+            flush();
+        }
+    }
+
+    /**
+     * Appends records collected with {@link #encode(ByteBuffer, Transaction)}, keeping them together in the file.
+     *
+     * @param records The records between the buffer's position and limit.
+     * @throws IOException If the buffer was full and could not be written.
+     */
+    public void write(ByteBuffer records) throws IOException {
+        if (records.remaining() > BUFFER_SIZE) {
+            ioLock.lock();
+            try {
+                flush();
+                writeFully(records, fileName.get());
+            } finally {
+                ioLock.unlock();
+            }
+            return;
+        }
+        while (true) {
+            bufferLock.lock();
+            try {
+                if (hasRoom(records.remaining())) {
+                    pending.put(records);
+                    return;
+                }
+            } finally {
+                bufferLock.unlock();
+            }
+            flush();
+        }
+    }
+
+    /**
+     * Writes all buffered records to the file.
+     *
+     * @throws IOException If the records could not be written.
+     */
+    public void flush() throws IOException {
+        ioLock.lock();
+        try {
+            String name;
+            bufferLock.lock();
+            try {
+                if (pending.position() == 0) {
+                    return;
+                }
+                ByteBuffer full = pending;
+                pending = writing;
+                writing = full;
+                name = pendingFileName;
+            } finally {
+                bufferLock.unlock();
+            }
+            writing.flip();
+            try {
+                writeFully(writing, name);
+            } finally {
+                writing.clear();
+            }
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
+    /**
+     * Encodes the record of a processed transaction, time-stamped with the current time, without writing it.
+     *
+     * @param out         The buffer to encode into, with at least {@link BinaryLogFormat#RECORD_SIZE} bytes remaining.
+     * @param transaction The processed transaction.
+     */
+    public void encode(ByteBuffer out, Transaction transaction) {
+        BinaryLogFormat.encode(out, transaction, currentTimeMicros());
+    }
+
+    public String getFileName() {
+        return fileName.get();
+    }
+
+    /**
+     * Stops the background thread, writes all buffered records and closes the file.
+     *
+     * @throws IOException If the records could not be written or the file could not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        ioLock.lock();
+        try {
+            flush();
+            closeChannel();
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
+    private Thread startFlusher() {
+        Thread thread = new Thread(() -> {
+            while (running) {
+                LockSupport.parkNanos(this, FLUSH_INTERVAL_NANOS);
+                try {
+                    flush();
+                } catch (IOException e) {
+                    System.err.println("Failed to write to binary log file: " + e.getMessage());
+                }
+            }
+        }, "binary-log-writer");
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Checks whether records of the given size can be appended to the pending buffer. Must be called while holding
+     * {@code bufferLock}. Records of a new day must not be written into the file of the previous one, so the
+     * buffer counts as full when the file name has changed since its first record.
+     */
+    private boolean hasRoom(int size) {
+        String name = fileName.get();
+        if (pending.position() == 0) {
+            pendingFileName = name;
+        } else if (!name.equals(pendingFileName)) {
+            return false;
+        }
+        return pending.remaining() >= size;
+    }
+
+    private void writeFully(ByteBuffer records, String name) throws IOException {
+        FileChannel target = channel(name);
+        while (records.hasRemaining()) {
+            target.write(records);
+        }
+    }
+
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+            openFileName = null;
+        }
+    }
+
+    /**
+     * @param name The name of the file to write to.
+     * @return The channel of the file, opened (and given a header if it is new) on first use and after the file
+     * name changed. Must be called while holding {@code ioLock}.
+     */
+    private FileChannel channel(String name) throws IOException {
+        if (channel != null && name.equals(openFileName)) {
+            return channel;
+        }
+        closeChannel();
+        FileChannel opened = FileChannel.open(Paths.get(name),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        if (opened.size() == 0) {
+            ByteBuffer header = ByteBuffer.allocate(BinaryLogFormat.HEADER_SIZE);
+            BinaryLogFormat.writeHeader(header);
+            header.flip();
+            while (header.hasRemaining()) {
+                opened.write(header);
+            }
+        }
+        channel = opened;
+        openFileName = name;
+        return opened;
+    }
+
+    private long currentTimeMicros() {
+        Instant now = clock.instant();
+        return now.getEpochSecond() * 1_000_000L + now.getNano() / 1_000;
+    }
+}
@@ -0,0 +1,123 @@
+package com.transaction.processing.service;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Resolves the name of the daily log file ({@code <prefix>_yyMMdd.log}) for the current date.
+ * The name is cached until the next midnight, so resolving it on every write is cheap and a long-running
+ * JVM switches to a new file as soon as the date changes.
+ */
+public class DailyLogFile {
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyMMdd");
+
+    private final String prefix;
+    private final String extension;
+    private final Clock clock;
+    private volatile Day day;
+
+    /**
+     * Constructor for a daily log file using the system clock and time zone.
+     *
+     * @param prefix The file name prefix, e.g. the program name.
+     */
+    public DailyLogFile(String prefix) {
+        this(prefix, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Constructor for initializing a DailyLogFile object with all attributes.
+     *
+     * @param prefix The file name prefix, e.g. the program name.
+     * @param clock  The clock (and time zone) that decides the current date.
+     */
+    public DailyLogFile(String prefix, Clock clock) {
+        this(prefix, ".log", clock);
+    }
+
+    /**
+     * Constructor for a daily file with another extension than {@code .log}, e.g. a binary log.
+     *
+     * @param prefix    The file name prefix, e.g. the program name.
+     * @param extension The file name extension including the dot.
+     * @param clock     The clock (and time zone) that decides the current date.
+     */
+    public DailyLogFile(String prefix, String extension, Clock clock) {
+        this.prefix = prefix;
+        this.extension = extension;
+        this.clock = clock;
+        this.day = newDay(LocalDate.now(clock));
+    }
+
+    /**
+     * @return The name of today's log file.
+     */
+    public String current() {
+        return currentDay().fileName;
+    }
+
+    /**
+     * @return The date of today's log file.
+     */
+    public LocalDate currentDate() {
+        return currentDay().date;
+    }
+
+    /**
+     * Returns the name of the log file for the given date and segment index.
+     *
+     * @param date    The date of the log file.
+     * @param segment The segment index within the day; 0 is the plain daily file.
+     * @return The file name, {@code <prefix>_yyMMdd.log} or {@code <prefix>_yyMMdd_<segment>.log}.
+     */
+    public String fileName(LocalDate date, int segment) {
+        String base = prefix + "_" + date.format(DATE_FORMAT);
+        return segment == 0 ? base + extension : base + "_" + segment + extension;
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public Clock getClock() {
+        return clock;
+    }
+
+    private Day newDay(LocalDate date) {
+        return new Day(date, fileName(date, 0), clock.getZone());
+    }
+
+    private Day currentDay() {
+        Day current = day;
+        long now = clock.millis();
+        if (now >= current.startMillis && now < current.endMillis) {
+            return current;
+        }
+        current = newDay(LocalDate.now(clock));
+        day = current;
+        return current;
+    }
+
+    /**
+     * Immutable snapshot of one day, swapped as a whole so readers never see a name from another day.
+     */
+    private static final class Day {
+        private final LocalDate date;
+        private final String fileName;
+        private final long startMillis;
+        private final long endMillis;
+
+        private Day(LocalDate date, String fileName, ZoneId zone) {
+            this.date = date;
+            this.fileName = fileName;
+            this.startMillis = date.atStartOfDay(zone).toInstant().toEpochMilli();
+            this.endMillis = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        }
+    }
+}
@@ -0,0 +1,389 @@
+package com.transaction.processing.service;
+
+import com.transaction.processing.model.DeclineReason;
+import com.transaction.processing.model.TransactionBatch;
+import com.transaction.processing.model.TransactionStatus;
+import com.transaction.processing.model.TransactionType;
+import com.transaction.processing.util.PANParser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Streams a file of transaction records through the validation rules and writes one result line per record.
+ * <ul>
+ *   <li>The input is split into chunks of about {@link Builder#chunkSize(int)} bytes that end on a line break,
+ *       so every record belongs to exactly one chunk.</li>
+ *   <li>Every chunk is memory-mapped and parsed straight from the mapped bytes into a {@link TransactionBatch}
+ *       (see {@link RecordFormat}), validated with the {@link BatchValidator} and rendered to result lines.</li>
+ *   <li>Chunks are processed in parallel on the executor, but their results are written in input order.</li>
+ *   <li>Only a bounded number of chunks is in flight at a time, so memory use does not depend on the file size.</li>
+ * </ul>
+ * The output is CSV with the header {@code offset,pan,type,amount,currency,status,reason}: the byte offset of
+ * the record in the input, the masked PAN, the parsed values, the final status code and the decline reason.
+ * Malformed records are reported with reason {@code MALFORMED}. Outcomes are counted in the {@link PaymentMetrics};
+ * individual records are not written to the transaction log.
+ */
+public class FileIngestService {
+    /** Default size of the chunks the input is split into. */
+    public static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+
+    private static final byte[] HEADER = "offset,pan,type,amount,currency,status,reason\n"
+            .getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] MALFORMED = ",,,,,02,MALFORMED\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] MASK = "******".getBytes(StandardCharsets.US_ASCII);
+    private static final int BOUNDARY_SCAN_SIZE = 64 * 1024;
+    private static final byte[][] TYPE_NAMES = names(TransactionType.values());
+    private static final byte[][] STATUS_CODES = statusCodes();
+    private static final byte[][] REASON_NAMES = names(DeclineReason.values());
+
+    private final RecordFormat format;
+    private final BatchValidator validator;
+    private final PaymentMetrics metrics;
+    private final Executor executor;
+    private final int chunkSize;
+    private final int maxChunksInFlight;
+
+    private FileIngestService(Builder builder) {
+        this.format = builder.format;
+        this.validator = new BatchValidator(builder.rules);
+        this.metrics = builder.metrics;
+        this.executor = builder.executor;
+        this.chunkSize = builder.chunkSize;
+        this.maxChunksInFlight = builder.maxChunksInFlight;
+    }
+
+    /**
+     * Creates a builder for a service reading records of the given format.
+     *
+     * @param format The layout of the input records.
+     * @return A builder with default settings.
+     */
+    public static Builder builder(RecordFormat format) {
+        return new Builder(format);
+    }
+
+    /**
+     * Processes every record of the input file and writes the results to the output file.
+     *
+     * @param input  The file with the transaction records.
+     * @param output The result file; created or replaced.
+     * @return The number of approved, declined and malformed records.
+     * @throws IOException If the input cannot be read or the output cannot be written.
+     */
+    public IngestResult ingest(Path input, Path output) throws IOException {
+        long start = System.nanoTime();
+        long records = 0;
+        long approved = 0;
+        long malformed = 0;
+        long size;
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            size = in.size();
+            writeFully(out, ByteBuffer.wrap(HEADER));
+            ByteBuffer scanBuffer = ByteBuffer.allocate(BOUNDARY_SCAN_SIZE);
+            Deque<CompletableFuture<ChunkResult>> inFlight = new ArrayDeque<>();
+            long position = 0;
+            while (position < size || !inFlight.isEmpty()) {
+                while (position < size && inFlight.size() < maxChunksInFlight) {
+                    long end = chunkEnd(in, position, size, scanBuffer);
+                    ByteBuffer mapped = in.map(FileChannel.MapMode.READ_ONLY, position, end - position);
+                    long chunkOffset = position;
+                    inFlight.add(CompletableFuture.supplyAsync(() -> processChunk(mapped, chunkOffset), executor));
+                    position = end;
+                }
+                ChunkResult result = inFlight.poll().join();
+                writeFully(out, ByteBuffer.wrap(result.output.bytes, 0, result.output.size));
+                records += result.records;
+                approved += result.approved;
+                malformed += result.malformed;
+            }
+        }
+        IngestResult result = new IngestResult(records, approved, records - approved - malformed, malformed, size,
+                System.nanoTime() - start);
+        LoggingService.logInfo("Ingested " + input + " into " + output + ": " + result);
+        return result;
+    }
+
+    /**
+     * @return The position after the first line break at or after {@code position + chunkSize - 1},
+     * or the file size if there is none.
+     */
+    private long chunkEnd(FileChannel in, long position, long size, ByteBuffer scanBuffer) throws IOException {
+        long scan = position + chunkSize - 1;
+        while (scan < size) {
+            scanBuffer.clear();
+            int read = in.read(scanBuffer, scan);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (scanBuffer.get(i) == '\n') {
+                    return scan + i + 1;
+                }
+            }
+            scan += read;
+        }
+        return size;
+    }
+
+    private ChunkResult processChunk(ByteBuffer bytes, long chunkOffset) {
+        int limit = bytes.limit();
+        TransactionBatch batch = new TransactionBatch(Math.max(16, limit / 32));
+        // Start of every record in the chunk and its batch row, -1 for malformed records
+        int[] lineStarts = new int[batch.pans().length];
+        int[] rows = new int[lineStarts.length];
+        int lines = 0;
+        int malformed = 0;
+
+        int lineStart = 0;
+        while (lineStart < limit) {
+            int newline = lineStart;
+            while (newline < limit && bytes.get(newline) != '\n') {
+                newline++;
+            }
+            int lineEnd = newline > lineStart && bytes.get(newline - 1) == '\r' ? newline - 1 : newline;
+            boolean header = chunkOffset == 0 && lineStart == 0 && format.isHeader(bytes, lineStart, lineEnd);
+            if (lineEnd > lineStart && !header) {
+                if (lines == lineStarts.length) {
+                    lineStarts = Arrays.copyOf(lineStarts, lines * 2);
+                    rows = Arrays.copyOf(rows, lines * 2);
+                }
+                int row = batch.size();
+                lineStarts[lines] = lineStart;
+                if (format.parse(bytes, lineStart, lineEnd, batch)) {
+                    rows[lines] = row;
+                } else {
+                    rows[lines] = -1;
+                    malformed++;
+                }
+                lines++;
+            }
+            lineStart = newline + 1;
+        }
+
+        byte[] failedChecks = new byte[batch.size()];
+        int approved = validator.validate(batch, failedChecks);
+        for (int i = 0; i < batch.size(); i++) {
+            metrics.recordOutcome(DeclineReason.find(failedChecks[i]));
+        }
+
+        AsciiBuffer output = new AsciiBuffer(lines * 64);
+        for (int i = 0; i < lines; i++) {
+            output.appendLong(chunkOffset + lineStarts[i]);
+            if (rows[i] < 0) {
+                output.append(MALFORMED);
+            } else {
+                appendRow(output, batch, rows[i], failedChecks[rows[i]]);
+            }
+        }
+        return new ChunkResult(output, lines, approved, malformed);
+    }
+
+    private static void appendRow(AsciiBuffer output, TransactionBatch batch, int row, byte failedCheck) {
+        long pan = batch.pans()[row];
+        byte type = batch.types()[row];
+        short currency = batch.currencies()[row];
+        output.append((byte) ',');
+        if (pan != TransactionBatch.INVALID_PAN) {
+            output.appendDigits(PANParser.maskedPrefix(pan), 6);
+            output.append(MASK);
+            output.appendDigits(PANParser.maskedSuffix(pan), 4);
+        }
+        output.append((byte) ',');
+        if (type >= 0) {
+            output.append(TYPE_NAMES[type]);
+        }
+        output.append((byte) ',');
+        output.appendLong(batch.amounts()[row]);
+        output.append((byte) ',');
+        if (currency >= 0) {
+            output.appendDigits(currency, 3);
+        }
+        output.append((byte) ',');
+        output.append(STATUS_CODES[batch.statuses()[row]]);
+        output.append((byte) ',');
+        DeclineReason reason = DeclineReason.find(failedCheck);
+        if (reason != null) {
+            output.append(REASON_NAMES[reason.ordinal()]);
+        }
+        output.append((byte) '\n');
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    private static byte[][] names(Enum<?>[] values) {
+        byte[][] names = new byte[values.length][];
+        for (Enum<?> value : values) {
+            names[value.ordinal()] = value.name().getBytes(StandardCharsets.US_ASCII);
+        }
+        return names;
+    }
+
+    private static byte[][] statusCodes() {
+        TransactionStatus[] statuses = TransactionStatus.values();
+        byte[][] codes = new byte[statuses.length][];
+        for (TransactionStatus status : statuses) {
+            codes[status.ordinal()] = status.getCode().getBytes(StandardCharsets.US_ASCII);
+        }
+        return codes;
+    }
+
+    /**
+     * Result lines of one chunk and its counts.
+     */
+    private static class ChunkResult {
+        private final AsciiBuffer output;
+        private final int records;
+        private final int approved;
+        private final int malformed;
+
+        private ChunkResult(AsciiBuffer output, int records, int approved, int malformed) {
+            this.output = output;
+            this.records = records;
+            this.approved = approved;
+            this.malformed = malformed;
+        }
+    }
+
+    /**
+     * Growable byte array for ASCII output, so result lines are rendered without strings.
+     */
+    private static class AsciiBuffer {
+        private byte[] bytes;
+        private int size;
+
+        private AsciiBuffer(int capacity) {
+            this.bytes = new byte[Math.max(64, capacity)];
+        }
+
+        private void append(byte b) {
+            ensureCapacity(1);
+            bytes[size++] = b;
+        }
+
+        private void append(byte[] values) {
+            ensureCapacity(values.length);
+            System.arraycopy(values, 0, bytes, size, values.length);
+            size += values.length;
+        }
+
+        private void appendLong(long value) {
+            if (value == 0) {
+                append((byte) '0');
+                return;
+            }
+            int digits = 0;
+            for (long rest = value; rest > 0; rest /= 10) {
+                digits++;
+            }
+            appendDigits(value, digits);
+        }
+
+        /**
+         * Appends a non-negative value with exactly {@code width} digits, padded with leading zeros.
+         */
+        private void appendDigits(long value, int width) {
+            ensureCapacity(width);
+            long rest = value;
+            for (int i = size + width - 1; i >= size; i--) {
+                bytes[i] = (byte) ('0' + rest % 10);
+                rest /= 10;
+            }
+            size += width;
+        }
+
+        private void ensureCapacity(int additional) {
+            if (size + additional > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + additional));
+            }
+        }
+    }
+
+    /**
+     * Collects the settings of a {@link FileIngestService}.
+     */
+    public static class Builder {
+        private final RecordFormat format;
+        private RulesRepository rules = new RulesRepository();
+        private PaymentMetrics metrics = PaymentMetrics.getDefault();
+        private Executor executor = ForkJoinPool.commonPool();
+        private int chunkSize = DEFAULT_CHUNK_SIZE;
+        private int maxChunksInFlight = Math.max(2, ForkJoinPool.getCommonPoolParallelism() * 2);
+
+        private Builder(RecordFormat format) {
+            this.format = format;
+        }
+
+        /**
+         * @param rules The repository holding the current validation rules (default the built-in rules).
+         * @return This builder.
+         */
+        public Builder rules(RulesRepository rules) {
+            this.rules = rules;
+            return this;
+        }
+
+        /**
+         * @param metrics The metrics outcomes are counted in (default {@link PaymentMetrics#getDefault()}).
+         * @return This builder.
+         */
+        public Builder metrics(PaymentMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * @param executor The executor chunks are parsed and validated on (default the common fork-join pool).
+         * @return This builder.
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * @param chunkSize Approximate size of the chunks the input is split into, in bytes (default 8 MiB).
+         * @return This builder.
+         */
+        public Builder chunkSize(int chunkSize) {
+            if (chunkSize < 1) {
+                throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+            }
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        /**
+         * @param maxChunksInFlight Number of chunks that may be mapped or buffered at a time
+         *                          (default twice the parallelism of the common pool).
+         * @return This builder.
+         */
+        public Builder maxChunksInFlight(int maxChunksInFlight) {
+            if (maxChunksInFlight < 1) {
+                throw new IllegalArgumentException("Chunks in flight must be positive: " + maxChunksInFlight);
+            }
+            this.maxChunksInFlight = maxChunksInFlight;
+            return this;
+        }
+
+        public FileIngestService build() {
+            return new FileIngestService(this);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.transaction.processing.service;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.function.Supplier;
+
+/**
+ * Log sink that opens the log file in append mode, writes one entry and closes it again.
+ * This is the simplest and most robust sink, but also the slowest one; see {@link AsyncLogWriter}
+ * for a sink that keeps the file open and writes entries in batches.
+ */
+public class FileLogSink implements LogSink {
+    private final Supplier<String> fileName;
+
+    /**
+     * Constructor for a sink that always appends to the same file.
+     *
+     * @param fileName The name of the log file entries are appended to.
+     */
+    public FileLogSink(String fileName) {
+        this.fileName = () -> fileName;
+    }
+
+    /**
+     * Constructor for a sink that appends to the log file of the current day.
+     *
+     * @param dailyLogFile Resolves the log file name for the current date.
+     */
+    public FileLogSink(DailyLogFile dailyLogFile) {
+        this.fileName = dailyLogFile::current;
+    }
+
+    public String getFileName() {
+        return fileName.get();
+    }
+
+    @Override
+    public void write(CharSequence entry) throws IOException {
+        try (FileWriter writer = new FileWriter(fileName.get(), true)) {
+            writer.append(entry).append(System.lineSeparator());
+        }
+    }
+
+    @Override
+    public void close() {
+        // Nothing is kept open between writes
+    }
+}
@@ -0,0 +1,61 @@
+package com.transaction.processing.service;
+
+/**
+ * Result of one housekeeping run of a {@link LogHousekeeper}.
+ */
+public class HousekeepingResult {
+    private final int compressedCount;
+    private final int deletedCount;
+    private final int failedCount;
+    private final long uncompressedBytes;
+    private final long compressedBytes;
+
+    /**
+     * Constructor for initializing a HousekeepingResult object with all attributes.
+     *
+     * @param compressedCount   Number of log files that were compressed.
+     * @param deletedCount      Number of log files and archives deleted by the retention policy.
+     * @param failedCount       Number of files that could not be compressed or deleted.
+     * @param uncompressedBytes Total size of the compressed log files before compression.
+     * @param compressedBytes   Total size of the archives they were compressed into.
+     */
+    public HousekeepingResult(int compressedCount, int deletedCount, int failedCount, long uncompressedBytes,
+                              long compressedBytes) {
+        this.compressedCount = compressedCount;
+        this.deletedCount = deletedCount;
+        this.failedCount = failedCount;
+        this.uncompressedBytes = uncompressedBytes;
+        this.compressedBytes = compressedBytes;
+    }
+
+    public int getCompressedCount() {
+        return compressedCount;
+    }
+
+    public int getDeletedCount() {
+        return deletedCount;
+    }
+
+    public int getFailedCount() {
+        return failedCount;
+    }
+
+    public long getUncompressedBytes() {
+        return uncompressedBytes;
+    }
+
+    public long getCompressedBytes() {
+        return compressedBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "HousekeepingResult{" +
+                "compressedCount=" + compressedCount +
+                ", deletedCount=" + deletedCount +
+                ", failedCount=" + failedCount +
+                ", uncompressedBytes=" + uncompressedBytes +
+                ", compressedBytes=" + compressedBytes +
+                '}';
+    }
+}
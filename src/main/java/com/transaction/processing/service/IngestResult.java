@@ -0,0 +1,77 @@
+package com.transaction.processing.service;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Result of ingesting a transaction file with {@link FileIngestService#ingest(Path, Path)}.
+ * The processed records themselves are streamed to the output file; this only holds the statistics.
+ */
+public class IngestResult {
+    private final long recordCount;
+    private final long approvedCount;
+    private final long declinedCount;
+    private final long malformedCount;
+    private final long bytesRead;
+    private final long elapsedNanos;
+
+    /**
+     * Constructor for initializing an IngestResult object with all attributes.
+     *
+     * @param recordCount    Number of records read, including malformed ones.
+     * @param approvedCount  Number of approved transactions.
+     * @param declinedCount  Number of declined transactions.
+     * @param malformedCount Number of records that could not be parsed.
+     * @param bytesRead      Size of the input file.
+     * @param elapsedNanos   Wall-clock time spent on the file.
+     */
+    public IngestResult(long recordCount, long approvedCount, long declinedCount, long malformedCount,
+                        long bytesRead, long elapsedNanos) {
+        this.recordCount = recordCount;
+        this.approvedCount = approvedCount;
+        this.declinedCount = declinedCount;
+        this.malformedCount = malformedCount;
+        this.bytesRead = bytesRead;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    public long getApprovedCount() {
+        return approvedCount;
+    }
+
+    public long getDeclinedCount() {
+        return declinedCount;
+    }
+
+    public long getMalformedCount() {
+        return malformedCount;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    @Override
+    public String toString() {
+        return "IngestResult{" +
+                "recordCount=" + recordCount +
+                ", approvedCount=" + approvedCount +
+                ", declinedCount=" + declinedCount +
+                ", malformedCount=" + malformedCount +
+                ", bytesRead=" + bytesRead +
+                ", elapsedMillis=" + getElapsedMillis() +
+                '}';
+    }
+}
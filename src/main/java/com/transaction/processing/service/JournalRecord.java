@@ -0,0 +1,102 @@
+package com.transaction.processing.service;
+
+import com.transaction.processing.model.DeclineReason;
+import com.transaction.processing.model.TransactionType;
+
+/**
+ * A transaction decision read back from a {@link TransactionJournal}.
+ */
+public class JournalRecord {
+    private final long sequence;
+    private final long epochMillis;
+    private final long fingerprint;
+    private final long panKey;
+    private final long rulesVersion;
+    private final int amount;
+    private final int currency;
+    private final TransactionType type;
+    private final DeclineReason declineReason;
+
+    /**
+     * Constructor for initializing a JournalRecord object with all attributes.
+     *
+     * @param sequence      Position of the record in the journal, starting at 1.
+     * @param epochMillis   Time the decision was journaled.
+     * @param fingerprint   Idempotency fingerprint of the transaction.
+     * @param panKey        Keyed hash of the PAN (see {@link TransactionJournal#pseudonymize(long)}), or -1 if the
+     *                      PAN is not 16 digits.
+     * @param rulesVersion  Version of the validation rules the transaction was processed with.
+     * @param amount        Amount in subunits.
+     * @param currency      Numeric currency code, or -1 if it is not 3 digits.
+     * @param type          Transaction type, or null if the type is unknown.
+     * @param declineReason Reason the transaction was declined, or null if it was approved.
+     */
+    public JournalRecord(long sequence, long epochMillis, long fingerprint, long panKey, long rulesVersion,
+                         int amount, int currency, TransactionType type, DeclineReason declineReason) {
+        this.sequence = sequence;
+        this.epochMillis = epochMillis;
+        this.fingerprint = fingerprint;
+        this.panKey = panKey;
+        this.rulesVersion = rulesVersion;
+        this.amount = amount;
+        this.currency = currency;
+        this.type = type;
+        this.declineReason = declineReason;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getEpochMillis() {
+        return epochMillis;
+    }
+
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * @return The keyed hash of the PAN, or -1 if the PAN is not 16 digits; the journal never holds the PAN itself.
+     */
+    public long getPanKey() {
+        return panKey;
+    }
+
+    public long getRulesVersion() {
+        return rulesVersion;
+    }
+
+    public int getAmount() {
+        return amount;
+    }
+
+    public int getCurrency() {
+        return currency;
+    }
+
+    public TransactionType getType() {
+        return type;
+    }
+
+    public DeclineReason getDeclineReason() {
+        return declineReason;
+    }
+
+    public boolean isApproved() {
+        return declineReason == null;
+    }
+
+    @Override
+    public String toString() {
+        return "JournalRecord{" +
+                "sequence=" + sequence +
+                ", epochMillis=" + epochMillis +
+                ", rulesVersion=" + rulesVersion +
+                ", amount=" + amount +
+                ", currency=" + currency +
+                ", type=" + type +
+                ", declineReason=" + declineReason +
+                '}';
+    }
+}
@@ -0,0 +1,18 @@
+package com.transaction.processing.service;
+
+/**
+ * JMX view of one latency histogram of {@link PaymentMetrics}. All values are in nanoseconds.
+ */
+public interface LatencyMXBean {
+    long getCount();
+
+    double getMeanNanos();
+
+    long getP50Nanos();
+
+    long getP99Nanos();
+
+    long getP999Nanos();
+
+    long getMaxNanos();
+}
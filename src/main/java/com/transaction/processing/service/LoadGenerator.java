@@ -0,0 +1,193 @@
+package com.transaction.processing.service;
+
+import com.transaction.processing.model.Transaction;
+import com.transaction.processing.util.LatencyHistogram;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load-generating client for a {@link PaymentServer}. Every connection is driven by its own thread, which keeps up
+ * to the pipeline depth of requests in flight: it sends requests until the window is full, then reads whatever
+ * responses have arrived and refills the window. The time from sending a request to reading its response is
+ * recorded in a {@link LatencyHistogram}.
+ */
+public class LoadGenerator {
+    private static final Transaction[] SAMPLES = {
+            new Transaction("1000000000000000", "APP", 1000, "978", "00"),
+            new Transaction("2000000000000001", "BRW", 2500, "840", "00"),
+            new Transaction("3000000000000050", "TRI", 1500, "978", "00"),
+            new Transaction("1000000000000000", "APP", 9000, "978", "00"),
+            new Transaction("1000000000000000", "APP", 1000, "999", "00"),
+            new Transaction("2000000000000001", "BRW", 2500, "840", "01")
+    };
+
+    private final InetSocketAddress address;
+    private final int connections;
+    private final int requestsPerConnection;
+    private final int pipelineDepth;
+
+    /**
+     * Constructor for initializing a LoadGenerator object with all attributes.
+     *
+     * @param address               The address of the server.
+     * @param connections           The number of connections, each driven by its own thread.
+     * @param requestsPerConnection The number of requests sent over every connection.
+     * @param pipelineDepth         The maximum number of unanswered requests per connection.
+     * @throws IllegalArgumentException If a count is not positive.
+     */
+    public LoadGenerator(InetSocketAddress address, int connections, int requestsPerConnection, int pipelineDepth) {
+        if (connections <= 0 || requestsPerConnection <= 0 || pipelineDepth <= 0) {
+            throw new IllegalArgumentException("Connections, requests and pipeline depth must be positive");
+        }
+        this.address = address;
+        this.connections = connections;
+        this.requestsPerConnection = requestsPerConnection;
+        this.pipelineDepth = pipelineDepth;
+    }
+
+    /**
+     * Sends all requests and waits for all responses.
+     *
+     * @return The throughput, latency percentiles and outcome counts of the run.
+     * @throws IOException If a connection fails or the server closes it.
+     */
+    public Result run() throws IOException {
+        LatencyHistogram latency = new LatencyHistogram();
+        LongAdder approved = new LongAdder();
+        List<Thread> threads = new ArrayList<>();
+        List<IOException> failures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < connections; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    runConnection(latency, approved);
+                } catch (IOException e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            }, "load-generator-" + i);
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for the load generator", e);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        if (!failures.isEmpty()) {
+            throw failures.get(0);
+        }
+        return new Result(latency.snapshot(), approved.sum(), elapsed);
+    }
+
+    private void runConnection(LatencyHistogram latency, LongAdder approved) throws IOException {
+        long[] sendTimes = new long[requestsPerConnection];
+        ByteBuffer out = ByteBuffer.allocate(64 * 1024);
+        ByteBuffer in = ByteBuffer.allocate(64 * 1024);
+        try (SocketChannel channel = SocketChannel.open(address)) {
+            channel.socket().setTcpNoDelay(true);
+            int sent = 0;
+            int received = 0;
+            while (received < requestsPerConnection) {
+                // Fill the window, then send all new requests with as few writes as possible
+                while (sent < requestsPerConnection && sent - received < pipelineDepth
+                        && out.remaining() >= PaymentProtocol.MAX_REQUEST_LENGTH + 4) {
+                    sendTimes[sent] = System.nanoTime();
+                    PaymentProtocol.writeRequest(out, sent, SAMPLES[sent % SAMPLES.length]);
+                    sent++;
+                }
+                out.flip();
+                while (out.hasRemaining()) {
+                    channel.write(out);
+                }
+                out.clear();
+
+                if (channel.read(in) < 0) {
+                    throw new IOException("Server closed the connection after " + received + " responses");
+                }
+                in.flip();
+                int length;
+                while ((length = PaymentProtocol.frameLength(in)) > 0) {
+                    int frame = in.position();
+                    long requestId = in.getLong(frame + 4);
+                    latency.record(System.nanoTime() - sendTimes[(int) requestId]);
+                    if (in.get(frame + 12) == 1) {
+                        approved.increment();
+                    }
+                    in.position(frame + length);
+                    received++;
+                }
+                in.compact();
+            }
+        }
+    }
+
+    /**
+     * Outcome of a load generator run.
+     */
+    public static class Result {
+        private final LatencyHistogram.Snapshot latency;
+        private final long approvedCount;
+        private final long elapsedNanos;
+
+        /**
+         * Constructor for initializing a Result object with all attributes.
+         *
+         * @param latency       The round-trip latencies of all requests.
+         * @param approvedCount The number of approved requests.
+         * @param elapsedNanos  The wall-clock time of the run.
+         */
+        public Result(LatencyHistogram.Snapshot latency, long approvedCount, long elapsedNanos) {
+            this.latency = latency;
+            this.approvedCount = approvedCount;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public LatencyHistogram.Snapshot getLatency() {
+            return latency;
+        }
+
+        public long getRequestCount() {
+            return latency.getCount();
+        }
+
+        public long getApprovedCount() {
+            return approvedCount;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * @return The number of requests answered per second.
+         */
+        public double getThroughput() {
+            return latency.getCount() * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d requests in %d ms: %.0f req/s, latency p50 %d us, p99 %d us, p999 %d us, max %d us",
+                    getRequestCount(),
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                    getThroughput(),
+                    TimeUnit.NANOSECONDS.toMicros(latency.getValueAtPercentile(50)),
+                    TimeUnit.NANOSECONDS.toMicros(latency.getValueAtPercentile(99)),
+                    TimeUnit.NANOSECONDS.toMicros(latency.getValueAtPercentile(99.9)),
+                    TimeUnit.NANOSECONDS.toMicros(latency.getMax()));
+        }
+    }
+}
@@ -0,0 +1,424 @@
+package com.transaction.processing.service;
+
+import com.transaction.processing.model.DeclineReason;
+import com.transaction.processing.model.Transaction;
+import com.transaction.processing.model.TransactionStatus;
+import com.transaction.processing.model.TransactionType;
+import com.transaction.processing.util.LatencyHistogram;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-process load harness for a {@link PaymentService}, driven by any number of threads.
+ * <p>
+ * Transactions come either from a {@link TrafficGenerator}, where every thread draws from its own split of one
+ * seeded random so the same seed and thread count give the same traffic, or from a daily text log that is replayed
+ * at its original pace, a multiple of it, or as fast as possible. When paced, the latency of a transaction is
+ * measured from the time it was due rather than from the time it was sent, so a stalled service shows up in the
+ * percentiles instead of silently slowing the load down.
+ * <p>
+ * Allocation is measured per driving thread, which includes what the service allocates on those threads but not
+ * what it allocates on background threads such as asynchronous log writers.
+ */
+public class LoadHarness {
+    private static final int REPLAY_CHUNK = 256;
+    private static final long DAY_NANOS = TimeUnit.DAYS.toNanos(1);
+    private static final String APPROVED = TransactionStatus.APPROVED.getCode();
+    private static final String ACTIVE = TransactionStatus.ACTIVE.getCode();
+
+    private final PaymentService service;
+    private final int threads;
+    private final TrafficGenerator generator;
+    private final long count;
+    private final long seed;
+    private final Path logFile;
+    private final double speed;
+
+    private LoadHarness(Builder builder) {
+        if ((builder.generator == null) == (builder.logFile == null)) {
+            throw new IllegalArgumentException("Exactly one of synthetic traffic and a log file must be set");
+        }
+        this.service = builder.service;
+        this.threads = builder.threads;
+        this.generator = builder.generator;
+        this.count = builder.count;
+        this.seed = builder.seed;
+        this.logFile = builder.logFile;
+        this.speed = builder.speed;
+    }
+
+    /**
+     * Creates a builder for a harness driving the given service.
+     *
+     * @param service The service under load.
+     * @return A builder with default settings.
+     */
+    public static Builder builder(PaymentService service) {
+        return new Builder(service);
+    }
+
+    /**
+     * Processes all transactions and waits for all threads to finish.
+     *
+     * @return The throughput, latency percentiles, allocation and outcome counts of the run.
+     * @throws IOException If the log file cannot be read.
+     */
+    public LoadReport run() throws IOException {
+        Run run = new Run();
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        List<Runnable> workers = new ArrayList<>();
+        Replay replay = null;
+        if (generator != null) {
+            parameters.put("count", count);
+            parameters.put("seed", seed);
+            SplittableRandom root = new SplittableRandom(seed);
+            for (int i = 0; i < threads; i++) {
+                SplittableRandom random = root.split();
+                long share = count / threads + (i < count % threads ? 1 : 0);
+                workers.add(() -> runSynthetic(run, random, share));
+            }
+        } else {
+            parameters.put("file", logFile.toString());
+            parameters.put("speed", speed == 0 ? "max" : speed);
+            Replay shared = new Replay(Files.newBufferedReader(logFile, StandardCharsets.UTF_8), Files.size(logFile));
+            replay = shared;
+            for (int i = 0; i < threads; i++) {
+                workers.add(() -> runReplay(run, shared));
+            }
+        }
+
+        long gcCount = gcCount();
+        long gcMillis = gcMillis();
+        List<Thread> started = new ArrayList<>();
+        try {
+            run.start = System.nanoTime();
+            for (int i = 0; i < workers.size(); i++) {
+                Thread thread = new Thread(workers.get(i), "load-harness-" + i);
+                thread.start();
+                started.add(thread);
+            }
+            for (Thread thread : started) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for the load harness", e);
+                }
+            }
+        } finally {
+            if (replay != null) {
+                replay.reader.close();
+            }
+        }
+        long elapsed = System.nanoTime() - run.start;
+        if (!run.failures.isEmpty()) {
+            throw run.failures.get(0);
+        }
+
+        long[] declined = new long[run.declined.length];
+        for (int i = 0; i < declined.length; i++) {
+            declined[i] = run.declined[i].sum();
+        }
+        long allocated = run.allocationSupported ? run.allocated.sum() : -1;
+        return new LoadReport(generator != null ? "synthetic" : "replay", parameters, threads, elapsed,
+                run.latency.snapshot(), run.approved.sum(), declined, allocated,
+                gcCount() - gcCount, gcMillis() - gcMillis);
+    }
+
+    private void runSynthetic(Run run, SplittableRandom random, long share) {
+        long allocatedBefore = run.allocatedBytes();
+        for (long i = 0; i < share; i++) {
+            Transaction transaction = generator.next(random);
+            long start = System.nanoTime();
+            service.process(transaction);
+            run.record(transaction, System.nanoTime() - start);
+        }
+        run.addAllocated(allocatedBefore);
+    }
+
+    private void runReplay(Run run, Replay replay) {
+        long allocatedBefore = run.allocatedBytes();
+        String[] lines = new String[REPLAY_CHUNK];
+        long[] offsets = new long[REPLAY_CHUNK];
+        try {
+            int read;
+            while ((read = replay.read(lines, offsets)) > 0) {
+                for (int i = 0; i < read; i++) {
+                    Transaction transaction = parse(lines[i]);
+                    if (transaction == null) {
+                        continue;
+                    }
+                    long start = System.nanoTime();
+                    if (speed > 0) {
+                        long due = run.start + (long) (offsets[i] / speed);
+                        long wait;
+                        while ((wait = due - System.nanoTime()) > 0) {
+                            LockSupport.parkNanos(wait);
+                        }
+                        start = due;
+                    }
+                    service.process(transaction);
+                    run.record(transaction, System.nanoTime() - start);
+                }
+            }
+        } catch (IOException e) {
+            synchronized (run.failures) {
+                run.failures.add(e);
+            }
+        }
+        run.addAllocated(allocatedBefore);
+    }
+
+    /**
+     * Rebuilds the transaction of a log entry from its JSON details, as it was before processing. PAN digits
+     * masked in the log are replaced by zeros, so replayed PANs can differ from the original ones in range checks.
+     *
+     * @param line A line of a daily text log.
+     * @return The transaction, or null if the line is not a transaction entry.
+     */
+    static Transaction parse(String line) {
+        String pan = field(line, "\"pan\":\"", '"');
+        String typeCode = field(line, "\"type\":\"", '"');
+        String amount = field(line, "\"amount\":", ',');
+        String currency = field(line, "\"currency\":\"", '"');
+        if (pan == null || typeCode == null || amount == null || currency == null) {
+            return null;
+        }
+        String type = typeCode;
+        for (TransactionType candidate : TransactionType.values()) {
+            if (candidate.getCode().equals(typeCode)) {
+                type = candidate.name();
+                break;
+            }
+        }
+        try {
+            return new Transaction(pan.replace('*', '0'), type, Integer.parseInt(amount), currency, ACTIVE);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String field(String line, String prefix, char terminator) {
+        int start = line.indexOf(prefix);
+        if (start < 0) {
+            return null;
+        }
+        start += prefix.length();
+        int end = line.indexOf(terminator, start);
+        return end < 0 ? null : line.substring(start, end);
+    }
+
+    /**
+     * @return The time of day of a log line in nanoseconds, or -1 if the line does not start with one.
+     */
+    static long timeOfDayNanos(String line) {
+        if (line.length() < 12 || line.charAt(2) != ':' || line.charAt(5) != ':' || line.charAt(8) != '.') {
+            return -1;
+        }
+        long millis = 0;
+        int[] digits = {0, 1, 3, 4, 6, 7, 9, 10, 11};
+        int[] factors = {36_000_000, 3_600_000, 600_000, 60_000, 10_000, 1_000, 100, 10, 1};
+        for (int i = 0; i < digits.length; i++) {
+            char c = line.charAt(digits[i]);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            millis += (c - '0') * (long) factors[i];
+        }
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    private static long gcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionCount());
+        }
+        return total;
+    }
+
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+    /**
+     * Shared state of one run.
+     */
+    private static final class Run {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder approved = new LongAdder();
+        private final LongAdder[] declined = new LongAdder[DeclineReason.values().length];
+        private final LongAdder allocated = new LongAdder();
+        private final List<IOException> failures = new ArrayList<>();
+        private final com.sun.management.ThreadMXBean threadBean;
+        private final boolean allocationSupported;
+        private volatile long start;
+
+        private Run() {
+            for (int i = 0; i < declined.length; i++) {
+                declined[i] = new LongAdder();
+            }
+            java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean
+                    && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()
+                    && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemoryEnabled()) {
+                this.threadBean = (com.sun.management.ThreadMXBean) bean;
+            } else {
+                this.threadBean = null;
+            }
+            this.allocationSupported = threadBean != null;
+        }
+
+        private void record(Transaction transaction, long nanos) {
+            latency.record(Math.min(nanos, LatencyHistogram.MAX_VALUE));
+            DeclineReason reason = transaction.getDeclineReason();
+            if (reason != null) {
+                declined[reason.ordinal()].increment();
+            } else if (APPROVED.equals(transaction.getStatus())) {
+                approved.increment();
+            }
+        }
+
+        private long allocatedBytes() {
+            return allocationSupported ? threadBean.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+        }
+
+        private void addAllocated(long before) {
+            allocated.add(allocatedBytes() - before);
+        }
+    }
+
+    /**
+     * Log file shared by the replaying threads, which take chunks of lines from it in file order. The offset of a
+     * line from the first entry is computed while reading, so entries after midnight stay in order. Only the length
+     * of the file at the start is replayed, so a replay of the log the service itself appends to comes to an end.
+     */
+    private static final class Replay {
+        private final BufferedReader reader;
+        private long remaining;
+        private long first = -1;
+        private long previous;
+        private long days;
+
+        private Replay(BufferedReader reader, long length) {
+            this.reader = reader;
+            this.remaining = length;
+        }
+
+        private synchronized int read(String[] lines, long[] offsets) throws IOException {
+            int read = 0;
+            String line;
+            while (read < lines.length && remaining > 0 && (line = reader.readLine()) != null) {
+                // Log lines are ASCII, so characters and bytes are the same
+                remaining -= line.length() + 1;
+                long time = timeOfDayNanos(line);
+                if (time < 0) {
+                    continue;
+                }
+                if (first < 0) {
+                    first = time;
+                } else if (time < previous) {
+                    // Only midnight makes the time of day go backwards in a daily log
+                    days++;
+                }
+                previous = time;
+                lines[read] = line;
+                offsets[read] = days * DAY_NANOS + time - first;
+                read++;
+            }
+            return read;
+        }
+    }
+
+    /**
+     * Builder for {@link LoadHarness} instances.
+     */
+    public static class Builder {
+        private final PaymentService service;
+        private int threads = 1;
+        private TrafficGenerator generator;
+        private long count;
+        private long seed;
+        private Path logFile;
+        private double speed;
+
+        private Builder(PaymentService service) {
+            this.service = service;
+        }
+
+        /**
+         * @param threads Number of threads calling the service (default 1).
+         * @return This builder.
+         */
+        public Builder threads(int threads) {
+            if (threads <= 0) {
+                throw new IllegalArgumentException("Threads must be positive: " + threads);
+            }
+            this.threads = threads;
+            return this;
+        }
+
+        /**
+         * Drives the service with synthetic traffic.
+         *
+         * @param generator The generator of the transactions.
+         * @param count     The total number of transactions, spread evenly over the threads.
+         * @param seed      The seed of the traffic.
+         * @return This builder.
+         */
+        public Builder synthetic(TrafficGenerator generator, long count, long seed) {
+            if (count < 0) {
+                throw new IllegalArgumentException("Count must not be negative: " + count);
+            }
+            this.generator = generator;
+            this.count = count;
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Drives the service with the transactions of a daily text log, in file order.
+         *
+         * @param logFile The log file to replay.
+         * @return This builder.
+         */
+        public Builder replay(Path logFile) {
+            this.logFile = logFile;
+            return this;
+        }
+
+        /**
+         * @param speed Replay speed as a multiple of the pace of the log, e.g. 1 for the original pace, or 0 to
+         *              replay as fast as possible (default 0).
+         * @return This builder.
+         */
+        public Builder speed(double speed) {
+            if (!(speed >= 0) || Double.isInfinite(speed)) {
+                throw new IllegalArgumentException("Speed must be 0 or positive: " + speed);
+            }
+            this.speed = speed;
+            return this;
+        }
+
+        public LoadHarness build() {
+            return new LoadHarness(this);
+        }
+    }
+}
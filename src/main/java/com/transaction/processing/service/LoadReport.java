@@ -0,0 +1,168 @@
+package com.transaction.processing.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.transaction.processing.model.DeclineReason;
+import com.transaction.processing.util.LatencyHistogram;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of a {@link LoadHarness} run: throughput, latency percentiles, allocation and garbage collection, and
+ * the outcome of the transactions. {@link #toJson()} gives a single-line JSON document for trend tracking.
+ */
+public class LoadReport {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final DeclineReason[] REASONS = DeclineReason.values();
+
+    private final String mode;
+    private final Map<String, Object> parameters;
+    private final int threads;
+    private final long elapsedNanos;
+    private final LatencyHistogram.Snapshot latency;
+    private final long approvedCount;
+    private final long[] declinedCounts;
+    private final long allocatedBytes;
+    private final long gcCount;
+    private final long gcMillis;
+
+    /**
+     * Constructor for initializing a LoadReport object with all attributes.
+     *
+     * @param mode           How the transactions were produced ("synthetic" or "replay").
+     * @param parameters     The settings of the source, e.g. the seed or the replay speed.
+     * @param threads        The number of threads that drove the service.
+     * @param elapsedNanos   The wall-clock time of the run.
+     * @param latency        The latencies of all processed transactions, in nanoseconds.
+     * @param approvedCount  The number of approved transactions.
+     * @param declinedCounts The number of declined transactions per {@link DeclineReason} ordinal.
+     * @param allocatedBytes The bytes allocated by the driving threads, or -1 if the JVM cannot measure it.
+     * @param gcCount        The number of garbage collections during the run.
+     * @param gcMillis       The time spent in garbage collection during the run.
+     */
+    LoadReport(String mode, Map<String, Object> parameters, int threads, long elapsedNanos,
+               LatencyHistogram.Snapshot latency, long approvedCount, long[] declinedCounts, long allocatedBytes,
+               long gcCount, long gcMillis) {
+        this.mode = mode;
+        this.parameters = parameters;
+        this.threads = threads;
+        this.elapsedNanos = elapsedNanos;
+        this.latency = latency;
+        this.approvedCount = approvedCount;
+        this.declinedCounts = declinedCounts;
+        this.allocatedBytes = allocatedBytes;
+        this.gcCount = gcCount;
+        this.gcMillis = gcMillis;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public long getTransactionCount() {
+        return latency.getCount();
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return The number of transactions processed per second.
+     */
+    public double getThroughput() {
+        return latency.getCount() * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    /**
+     * @return The latencies of all processed transactions, in nanoseconds.
+     */
+    public LatencyHistogram.Snapshot getLatency() {
+        return latency;
+    }
+
+    public long getApprovedCount() {
+        return approvedCount;
+    }
+
+    public long getDeclinedCount() {
+        long total = 0;
+        for (long count : declinedCounts) {
+            total += count;
+        }
+        return total;
+    }
+
+    public long getDeclinedCount(DeclineReason reason) {
+        return declinedCounts[reason.ordinal()];
+    }
+
+    /**
+     * @return The bytes allocated by the driving threads, or -1 if the JVM cannot measure it.
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * @return The bytes allocated per second by the driving threads, or -1 if the JVM cannot measure it.
+     */
+    public double getAllocationRate() {
+        return allocatedBytes < 0 ? -1 : allocatedBytes * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    public long getGcCount() {
+        return gcCount;
+    }
+
+    public long getGcMillis() {
+        return gcMillis;
+    }
+
+    /**
+     * @return The report as a single-line JSON object; latencies are in nanoseconds.
+     */
+    public String toJson() {
+        ObjectNode root = MAPPER.createObjectNode();
+        root.put("mode", mode);
+        ObjectNode settings = root.putObject("parameters");
+        for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+            settings.putPOJO(parameter.getKey(), parameter.getValue());
+        }
+        root.put("threads", threads);
+        root.put("transactions", latency.getCount());
+        root.put("elapsedMillis", TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        root.put("throughputPerSecond", Math.round(getThroughput()));
+        ObjectNode latencies = root.putObject("latencyNanos");
+        latencies.put("mean", Math.round(latency.getMean()));
+        latencies.put("p50", latency.getValueAtPercentile(50));
+        latencies.put("p90", latency.getValueAtPercentile(90));
+        latencies.put("p99", latency.getValueAtPercentile(99));
+        latencies.put("p999", latency.getValueAtPercentile(99.9));
+        latencies.put("max", latency.getMax());
+        ObjectNode allocation = root.putObject("allocation");
+        allocation.put("bytes", allocatedBytes);
+        allocation.put("bytesPerSecond", Math.round(getAllocationRate()));
+        allocation.put("bytesPerTransaction",
+                allocatedBytes < 0 || latency.getCount() == 0 ? -1 : allocatedBytes / latency.getCount());
+        allocation.put("gcCount", gcCount);
+        allocation.put("gcMillis", gcMillis);
+        root.put("approved", approvedCount);
+        root.put("declined", getDeclinedCount());
+        ObjectNode declined = root.putObject("declinedByReason");
+        for (DeclineReason reason : REASONS) {
+            declined.put(reason.name(), declinedCounts[reason.ordinal()]);
+        }
+        return root.toString();
+    }
+
+    @Override
+    public String toString() {
+        return toJson();
+    }
+}
@@ -0,0 +1,460 @@
+package com.transaction.processing.service;
+
+import com.transaction.processing.util.GzipCompressor;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Background housekeeping of the daily log files ({@code <prefix>_yyMMdd[_<segment>].log}):
+ * <ul>
+ *   <li>Log files of earlier days are compressed to {@code <file>.gz} on a pool of low-priority daemon threads,
+ *       using {@link GzipCompressor}s that are reused across files.</li>
+ *   <li>Log files and archives older than the retention period are deleted.</li>
+ *   <li>{@link #search(LocalDate, LocalDate, Predicate, Consumer)} reads plain and compressed files alike.</li>
+ * </ul>
+ * The live log writer is never blocked: files of the current day are not touched, no lock is shared with the
+ * sinks, and a file is compressed to a temporary file that is renamed into place before the original is deleted.
+ * A log file of an earlier day is also left alone until it has not been modified for a grace period, so a sink
+ * that has not switched to the new day yet can finish its last writes.
+ * <p>
+ * The application log is kept this way when started with {@code -Dtransaction.log.housekeeping=true}; the retention
+ * is set with {@code -Dtransaction.log.retentionDays=<days>} (see {@link LoggingService#getLogHousekeeper()}).
+ */
+public class LogHousekeeper implements Closeable {
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyMMdd");
+    private static final String ARCHIVE_SUFFIX = ".gz";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final DailyLogFile dailyLogFile;
+    private final Path directory;
+    private final int retentionDays;
+    private final Duration gracePeriod;
+    private final long intervalMillis;
+    private final Pattern fileNamePattern;
+    private final ExecutorService compressionPool;
+    private final BlockingQueue<GzipCompressor> compressors;
+    private final ScheduledExecutorService scheduler;
+
+    private LogHousekeeper(Builder builder) {
+        this.dailyLogFile = builder.dailyLogFile;
+        this.directory = builder.directory;
+        this.retentionDays = builder.retentionDays;
+        this.gracePeriod = builder.gracePeriod;
+        this.intervalMillis = builder.intervalMillis;
+        String prefix = Paths.get(dailyLogFile.getPrefix()).getFileName().toString();
+        this.fileNamePattern = Pattern.compile(Pattern.quote(prefix) + "_(\\d{6})(?:_(\\d+))?"
+                + Pattern.quote(dailyLogFile.getExtension()) + "(" + Pattern.quote(ARCHIVE_SUFFIX) + ")?");
+        this.compressionPool = Executors.newFixedThreadPool(builder.threads, lowPriorityThreads("log-compressor"));
+        this.compressors = new ArrayBlockingQueue<>(builder.threads);
+        for (int i = 0; i < builder.threads; i++) {
+            compressors.add(new GzipCompressor(builder.compressionLevel));
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(lowPriorityThreads("log-housekeeper"));
+    }
+
+    /**
+     * Creates a builder for a housekeeper of the files named by the given daily log file.
+     *
+     * @param dailyLogFile The naming of the log files, e.g. {@link LoggingService#getDailyLogFile()}.
+     * @return A builder with default settings.
+     */
+    public static Builder builder(DailyLogFile dailyLogFile) {
+        return new Builder(dailyLogFile);
+    }
+
+    /**
+     * Runs {@link #runOnce()} now and then repeatedly at the configured interval, in the background.
+     */
+    public void start() {
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                HousekeepingResult result = runOnce();
+                if (result.getCompressedCount() > 0 || result.getDeletedCount() > 0) {
+                    LoggingService.logInfo("Log housekeeping: " + result);
+                }
+            } catch (IOException e) {
+                LoggingService.logError("Log housekeeping failed: " + e.getMessage());
+            }
+        }, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Deletes the files older than the retention period and compresses the remaining log files of earlier days.
+     * The files are compressed in parallel; the call returns when all of them are done.
+     *
+     * @return The number of files compressed and deleted.
+     * @throws IOException If the log directory cannot be listed.
+     */
+    public HousekeepingResult runOnce() throws IOException {
+        LocalDate today = dailyLogFile.currentDate();
+        LocalDate oldestKept = today.minusDays(retentionDays);
+        long modifiedBefore = dailyLogFile.getClock().millis() - gracePeriod.toMillis();
+
+        int deleted = 0;
+        int failed = 0;
+        List<LogFile> toCompress = new ArrayList<>();
+        for (LogFile file : listFiles()) {
+            try {
+                if (file.date.isBefore(oldestKept)) {
+                    if (Files.deleteIfExists(file.path)) {
+                        deleted++;
+                    }
+                    if (!file.compressed) {
+                        Files.deleteIfExists(LogIndex.indexFileOf(file.path));
+                    }
+                } else if (!file.compressed && file.date.isBefore(today)
+                        && Files.getLastModifiedTime(file.path).toMillis() < modifiedBefore) {
+                    toCompress.add(file);
+                }
+            } catch (NoSuchFileException e) {
+                // Removed since the directory was listed
+            } catch (IOException e) {
+                LoggingService.logError("Failed to delete log file " + file.path + ": " + e.getMessage());
+                failed++;
+            }
+        }
+
+        List<CompletableFuture<long[]>> tasks = new ArrayList<>(toCompress.size());
+        for (LogFile file : toCompress) {
+            tasks.add(CompletableFuture.supplyAsync(() -> compress(file.path), compressionPool));
+        }
+        int compressed = 0;
+        long uncompressedBytes = 0;
+        long compressedBytes = 0;
+        for (CompletableFuture<long[]> task : tasks) {
+            long[] sizes = task.join();
+            if (sizes == null) {
+                failed++;
+            } else {
+                compressed++;
+                uncompressedBytes += sizes[0];
+                compressedBytes += sizes[1];
+            }
+        }
+        return new HousekeepingResult(compressed, deleted, failed, uncompressedBytes, compressedBytes);
+    }
+
+    /**
+     * Searches the log files of a date range, plain and compressed, in chronological order.
+     *
+     * @param from    The first day to search.
+     * @param to      The last day to search (inclusive).
+     * @param filter  Selects the lines to return.
+     * @param matches Receives the selected lines.
+     * @return The number of lines selected.
+     * @throws IOException If a file cannot be read.
+     */
+    public long search(LocalDate from, LocalDate to, Predicate<String> filter, Consumer<String> matches)
+            throws IOException {
+        List<LogFile> listed = listFiles();
+        Set<Path> archives = new HashSet<>();
+        for (LogFile file : listed) {
+            if (file.compressed) {
+                archives.add(file.path);
+            }
+        }
+        List<LogFile> files = new ArrayList<>();
+        for (LogFile file : listed) {
+            // While a file is being compressed, the original and the complete archive can both exist for a moment
+            boolean archived = !file.compressed && archives.contains(archiveOf(file.path));
+            if (!archived && !file.date.isBefore(from) && !file.date.isAfter(to)) {
+                files.add(file);
+            }
+        }
+        files.sort(Comparator.comparing((LogFile file) -> file.date).thenComparingInt(file -> file.segment));
+
+        long count = 0;
+        for (LogFile file : files) {
+            try {
+                count += search(file, filter, matches);
+            } catch (NoSuchFileException e) {
+                // Compressed since the directory was listed, or deleted by the retention policy
+                if (!file.compressed && Files.exists(archiveOf(file.path))) {
+                    count += search(new LogFile(archiveOf(file.path), file.date, file.segment, true), filter, matches);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Searches the log files of a date range for lines containing the given text.
+     *
+     * @param text The text to look for.
+     * @param from The first day to search.
+     * @param to   The last day to search (inclusive).
+     * @return The matching lines in chronological order.
+     * @throws IOException If a file cannot be read.
+     */
+    public List<String> search(String text, LocalDate from, LocalDate to) throws IOException {
+        List<String> lines = new ArrayList<>();
+        search(from, to, line -> line.contains(text), lines::add);
+        return lines;
+    }
+
+    /**
+     * Stops the background runs, waits for running compressions and releases the compressors.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        compressionPool.shutdown();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+            compressionPool.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (GzipCompressor compressor : compressors) {
+            compressor.close();
+        }
+    }
+
+    private static long search(LogFile file, Predicate<String> filter, Consumer<String> matches) throws IOException {
+        long count = 0;
+        try (BufferedReader reader = open(file)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (filter.test(line)) {
+                    matches.accept(line);
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Compresses one log file to {@code <file>.gz} and deletes the original.
+     *
+     * @return The sizes before and after compression, or null if the file could not be compressed.
+     */
+    private long[] compress(Path file) {
+        Path archive = archiveOf(file);
+        Path temp = file.resolveSibling(archive.getFileName() + TEMP_SUFFIX);
+        GzipCompressor compressor = compressors.poll();
+        try {
+            long size = Files.size(file);
+            long compressedSize;
+            // An archive only exists complete (it is renamed into place), so a left-over original can just go
+            if (Files.exists(archive)) {
+                compressedSize = Files.size(archive);
+            } else {
+                compressedSize = compressor.compress(file, temp);
+                Files.setLastModifiedTime(temp, Files.getLastModifiedTime(file));
+                Files.move(temp, archive, StandardCopyOption.ATOMIC_MOVE);
+            }
+            Files.delete(file);
+            // The offsets of the index only apply to the uncompressed file
+            Files.deleteIfExists(LogIndex.indexFileOf(file));
+            return new long[]{size, compressedSize};
+        } catch (IOException e) {
+            LoggingService.logError("Failed to compress log file " + file + ": " + e.getMessage());
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // The temporary file is overwritten by the next attempt
+            }
+            return null;
+        } finally {
+            compressors.add(compressor);
+        }
+    }
+
+    private static Path archiveOf(Path file) {
+        return file.resolveSibling(file.getFileName() + ARCHIVE_SUFFIX);
+    }
+
+    private List<LogFile> listFiles() throws IOException {
+        List<LogFile> files = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (Path path : entries) {
+                Matcher matcher = fileNamePattern.matcher(path.getFileName().toString());
+                if (!matcher.matches()) {
+                    continue;
+                }
+                try {
+                    LocalDate date = LocalDate.parse(matcher.group(1), DATE_FORMAT);
+                    int segment = matcher.group(2) == null ? 0 : Integer.parseInt(matcher.group(2));
+                    files.add(new LogFile(path, date, segment, matcher.group(3) != null));
+                } catch (DateTimeParseException | NumberFormatException e) {
+                    // Not a date (or segment) this naming produces; leave the file alone
+                }
+            }
+        }
+        return files;
+    }
+
+    private static BufferedReader open(LogFile file) throws IOException {
+        InputStream in = Files.newInputStream(file.path);
+        try {
+            if (file.compressed) {
+                in = new GZIPInputStream(in, READ_BUFFER_SIZE);
+            }
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), READ_BUFFER_SIZE);
+    }
+
+    private static ThreadFactory lowPriorityThreads(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        };
+    }
+
+    /**
+     * A log file or archive found in the log directory.
+     */
+    private static final class LogFile {
+        private final Path path;
+        private final LocalDate date;
+        private final int segment;
+        private final boolean compressed;
+
+        private LogFile(Path path, LocalDate date, int segment, boolean compressed) {
+            this.path = path;
+            this.date = date;
+            this.segment = segment;
+            this.compressed = compressed;
+        }
+    }
+
+    /**
+     * Builder for {@link LogHousekeeper} instances.
+     */
+    public static class Builder {
+        private final DailyLogFile dailyLogFile;
+        private Path directory = Paths.get("");
+        private int retentionDays = 30;
+        private Duration gracePeriod = Duration.ofMinutes(5);
+        private long intervalMillis = TimeUnit.HOURS.toMillis(1);
+        private int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+        private Builder(DailyLogFile dailyLogFile) {
+            this.dailyLogFile = dailyLogFile;
+        }
+
+        /**
+         * @param directory Directory holding the log files (default the working directory).
+         * @return This builder.
+         */
+        public Builder directory(Path directory) {
+            this.directory = directory;
+            return this;
+        }
+
+        /**
+         * @param days Number of days log files are kept, counted back from today (default 30).
+         * @return This builder.
+         */
+        public Builder retentionDays(int days) {
+            if (days < 1) {
+                throw new IllegalArgumentException("Retention must be at least one day: " + days);
+            }
+            this.retentionDays = days;
+            return this;
+        }
+
+        /**
+         * @param gracePeriod Time a log file of an earlier day has to be unmodified before it is compressed
+         *                    (default 5 minutes).
+         * @return This builder.
+         */
+        public Builder gracePeriod(Duration gracePeriod) {
+            if (gracePeriod.isNegative()) {
+                throw new IllegalArgumentException("Grace period must not be negative: " + gracePeriod);
+            }
+            this.gracePeriod = gracePeriod;
+            return this;
+        }
+
+        /**
+         * @param interval Time between two background runs (default 1 hour).
+         * @param unit     The unit of the interval.
+         * @return This builder.
+         */
+        public Builder interval(long interval, TimeUnit unit) {
+            if (interval <= 0) {
+                throw new IllegalArgumentException("Interval must be positive: " + interval);
+            }
+            this.intervalMillis = unit.toMillis(interval);
+            return this;
+        }
+
+        /**
+         * @param threads Number of files compressed in parallel (default half the available processors).
+         * @return This builder.
+         */
+        public Builder threads(int threads) {
+            if (threads < 1) {
+                throw new IllegalArgumentException("Thread count must be positive: " + threads);
+            }
+            this.threads = threads;
+            return this;
+        }
+
+        /**
+         * @param compressionLevel Deflate level from 1 (fastest) to 9 (smallest) (default 6).
+         * @return This builder.
+         */
+        public Builder compressionLevel(int compressionLevel) {
+            if (compressionLevel < Deflater.BEST_SPEED || compressionLevel > Deflater.BEST_COMPRESSION) {
+                throw new IllegalArgumentException("Compression level must be between 1 and 9: " + compressionLevel);
+            }
+            this.compressionLevel = compressionLevel;
+            return this;
+        }
+
+        /**
+         * Creates the housekeeper; call {@link LogHousekeeper#start()} to run it in the background.
+         *
+         * @return The housekeeper.
+         */
+        public LogHousekeeper build() {
+            return new LogHousekeeper(this);
+        }
+    }
+}
@@ -0,0 +1,455 @@
+package com.transaction.processing.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Looks up entries of a text log file ({@code TransactionProcessing_yyMMdd.log}) through its sidecar index
+ * ({@code <log file>.idx}, maintained by {@link LogIndexer}), instead of reading the whole file.
+ * <p>
+ * The index divides the log into blocks of whole lines and holds, per block:
+ * <ul>
+ *   <li>the offset and length of the block in the log,</li>
+ *   <li>the earliest and latest time of day of its entries,</li>
+ *   <li>the sorted 32-bit hashes of the masked PANs of its transaction entries.</li>
+ * </ul>
+ * File layout: an 8 byte header (magic number and version), followed by one section per block:
+ * {@code offset long, length int, first time int, last time int, line count int, hash count int, hashes int[]},
+ * all big-endian. Sections are only appended and cover the log without gaps, so an index that was cut short
+ * (e.g. by a crash) is still valid up to its last complete section.
+ * <p>
+ * A query reads the index sequentially, then reads only the blocks that may match with positional
+ * {@link FileChannel} reads, and finally scans the part of the log the index does not cover yet. Hash collisions
+ * only cost reading an extra block: every line is checked before it is returned.
+ * <p>
+ * An instance is not thread-safe, as queries share a read buffer.
+ */
+public class LogIndex implements Closeable {
+    /** Suffix appended to the name of the log file. */
+    public static final String EXTENSION = ".idx";
+
+    static final int MAGIC = 0x54584958;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    static final int SECTION_HEADER_SIZE = 28;
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final int TIME_LENGTH = "HH:mm:ss.SSS".length();
+    private static final byte[] PAN_MARKER =
+            " INFO: Processed transaction with card number ".getBytes(StandardCharsets.US_ASCII);
+
+    private final FileChannel log;
+    private final FileChannel index;
+    private final LineScanner scanner = new LineScanner();
+
+    private LogIndex(FileChannel log, FileChannel index) {
+        this.log = log;
+        this.index = index;
+    }
+
+    /**
+     * Opens a log file and, if there is one, its index. Without an index, queries read the whole log.
+     *
+     * @param logFile The log file.
+     * @return The opened index.
+     * @throws IOException If the log file cannot be opened.
+     */
+    public static LogIndex open(Path logFile) throws IOException {
+        FileChannel log = FileChannel.open(logFile, StandardOpenOption.READ);
+        Path indexFile = indexFileOf(logFile);
+        try {
+            FileChannel index = Files.exists(indexFile) ? FileChannel.open(indexFile, StandardOpenOption.READ) : null;
+            return new LogIndex(log, index);
+        } catch (IOException e) {
+            log.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @param logFile The log file.
+     * @return The index file of the log file, {@code <log file>.idx}.
+     */
+    public static Path indexFileOf(Path logFile) {
+        return logFile.resolveSibling(logFile.getFileName() + EXTENSION);
+    }
+
+    /**
+     * Finds the transaction entries of a card.
+     *
+     * @param pan     The PAN, either complete or masked as in the log ({@code 123456******3456}).
+     * @param matches Receives the matching lines in log order.
+     * @return The number of matching lines.
+     * @throws IOException If the log or the index cannot be read.
+     */
+    public long findByPan(String pan, Consumer<String> matches) throws IOException {
+        byte[] masked = maskPan(pan).getBytes(StandardCharsets.UTF_8);
+        int hash = hash(masked, 0, masked.length);
+        long[] count = new long[1];
+        LineVisitor visitor = (bytes, start, end, nextOffset) -> {
+            int token = panStart(bytes, start, end);
+            if (token >= 0 && tokenEquals(bytes, token, end, masked)) {
+                matches.accept(new String(bytes, start, end - start, StandardCharsets.UTF_8));
+                count[0]++;
+            }
+        };
+        long indexedEnd = 0;
+        List<long[]> blocks = new ArrayList<>();
+        if (index != null) {
+            SectionReader sections = new SectionReader(index);
+            long logSize = log.size();
+            while (sections.next(logSize)) {
+                if (sections.containsHash(hash)) {
+                    blocks.add(new long[]{sections.offset, sections.length});
+                }
+            }
+            indexedEnd = sections.logEnd;
+        }
+        for (long[] block : blocks) {
+            scanner.scan(log, block[0], block[0] + block[1], visitor);
+        }
+        scanner.scan(log, indexedEnd, log.size(), visitor);
+        return count[0];
+    }
+
+    /**
+     * Finds the entries logged within a time window of the day of the log file.
+     *
+     * @param from    The start of the window (inclusive).
+     * @param to      The end of the window (exclusive).
+     * @param matches Receives the matching lines in log order.
+     * @return The number of matching lines.
+     * @throws IOException If the log or the index cannot be read.
+     */
+    public long findByTime(LocalTime from, LocalTime to, Consumer<String> matches) throws IOException {
+        int fromMillis = (int) (from.toNanoOfDay() / 1_000_000);
+        int toMillis = (int) (to.toNanoOfDay() / 1_000_000);
+        long[] count = new long[1];
+        LineVisitor visitor = (bytes, start, end, nextOffset) -> {
+            int time = timeOfDay(bytes, start, end);
+            if (time >= fromMillis && time < toMillis) {
+                matches.accept(new String(bytes, start, end - start, StandardCharsets.UTF_8));
+                count[0]++;
+            }
+        };
+        long indexedEnd = 0;
+        if (index != null) {
+            SectionReader sections = new SectionReader(index);
+            long logSize = log.size();
+            while (sections.next(logSize)) {
+                if (sections.firstTime < toMillis && sections.lastTime >= fromMillis) {
+                    scanner.scan(log, sections.offset, sections.offset + sections.length, visitor);
+                }
+            }
+            indexedEnd = sections.logEnd;
+        }
+        scanner.scan(log, indexedEnd, log.size(), visitor);
+        return count[0];
+    }
+
+    /**
+     * @return The length of the part of the log covered by the index.
+     * @throws IOException If the index cannot be read.
+     */
+    public long getIndexedLength() throws IOException {
+        if (index == null) {
+            return 0;
+        }
+        SectionReader sections = new SectionReader(index);
+        long logSize = log.size();
+        while (sections.next(logSize)) {
+            // Only the end of the last valid section is needed
+        }
+        return sections.logEnd;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            log.close();
+        } finally {
+            if (index != null) {
+                index.close();
+            }
+        }
+    }
+
+    /**
+     * Masks a 16 digit PAN the way the log does, keeping the first 6 and last 4 digits; any other value is
+     * returned unchanged.
+     */
+    static String maskPan(String pan) {
+        if (pan.length() != 16 || pan.indexOf('*') >= 0) {
+            return pan;
+        }
+        return pan.substring(0, 6) + "******" + pan.substring(12);
+    }
+
+    /**
+     * @return The time of day of a log line ({@code HH:mm:ss.SSS ...}) in milliseconds, or -1 if the line does
+     * not start with a time.
+     */
+    static int timeOfDay(byte[] bytes, int start, int end) {
+        if (end - start < TIME_LENGTH || bytes[start + 2] != ':' || bytes[start + 5] != ':'
+                || bytes[start + 8] != '.') {
+            return -1;
+        }
+        int hours = digits(bytes, start, 2);
+        int minutes = digits(bytes, start + 3, 2);
+        int seconds = digits(bytes, start + 6, 2);
+        int millis = digits(bytes, start + 9, 3);
+        if (hours < 0 || minutes < 0 || seconds < 0 || millis < 0) {
+            return -1;
+        }
+        return ((hours * 60 + minutes) * 60 + seconds) * 1000 + millis;
+    }
+
+    /**
+     * @return The position of the masked PAN in a transaction entry, or -1 if the line is not a transaction entry.
+     */
+    static int panStart(byte[] bytes, int start, int end) {
+        int marker = start + TIME_LENGTH;
+        if (end - marker < PAN_MARKER.length) {
+            return -1;
+        }
+        for (int i = 0; i < PAN_MARKER.length; i++) {
+            if (bytes[marker + i] != PAN_MARKER[i]) {
+                return -1;
+            }
+        }
+        return marker + PAN_MARKER.length;
+    }
+
+    /**
+     * @return The end of the token starting at the given position: the next space or the end of the line.
+     */
+    static int tokenEnd(byte[] bytes, int from, int end) {
+        int i = from;
+        while (i < end && bytes[i] != ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Hashes the bytes of a masked PAN (FNV-1a, 32 bits).
+     */
+    static int hash(byte[] bytes, int from, int to) {
+        int hash = 0x811c9dc5;
+        for (int i = from; i < to; i++) {
+            hash = (hash ^ (bytes[i] & 0xFF)) * 0x01000193;
+        }
+        return hash;
+    }
+
+    private static boolean tokenEquals(byte[] bytes, int token, int end, byte[] expected) {
+        if (tokenEnd(bytes, token, end) - token != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (bytes[token + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int digits(byte[] bytes, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Receives the lines of a region of the log.
+     */
+    interface LineVisitor {
+        /**
+         * @param bytes      The buffer holding the line.
+         * @param start      The start of the line in the buffer.
+         * @param end        The end of the line in the buffer, without the line separator.
+         * @param nextOffset The offset in the log just after the line separator.
+         * @throws IOException If processing the line fails.
+         */
+        void line(byte[] bytes, int start, int end, long nextOffset) throws IOException;
+    }
+
+    /**
+     * Reads regions of a log with positional reads and splits them into lines. Not thread-safe; the buffer is
+     * reused and grows for lines longer than it.
+     */
+    static final class LineScanner {
+        private ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+
+        /**
+         * Visits the complete lines of {@code [from, to)}. A line without a line separator at the end of the region
+         * is left out, as it may still be being written; so is everything from a line starting with a zero byte,
+         * the unwritten part of a preallocated file.
+         *
+         * @return The offset after the last visited line.
+         */
+        long scan(FileChannel channel, long from, long to, LineVisitor visitor) throws IOException {
+            long position = from;
+            while (position < to) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), to - position));
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, position + buffer.position()) < 0) {
+                        break;
+                    }
+                }
+                byte[] bytes = buffer.array();
+                int length = buffer.position();
+                int lineStart = 0;
+                for (int i = 0; i < length; i++) {
+                    if (i == lineStart && bytes[i] == 0) {
+                        return position + lineStart;
+                    }
+                    if (bytes[i] == '\n') {
+                        int lineEnd = i > lineStart && bytes[i - 1] == '\r' ? i - 1 : i;
+                        visitor.line(bytes, lineStart, lineEnd, position + i + 1);
+                        lineStart = i + 1;
+                    }
+                }
+                if (lineStart == 0) {
+                    if (length < buffer.capacity()) {
+                        // The rest of the region is an incomplete line
+                        return position;
+                    }
+                    buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+                    continue;
+                }
+                position += lineStart;
+            }
+            return position;
+        }
+    }
+
+    /**
+     * Reads the sections of an index in order, through a buffer holding a chunk of the file.
+     */
+    static final class SectionReader {
+        private final FileChannel channel;
+        private final long size;
+        private ByteBuffer chunk = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        private long chunkStart;
+        private int chunkLength;
+        private long hashesPosition;
+        /** False if the index does not start with a valid header, in which case it has no sections. */
+        final boolean valid;
+        /** Position of the next section in the index. */
+        long position;
+        /** Offset in the log up to which the sections read so far cover it. */
+        long logEnd;
+        long offset;
+        int length;
+        int firstTime;
+        int lastTime;
+        int lineCount;
+        int hashCount;
+
+        SectionReader(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+            // A missing or foreign header is treated as an empty index
+            this.valid = size >= HEADER_SIZE && load(0, HEADER_SIZE)
+                    && chunk.getInt(0) == MAGIC && chunk.getInt(4) == VERSION;
+            this.position = valid ? HEADER_SIZE : size;
+        }
+
+        /**
+         * Moves to the next section.
+         *
+         * @param logSize The size of the log; sections beyond it are not valid.
+         * @return False at the end of the index, or at a section that is incomplete or does not continue the
+         * previous one.
+         */
+        boolean next(long logSize) throws IOException {
+            if (position + SECTION_HEADER_SIZE > size || !load(position, SECTION_HEADER_SIZE)) {
+                return false;
+            }
+            int at = (int) (position - chunkStart);
+            long sectionOffset = chunk.getLong(at);
+            int sectionLength = chunk.getInt(at + 8);
+            int count = chunk.getInt(at + 24);
+            long end = position + SECTION_HEADER_SIZE + 4L * count;
+            if (sectionOffset != logEnd || sectionLength <= 0 || sectionOffset + sectionLength > logSize
+                    || count < 0 || end > size) {
+                return false;
+            }
+            offset = sectionOffset;
+            length = sectionLength;
+            firstTime = chunk.getInt(at + 12);
+            lastTime = chunk.getInt(at + 16);
+            lineCount = chunk.getInt(at + 20);
+            hashCount = count;
+            hashesPosition = position + SECTION_HEADER_SIZE;
+            position = end;
+            logEnd = sectionOffset + sectionLength;
+            return true;
+        }
+
+        /**
+         * @return True if the hash is one of the hashes of the current section.
+         */
+        boolean containsHash(int hash) throws IOException {
+            if (hashCount == 0 || !load(hashesPosition, 4 * hashCount)) {
+                return false;
+            }
+            int base = (int) (hashesPosition - chunkStart);
+            int low = 0;
+            int high = hashCount - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int value = chunk.getInt(base + 4 * middle);
+                if (value < hash) {
+                    low = middle + 1;
+                } else if (value > hash) {
+                    high = middle - 1;
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Makes sure {@code [from, from + count)} of the index is in the chunk buffer.
+         *
+         * @return False if the index ends before.
+         */
+        private boolean load(long from, int count) throws IOException {
+            if (from >= chunkStart && from + count <= chunkStart + chunkLength) {
+                return true;
+            }
+            if (count > chunk.capacity()) {
+                chunk = ByteBuffer.allocate(Integer.highestOneBit(count) * 2);
+            }
+            chunk.clear();
+            chunkStart = from;
+            while (chunk.hasRemaining()) {
+                if (channel.read(chunk, from + chunk.position()) < 0) {
+                    break;
+                }
+            }
+            chunkLength = chunk.position();
+            return chunkLength >= count;
+        }
+    }
+}
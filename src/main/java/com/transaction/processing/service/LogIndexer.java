@@ -0,0 +1,368 @@
+package com.transaction.processing.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the sidecar index ({@link LogIndex}) of the daily text log up to date while the log is being written.
+ * <p>
+ * The indexer follows the log file from a low-priority background thread: at every run it reads the lines
+ * appended since the previous run with positional reads, which are served from the page cache, and appends a
+ * section to the index for every block of about {@code blockSize} bytes of complete lines. The sinks and the
+ * threads that log are not involved at all, so indexing works with any sink that writes the plain daily file and
+ * adds nothing to the logging latency. The part of the log written since the last complete block is scanned
+ * directly by queries.
+ * <p>
+ * After a restart the indexer continues after the last complete section of the existing index. When the day
+ * changes, the index of the previous day's file is completed with a final, possibly smaller, block.
+ */
+public class LogIndexer implements Closeable {
+    /** Default number of log bytes per index block. */
+    public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+    private final DailyLogFile dailyLogFile;
+    private final Path directory;
+    private final int blockSize;
+    private final long intervalMillis;
+    private final ScheduledExecutorService scheduler;
+    private FileIndexer current;
+
+    private LogIndexer(Builder builder) {
+        this.dailyLogFile = builder.dailyLogFile;
+        this.directory = builder.directory;
+        this.blockSize = builder.blockSize;
+        this.intervalMillis = builder.intervalMillis;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "log-indexer");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    /**
+     * Creates a builder for an indexer of the files named by the given daily log file.
+     *
+     * @param dailyLogFile The naming of the log files, e.g. {@link LoggingService#getDailyLogFile()}.
+     * @return A builder with default settings.
+     */
+    public static Builder builder(DailyLogFile dailyLogFile) {
+        return new Builder(dailyLogFile);
+    }
+
+    /**
+     * Brings the index of a log file up to date and completes it, e.g. for a log written without an indexer.
+     *
+     * @param logFile   The log file.
+     * @param blockSize The number of log bytes per index block.
+     * @return The length of the log covered by the index.
+     * @throws IOException If the log cannot be read or the index cannot be written.
+     */
+    public static long index(Path logFile, int blockSize) throws IOException {
+        try (FileIndexer indexer = new FileIndexer(logFile, blockSize)) {
+            indexer.update();
+            indexer.finish();
+            return indexer.indexedEnd;
+        }
+    }
+
+    /**
+     * Runs {@link #update()} now and then repeatedly at the configured interval, in the background.
+     */
+    public void start() {
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                update();
+            } catch (IOException e) {
+                LoggingService.logError("Log indexing failed: " + e.getMessage());
+            }
+        }, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Indexes the lines appended to today's log file since the previous update. On the first update of a new day,
+     * the index of the previous file is completed first.
+     *
+     * @throws IOException If the log cannot be read or the index cannot be written.
+     */
+    public synchronized void update() throws IOException {
+        Path logFile = directory.resolve(dailyLogFile.current());
+        if (current != null && !current.logFile.equals(logFile)) {
+            FileIndexer previous = current;
+            current = null;
+            try {
+                previous.update();
+                previous.finish();
+            } finally {
+                previous.close();
+            }
+        }
+        if (current == null) {
+            if (!Files.exists(logFile)) {
+                return;
+            }
+            current = new FileIndexer(logFile, blockSize);
+        }
+        current.update();
+    }
+
+    /**
+     * @return The length of today's log covered by its index, or 0 if it has not been indexed yet.
+     */
+    public synchronized long getIndexedLength() {
+        return current == null ? 0 : current.indexedEnd;
+    }
+
+    /**
+     * Stops the background runs and indexes what is left of the current log file, completing its index.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (current == null) {
+                return;
+            }
+            try {
+                current.update();
+                current.finish();
+            } catch (IOException e) {
+                LoggingService.logError("Log indexing failed: " + e.getMessage());
+            } finally {
+                try {
+                    current.close();
+                } catch (IOException e) {
+                    LoggingService.logError("Failed to close log index: " + e.getMessage());
+                }
+                current = null;
+            }
+        }
+    }
+
+    /**
+     * Incremental indexer of one log file: the lines read since the last complete block form the pending block,
+     * which is appended to the index as a section once it reaches the block size.
+     */
+    private static final class FileIndexer implements Closeable, LogIndex.LineVisitor {
+        private final Path logFile;
+        private final int blockSize;
+        private final FileChannel log;
+        private final FileChannel index;
+        private final LogIndex.LineScanner scanner = new LogIndex.LineScanner();
+        private long indexSize;
+        private long indexedEnd;
+        private long scannedEnd;
+        // The pending block
+        private int lineCount;
+        private int firstTime;
+        private int lastTime;
+        private int[] hashes = new int[256];
+        private int hashCount;
+
+        private FileIndexer(Path logFile, int blockSize) throws IOException {
+            this.logFile = logFile;
+            this.blockSize = blockSize;
+            this.log = FileChannel.open(logFile, StandardOpenOption.READ);
+            try {
+                this.index = FileChannel.open(LogIndex.indexFileOf(logFile),
+                        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                recover();
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        /**
+         * Continues after the last valid section of an existing index, dropping anything after it.
+         */
+        private void recover() throws IOException {
+            LogIndex.SectionReader sections = new LogIndex.SectionReader(index);
+            if (!sections.valid) {
+                reset();
+                return;
+            }
+            long logSize = log.size();
+            while (sections.next(logSize)) {
+                // Only the end of the last valid section is needed
+            }
+            index.truncate(sections.position);
+            indexSize = sections.position;
+            indexedEnd = sections.logEnd;
+            scannedEnd = indexedEnd;
+            clearBlock();
+        }
+
+        /**
+         * Starts the index over with only a header.
+         */
+        private void reset() throws IOException {
+            index.truncate(0);
+            ByteBuffer header = ByteBuffer.allocate(LogIndex.HEADER_SIZE);
+            header.putInt(LogIndex.MAGIC).putInt(LogIndex.VERSION).flip();
+            writeFully(header, 0);
+            indexSize = LogIndex.HEADER_SIZE;
+            indexedEnd = 0;
+            scannedEnd = 0;
+            clearBlock();
+        }
+
+        private void update() throws IOException {
+            long size = log.size();
+            if (size < scannedEnd) {
+                // The log was truncated or replaced
+                reset();
+            }
+            try {
+                scannedEnd = scanner.scan(log, scannedEnd, size, this);
+            } catch (IOException e) {
+                // Drop a partly written section and the pending block, so the next update starts clean
+                recover();
+                throw e;
+            }
+        }
+
+        @Override
+        public void line(byte[] bytes, int start, int end, long nextOffset) throws IOException {
+            lineCount++;
+            int time = LogIndex.timeOfDay(bytes, start, end);
+            if (time >= 0) {
+                firstTime = Math.min(firstTime, time);
+                lastTime = Math.max(lastTime, time);
+            }
+            int token = LogIndex.panStart(bytes, start, end);
+            if (token >= 0) {
+                if (hashCount == hashes.length) {
+                    hashes = Arrays.copyOf(hashes, hashCount * 2);
+                }
+                hashes[hashCount++] = LogIndex.hash(bytes, token, LogIndex.tokenEnd(bytes, token, end));
+            }
+            if (nextOffset - indexedEnd >= blockSize) {
+                writeSection(nextOffset);
+            }
+        }
+
+        /**
+         * Appends the pending block, if it holds any line, to the index.
+         */
+        private void finish() throws IOException {
+            if (lineCount > 0) {
+                writeSection(scannedEnd);
+            }
+        }
+
+        private void writeSection(long end) throws IOException {
+            Arrays.sort(hashes, 0, hashCount);
+            int unique = 0;
+            for (int i = 0; i < hashCount; i++) {
+                if (unique == 0 || hashes[i] != hashes[unique - 1]) {
+                    hashes[unique++] = hashes[i];
+                }
+            }
+            ByteBuffer section = ByteBuffer.allocate(LogIndex.SECTION_HEADER_SIZE + 4 * unique);
+            section.putLong(indexedEnd).putInt((int) (end - indexedEnd)).putInt(firstTime).putInt(lastTime)
+                    .putInt(lineCount).putInt(unique);
+            for (int i = 0; i < unique; i++) {
+                section.putInt(hashes[i]);
+            }
+            section.flip();
+            writeFully(section, indexSize);
+            indexSize += section.capacity();
+            indexedEnd = end;
+            clearBlock();
+        }
+
+        private void clearBlock() {
+            lineCount = 0;
+            firstTime = Integer.MAX_VALUE;
+            lastTime = -1;
+            hashCount = 0;
+        }
+
+        private void writeFully(ByteBuffer buffer, long position) throws IOException {
+            long at = position;
+            while (buffer.hasRemaining()) {
+                at += index.write(buffer, at);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                log.close();
+            } finally {
+                if (index != null) {
+                    index.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Builder for {@link LogIndexer} instances.
+     */
+    public static class Builder {
+        private final DailyLogFile dailyLogFile;
+        private Path directory = Paths.get("");
+        private int blockSize = DEFAULT_BLOCK_SIZE;
+        private long intervalMillis = TimeUnit.SECONDS.toMillis(1);
+
+        private Builder(DailyLogFile dailyLogFile) {
+            this.dailyLogFile = dailyLogFile;
+        }
+
+        /**
+         * @param directory Directory holding the log files (default the working directory).
+         * @return This builder.
+         */
+        public Builder directory(Path directory) {
+            this.directory = directory;
+            return this;
+        }
+
+        /**
+         * @param blockSize Number of log bytes per index block; smaller blocks mean a larger index and less reading
+         *                  per match (default {@value LogIndexer#DEFAULT_BLOCK_SIZE}).
+         * @return This builder.
+         */
+        public Builder blockSize(int blockSize) {
+            if (blockSize <= 0) {
+                throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+            }
+            this.blockSize = blockSize;
+            return this;
+        }
+
+        /**
+         * @param interval Time between two background updates (default 1 second).
+         * @return This builder.
+         */
+        public Builder interval(Duration interval) {
+            if (interval.isZero() || interval.isNegative()) {
+                throw new IllegalArgumentException("Interval must be positive: " + interval);
+            }
+            this.intervalMillis = interval.toMillis();
+            return this;
+        }
+
+        public LogIndexer build() {
+            return new LogIndexer(this);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.transaction.processing.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Destination for formatted log entries written by {@link LoggingService}.
+ * Implementations decide when the entries actually reach the disk.
+ */
+public interface LogSink extends Closeable {
+    /**
+     * Appends a single log entry. The line separator is added by the sink.
+     *
+     * @param entry The complete log entry without a trailing line separator.
+     * @throws IOException If the entry could not be written.
+     */
+    void write(CharSequence entry) throws IOException;
+
+    /**
+     * Forces any buffered entries to be written out.
+     *
+     * @throws IOException If the buffered entries could not be written.
+     */
+    default void flush() throws IOException {
+    }
+
+    /**
+     * Writes out all pending entries and releases the resources held by the sink.
+     *
+     * @throws IOException If the pending entries could not be written.
+     */
+    @Override
+    void close() throws IOException;
+}
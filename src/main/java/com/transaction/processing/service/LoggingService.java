@@ -1,17 +1,13 @@
 package com.transaction.processing.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
-import com.transaction.processing.model.CurrencyCode;
+import com.transaction.processing.model.DeclineReason;
 import com.transaction.processing.model.Transaction;
-import com.transaction.processing.model.TransactionType;
+import com.transaction.processing.util.ObjectPool;
 
-import java.io.FileWriter;
 import java.io.IOException;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
+import java.nio.ByteBuffer;
+import java.time.Clock;
+import java.util.function.Consumer;
 
 /**
  * Service class for logging transaction details and processing information.
@@ -19,9 +15,22 @@ import java.time.format.DateTimeFormatter;
  */
 public class LoggingService {
     private static final String programName = "TransactionProcessing";
-    private static final String LOG_FILE = programName + "_"
-            + LocalDate.now().format(DateTimeFormatter.ofPattern("yyMMdd")) + ".log";
-    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final DailyLogFile LOG_FILE = new DailyLogFile(programName);
+    private static volatile LogSink sink = new FileLogSink(LOG_FILE);
+    // Formatters are borrowed for each entry rather than kept per thread, so the virtual threads of
+    // AsyncPaymentService, which each run a single task, reuse them as well
+    private static final ObjectPool<TransactionLogFormatter> FORMATTERS =
+            new ObjectPool<>(64, TransactionLogFormatter::new);
+    // Processed transactions are logged in the binary format when started with -Dtransaction.log.format=binary
+    private static volatile BinaryLogWriter binaryLog = "binary".equals(System.getProperty("transaction.log.format"))
+            ? new BinaryLogWriter(new DailyLogFile(programName, BinaryLogWriter.EXTENSION, Clock.systemDefaultZone()))
+            : null;
+    // The daily log file is indexed in the background when started with -Dtransaction.log.index=true
+    private static final LogIndexer INDEXER = Boolean.getBoolean("transaction.log.index") ? startIndexer() : null;
+    // Log files of earlier days are compressed, and deleted after -Dtransaction.log.retentionDays (default 30), in
+    // the background when started with -Dtransaction.log.housekeeping=true
+    private static final LogHousekeeper HOUSEKEEPER = Boolean.getBoolean("transaction.log.housekeeping")
+            ? startHousekeeper() : null;
 
     /**
      * Logs information about a transaction.
@@ -29,8 +38,64 @@ public class LoggingService {
      * @param transaction The transaction to log.
      */
     public static void logTransaction(Transaction transaction) {
-        String logMessage = formatTransactionLog(transaction);
-        log("INFO", logMessage);
+        TransactionLogFormatter formatter = FORMATTERS.acquire();
+        try {
+            write(formatter.formatTransactionEntry(transaction, System.currentTimeMillis()));
+        } finally {
+            FORMATTERS.release(formatter);
+        }
+    }
+
+    /**
+     * Logs the outcome of a processed transaction. With the text log this is the decline reason as ERROR entry
+     * if the transaction was declined, followed by the transaction entry (or an ERROR entry if the transaction
+     * cannot be formatted). With a binary log set, it is a single binary record instead.
+     *
+     * @param transaction The processed transaction, with its status and decline reason.
+     */
+    public static void logProcessed(Transaction transaction) {
+        BinaryLogWriter binary = binaryLog;
+        if (binary != null) {
+            try {
+                binary.write(transaction);
+            } catch (IOException e) {
+                System.err.println("Failed to write to binary log file: " + e.getMessage());
+            }
+            return;
+        }
+        logProcessedText(transaction, LoggingService::logError, LoggingService::logTransaction);
+    }
+
+    /**
+     * Produces the text log entries of a processed transaction, shared by {@link #logProcessed(Transaction)} and
+     * {@link LogBatch#logProcessed(Transaction)}: the decline reason as ERROR entry if the transaction was
+     * declined, followed by the transaction entry, or an ERROR entry if the transaction cannot be formatted.
+     *
+     * @param transaction    The processed transaction, with its status and decline reason.
+     * @param errorLog       Logs an ERROR entry with the given message.
+     * @param transactionLog Logs the entry of the transaction.
+     */
+    private static void logProcessedText(Transaction transaction, Consumer<String> errorLog,
+                                         Consumer<Transaction> transactionLog) {
+        DeclineReason reason = transaction.getDeclineReason();
+        if (reason != null) {
+            errorLog.accept(ValidationCheck.describe(transaction, reason));
+        }
+        String formatError = TransactionLogFormatter.findFormatError(transaction);
+        if (formatError == null) {
+            transactionLog.accept(transaction);
+        } else {
+            errorLog.accept("Error during logging transaction: " + formatError);
+        }
+    }
+
+    /**
+     * Logs an informational message.
+     *
+     * @param message The message to log.
+     */
+    public static void logInfo(String message) {
+        log("INFO", message);
     }
 
     /**
@@ -42,6 +107,95 @@ public class LoggingService {
         log("ERROR", errorMessage);
     }
 
+    /**
+     * Creates a batch that collects log entries and writes them to the sink with a single write.
+     *
+     * @return An empty log batch, to be used by one thread only.
+     */
+    public static LogBatch newBatch() {
+        return new LogBatch();
+    }
+
+    /**
+     * Replaces the sink log entries are written to, e.g. with an {@link AsyncLogWriter}.
+     * The previous sink is returned and not closed, so the caller can decide when to shut it down.
+     *
+     * @param newSink The sink to write subsequent log entries to.
+     * @return The previously used sink.
+     */
+    public static LogSink setSink(LogSink newSink) {
+        if (newSink == null) {
+            throw new IllegalArgumentException("Log sink must not be null");
+        }
+        LogSink previous = sink;
+        sink = newSink;
+        return previous;
+    }
+
+    public static LogSink getSink() {
+        return sink;
+    }
+
+    /**
+     * Switches the logging of processed transactions ({@link #logProcessed(Transaction)}) to a binary log,
+     * or back to the text log with null. Messages logged with {@link #logInfo(String)} and
+     * {@link #logError(String)} always go to the text log. The previous writer is returned and not closed.
+     *
+     * @param writer The binary log to write processed transactions to, or null for the text log.
+     * @return The previously used binary log, or null if the text log was used.
+     */
+    public static BinaryLogWriter setBinaryLog(BinaryLogWriter writer) {
+        BinaryLogWriter previous = binaryLog;
+        binaryLog = writer;
+        return previous;
+    }
+
+    public static BinaryLogWriter getBinaryLog() {
+        return binaryLog;
+    }
+
+    /**
+     * @return The name of today's log file, as used by the default sink.
+     */
+    public static String getLogFileName() {
+        return LOG_FILE.current();
+    }
+
+    /**
+     * @return The daily log file naming used by the default sink.
+     */
+    public static DailyLogFile getDailyLogFile() {
+        return LOG_FILE;
+    }
+
+    /**
+     * @return The indexer of the daily log file, or null if the log is not indexed.
+     */
+    public static LogIndexer getLogIndexer() {
+        return INDEXER;
+    }
+
+    private static LogIndexer startIndexer() {
+        LogIndexer indexer = LogIndexer.builder(LOG_FILE).build();
+        indexer.start();
+        return indexer;
+    }
+
+    /**
+     * @return The housekeeper of the log files, or null if old log files are neither compressed nor deleted.
+     */
+    public static LogHousekeeper getLogHousekeeper() {
+        return HOUSEKEEPER;
+    }
+
+    private static LogHousekeeper startHousekeeper() {
+        LogHousekeeper housekeeper = LogHousekeeper.builder(LOG_FILE)
+                .retentionDays(Integer.getInteger("transaction.log.retentionDays", 30))
+                .build();
+        housekeeper.start();
+        return housekeeper;
+    }
+
     /**
      * Logs a message with the specified level.
      *
@@ -49,68 +203,127 @@ public class LoggingService {
      * @param message The message to log.
      */
     private static void log(String level, String message) {
-        String timestamp = LocalTime.now().format(DateTimeFormatter.ofPattern("HH:mm:ss.SSS"));
-        String logEntry = String.format("%s %s: %s", timestamp, level, message);
+        TransactionLogFormatter formatter = FORMATTERS.acquire();
+        try {
+            write(formatter.formatEntry(level, message, System.currentTimeMillis()));
+        } finally {
+            FORMATTERS.release(formatter);
+        }
+    }
 
-        try (FileWriter writer = new FileWriter(LOG_FILE, true)) {
-            writer.write(logEntry + System.lineSeparator());
+    private static void write(CharSequence logEntry) {
+        try {
+            sink.write(logEntry);
         } catch (IOException e) {
             System.err.println("Failed to write to log file: " + e.getMessage());
         }
     }
 
     /**
-     * Formats the transaction log entry to meet the acceptance criteria.
-     *
-     * @param transaction The transaction to format.
-     * @return A formatted log message for the transaction.
+     * Collects formatted log entries so a whole chunk of transactions costs a single sink write.
+     * Entries keep their order and format; they are only written when {@link #flush()} is called.
      */
-    private static String formatTransactionLog(Transaction transaction) {
-        String maskedPan = maskPan(transaction.getPan());
-        String amountFormatted = String.format("%.2f", transaction.getAmount() / 100.0);
-        String status = transaction.getStatus().equals("01") ? "Approved" : "Declined";
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm"));
-        CurrencyCode currency = CurrencyCode.fromNumericCode(transaction.getCurrency());
-
-        // Build JSON transaction details
-        ObjectNode transactionDetails = objectMapper.createObjectNode();
-        ObjectNode transactionNode = transactionDetails.putObject("data").putObject("transaction");
-        transactionNode.put("pan", maskedPan);
-        transactionNode.put("type", TransactionType.fromCode(transaction.getType()).getCode());
-        transactionNode.put("amount", transaction.getAmount());
-        transactionNode.put("currency", currency.getNumericCode());
-        transactionNode.put("status", transaction.getStatus());
-
-        // Convert JSON to string
-        String transactionDetailsJson;
-        try {
-            transactionDetailsJson = objectMapper.writeValueAsString(transactionDetails);
-        } catch (IOException e) {
-            // Fallback in case of serialization error
-            transactionDetailsJson = "{}";
+    public static class LogBatch {
+        private final StringBuilder entries = new StringBuilder(8192);
+        private final BinaryLogWriter binary = binaryLog;
+        private final Consumer<String> errorLog = this::logError;
+        private final Consumer<Transaction> transactionLog = this::logTransaction;
+        // Borrowed on the first text entry and returned by flush()
+        private TransactionLogFormatter formatter;
+        private ByteBuffer records;
+        private int size;
+
+        private LogBatch() {
         }
 
-        return String.format("Processed transaction with card number %s on %s, amount %s %s, status %s. Return transaction details: %s",
-                maskedPan, timestamp, amountFormatted, currency.getAlphaCode(), status, transactionDetailsJson);
-    }
+        /**
+         * Adds the outcome of a processed transaction, see {@link LoggingService#logProcessed(Transaction)}.
+         *
+         * @param transaction The processed transaction, with its status and decline reason.
+         */
+        public void logProcessed(Transaction transaction) {
+            if (binary != null) {
+                addRecord(transaction);
+                return;
+            }
+            logProcessedText(transaction, errorLog, transactionLog);
+        }
 
-    /**
-     * Method to mask the middle digits of the primary account number (PAN) for security purposes:
-     * <ul>
-     *   <li>If the PAN is null or has a length less or more than 16, it is returned as it is (no masking is applied).</li>
-     *   <li>Otherwise, the method retains the first 6 and last 4 digits of the PAN.</li>
-     *   <li>The middle digits are replaced with asterisks ("******") to ensure sensitive information is not exposed.</li>
-     * </ul>
-     *
-     * @return The masked PAN.
-     */
-    private static String maskPan(String pan) {
-        if (pan == null) {
-            return null;
+        /**
+         * Adds an entry with information about a transaction.
+         *
+         * @param transaction The transaction to log.
+         * @throws IllegalArgumentException If the transaction has an unknown currency or type code.
+         */
+        public void logTransaction(Transaction transaction) {
+            add(formatter().formatTransactionEntry(transaction, System.currentTimeMillis()));
         }
-        if (pan.length() == 16) {
-            return pan.substring(0, 6) + "******" + pan.substring(12);
+
+        /**
+         * Adds an error entry.
+         *
+         * @param errorMessage The error message to log.
+         */
+        public void logError(String errorMessage) {
+            add(formatter().formatEntry("ERROR", errorMessage, System.currentTimeMillis()));
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Writes all collected entries to the sink and empties the batch.
+         */
+        public void flush() {
+            if (size == 0) {
+                return;
+            }
+            if (entries.length() > 0) {
+                write(entries);
+                entries.setLength(0);
+            }
+            if (formatter != null) {
+                FORMATTERS.release(formatter);
+                formatter = null;
+            }
+            if (records != null && records.position() > 0) {
+                records.flip();
+                try {
+                    binary.write(records);
+                } catch (IOException e) {
+                    System.err.println("Failed to write to binary log file: " + e.getMessage());
+                }
+                records.clear();
+            }
+            size = 0;
+        }
+
+        private TransactionLogFormatter formatter() {
+            if (formatter == null) {
+                formatter = FORMATTERS.acquire();
+            }
+            return formatter;
+        }
+
+        private void addRecord(Transaction transaction) {
+            if (records == null) {
+                records = ByteBuffer.allocate(BinaryLogFormat.RECORD_SIZE * 256);
+            } else if (records.remaining() < BinaryLogFormat.RECORD_SIZE) {
+                ByteBuffer larger = ByteBuffer.allocate(records.capacity() * 2);
+                records.flip();
+                records = larger.put(records);
+            }
+            binary.encode(records, transaction);
+            size++;
+        }
+
+        private void add(CharSequence entry) {
+            if (entries.length() > 0) {
+                entries.append(System.lineSeparator());
+            }
+            entries.append(entry);
+            size++;
         }
-        return pan;
     }
 }
@@ -0,0 +1,310 @@
+package com.transaction.processing.service;
+
+import com.transaction.processing.util.ObjectPool;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Log sink that appends entries to pre-allocated memory-mapped file segments.
+ * <ul>
+ *   <li>Each segment is mapped once with its full size; an append only copies bytes and moves the position.</li>
+ *   <li>At midnight the sink switches to the next day's file ({@code <prefix>_yyMMdd.log}).</li>
+ *   <li>When a segment reaches the size limit the sink continues in {@code <prefix>_yyMMdd_<n>.log}.</li>
+ *   <li>A finished segment is truncated to the bytes actually written, so no zero padding is left behind.</li>
+ *   <li>After a crash the untruncated padding is detected on the next start and appending resumes after the last entry.</li>
+ * </ul>
+ * Entries are encoded outside the lock into a pooled buffer; only the copy into the mapping is serialized.
+ */
+public class MappedLogSink implements LogSink {
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+    // Borrowed for each write rather than kept per thread, so writers on virtual threads reuse them as well
+    private static final ObjectPool<EncodeBuffer> ENCODE_BUFFERS = new ObjectPool<>(64, EncodeBuffer::new);
+
+    private final Path directory;
+    private final DailyLogFile dailyLogFile;
+    private final long segmentSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private FileChannel channel;
+    private MappedByteBuffer mapped;
+    private long mappedOffset;
+    private Path segmentPath;
+    private LocalDate segmentDate;
+    private int segmentIndex;
+    private long segmentEndMillis;
+    private boolean closed;
+
+    private MappedLogSink(Builder builder) throws IOException {
+        this.directory = builder.directory;
+        this.dailyLogFile = builder.dailyLogFile;
+        this.segmentSize = builder.segmentSize;
+        Files.createDirectories(directory);
+        lock.lock();
+        try {
+            openDay(LocalDate.now(dailyLogFile.getClock()), 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Creates a builder for a sink writing daily files with the given prefix into a directory.
+     *
+     * @param dailyLogFile Names the daily files and provides the clock deciding the current date.
+     * @return A builder with default settings.
+     */
+    public static Builder builder(DailyLogFile dailyLogFile) {
+        return new Builder(dailyLogFile);
+    }
+
+    @Override
+    public void write(CharSequence entry) throws IOException {
+        EncodeBuffer encoded = ENCODE_BUFFERS.acquire();
+        try {
+            encoded.encode(entry);
+            append(encoded);
+        } finally {
+            ENCODE_BUFFERS.release(encoded);
+        }
+    }
+
+    private void append(EncodeBuffer encoded) throws IOException {
+        long now = dailyLogFile.getClock().millis();
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IOException("Log sink is closed");
+            }
+            if (now >= segmentEndMillis) {
+                finishSegment();
+                openDay(LocalDate.now(dailyLogFile.getClock()), encoded.length);
+            }
+            if (mapped.remaining() < encoded.length) {
+                finishSegment();
+                openSegment(segmentDate, segmentIndex + 1, encoded.length);
+            }
+            mapped.put(encoded.bytes, 0, encoded.length);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forces the written entries of the current segment to the storage device.
+     */
+    @Override
+    public void flush() {
+        lock.lock();
+        try {
+            if (!closed) {
+                mapped.force();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Truncates the current segment to its real length and closes it.
+     *
+     * @throws IOException If the segment could not be truncated or closed.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            finishSegment();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The file currently being appended to.
+     */
+    public Path getCurrentSegment() {
+        lock.lock();
+        try {
+            return segmentPath;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Maps the first segment of the given date that has room for an entry of {@code minimumRoom} bytes.
+     */
+    private void openDay(LocalDate date, int minimumRoom) throws IOException {
+        ZoneId zone = dailyLogFile.getClock().getZone();
+        segmentEndMillis = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        openSegment(date, 0, minimumRoom);
+    }
+
+    /**
+     * Maps the first segment of the given date, starting at {@code index}, that still has room for an entry.
+     */
+    private void openSegment(LocalDate date, int index, int minimumRoom) throws IOException {
+        while (true) {
+            Path path = directory.resolve(dailyLogFile.fileName(date, index));
+            FileChannel candidate = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long length = logicalLength(candidate);
+            long size = Math.max(segmentSize, length + minimumRoom);
+            if (length > 0 && length + minimumRoom > segmentSize) {
+                candidate.truncate(length);
+                candidate.close();
+                index++;
+                continue;
+            }
+            channel = candidate;
+            mapped = candidate.map(FileChannel.MapMode.READ_WRITE, length, size - length);
+            mappedOffset = length;
+            segmentPath = path;
+            segmentDate = date;
+            segmentIndex = index;
+            return;
+        }
+    }
+
+    private void finishSegment() throws IOException {
+        long length = mappedOffset + mapped.position();
+        mapped.force();
+        mapped = null;
+        try {
+            channel.truncate(length);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Finds the end of the written data, ignoring zero padding left by a segment that was not closed properly.
+     */
+    private static long logicalLength(FileChannel channel) throws IOException {
+        long end = channel.size();
+        ByteBuffer chunk = ByteBuffer.allocate(8192);
+        while (end > 0) {
+            long start = Math.max(0, end - chunk.capacity());
+            chunk.clear().limit((int) (end - start));
+            while (chunk.hasRemaining() && channel.read(chunk, start + chunk.position()) >= 0) {
+                // read the whole chunk
+            }
+            for (int i = chunk.position() - 1; i >= 0; i--) {
+                if (chunk.get(i) != 0) {
+                    return start + i + 1;
+                }
+            }
+            end = start;
+        }
+        return 0;
+    }
+
+    /**
+     * Buffer holding the UTF-8 bytes of the entry being written.
+     */
+    private static final class EncodeBuffer {
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+        private byte[] bytes = new byte[1024];
+        private int length;
+
+        private void encode(CharSequence entry) throws IOException {
+            int chars = entry.length();
+            ensureCapacity(chars + LINE_SEPARATOR.length);
+            int i = 0;
+            for (; i < chars; i++) {
+                char c = entry.charAt(i);
+                if (c >= 0x80) {
+                    break;
+                }
+                bytes[i] = (byte) c;
+            }
+            length = i;
+            if (i < chars) {
+                encodeNonAscii(entry, i);
+            }
+            System.arraycopy(LINE_SEPARATOR, 0, bytes, length, LINE_SEPARATOR.length);
+            length += LINE_SEPARATOR.length;
+        }
+
+        private void encodeNonAscii(CharSequence entry, int from) throws IOException {
+            ensureCapacity(length + (entry.length() - from) * 3 + LINE_SEPARATOR.length);
+            ByteBuffer target = ByteBuffer.wrap(bytes, length, bytes.length - length);
+            encoder.reset();
+            CoderResult result = encoder.encode(CharBuffer.wrap(entry, from, entry.length()), target, true);
+            if (result.isError()) {
+                result.throwException();
+            }
+            encoder.flush(target);
+            length = target.position();
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (bytes.length < capacity) {
+                byte[] grown = new byte[Math.max(capacity, bytes.length * 2)];
+                System.arraycopy(bytes, 0, grown, 0, length);
+                bytes = grown;
+            }
+        }
+    }
+
+    /**
+     * Builder for {@link MappedLogSink} instances.
+     */
+    public static class Builder {
+        private final DailyLogFile dailyLogFile;
+        private Path directory = Paths.get("");
+        private long segmentSize = 64L * 1024 * 1024;
+
+        private Builder(DailyLogFile dailyLogFile) {
+            this.dailyLogFile = dailyLogFile;
+        }
+
+        /**
+         * @param directory Directory the log files are created in (default the working directory).
+         * @return This builder.
+         */
+        public Builder directory(Path directory) {
+            this.directory = directory;
+            return this;
+        }
+
+        /**
+         * @param segmentSize Size limit of a single log file in bytes; also the size pre-allocated per file (default 64 MiB).
+         * @return This builder.
+         */
+        public Builder segmentSize(long segmentSize) {
+            if (segmentSize <= 0 || segmentSize > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Segment size must be between 1 and 2 GiB: " + segmentSize);
+            }
+            this.segmentSize = segmentSize;
+            return this;
+        }
+
+        /**
+         * Opens or creates today's log file and maps its first segment.
+         *
+         * @return The opened sink.
+         * @throws IOException If the log file could not be opened or mapped.
+         */
+        public MappedLogSink build() throws IOException {
+            return new MappedLogSink(this);
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package com.transaction.processing.service;
+
+import com.transaction.processing.model.DeclineReason;
+import com.transaction.processing.util.LatencyHistogram;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms of {@link PaymentService}:
+ * <ul>
+ *   <li>The number of approved transactions and of declined transactions per {@link DeclineReason}.</li>
+ *   <li>The latency of the whole {@code process} call, of every {@link ValidationCheck} and of logging.</li>
+ * </ul>
+ * Counters are {@link LongAdder}s and histograms are {@link LatencyHistogram}s, so recording never locks or
+ * allocates and the metrics can stay enabled in production. When disabled, the service skips the clock reads
+ * but still counts outcomes.
+ * <p>
+ * The metrics can be read with {@link #snapshot()} or published as MBeans with {@link #registerMBeans(String)}.
+ */
+public class PaymentMetrics implements PaymentMetricsMXBean {
+    /** JMX domain of the published MBeans. */
+    public static final String JMX_DOMAIN = "com.transaction.processing";
+
+    private static final DeclineReason[] REASONS = DeclineReason.values();
+    private static final ValidationCheck[] CHECKS = ValidationCheck.values();
+    private static final PaymentMetrics DEFAULT = new PaymentMetrics();
+
+    private final LongAdder approved = new LongAdder();
+    private final LongAdder[] declined = new LongAdder[REASONS.length];
+    private final LatencyHistogram processLatency = new LatencyHistogram();
+    private final LatencyHistogram[] checkLatency = new LatencyHistogram[CHECKS.length];
+    private final LatencyHistogram loggingLatency = new LatencyHistogram();
+    private final List<ObjectName> registeredNames = new ArrayList<>();
+    private volatile boolean latencyEnabled = true;
+
+    /**
+     * Constructor for an empty set of metrics with latency recording enabled.
+     */
+    public PaymentMetrics() {
+        for (int i = 0; i < declined.length; i++) {
+            declined[i] = new LongAdder();
+        }
+        for (int i = 0; i < checkLatency.length; i++) {
+            checkLatency[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * @return The metrics shared by all services that were not given their own.
+     */
+    public static PaymentMetrics getDefault() {
+        return DEFAULT;
+    }
+
+    public boolean isLatencyEnabled() {
+        return latencyEnabled;
+    }
+
+    /**
+     * @param latencyEnabled False to stop recording latencies; outcome counters keep counting.
+     */
+    public void setLatencyEnabled(boolean latencyEnabled) {
+        this.latencyEnabled = latencyEnabled;
+    }
+
+    /**
+     * Counts the outcome of a processed transaction.
+     *
+     * @param reason The decline reason, or null if the transaction was approved.
+     */
+    public void recordOutcome(DeclineReason reason) {
+        if (reason == null) {
+            approved.increment();
+        } else {
+            declined[reason.ordinal()].increment();
+        }
+    }
+
+    /**
+     * @param nanos The time the whole {@code process} call took.
+     */
+    public void recordProcessLatency(long nanos) {
+        processLatency.record(nanos);
+    }
+
+    /**
+     * @param check The check that ran.
+     * @param nanos The time the check took.
+     */
+    public void recordCheckLatency(ValidationCheck check, long nanos) {
+        checkLatency[check.ordinal()].record(nanos);
+    }
+
+    /**
+     * @param nanos The time logging the transaction took.
+     */
+    public void recordLoggingLatency(long nanos) {
+        loggingLatency.record(nanos);
+    }
+
+    @Override
+    public long getProcessedCount() {
+        return getApprovedCount() + getDeclinedCount();
+    }
+
+    @Override
+    public long getApprovedCount() {
+        return approved.sum();
+    }
+
+    @Override
+    public long getDeclinedCount() {
+        long total = 0;
+        for (LongAdder counter : declined) {
+            total += counter.sum();
+        }
+        return total;
+    }
+
+    public long getDeclinedCount(DeclineReason reason) {
+        return declined[reason.ordinal()].sum();
+    }
+
+    @Override
+    public Map<String, Long> getDeclinedCountByReason() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (DeclineReason reason : REASONS) {
+            counts.put(reason.name(), getDeclinedCount(reason));
+        }
+        return counts;
+    }
+
+    @Override
+    public void reset() {
+        approved.reset();
+        for (LongAdder counter : declined) {
+            counter.reset();
+        }
+        processLatency.reset();
+        for (LatencyHistogram histogram : checkLatency) {
+            histogram.reset();
+        }
+        loggingLatency.reset();
+    }
+
+    /**
+     * @return A copy of all counters and histograms.
+     */
+    public Snapshot snapshot() {
+        long[] declinedCounts = new long[REASONS.length];
+        for (int i = 0; i < declinedCounts.length; i++) {
+            declinedCounts[i] = declined[i].sum();
+        }
+        LatencyHistogram.Snapshot[] checks = new LatencyHistogram.Snapshot[CHECKS.length];
+        for (int i = 0; i < checks.length; i++) {
+            checks[i] = checkLatency[i].snapshot();
+        }
+        return new Snapshot(approved.sum(), declinedCounts, processLatency.snapshot(), checks,
+                loggingLatency.snapshot());
+    }
+
+    /**
+     * Publishes the metrics on the platform MBean server: the counters as
+     * {@code com.transaction.processing:type=PaymentMetrics,name=<name>} and every histogram as
+     * {@code com.transaction.processing:type=PaymentLatency,name=<name>,stage=<stage>}.
+     *
+     * @param name The name distinguishing these metrics from those of other services.
+     * @throws JMException If the MBeans could not be registered, e.g. because the name is already in use.
+     */
+    public synchronized void registerMBeans(String name) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        register(server, new ObjectName(JMX_DOMAIN + ":type=PaymentMetrics,name=" + ObjectName.quote(name)), this);
+        register(server, latencyName(name, "process"), new HistogramMXBean(processLatency));
+        for (ValidationCheck check : CHECKS) {
+            register(server, latencyName(name, check.name()), new HistogramMXBean(checkLatency[check.ordinal()]));
+        }
+        register(server, latencyName(name, "logging"), new HistogramMXBean(loggingLatency));
+    }
+
+    /**
+     * Removes the MBeans published by {@link #registerMBeans(String)}.
+     *
+     * @throws JMException If an MBean could not be unregistered.
+     */
+    public synchronized void unregisterMBeans() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : registeredNames) {
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        }
+        registeredNames.clear();
+    }
+
+    private void register(MBeanServer server, ObjectName name, Object mbean) throws JMException {
+        server.registerMBean(mbean, name);
+        registeredNames.add(name);
+    }
+
+    private static ObjectName latencyName(String name, String stage) throws JMException {
+        return new ObjectName(JMX_DOMAIN + ":type=PaymentLatency,name=" + ObjectName.quote(name) + ",stage=" + stage);
+    }
+
+    /**
+     * Immutable copy of the metrics, see {@link PaymentMetrics#snapshot()}.
+     */
+    public static class Snapshot {
+        private final long approvedCount;
+        private final long[] declinedCounts;
+        private final LatencyHistogram.Snapshot processLatency;
+        private final LatencyHistogram.Snapshot[] checkLatency;
+        private final LatencyHistogram.Snapshot loggingLatency;
+
+        private Snapshot(long approvedCount, long[] declinedCounts, LatencyHistogram.Snapshot processLatency,
+                         LatencyHistogram.Snapshot[] checkLatency, LatencyHistogram.Snapshot loggingLatency) {
+            this.approvedCount = approvedCount;
+            this.declinedCounts = declinedCounts;
+            this.processLatency = processLatency;
+            this.checkLatency = checkLatency;
+            this.loggingLatency = loggingLatency;
+        }
+
+        public long getApprovedCount() {
+            return approvedCount;
+        }
+
+        public long getDeclinedCount() {
+            long total = 0;
+            for (long count : declinedCounts) {
+                total += count;
+            }
+            return total;
+        }
+
+        public long getDeclinedCount(DeclineReason reason) {
+            return declinedCounts[reason.ordinal()];
+        }
+
+        /**
+         * @return The latency of the whole {@code process} call, in nanoseconds.
+         */
+        public LatencyHistogram.Snapshot getProcessLatency() {
+            return processLatency;
+        }
+
+        /**
+         * @return The latency of the given check, in nanoseconds.
+         */
+        public LatencyHistogram.Snapshot getCheckLatency(ValidationCheck check) {
+            return checkLatency[check.ordinal()];
+        }
+
+        /**
+         * @return The latency of logging a transaction, in nanoseconds.
+         */
+        public LatencyHistogram.Snapshot getLoggingLatency() {
+            return loggingLatency;
+        }
+
+        @Override
+        public String toString() {
+            Map<String, Long> declined = new LinkedHashMap<>();
+            for (DeclineReason reason : REASONS) {
+                declined.put(reason.name(), declinedCounts[reason.ordinal()]);
+            }
+            return "PaymentMetrics.Snapshot{" +
+                    "approvedCount=" + approvedCount +
+                    ", declinedCounts=" + declined +
+                    ", processLatency=" + processLatency +
+                    '}';
+        }
+    }
+
+    /**
+     * Publishes one histogram; every attribute read takes a fresh snapshot.
+     */
+    private static class HistogramMXBean implements LatencyMXBean {
+        private final LatencyHistogram histogram;
+
+        private HistogramMXBean(LatencyHistogram histogram) {
+            this.histogram = histogram;
+        }
+
+        @Override
+        public long getCount() {
+            return histogram.getCount();
+        }
+
+        @Override
+        public double getMeanNanos() {
+            return histogram.snapshot().getMean();
+        }
+
+        @Override
+        public long getP50Nanos() {
+            return histogram.snapshot().getValueAtPercentile(50);
+        }
+
+        @Override
+        public long getP99Nanos() {
+            return histogram.snapshot().getValueAtPercentile(99);
+        }
+
+        @Override
+        public long getP999Nanos() {
+            return histogram.snapshot().getValueAtPercentile(99.9);
+        }
+
+        @Override
+        public long getMaxNanos() {
+            return histogram.snapshot().getMax();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.transaction.processing.service;
+
+import java.util.Map;
+
+/**
+ * JMX view of the outcome counters of {@link PaymentMetrics}.
+ */
+public interface PaymentMetricsMXBean {
+    long getProcessedCount();
+
+    long getApprovedCount();
+
+    long getDeclinedCount();
+
+    /**
+     * @return The number of declined transactions per {@link com.transaction.processing.model.DeclineReason} name.
+     */
+    Map<String, Long> getDeclinedCountByReason();
+
+    /**
+     * Resets all counters and histograms.
+     */
+    void reset();
+}
@@ -0,0 +1,179 @@
+package com.transaction.processing.service;
+
+import com.transaction.processing.model.DeclineReason;
+import com.transaction.processing.model.Transaction;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The length-prefixed binary protocol spoken by {@link PaymentServer} and {@link LoadGenerator}.
+ * Every frame starts with its length in bytes (excluding the length field itself) as a big-endian int.
+ * <p>
+ * Request frame:
+ * <pre>
+ *   int     length
+ *   long    request id, chosen by the client and echoed in the response
+ *   byte    PAN length, followed by the PAN in ASCII
+ *   byte    type length, followed by the type code in ASCII ("APP")
+ *   int     amount in subunits
+ *   byte    currency length, followed by the numeric currency code in ASCII ("978")
+ *   byte    status length, followed by the status code in ASCII ("00")
+ * </pre>
+ * Response frame:
+ * <pre>
+ *   int     length (always {@value #RESPONSE_LENGTH})
+ *   long    request id
+ *   byte    numeric status code (1 = Approved, 2 = Declined)
+ *   byte    decline reason code, 0 if approved
+ *   long    version of the validation rules the request was processed with
+ * </pre>
+ * A client may send any number of requests without waiting for the responses (pipelining). Responses carry the
+ * request id, as requests of one connection are processed in batches that can complete out of order.
+ */
+public final class PaymentProtocol {
+    /** Largest accepted request frame; a longer frame closes the connection. */
+    public static final int MAX_REQUEST_LENGTH = 1024;
+    /** Length of a response frame, excluding the length field. */
+    public static final int RESPONSE_LENGTH = 18;
+    /** Length of a request frame with all fields empty, excluding the length field. */
+    private static final int MIN_REQUEST_LENGTH = 8 + 1 + 1 + 4 + 1 + 1;
+
+    private PaymentProtocol() {
+    }
+
+    /**
+     * Writes a request frame.
+     *
+     * @param out         The buffer to write to.
+     * @param requestId   The id the response will carry.
+     * @param transaction The transaction to authorize.
+     * @throws IllegalArgumentException If a field is longer than 255 characters.
+     */
+    public static void writeRequest(ByteBuffer out, long requestId, Transaction transaction) {
+        int start = out.position();
+        out.putInt(0);
+        out.putLong(requestId);
+        putString(out, transaction.getPan());
+        putString(out, transaction.getType());
+        out.putInt(transaction.getAmount());
+        putString(out, transaction.getCurrency());
+        putString(out, transaction.getStatus());
+        out.putInt(start, out.position() - start - 4);
+    }
+
+    /**
+     * Checks whether the buffer holds a complete frame at its position.
+     *
+     * @param in The buffer to read from.
+     * @return The length of the frame including the length field, or 0 if it is not complete yet.
+     */
+    public static int frameLength(ByteBuffer in) {
+        if (in.remaining() < 4) {
+            return 0;
+        }
+        int length = in.getInt(in.position());
+        return in.remaining() - 4 < length ? 0 : length + 4;
+    }
+
+    /**
+     * @param in The buffer holding at least the length field of a request frame.
+     * @return True if the length of the request frame at the buffer's position is within the protocol limits.
+     */
+    public static boolean isValidRequestLength(ByteBuffer in) {
+        int length = in.getInt(in.position());
+        return length >= MIN_REQUEST_LENGTH && length <= MAX_REQUEST_LENGTH;
+    }
+
+    /**
+     * Reads a complete request frame (see {@link #frameLength(ByteBuffer)}) and moves the position past it.
+     *
+     * @param in The buffer to read from.
+     * @return The request, or null if the fields do not add up to the frame length.
+     */
+    public static Request readRequest(ByteBuffer in) {
+        int end = in.position() + 4 + in.getInt();
+        try {
+            long requestId = in.getLong();
+            String pan = getString(in, end);
+            String type = getString(in, end);
+            if (pan == null || type == null || in.position() + 4 > end) {
+                return null;
+            }
+            int amount = in.getInt();
+            String currency = getString(in, end);
+            String status = getString(in, end);
+            if (currency == null || status == null || in.position() != end) {
+                return null;
+            }
+            return new Request(requestId, new Transaction(pan, type, amount, currency, status));
+        } finally {
+            in.position(end);
+        }
+    }
+
+    /**
+     * Writes the response frame of a processed transaction.
+     *
+     * @param out         The buffer to write to.
+     * @param requestId   The id of the request.
+     * @param transaction The processed transaction.
+     */
+    public static void writeResponse(ByteBuffer out, long requestId, Transaction transaction) {
+        DeclineReason reason = transaction.getDeclineReason();
+        String status = transaction.getStatus();
+        out.putInt(RESPONSE_LENGTH);
+        out.putLong(requestId);
+        out.put((byte) ((status.charAt(0) - '0') * 10 + status.charAt(1) - '0'));
+        out.put(reason == null ? 0 : (byte) reason.getCode());
+        out.putLong(transaction.getRulesVersion());
+    }
+
+    private static void putString(ByteBuffer out, String value) {
+        String text = value == null ? "" : value;
+        if (text.length() > 255) {
+            throw new IllegalArgumentException("Field longer than 255 characters: " + text.length());
+        }
+        out.put((byte) text.length());
+        for (int i = 0; i < text.length(); i++) {
+            out.put((byte) text.charAt(i));
+        }
+    }
+
+    /**
+     * @return The string, or null if it runs past the end of the frame.
+     */
+    private static String getString(ByteBuffer in, int end) {
+        if (in.position() >= end) {
+            return null;
+        }
+        int length = in.get() & 0xFF;
+        if (in.position() + length > end) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * A decoded request frame.
+     */
+    public static final class Request {
+        private final long requestId;
+        private final Transaction transaction;
+
+        private Request(long requestId, Transaction transaction) {
+            this.requestId = requestId;
+            this.transaction = transaction;
+        }
+
+        public long getRequestId() {
+            return requestId;
+        }
+
+        public Transaction getTransaction() {
+            return transaction;
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package com.transaction.processing.service;
+
+import com.transaction.processing.model.Transaction;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * TCP server that authorizes transactions with a {@link PaymentService}, speaking the {@link PaymentProtocol}.
+ * <ul>
+ *   <li>A single selector thread accepts connections and does all socket reads and writes without blocking.</li>
+ *   <li>All complete request frames of one read are processed as one batch on the executor, so a pipelining
+ *       client gets its requests validated and logged with one log write per batch.</li>
+ *   <li>Responses are queued on the connection and written by the selector thread as the socket accepts them.</li>
+ *   <li>A request is in flight from the time it is read until its response has been written to the socket.
+ *       A connection with too many requests in flight is not read from until responses have been written,
+ *       so a client that never reads its responses cannot make the server buffer without bound.</li>
+ * </ul>
+ * A malformed frame closes the connection.
+ */
+public class PaymentServer implements Closeable {
+    private static final int RESPONSE_FRAME_LENGTH = PaymentProtocol.RESPONSE_LENGTH + 4;
+
+    private final PaymentService service;
+    private final Executor executor;
+    private final int maxRequestsInFlight;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final Queue<Connection> updates = new ConcurrentLinkedQueue<>();
+    private final Thread selectorThread;
+    private volatile boolean running = true;
+
+    private PaymentServer(Builder builder) throws IOException {
+        this.service = builder.service;
+        this.executor = builder.executor;
+        this.maxRequestsInFlight = builder.maxRequestsInFlight;
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(builder.host, builder.port), builder.backlog);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        this.selectorThread = new Thread(this::runSelector, "payment-server");
+        this.selectorThread.setDaemon(true);
+        this.selectorThread.start();
+    }
+
+    /**
+     * Creates a builder for a server processing requests with the given service.
+     *
+     * @param service The service that authorizes the transactions.
+     * @return A builder with default settings.
+     */
+    public static Builder builder(PaymentService service) {
+        return new Builder(service);
+    }
+
+    /**
+     * @return The port the server listens on, e.g. the port chosen by the system for port 0.
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Blocks until the server has been closed.
+     *
+     * @throws InterruptedException If the calling thread is interrupted while waiting.
+     */
+    public void awaitTermination() throws InterruptedException {
+        selectorThread.join();
+    }
+
+    /**
+     * Stops accepting requests and closes all connections. Batches still being processed are discarded.
+     *
+     * @throws IOException If the server socket could not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        try {
+            selectorThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runSelector() {
+        try {
+            while (running) {
+                selector.select();
+                Connection updated;
+                while ((updated = updates.poll()) != null) {
+                    updated.updateInterest();
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Connection connection = (Connection) key.attachment();
+                    try {
+                        if (key.isReadable()) {
+                            connection.read();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            connection.write();
+                        }
+                    } catch (IOException e) {
+                        connection.close();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            LoggingService.logError("Payment server stopped: " + e.getMessage());
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof Connection) {
+                    ((Connection) key.attachment()).close();
+                }
+            }
+            closeQuietly(serverChannel);
+            closeQuietly(selector);
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            Connection connection = new Connection(channel);
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+            // Nothing left to do with a resource that is being discarded
+        }
+    }
+
+    /**
+     * State of one client connection. Reads, writes and interest changes happen on the selector thread only;
+     * the executor hands finished batches over through the response queue.
+     */
+    private final class Connection {
+        private final SocketChannel channel;
+        private final ByteBuffer readBuffer = ByteBuffer.allocate(64 * 1024);
+        private final Queue<ByteBuffer> responses = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile boolean failed;
+        private SelectionKey key;
+
+        private Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        private void read() throws IOException {
+            int read = channel.read(readBuffer);
+            if (read < 0) {
+                close();
+                return;
+            }
+            readBuffer.flip();
+            List<PaymentProtocol.Request> requests = new ArrayList<>();
+            while (readBuffer.remaining() >= 4) {
+                if (!PaymentProtocol.isValidRequestLength(readBuffer)) {
+                    close();
+                    return;
+                }
+                if (PaymentProtocol.frameLength(readBuffer) == 0) {
+                    break;
+                }
+                PaymentProtocol.Request request = PaymentProtocol.readRequest(readBuffer);
+                if (request == null) {
+                    close();
+                    return;
+                }
+                requests.add(request);
+            }
+            readBuffer.compact();
+            if (!requests.isEmpty()) {
+                inFlight.addAndGet(requests.size());
+                executor.execute(() -> process(requests));
+            }
+            updateInterest();
+        }
+
+        /**
+         * Runs on the executor: processes one batch and queues its responses.
+         */
+        private void process(List<PaymentProtocol.Request> requests) {
+            try {
+                Transaction[] transactions = new Transaction[requests.size()];
+                for (int i = 0; i < transactions.length; i++) {
+                    transactions[i] = requests.get(i).getTransaction();
+                }
+                service.processBatch(transactions);
+                ByteBuffer response = ByteBuffer.allocate(transactions.length * RESPONSE_FRAME_LENGTH);
+                for (int i = 0; i < transactions.length; i++) {
+                    PaymentProtocol.writeResponse(response, requests.get(i).getRequestId(), transactions[i]);
+                }
+                response.flip();
+                responses.add(response);
+            } catch (RuntimeException e) {
+                // The client cannot tell which requests were processed, so it has to reconnect
+                LoggingService.logError("Failed to process request batch: " + e);
+                failed = true;
+            }
+            updates.add(this);
+            selector.wakeup();
+        }
+
+        private void write() throws IOException {
+            ByteBuffer response;
+            while ((response = responses.peek()) != null) {
+                channel.write(response);
+                if (response.hasRemaining()) {
+                    break;
+                }
+                responses.poll();
+                // The requests of a batch stay in flight until their responses are written
+                inFlight.addAndGet(-response.capacity() / RESPONSE_FRAME_LENGTH);
+            }
+            updateInterest();
+        }
+
+        private void updateInterest() {
+            if (!key.isValid()) {
+                return;
+            }
+            if (failed) {
+                close();
+                return;
+            }
+            int ops = responses.isEmpty() ? 0 : SelectionKey.OP_WRITE;
+            if (inFlight.get() < maxRequestsInFlight) {
+                ops |= SelectionKey.OP_READ;
+            }
+            key.interestOps(ops);
+        }
+
+        private void close() {
+            key.cancel();
+            closeQuietly(channel);
+        }
+    }
+
+    /**
+     * Builder for {@link PaymentServer} instances.
+     */
+    public static class Builder {
+        private final PaymentService service;
+        private String host = "localhost";
+        private int port = 7070;
+        private int backlog = 128;
+        private Executor executor = ForkJoinPool.commonPool();
+        private int maxRequestsInFlight = 4096;
+
+        private Builder(PaymentService service) {
+            this.service = service;
+        }
+
+        /**
+         * @param host Address the server listens on (default localhost; "0.0.0.0" for all interfaces).
+         * @return This builder.
+         */
+        public Builder host(String host) {
+            this.host = host;
+            return this;
+        }
+
+        /**
+         * @param port TCP port the server listens on, 0 for a port chosen by the system (default 7070).
+         * @return This builder.
+         */
+        public Builder port(int port) {
+            if (port < 0 || port > 65535) {
+                throw new IllegalArgumentException("Invalid port: " + port);
+            }
+            this.port = port;
+            return this;
+        }
+
+        /**
+         * @param backlog Maximum number of pending connections (default 128).
+         * @return This builder.
+         */
+        public Builder backlog(int backlog) {
+            this.backlog = backlog;
+            return this;
+        }
+
+        /**
+         * @param executor Executor the request batches are processed on (default the common fork-join pool).
+         * @return This builder.
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * @param maxRequestsInFlight Number of unanswered requests per connection above which the connection is
+         *                            not read from (default 4096).
+         * @return This builder.
+         */
+        public Builder maxRequestsInFlight(int maxRequestsInFlight) {
+            if (maxRequestsInFlight <= 0) {
+                throw new IllegalArgumentException("Maximum requests in flight must be positive: " + maxRequestsInFlight);
+            }
+            this.maxRequestsInFlight = maxRequestsInFlight;
+            return this;
+        }
+
+        /**
+         * Binds the server socket and starts the selector thread.
+         *
+         * @return The running server.
+         * @throws IOException If the socket could not be bound.
+         */
+        public PaymentServer build() throws IOException {
+            return new PaymentServer(this);
+        }
+    }
+}
@@ -1,10 +1,20 @@
 package com.transaction.processing.service;
 
-import com.transaction.processing.model.CurrencyCode;
+import com.transaction.processing.model.DeclineReason;
 import com.transaction.processing.model.Transaction;
 import com.transaction.processing.model.TransactionStatus;
 import com.transaction.processing.model.TransactionType;
-import com.transaction.processing.util.PANValidator;
+import com.transaction.processing.util.IdempotencyCache;
+import com.transaction.processing.util.PANParser;
+import com.transaction.processing.util.VelocityLimiter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Stream;
 
 /**
  * Service class responsible for processing financial transactions.
@@ -12,64 +22,514 @@ import com.transaction.processing.util.PANValidator;
  * and assigns the appropriate status (Approved or Declined).
  */
 public class PaymentService {
+    /** Default batch size from which {@link #processBatch(List)} splits the work across the fork-join pool. */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 2048;
+    private static final int MIN_CHUNK_SIZE = 256;
+
+    private final RulesRepository rules;
+    private final ForkJoinPool pool;
+    private final int parallelThreshold;
+    private final PaymentMetrics metrics;
+    private final IdempotencyCache idempotency;
+    private final VelocityLimiter velocityLimiter;
+    private final TransactionJournal journal;
+    private final TransactionAggregates aggregates;
+
+    /**
+     * Constructor for a service using the default validation rules that processes large batches
+     * on the common fork-join pool; see {@link #builder()} for all options.
+     */
+    public PaymentService() {
+        this(builder());
+    }
+
+    private PaymentService(Builder builder) {
+        if (builder.parallelThreshold < 1) {
+            throw new IllegalArgumentException("Parallel threshold must be positive: " + builder.parallelThreshold);
+        }
+        this.rules = builder.rules != null ? builder.rules : new RulesRepository();
+        this.pool = builder.pool;
+        this.parallelThreshold = builder.parallelThreshold;
+        this.metrics = builder.metrics;
+        this.idempotency = builder.idempotency;
+        this.velocityLimiter = builder.velocityLimiter;
+        this.journal = builder.journal;
+        this.aggregates = builder.aggregates;
+        Duration window = recoveryWindow();
+        if (journal != null && !window.isZero()) {
+            journal.retainAtLeast(window);
+        }
+    }
+
+    /**
+     * @return The longest time a journal record matters to the state rebuilt by {@link #recover()}: the idempotency
+     * time-to-live or the longest velocity window, zero if there is neither.
+     */
+    private Duration recoveryWindow() {
+        Duration window = idempotency != null ? idempotency.getTtl() : Duration.ZERO;
+        if (velocityLimiter != null) {
+            for (VelocityLimiter.Limit limit : velocityLimiter.getLimits()) {
+                if (limit.getWindow().compareTo(window) > 0) {
+                    window = limit.getWindow();
+                }
+            }
+        }
+        return window;
+    }
+
+    /**
+     * Creates a builder for a service with the default rules, pool, threshold and metrics, and without
+     * idempotency cache, velocity limits, journal or aggregates.
+     *
+     * @return A builder with default settings.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
     /**
      * Processes a transaction based on its type, amount, and validity.
+     * With an idempotency cache, a transaction equal to one processed within the cache window is given the
+     * original status and decline reason without being validated or logged again.
+     * With a journal in durable acknowledgement mode, returns only once the decision is on disk.
      *
      * @param transaction The transaction to process.
-     * @return The processed transaction with an updated status.
+     * @return The processed transaction with an updated status and decline reason.
      */
     public Transaction process(Transaction transaction) {
-        try {
-            // Validate initial transaction status
-            if (!TransactionStatus.ACTIVE.getCode().equals(transaction.getStatus())) {
-                transaction.setStatus(TransactionStatus.DECLINED.getCode());
-                LoggingService.logError("Transaction status is not active: " + transaction.getStatus());
-                return transaction;
-            }
+        long sequence = processOnce(transaction, null);
+        awaitDurable(sequence);
+        return transaction;
+    }
+
+    /**
+     * Processes a batch of transactions. Batches of at least the parallel threshold are split into chunks
+     * that are processed on the fork-join pool; each chunk writes its log entries with a single sink write.
+     *
+     * @param transactions The transactions to process.
+     * @return The processed transactions in input order, with approved/declined counts and elapsed time.
+     */
+    public BatchResult processBatch(List<Transaction> transactions) {
+        return processBatch(transactions.toArray(new Transaction[0]));
+    }
+
+    /**
+     * Processes a stream of transactions as a single batch, see {@link #processBatch(List)}.
+     *
+     * @param transactions The transactions to process.
+     * @return The processed transactions in encounter order, with approved/declined counts and elapsed time.
+     */
+    public BatchResult processBatch(Stream<Transaction> transactions) {
+        return processBatch(transactions.toArray(Transaction[]::new));
+    }
+
+    /**
+     * Processes an array of transactions as a single batch, see {@link #processBatch(List)}.
+     * The transactions are updated in place.
+     *
+     * @param transactions The transactions to process.
+     * @return The processed transactions in input order, with approved/declined counts and elapsed time.
+     */
+    public BatchResult processBatch(Transaction[] transactions) {
+        long start = System.nanoTime();
+        boolean parallel = transactions.length >= parallelThreshold && pool.getParallelism() > 1;
+        int approved;
+        if (parallel) {
+            int chunkSize = Math.max(MIN_CHUNK_SIZE, transactions.length / (pool.getParallelism() * 4));
+            approved = pool.invoke(new BatchTask(transactions, 0, transactions.length, chunkSize));
+        } else {
+            approved = processChunk(transactions, 0, transactions.length);
+        }
+        return new BatchResult(Arrays.asList(transactions), approved, transactions.length - approved,
+                System.nanoTime() - start, parallel);
+    }
+
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    public RulesRepository getRules() {
+        return rules;
+    }
+
+    public PaymentMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return The cache used to recognise duplicate transactions, or null if duplicates are processed again.
+     */
+    public IdempotencyCache getIdempotencyCache() {
+        return idempotency;
+    }
+
+    /**
+     * @return The per-PAN velocity limits, or null if only the per-transaction limits apply.
+     */
+    public VelocityLimiter getVelocityLimiter() {
+        return velocityLimiter;
+    }
+
+    /**
+     * @return The journal the decisions are written to, or null if they are only logged.
+     */
+    public TransactionJournal getJournal() {
+        return journal;
+    }
 
-            // Validate transaction type
-            TransactionType type;
-            try {
-                type = TransactionType.fromCode(transaction.getType());
-            } catch (IllegalArgumentException e) {
-                transaction.setStatus(TransactionStatus.DECLINED.getCode());
-                LoggingService.logError("Invalid transaction type: " + transaction.getType());
-                return transaction;
+    /**
+     * @return The running totals per minute, hour and day, or null if transactions are only counted in the metrics.
+     */
+    public TransactionAggregates getAggregates() {
+        return aggregates;
+    }
+
+    /**
+     * Rebuilds the idempotency cache, the velocity limits and the aggregates from the journal, so that retries of
+     * transactions processed before a restart get their original result, earlier approvals still count against the
+     * limits and the rollups and settlement reports still cover the transactions processed before the restart.
+     * Records older than the {@link TransactionJournal#getRetention() retention} of the journal are gone by then,
+     * so a longer retention has to be configured for the aggregates to cover more than the longest window.
+     * Call once at startup, before processing; without a journal there is nothing to recover.
+     *
+     * @return The number of journal records replayed.
+     * @throws IOException If the journal could not be read.
+     */
+    public long recover() throws IOException {
+        if (journal == null) {
+            return 0;
+        }
+        // Approvals are counted in the base currency of the current rates, which may differ slightly from the rates
+        // they were approved with
+        ValidationRules snapshot = rules.current();
+        return journal.replay(record -> {
+            if (idempotency != null) {
+                idempotency.restore(record.getFingerprint(),
+                        result(record.getRulesVersion(), record.getDeclineReason()), record.getEpochMillis());
+            }
+            long baseAmount = velocityLimiter != null || aggregates != null
+                    ? snapshot.toBaseAmount(record.getAmount(), record.getCurrency()) : 0;
+            if (velocityLimiter != null && record.isApproved() && record.getPanKey() != PANParser.INVALID) {
+                velocityLimiter.restore(record.getPanKey(), baseAmount, record.getEpochMillis());
+            }
+            if (aggregates != null) {
+                aggregates.restore(record, baseAmount);
             }
+        });
+    }
 
-            // Validate currency
-            try {
-                CurrencyCode.fromNumericCode(transaction.getCurrency());
-            } catch (IllegalArgumentException e) {
-                transaction.setStatus(TransactionStatus.DECLINED.getCode());
-                LoggingService.logError("Invalid currency code: " + transaction.getCurrency());
-                return transaction;
+    /**
+     * Processes {@code transactions[from, to)} on the current thread and logs them as one batch.
+     *
+     * @return The number of approved transactions.
+     */
+    int processChunk(Transaction[] transactions, int from, int to) {
+        LoggingService.LogBatch logBatch = LoggingService.newBatch();
+        int approved = 0;
+        long lastSequence = 0;
+        for (int i = from; i < to; i++) {
+            Transaction transaction = transactions[i];
+            lastSequence = Math.max(lastSequence, processOnce(transaction, logBatch));
+            if (transaction.getDeclineReason() == null) {
+                approved++;
             }
+        }
+        logBatch.flush();
+        // One wait for the whole chunk, which is usually forced with a single group
+        awaitDurable(lastSequence);
+        return approved;
+    }
 
-            // Validate PAN
-            if (!PANValidator.isValidPANForType(transaction.getPan(), type)) {
-                transaction.setStatus(TransactionStatus.DECLINED.getCode());
-                LoggingService.logError("Invalid PAN for type: " + transaction.getPan());
-                return transaction;
+    /**
+     * Processes a transaction unless the idempotency cache holds the result of an equal transaction.
+     *
+     * @param transaction The transaction to process.
+     * @param logBatch    The batch to log into, or null to log directly.
+     * @return The journal sequence number the result depends on, 0 without a journal.
+     */
+    private long processOnce(Transaction transaction, LoggingService.LogBatch logBatch) {
+        // Fingerprint before validating, as validation changes the status; with a journal the fingerprint is keyed,
+        // as it is journaled and the PAN could otherwise be found from it by trying every PAN
+        long key = idempotency != null || journal != null ? fingerprint(transaction) : 0;
+        if (journal != null) {
+            key = journal.pseudonymize(key);
+        }
+        if (idempotency == null) {
+            return processNew(transaction, key, logBatch);
+        }
+        long previous = idempotency.acquire(key);
+        if (previous != IdempotencyCache.NOT_FOUND) {
+            DeclineReason reason = DeclineReason.find((int) (previous & 0xFF));
+            transaction.setRulesVersion(previous >>> 8);
+            transaction.setDeclineReason(reason);
+            transaction.setStatus(reason == null ? TransactionStatus.APPROVED.getCode() : TransactionStatus.DECLINED.getCode());
+            // The original was journaled before it completed, so it is at or before the last record
+            return journal == null ? 0 : journal.getLastSequence();
+        }
+        boolean completed = false;
+        try {
+            long sequence = processNew(transaction, key, logBatch);
+            idempotency.complete(key, result(transaction.getRulesVersion(), transaction.getDeclineReason()));
+            completed = true;
+            return sequence;
+        } finally {
+            if (!completed) {
+                idempotency.cancel(key);
             }
+        }
+    }
+
+    /**
+     * @return The journal sequence number of the transaction, 0 without a journal.
+     */
+    private long processNew(Transaction transaction, long fingerprint, LoggingService.LogBatch logBatch) {
+        boolean timed = metrics.isLatencyEnabled();
+        long start = timed ? System.nanoTime() : 0;
+        validate(transaction, timed);
+        long sequence = journal == null ? 0 : journal.append(transaction, fingerprint);
+        long loggingStart = timed ? System.nanoTime() : 0;
+        if (logBatch == null) {
+            LoggingService.logProcessed(transaction);
+        } else {
+            logBatch.logProcessed(transaction);
+        }
+        if (timed) {
+            recordLatency(start, loggingStart);
+        }
+        return sequence;
+    }
+
+    /**
+     * In durable acknowledgement mode, waits until the journal record with the given sequence number is on disk.
+     */
+    private void awaitDurable(long sequence) {
+        if (journal != null && journal.isDurableAcks() && sequence > 0) {
+            journal.awaitDurable(sequence);
+        }
+    }
 
-            // Validate the transaction amount
-            if (transaction.getAmount() > type.getMaxAmount()) {
-                transaction.setStatus(TransactionStatus.DECLINED.getCode());
-                LoggingService.logError("Transaction amount exceeds limit: " + transaction.getAmount());
-                return transaction;
+    /**
+     * @return The result of a transaction as held by the idempotency cache: the rules version and the decline
+     * reason code in the lowest byte.
+     */
+    private static long result(long rulesVersion, DeclineReason reason) {
+        return rulesVersion << 8 | (reason == null ? 0 : reason.getCode());
+    }
+
+    /**
+     * Hashes the fields a retried transaction repeats (PAN, type, amount, currency and status) into 64 bits.
+     *
+     * @param transaction The transaction before it is validated.
+     * @return The fingerprint used as idempotency key.
+     */
+    static long fingerprint(Transaction transaction) {
+        long hash = 0xcbf29ce484222325L;
+        hash = hashString(hash, transaction.getPan());
+        hash = hashString(hash, transaction.getType());
+        hash = (hash ^ transaction.getAmount()) * 0x100000001b3L;
+        hash = hashString(hash, transaction.getCurrency());
+        hash = hashString(hash, transaction.getStatus());
+        return hash;
+    }
+
+    /**
+     * Adds a string to an FNV-1a hash, followed by a separator outside the char range so that moving characters
+     * between fields changes the hash. Null is hashed as another value outside the char range.
+     */
+    private static long hashString(long hash, String value) {
+        if (value == null) {
+            return (hash ^ 0xFFFF_FFFFL) * 0x100000001b3L;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        return (hash ^ 0x1_0000L) * 0x100000001b3L;
+    }
+
+    /**
+     * Validates a transaction against the current rules snapshot and sets its status to Approved or Declined.
+     * The checks run in the order configured in the snapshot, followed by the velocity limits if there are any;
+     * the version of the snapshot and the decline reason are recorded on the transaction, and the outcome is
+     * counted in the metrics and the aggregates.
+     *
+     * @param transaction The transaction to validate.
+     * @param timed       Whether to record the latency of every check.
+     * @return The reason the transaction was declined, or null if it was approved.
+     */
+    private DeclineReason validate(Transaction transaction, boolean timed) {
+        // Read the rules once, so the whole transaction is validated against the same snapshot
+        ValidationRules snapshot = rules.current();
+        transaction.setRulesVersion(snapshot.getVersion());
+
+        TransactionType type = TransactionType.find(transaction.getType());
+        DeclineReason reason = null;
+        long checkStart = timed ? System.nanoTime() : 0;
+        for (ValidationCheck check : snapshot.checks()) {
+            reason = check.check(transaction, type, snapshot);
+            if (timed) {
+                long checkEnd = System.nanoTime();
+                metrics.recordCheckLatency(check, checkEnd - checkStart);
+                checkStart = checkEnd;
+            }
+            if (reason != null) {
+                break;
             }
+        }
+        long baseAmount = velocityLimiter != null || aggregates != null
+                ? snapshot.toBaseAmount(transaction.getAmount(), transaction.getCurrency()) : 0;
+        // Only transactions that pass every other check count against the velocity limits of the PAN
+        if (reason == null && velocityLimiter != null) {
+            long pan = PANParser.parse(transaction.getPan());
+            // With a journal the limits are kept per keyed hash of the PAN, which is what the journal holds
+            if (pan != PANParser.INVALID
+                    && !velocityLimiter.tryAcquire(journal != null ? journal.pseudonymize(pan) : pan, baseAmount)) {
+                reason = DeclineReason.VELOCITY_LIMIT_EXCEEDED;
+            }
+        }
+
+        transaction.setDeclineReason(reason);
+        transaction.setStatus(reason == null ? TransactionStatus.APPROVED.getCode() : TransactionStatus.DECLINED.getCode());
+        metrics.recordOutcome(reason);
+        if (aggregates != null) {
+            aggregates.record(transaction, baseAmount);
+        }
+        return reason;
+    }
 
-            // Approve the transaction if all validations pass
-            transaction.setStatus(TransactionStatus.APPROVED.getCode());
-            return transaction;
+    private void recordLatency(long start, long loggingStart) {
+        long end = System.nanoTime();
+        metrics.recordLoggingLatency(end - loggingStart);
+        metrics.recordProcessLatency(end - start);
+    }
 
-        } finally {
-            try {
-                LoggingService.logTransaction(transaction);
-            } catch (IllegalArgumentException e) {
-                LoggingService.logError("Error during logging transaction: " + e.getMessage());
+    /**
+     * Splits a range of the batch in halves until it is small enough to be processed as one chunk.
+     */
+    private class BatchTask extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        private final Transaction[] transactions;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+
+        private BatchTask(Transaction[] transactions, int from, int to, int chunkSize) {
+            this.transactions = transactions;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (to - from <= chunkSize) {
+                return processChunk(transactions, from, to);
             }
+            int middle = (from + to) >>> 1;
+            BatchTask left = new BatchTask(transactions, from, middle, chunkSize);
+            left.fork();
+            int right = new BatchTask(transactions, middle, to, chunkSize).compute();
+            return left.join() + right;
+        }
+    }
+
+    /**
+     * Builder for {@link PaymentService} instances.
+     */
+    public static class Builder {
+        private RulesRepository rules;
+        private ForkJoinPool pool = ForkJoinPool.commonPool();
+        private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+        private PaymentMetrics metrics = PaymentMetrics.getDefault();
+        private IdempotencyCache idempotency;
+        private VelocityLimiter velocityLimiter;
+        private TransactionJournal journal;
+        private TransactionAggregates aggregates;
+
+        private Builder() {
+        }
+
+        /**
+         * @param rules The repository holding the current validation rules (default the built-in rules).
+         * @return This builder.
+         */
+        public Builder rules(RulesRepository rules) {
+            this.rules = rules;
+            return this;
+        }
+
+        /**
+         * @param pool The fork-join pool large batches are processed on (default the common pool).
+         * @return This builder.
+         */
+        public Builder pool(ForkJoinPool pool) {
+            this.pool = pool;
+            return this;
+        }
+
+        /**
+         * @param parallelThreshold Batches smaller than this are processed on the caller's thread
+         *                          (default {@value PaymentService#DEFAULT_PARALLEL_THRESHOLD}).
+         * @return This builder.
+         */
+        public Builder parallelThreshold(int parallelThreshold) {
+            this.parallelThreshold = parallelThreshold;
+            return this;
+        }
+
+        /**
+         * @param metrics The counters and latency histograms the service records into (default the shared metrics).
+         * @return This builder.
+         */
+        public Builder metrics(PaymentMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * @param idempotency Remembers the results of recently processed transactions, so a duplicate gets the
+         *                    original result without being validated and logged again; null to disable (default).
+         * @return This builder.
+         */
+        public Builder idempotencyCache(IdempotencyCache idempotency) {
+            this.idempotency = idempotency;
+            return this;
+        }
+
+        /**
+         * @param velocityLimiter Limits the count and amount of approved transactions per PAN over time windows;
+         *                        null to disable (default).
+         * @return This builder.
+         */
+        public Builder velocityLimiter(VelocityLimiter velocityLimiter) {
+            this.velocityLimiter = velocityLimiter;
+            return this;
+        }
+
+        /**
+         * @param journal Journal every decision is appended to before it is logged, and from which
+         *                {@link PaymentService#recover()} rebuilds the cache, limits and aggregates; null to disable
+         *                (default). Its retention is raised to the idempotency time-to-live and the longest velocity
+         *                window, so records are dropped once they no longer matter to the cache or limits.
+         * @return This builder.
+         */
+        public Builder journal(TransactionJournal journal) {
+            this.journal = journal;
+            return this;
+        }
+
+        /**
+         * @param aggregates Running totals every processed transaction is counted in, for rollups and settlement
+         *                   reports without reading the log; null to disable (default).
+         * @return This builder.
+         */
+        public Builder aggregates(TransactionAggregates aggregates) {
+            this.aggregates = aggregates;
+            return this;
+        }
+
+        public PaymentService build() {
+            return new PaymentService(this);
         }
     }
 }
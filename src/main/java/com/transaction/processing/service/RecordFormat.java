@@ -0,0 +1,179 @@
+package com.transaction.processing.service;
+
+import com.transaction.processing.model.TransactionBatch;
+import com.transaction.processing.model.TransactionStatus;
+import com.transaction.processing.model.TransactionType;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Layouts of the transaction records read by {@link FileIngestService}. Every record is one line of ASCII text,
+ * terminated by {@code \n} or {@code \r\n}. Records are parsed straight from the bytes into the columns of a
+ * {@link TransactionBatch}, without creating strings:
+ * <ul>
+ *   <li>{@link #CSV} - {@code pan,type,amount,currency,status}, e.g. {@code 1000000000000000,APP,1000,978,00};
+ *       a first line that is exactly {@code pan,type,amount,currency,status} is skipped as header.</li>
+ *   <li>{@link #FIXED_WIDTH} - PAN in columns 1-16, type in 17-19, amount right-aligned in 20-29 (padded with
+ *       spaces or zeros), currency in 30-32 and status in 33-34.</li>
+ * </ul>
+ * Values that are well-formed but invalid (an unknown type, a 15 digit PAN) are added and declined by the
+ * validation; records with a wrong field count or a non-numeric amount are malformed and not added.
+ */
+public enum RecordFormat {
+    CSV {
+        @Override
+        boolean parse(ByteBuffer bytes, int start, int end, TransactionBatch batch) {
+            int typeStart = nextField(bytes, start, end);
+            int amountStart = nextField(bytes, typeStart, end);
+            int currencyStart = nextField(bytes, amountStart, end);
+            int statusStart = nextField(bytes, currencyStart, end);
+            if (statusStart > end || nextField(bytes, statusStart, end) <= end) {
+                return false;
+            }
+            return addRecord(bytes, batch,
+                    start, typeStart - 1,
+                    typeStart, amountStart - 1,
+                    amountStart, currencyStart - 1,
+                    currencyStart, statusStart - 1,
+                    statusStart, end);
+        }
+
+        /**
+         * @return The index after the next comma at or after {@code from}, or {@code end + 1} if there is none.
+         */
+        private int nextField(ByteBuffer bytes, int from, int end) {
+            for (int i = from; i < end; i++) {
+                if (bytes.get(i) == ',') {
+                    return i + 1;
+                }
+            }
+            return end + 1;
+        }
+
+        @Override
+        boolean isHeader(ByteBuffer bytes, int start, int end) {
+            return equalsAscii(bytes, start, end, CSV_HEADER);
+        }
+    },
+    FIXED_WIDTH {
+        @Override
+        boolean parse(ByteBuffer bytes, int start, int end, TransactionBatch batch) {
+            if (end - start != FIXED_WIDTH_LENGTH) {
+                return false;
+            }
+            int amountStart = start + 19;
+            while (amountStart < start + 28 && (bytes.get(amountStart) == ' ' || bytes.get(amountStart) == '0')) {
+                amountStart++;
+            }
+            return addRecord(bytes, batch,
+                    start, start + 16,
+                    start + 16, start + 19,
+                    amountStart, start + 29,
+                    start + 29, start + 32,
+                    start + 32, start + 34);
+        }
+
+        @Override
+        boolean isHeader(ByteBuffer bytes, int start, int end) {
+            return false;
+        }
+    };
+
+    private static final String CSV_HEADER = "pan,type,amount,currency,status";
+    private static final int FIXED_WIDTH_LENGTH = 34;
+    private static final TransactionType[] TYPES = TransactionType.values();
+    private static final byte[] STATUS_BY_CODE = new byte[100];
+
+    static {
+        Arrays.fill(STATUS_BY_CODE, TransactionBatch.INVALID_CODE);
+        for (TransactionStatus status : TransactionStatus.values()) {
+            STATUS_BY_CODE[Integer.parseInt(status.getCode())] = (byte) status.ordinal();
+        }
+    }
+
+    /**
+     * Parses one record and appends it to the batch.
+     *
+     * @param bytes The input, read with absolute gets only.
+     * @param start Index of the first byte of the record.
+     * @param end   Index after the last byte of the record, without the line terminator.
+     * @param batch The batch the record is appended to.
+     * @return True if the record was appended, false if it is malformed.
+     */
+    abstract boolean parse(ByteBuffer bytes, int start, int end, TransactionBatch batch);
+
+    /**
+     * @return True if the first line of the file is a header that should be skipped.
+     */
+    abstract boolean isHeader(ByteBuffer bytes, int start, int end);
+
+    private static boolean addRecord(ByteBuffer bytes, TransactionBatch batch,
+                                     int panStart, int panEnd, int typeStart, int typeEnd, int amountStart,
+                                     int amountEnd, int currencyStart, int currencyEnd, int statusStart,
+                                     int statusEnd) {
+        long amount = parseDigits(bytes, amountStart, amountEnd, 10);
+        if (amount < 0 || amount > Integer.MAX_VALUE) {
+            return false;
+        }
+        long pan = parseDigits(bytes, panStart, panEnd, 16);
+        if (panEnd - panStart != 16) {
+            pan = TransactionBatch.INVALID_PAN;
+        }
+        long currency = currencyEnd - currencyStart == 3 ? parseDigits(bytes, currencyStart, currencyEnd, 3) : -1;
+        long status = statusEnd - statusStart == 2 ? parseDigits(bytes, statusStart, statusEnd, 2) : -1;
+        batch.add(pan,
+                typeOrdinal(bytes, typeStart, typeEnd),
+                (int) amount,
+                currency < 0 ? TransactionBatch.INVALID_CODE : (short) currency,
+                status < 0 ? TransactionBatch.INVALID_CODE : STATUS_BY_CODE[(int) status]);
+        return true;
+    }
+
+    /**
+     * @return The value of the digits in {@code [start, end)}, or -1 if the range is empty, longer than
+     * {@code maxDigits} or contains a non-digit.
+     */
+    private static long parseDigits(ByteBuffer bytes, int start, int end, int maxDigits) {
+        if (start >= end || end - start > maxDigits) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            byte digit = bytes.get(i);
+            if (!isDigit(digit)) {
+                return -1;
+            }
+            value = value * 10 + (digit - '0');
+        }
+        return value;
+    }
+
+    private static byte typeOrdinal(ByteBuffer bytes, int start, int end) {
+        for (TransactionType type : TYPES) {
+            if (equalsAscii(bytes, start, end, type.name())) {
+                return (byte) type.ordinal();
+            }
+        }
+        return TransactionBatch.INVALID_CODE;
+    }
+
+    /**
+     * @return True if the bytes in {@code [start, end)} are the ASCII characters of the text.
+     */
+    private static boolean equalsAscii(ByteBuffer bytes, int start, int end, String text) {
+        if (end - start != text.length()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (bytes.get(start + i) != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+}
@@ -0,0 +1,36 @@
+package com.transaction.processing.service;
+
+/**
+ * Outcome of checking a {@link TransactionJournal} when it is opened.
+ */
+public class RecoveryResult {
+    private final long recordCount;
+    private final long discardedBytes;
+
+    /**
+     * Constructor for initializing a RecoveryResult object with all attributes.
+     *
+     * @param recordCount    Number of intact records in the journal.
+     * @param discardedBytes Number of bytes of torn or corrupt records cut off the end of the journal.
+     */
+    public RecoveryResult(long recordCount, long discardedBytes) {
+        this.recordCount = recordCount;
+        this.discardedBytes = discardedBytes;
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    public long getDiscardedBytes() {
+        return discardedBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "RecoveryResult{" +
+                "recordCount=" + recordCount +
+                ", discardedBytes=" + discardedBytes +
+                '}';
+    }
+}
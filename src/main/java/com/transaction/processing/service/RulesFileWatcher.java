@@ -0,0 +1,107 @@
+package com.transaction.processing.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches a rules file and publishes a new {@link ValidationRules} snapshot whenever it changes.
+ * The file is parsed on a background thread; only a completely loaded snapshot is published to the
+ * {@link RulesRepository}, so processing never waits for a reload. If the changed file cannot be
+ * parsed, the error is logged and the previous rules stay in effect.
+ */
+public class RulesFileWatcher implements Closeable {
+    // Editors often write a file in several steps; wait for them to finish before reading it
+    private static final long SETTLE_MILLIS = 50;
+
+    private final Path file;
+    private final RulesRepository repository;
+    private final WatchService watchService;
+    private final Thread watcherThread;
+
+    /**
+     * Loads the rules file, publishes it and starts watching it for changes.
+     *
+     * @param file       The rules file.
+     * @param repository The repository new snapshots are published to.
+     * @throws IOException If the file cannot be read or watched.
+     * @throws IllegalArgumentException If the file contains an invalid rule.
+     */
+    public RulesFileWatcher(Path file, RulesRepository repository) throws IOException {
+        this.file = file.toAbsolutePath();
+        this.repository = repository;
+        repository.publish(ValidationRules.load(this.file));
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.file.getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        this.watcherThread = new Thread(this::watch, "validation-rules-watcher");
+        this.watcherThread.setDaemon(true);
+        this.watcherThread.start();
+    }
+
+    /**
+     * Reloads the rules file immediately and publishes it if it is valid.
+     *
+     * @return True if new rules were published, false if the file could not be loaded.
+     */
+    public boolean reload() {
+        try {
+            ValidationRules published = repository.publish(ValidationRules.load(file));
+            LoggingService.logInfo("Validation rules reloaded from " + file + ", version " + published.getVersion());
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            LoggingService.logError("Failed to reload validation rules from " + file + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Stops watching the file. The published rules stay in effect.
+     *
+     * @throws IOException If the watch service could not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        try {
+            watcherThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void watch() {
+        Path fileName = file.getFileName();
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (fileName.equals(event.context()) || event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        changed = true;
+                    }
+                }
+                key.reset();
+                if (changed) {
+                    Thread.sleep(SETTLE_MILLIS);
+                    // Collapse the events of the same write into a single reload
+                    WatchKey pending;
+                    while ((pending = watchService.poll()) != null) {
+                        pending.pollEvents();
+                        pending.reset();
+                    }
+                    reload();
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // Watcher was closed
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.transaction.processing.service;
+
+import com.transaction.processing.util.FxRateTable;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the current {@link ValidationRules} snapshot behind a single volatile reference.
+ * Readers take the snapshot once per transaction and never lock; writers build a complete new
+ * snapshot and swap it in atomically (copy-on-write), so a transaction never sees half-applied rules.
+ */
+public class RulesRepository {
+    private final AtomicReference<ValidationRules> current;
+
+    /**
+     * Constructor for a repository starting with the rules compiled into the application.
+     */
+    public RulesRepository() {
+        this(ValidationRules.defaults());
+    }
+
+    /**
+     * Constructor for initializing a RulesRepository object with all attributes.
+     *
+     * @param initialRules The rules to start with; they are published as version 1.
+     */
+    public RulesRepository(ValidationRules initialRules) {
+        this.current = new AtomicReference<>(initialRules.withVersion(1));
+    }
+
+    /**
+     * @return The current rules snapshot.
+     */
+    public ValidationRules current() {
+        return current.get();
+    }
+
+    /**
+     * Atomically replaces the current rules. The published snapshot gets the next version number.
+     *
+     * @param rules The new rules.
+     * @return The published snapshot, carrying its assigned version.
+     */
+    public ValidationRules publish(ValidationRules rules) {
+        while (true) {
+            ValidationRules previous = current.get();
+            ValidationRules next = rules.withVersion(previous.getVersion() + 1);
+            if (current.compareAndSet(previous, next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Atomically replaces the exchange rates of the current rules, keeping everything else, e.g. when a new
+     * rate feed arrives. The published snapshot gets the next version number, so the version recorded on a
+     * transaction also identifies the rates it was validated with.
+     *
+     * @param rates The new exchange rates, or null to compare amounts in their own currency.
+     * @return The published snapshot, carrying its assigned version.
+     * @throws IllegalArgumentException If a currency allowed by the current rules has no rate.
+     */
+    public ValidationRules publishFxRates(FxRateTable rates) {
+        while (true) {
+            ValidationRules previous = current.get();
+            ValidationRules next = previous.withFxRates(rates).withVersion(previous.getVersion() + 1);
+            if (current.compareAndSet(previous, next)) {
+                return next;
+            }
+        }
+    }
+}
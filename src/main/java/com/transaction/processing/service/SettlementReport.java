@@ -0,0 +1,195 @@
+package com.transaction.processing.service;
+
+import com.transaction.processing.model.CurrencyCode;
+import com.transaction.processing.model.DeclineReason;
+import com.transaction.processing.model.TransactionType;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * End-of-day totals of the processed transactions per type and currency, built from the
+ * {@link TransactionAggregates} with {@link TransactionAggregates#report(LocalDate)}.
+ * <p>
+ * Amounts of a line are in the currency of the line. The totals of the day count all currencies together, with
+ * amounts in the base currency if amounts are converted.
+ */
+public class SettlementReport {
+    private static final DeclineReason[] REASONS = DeclineReason.values();
+
+    private final LocalDate date;
+    private final ZoneId zone;
+    private final List<Line> lines;
+    private final TransactionAggregates.Rollup totals;
+
+    /**
+     * Constructor for initializing a SettlementReport object with all attributes.
+     *
+     * @param date   The day of the report.
+     * @param zone   The zone the day is a calendar day of.
+     * @param lines  The totals per type and currency, only for combinations that occurred.
+     * @param totals The totals of the whole day.
+     */
+    SettlementReport(LocalDate date, ZoneId zone, List<Line> lines, TransactionAggregates.Rollup totals) {
+        this.date = date;
+        this.zone = zone;
+        this.lines = Collections.unmodifiableList(lines);
+        this.totals = totals;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    public List<Line> getLines() {
+        return lines;
+    }
+
+    public TransactionAggregates.Rollup getTotals() {
+        return totals;
+    }
+
+    /**
+     * Writes the report as text: a header, one line per type and currency, the declines per reason and the
+     * totals of the day.
+     *
+     * @param out The writer to write to; it is not closed.
+     * @throws IOException If writing fails.
+     */
+    public void write(Writer out) throws IOException {
+        StringBuilder text = new StringBuilder(256 + lines.size() * 64);
+        text.append("Settlement report ").append(date).append(" (").append(zone).append(")\n");
+        text.append("type;currency;approved;approved amount;declined;declined amount\n");
+        for (Line line : lines) {
+            CurrencyCode currency = line.getCurrency();
+            int minorUnits = currency == null ? 0 : currency.getMinorUnits();
+            text.append(line.getType() == null ? "-" : line.getType().name()).append(';');
+            text.append(currency == null ? "-" : currency.getAlphaCode()).append(';');
+            text.append(line.getApprovedCount()).append(';');
+            text.append(formatAmount(line.getApprovedAmount(), minorUnits)).append(';');
+            text.append(line.getDeclinedCount()).append(';');
+            text.append(formatAmount(line.getDeclinedAmount(), minorUnits)).append('\n');
+        }
+        text.append("Declined by reason\n");
+        for (DeclineReason reason : REASONS) {
+            text.append(reason.name()).append(';').append(totals.getDeclinedCount(reason)).append('\n');
+        }
+        text.append("Total approved ").append(totals.getApprovedCount())
+                .append(", declined ").append(totals.getDeclinedCount()).append('\n');
+        out.write(text.toString());
+    }
+
+    /**
+     * Writes the report as text to a file, replacing the file if it exists.
+     *
+     * @param file The file to write.
+     * @throws IOException If the file could not be written.
+     */
+    public void write(Path file) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            write(out);
+        }
+    }
+
+    private static String formatAmount(long amount, int minorUnits) {
+        return BigDecimal.valueOf(amount, minorUnits).toPlainString();
+    }
+
+    @Override
+    public String toString() {
+        return "SettlementReport{" +
+                "date=" + date +
+                ", lines=" + lines.size() +
+                ", totals=" + totals +
+                '}';
+    }
+
+    /**
+     * Totals of the transactions of one type and currency, in minor units of the currency.
+     */
+    public static class Line {
+        private final TransactionType type;
+        private final CurrencyCode currency;
+        private final long[] counts;
+        private final long[] amounts;
+
+        /**
+         * @param type     The type, or null for transactions with an unknown type.
+         * @param currency The currency, or null for transactions with an unknown currency.
+         * @param counts   The number of transactions per outcome: approved, then declined per reason.
+         * @param amounts  The amount of the transactions per outcome.
+         */
+        Line(TransactionType type, CurrencyCode currency, long[] counts, long[] amounts) {
+            this.type = type;
+            this.currency = currency;
+            this.counts = counts;
+            this.amounts = amounts;
+        }
+
+        /**
+         * @return The type, or null for transactions with an unknown type.
+         */
+        public TransactionType getType() {
+            return type;
+        }
+
+        /**
+         * @return The currency, or null for transactions with an unknown currency.
+         */
+        public CurrencyCode getCurrency() {
+            return currency;
+        }
+
+        public long getApprovedCount() {
+            return counts[0];
+        }
+
+        public long getApprovedAmount() {
+            return amounts[0];
+        }
+
+        public long getDeclinedCount() {
+            long total = 0;
+            for (int i = 1; i < counts.length; i++) {
+                total += counts[i];
+            }
+            return total;
+        }
+
+        public long getDeclinedCount(DeclineReason reason) {
+            return counts[reason.ordinal() + 1];
+        }
+
+        public long getDeclinedAmount() {
+            long total = 0;
+            for (int i = 1; i < amounts.length; i++) {
+                total += amounts[i];
+            }
+            return total;
+        }
+
+        @Override
+        public String toString() {
+            return "Line{" +
+                    "type=" + type +
+                    ", currency=" + currency +
+                    ", approvedCount=" + getApprovedCount() +
+                    ", approvedAmount=" + getApprovedAmount() +
+                    ", declinedCount=" + getDeclinedCount() +
+                    ", declinedAmount=" + getDeclinedAmount() +
+                    '}';
+        }
+    }
+}
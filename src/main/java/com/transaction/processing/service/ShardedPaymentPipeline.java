@@ -0,0 +1,308 @@
+package com.transaction.processing.service;
+
+import com.transaction.processing.model.Transaction;
+import com.transaction.processing.util.MpscRingBuffer;
+import com.transaction.processing.util.PANParser;
+import com.transaction.processing.util.WaitStrategy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Processing pipeline that partitions transactions by PAN over a fixed number of shards, each drained by a single
+ * worker thread from its own lock-free {@link MpscRingBuffer}, in the style of the LMAX Disruptor.
+ * <ul>
+ *   <li>All transactions of a PAN go to the same shard, so they are processed strictly in the order they were
+ *       submitted by a producer thread, and two transactions of a PAN never race for its
+ *       {@link PaymentService#getVelocityLimiter() velocity limits} or idempotency entry. The shards still share
+ *       the service: the lock stripes of the limiter and the idempotency cache hold the PANs of every shard, and
+ *       the log sinks are shared as well, so workers can still contend on those locks, and transactions submitted
+ *       to the service directly bypass the ordering.</li>
+ *   <li>A worker takes everything queued on its shard (up to the batch size) and processes it as one chunk, so
+ *       the log entries of a burst are written together.</li>
+ *   <li>A producer that finds the ring of its shard full spins and yields until there is room, so a slow shard
+ *       pushes back on its producers instead of queueing without bound.</li>
+ *   <li>An idle worker waits with the configured {@link WaitStrategy}; by default it parks after a short spin, so
+ *       an idle pipeline does not keep the cores busy.</li>
+ * </ul>
+ * The futures are completed on the worker threads; long-running follow-up work should use the {@code ...Async}
+ * methods of {@link CompletableFuture}, so it does not hold up the shard.
+ */
+public class ShardedPaymentPipeline implements AutoCloseable {
+    private static final int PRODUCER_SPINS = 100;
+
+    private final PaymentService service;
+    private final Shard[] shards;
+    private final int maxBatchSize;
+    private volatile boolean running = true;
+
+    private ShardedPaymentPipeline(Builder builder) {
+        this.service = builder.service;
+        this.maxBatchSize = builder.maxBatchSize;
+        this.shards = new Shard[builder.shards];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard(new MpscRingBuffer<>(builder.ringCapacity, builder.singleProducer),
+                    builder.waitStrategy.get());
+            shards[i].worker = new Thread(shards[i]::run, "payment-shard-" + i);
+            shards[i].worker.setDaemon(true);
+            shards[i].worker.start();
+        }
+    }
+
+    /**
+     * Creates a builder for a pipeline processing transactions with the given service.
+     *
+     * @param service The service that processes the transactions.
+     * @return A builder with default settings.
+     */
+    public static Builder builder(PaymentService service) {
+        return new Builder(service);
+    }
+
+    /**
+     * Queues a transaction on the shard of its PAN, waiting while that shard's ring is full.
+     *
+     * @param transaction The transaction to process.
+     * @return A future completed with the processed transaction, or exceptionally if processing failed
+     *         or the pipeline has been closed.
+     */
+    public CompletableFuture<Transaction> submit(Transaction transaction) {
+        CompletableFuture<Transaction> result = new CompletableFuture<>();
+        Shard shard = shards[shardOf(transaction.getPan())];
+        Task task = new Task(transaction, result);
+        // Registering before checking the flag lets close() wait for every producer that saw the pipeline open,
+        // so the workers keep draining until all of them have queued their task
+        shard.producers.incrementAndGet();
+        try {
+            if (!running) {
+                result.completeExceptionally(new RejectedExecutionException("Payment pipeline is closed"));
+                return result;
+            }
+            for (int attempts = 0; !shard.ring.offer(task); attempts++) {
+                if (attempts >= PRODUCER_SPINS) {
+                    Thread.yield();
+                }
+            }
+        } finally {
+            shard.producers.decrementAndGet();
+        }
+        shard.waitStrategy.signal();
+        return result;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    public PaymentService getService() {
+        return service;
+    }
+
+    /**
+     * @param pan The PAN of a transaction.
+     * @return The index of the shard that processes the transactions of the PAN.
+     */
+    int shardOf(String pan) {
+        long key = PANParser.parse(pan);
+        if (key == PANParser.INVALID) {
+            // Malformed PANs are declined without per-PAN state, but still keep their order
+            key = pan == null ? 0 : pan.hashCode();
+        }
+        return (int) ((mix(key) >>> 1) % shards.length);
+    }
+
+    /**
+     * Stops accepting transactions, waits until the queued ones are processed and stops the workers.
+     */
+    @Override
+    public void close() {
+        running = false;
+        for (Shard shard : shards) {
+            while (shard.producers.get() != 0) {
+                Thread.yield();
+            }
+            shard.stopped = true;
+            shard.waitStrategy.signal();
+        }
+        for (Shard shard : shards) {
+            try {
+                shard.worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Spreads the bits of the key (the finalizer of MurmurHash3), so similar PANs spread over all shards.
+     */
+    private static long mix(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * A submitted transaction and the future its result is delivered to.
+     */
+    private static final class Task {
+        private final Transaction transaction;
+        private final CompletableFuture<Transaction> result;
+
+        private Task(Transaction transaction, CompletableFuture<Transaction> result) {
+            this.transaction = transaction;
+            this.result = result;
+        }
+    }
+
+    /**
+     * One partition of the PANs: a ring buffer and the single worker thread that drains it.
+     */
+    private final class Shard {
+        private final MpscRingBuffer<Task> ring;
+        private final WaitStrategy waitStrategy;
+        private final AtomicInteger producers = new AtomicInteger();
+        private volatile boolean stopped;
+        private Thread worker;
+
+        private Shard(MpscRingBuffer<Task> ring, WaitStrategy waitStrategy) {
+            this.ring = ring;
+            this.waitStrategy = waitStrategy;
+        }
+
+        private void run() {
+            Task[] tasks = new Task[maxBatchSize];
+            Transaction[] transactions = new Transaction[maxBatchSize];
+            int idleCount = 0;
+            while (true) {
+                // Read the flag before draining: once it is set, no producer adds anything
+                boolean stopping = stopped;
+                int count = 0;
+                Task task;
+                while (count < maxBatchSize && (task = ring.poll()) != null) {
+                    tasks[count] = task;
+                    transactions[count] = task.transaction;
+                    count++;
+                }
+                if (count == 0) {
+                    if (stopping) {
+                        return;
+                    }
+                    waitStrategy.idle(idleCount);
+                    if (idleCount < WaitStrategy.MAX_IDLE_COUNT) {
+                        idleCount++;
+                    }
+                    continue;
+                }
+                idleCount = 0;
+                process(tasks, transactions, count);
+            }
+        }
+
+        private void process(Task[] tasks, Transaction[] transactions, int count) {
+            try {
+                service.processChunk(transactions, 0, count);
+                for (int i = 0; i < count; i++) {
+                    tasks[i].result.complete(transactions[i]);
+                }
+            } catch (Throwable t) {
+                for (int i = 0; i < count; i++) {
+                    tasks[i].result.completeExceptionally(t);
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                tasks[i] = null;
+                transactions[i] = null;
+            }
+        }
+    }
+
+    /**
+     * Builder for {@link ShardedPaymentPipeline} instances.
+     */
+    public static class Builder {
+        private final PaymentService service;
+        private int shards = Runtime.getRuntime().availableProcessors();
+        private int ringCapacity = 4096;
+        private int maxBatchSize = 256;
+        private boolean singleProducer;
+        private Supplier<WaitStrategy> waitStrategy = WaitStrategy::blocking;
+
+        private Builder(PaymentService service) {
+            this.service = service;
+        }
+
+        /**
+         * @param shards Number of shards, each with its own worker thread (default the number of processors).
+         * @return This builder.
+         */
+        public Builder shards(int shards) {
+            if (shards <= 0) {
+                throw new IllegalArgumentException("Shard count must be positive: " + shards);
+            }
+            this.shards = shards;
+            return this;
+        }
+
+        /**
+         * @param ringCapacity Number of transactions that can be queued per shard, a power of two (default 4096).
+         * @return This builder.
+         */
+        public Builder ringCapacity(int ringCapacity) {
+            if (ringCapacity <= 0 || Integer.bitCount(ringCapacity) != 1) {
+                throw new IllegalArgumentException("Ring capacity must be a positive power of two: " + ringCapacity);
+            }
+            this.ringCapacity = ringCapacity;
+            return this;
+        }
+
+        /**
+         * @param maxBatchSize Maximum number of queued transactions a worker processes as one chunk (default 256).
+         * @return This builder.
+         */
+        public Builder maxBatchSize(int maxBatchSize) {
+            if (maxBatchSize <= 0) {
+                throw new IllegalArgumentException("Batch size must be positive: " + maxBatchSize);
+            }
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        /**
+         * @param singleProducer True if transactions are only ever submitted by one thread, which lets the rings
+         *                       skip the compare-and-set on their tail (default false).
+         * @return This builder.
+         */
+        public Builder singleProducer(boolean singleProducer) {
+            this.singleProducer = singleProducer;
+            return this;
+        }
+
+        /**
+         * @param waitStrategy Creates the wait strategy of each worker (default {@link WaitStrategy#blocking()}, which
+         *                     parks idle workers); {@code WaitStrategy::yielding} or {@code WaitStrategy::busySpin}
+         *                     keep idle workers spinning for lower latency, at the cost of a core per shard.
+         * @return This builder.
+         */
+        public Builder waitStrategy(Supplier<WaitStrategy> waitStrategy) {
+            this.waitStrategy = waitStrategy;
+            return this;
+        }
+
+        /**
+         * Starts the worker threads.
+         *
+         * @return The running pipeline.
+         */
+        public ShardedPaymentPipeline build() {
+            return new ShardedPaymentPipeline(this);
+        }
+    }
+}
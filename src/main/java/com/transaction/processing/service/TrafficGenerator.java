@@ -0,0 +1,292 @@
+package com.transaction.processing.service;
+
+import com.transaction.processing.model.CurrencyCode;
+import com.transaction.processing.model.Transaction;
+import com.transaction.processing.model.TransactionStatus;
+import com.transaction.processing.model.TransactionType;
+import com.transaction.processing.util.PANRangeTable;
+import com.transaction.processing.util.PANValidator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic generator of synthetic transactions for load tests.
+ * <p>
+ * Types and currencies are drawn from weighted mixes, amounts from an {@link AmountDistribution}, and PANs from a
+ * fixed pool of cards per type inside the PAN ranges of the type, so cards repeat as they do in production (which
+ * matters for the velocity limits and the idempotency cache). A configurable share of the transactions gets a PAN
+ * outside every range. The generator itself is immutable: all randomness comes from the {@link SplittableRandom}
+ * passed to {@link #next(SplittableRandom)}, so the same seed gives the same traffic, also per thread when every
+ * thread uses its own {@link SplittableRandom#split() split} of one seeded random.
+ */
+public class TrafficGenerator {
+    // 16 digit PANs starting with 9 are outside the ranges of every type in the default configuration
+    private static final long INVALID_PAN_BASE = 9_000_000_000_000_000L;
+    private static final String ACTIVE = TransactionStatus.ACTIVE.getCode();
+
+    private final TransactionType[] types;
+    private final int[] typeWeights;
+    private final String[] currencies;
+    private final int[] currencyWeights;
+    private final AmountDistribution amounts;
+    private final double invalidPanRate;
+    // Per type ordinal: the card pool, formatted once so generating a transaction does not format numbers
+    private final String[][] pans;
+
+    private TrafficGenerator(Builder builder) {
+        if (builder.types.isEmpty() || builder.currencies.isEmpty()) {
+            throw new IllegalArgumentException("At least one type and one currency are required");
+        }
+        this.types = builder.types.toArray(new TransactionType[0]);
+        this.typeWeights = cumulative(builder.typeWeights);
+        this.currencies = builder.currencies.toArray(new String[0]);
+        this.currencyWeights = cumulative(builder.currencyWeights);
+        this.amounts = builder.amounts;
+        this.invalidPanRate = builder.invalidPanRate;
+        this.pans = new String[TransactionType.values().length][];
+        SplittableRandom random = new SplittableRandom(builder.panSeed);
+        for (TransactionType type : TransactionType.values()) {
+            pans[type.ordinal()] = cardPool(builder.ranges, type, builder.cardsPerType, random);
+        }
+    }
+
+    /**
+     * Creates a builder for a generator with an even mix of all types, EUR and USD, amounts uniformly distributed
+     * up to 50.00, no invalid PANs and 1000 cards per type in the current PAN ranges of {@link PANValidator}.
+     *
+     * @return A builder with default settings.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Generates the next transaction, in status Active.
+     *
+     * @param random The source of randomness; the same sequence of randoms gives the same transactions.
+     * @return A new transaction.
+     */
+    public Transaction next(SplittableRandom random) {
+        TransactionType type = types[pick(typeWeights, random)];
+        String currency = currencies[pick(currencyWeights, random)];
+        int amount = amounts.next(random);
+        String[] pool = pans[type.ordinal()];
+        String pan;
+        if (pool.length == 0 || random.nextDouble() < invalidPanRate) {
+            pan = Long.toString(INVALID_PAN_BASE + random.nextLong(1_000_000_000_000_000L));
+        } else {
+            pan = pool[random.nextInt(pool.length)];
+        }
+        return new Transaction(pan, type.name(), amount, currency, ACTIVE);
+    }
+
+    private static String[] cardPool(PANRangeTable ranges, TransactionType type, int cards, SplittableRandom random) {
+        long[] lows = ranges.lowBounds(type);
+        long[] highs = ranges.highBounds(type);
+        if (lows.length == 0) {
+            return new String[0];
+        }
+        String[] pool = new String[cards];
+        for (int i = 0; i < cards; i++) {
+            int range = random.nextInt(lows.length);
+            long pan = highs[range] == Long.MAX_VALUE
+                    ? random.nextLong(lows[range], highs[range])
+                    : random.nextLong(lows[range], highs[range] + 1);
+            pool[i] = Long.toString(pan);
+        }
+        return pool;
+    }
+
+    private static int[] cumulative(List<Integer> weights) {
+        int[] cumulative = new int[weights.size()];
+        int total = 0;
+        for (int i = 0; i < cumulative.length; i++) {
+            total = Math.addExact(total, weights.get(i));
+            cumulative[i] = total;
+        }
+        return cumulative;
+    }
+
+    private static int pick(int[] cumulativeWeights, SplittableRandom random) {
+        int value = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        int i = 0;
+        while (cumulativeWeights[i] <= value) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Distribution of the amounts of generated transactions, in minor units.
+     */
+    public interface AmountDistribution {
+        /**
+         * @param random The source of randomness.
+         * @return The next amount.
+         */
+        int next(SplittableRandom random);
+
+        /**
+         * @param amount The amount of every transaction.
+         * @return A distribution that always gives the same amount.
+         */
+        static AmountDistribution fixed(int amount) {
+            return random -> amount;
+        }
+
+        /**
+         * @param min The smallest amount (inclusive).
+         * @param max The largest amount (inclusive).
+         * @return A distribution giving every amount in the range with the same probability.
+         * @throws IllegalArgumentException If the range is empty.
+         */
+        static AmountDistribution uniform(int min, int max) {
+            if (min > max) {
+                throw new IllegalArgumentException("Empty amount range: " + min + " - " + max);
+            }
+            return random -> (int) random.nextLong(min, (long) max + 1);
+        }
+
+        /**
+         * A log-normal distribution: most amounts are small, with a long tail of large ones, as in card traffic.
+         *
+         * @param median The median amount.
+         * @param sigma  The standard deviation of the logarithm of the amount, e.g. 1.0.
+         * @param max    The largest amount; larger draws are capped.
+         * @return The distribution.
+         * @throws IllegalArgumentException If the median is not positive or sigma is negative.
+         */
+        static AmountDistribution logNormal(int median, double sigma, int max) {
+            if (median <= 0 || sigma < 0) {
+                throw new IllegalArgumentException("Invalid log-normal amounts: median " + median + ", sigma " + sigma);
+            }
+            double mu = Math.log(median);
+            return random -> {
+                // Box-Muller transform; 1 - nextDouble() avoids log(0)
+                double gaussian = Math.sqrt(-2 * Math.log(1 - random.nextDouble()))
+                        * Math.cos(2 * Math.PI * random.nextDouble());
+                return (int) Math.min(max, Math.max(1, Math.round(Math.exp(mu + sigma * gaussian))));
+            };
+        }
+    }
+
+    /**
+     * Builder for {@link TrafficGenerator} instances.
+     */
+    public static class Builder {
+        private final List<TransactionType> types = new ArrayList<>();
+        private final List<Integer> typeWeights = new ArrayList<>();
+        private final List<String> currencies = new ArrayList<>();
+        private final List<Integer> currencyWeights = new ArrayList<>();
+        private AmountDistribution amounts = AmountDistribution.uniform(1, 5000);
+        private double invalidPanRate;
+        private int cardsPerType = 1000;
+        private long panSeed = 1;
+        private PANRangeTable ranges = PANValidator.getRangeTable();
+        private boolean defaultTypes = true;
+        private boolean defaultCurrencies = true;
+
+        private Builder() {
+            for (TransactionType type : TransactionType.values()) {
+                types.add(type);
+                typeWeights.add(1);
+            }
+            currencies.add(CurrencyCode.EUR.getNumericCode());
+            currencyWeights.add(1);
+            currencies.add(CurrencyCode.USD.getNumericCode());
+            currencyWeights.add(1);
+        }
+
+        /**
+         * Adds a type to the mix; the first call replaces the default even mix of all types.
+         *
+         * @param type   The transaction type.
+         * @param weight The relative frequency of the type.
+         * @return This builder.
+         */
+        public Builder type(TransactionType type, int weight) {
+            if (defaultTypes) {
+                types.clear();
+                typeWeights.clear();
+                defaultTypes = false;
+            }
+            types.add(type);
+            typeWeights.add(positive(weight));
+            return this;
+        }
+
+        /**
+         * Adds a currency to the mix; the first call replaces the default mix of EUR and USD. Codes that are not
+         * allowed, e.g. {@code "999"}, produce declined transactions.
+         *
+         * @param numericCode The numeric currency code.
+         * @param weight      The relative frequency of the currency.
+         * @return This builder.
+         */
+        public Builder currency(String numericCode, int weight) {
+            if (defaultCurrencies) {
+                currencies.clear();
+                currencyWeights.clear();
+                defaultCurrencies = false;
+            }
+            currencies.add(numericCode);
+            currencyWeights.add(positive(weight));
+            return this;
+        }
+
+        /**
+         * @param amounts The distribution of the amounts (default uniform from 0.01 to 50.00).
+         * @return This builder.
+         */
+        public Builder amounts(AmountDistribution amounts) {
+            this.amounts = amounts;
+            return this;
+        }
+
+        /**
+         * @param invalidPanRate Share of transactions with a PAN outside the ranges of their type, from 0 to 1
+         *                       (default 0).
+         * @return This builder.
+         */
+        public Builder invalidPanRate(double invalidPanRate) {
+            if (!(invalidPanRate >= 0 && invalidPanRate <= 1)) {
+                throw new IllegalArgumentException("Invalid PAN rate must be between 0 and 1: " + invalidPanRate);
+            }
+            this.invalidPanRate = invalidPanRate;
+            return this;
+        }
+
+        /**
+         * @param cardsPerType Number of distinct cards per type (default 1000).
+         * @param seed         Seed from which the cards are drawn (default 1).
+         * @return This builder.
+         */
+        public Builder cards(int cardsPerType, long seed) {
+            this.cardsPerType = positive(cardsPerType);
+            this.panSeed = seed;
+            return this;
+        }
+
+        /**
+         * @param ranges The PAN ranges the cards are drawn from (default the ranges of {@link PANValidator}).
+         * @return This builder.
+         */
+        public Builder panRanges(PANRangeTable ranges) {
+            this.ranges = ranges;
+            return this;
+        }
+
+        public TrafficGenerator build() {
+            return new TrafficGenerator(this);
+        }
+
+        private static int positive(int value) {
+            if (value <= 0) {
+                throw new IllegalArgumentException("Value must be positive: " + value);
+            }
+            return value;
+        }
+    }
+}
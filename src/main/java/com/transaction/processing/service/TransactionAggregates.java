@@ -0,0 +1,494 @@
+package com.transaction.processing.service;
+
+import com.transaction.processing.model.CurrencyCode;
+import com.transaction.processing.model.DeclineReason;
+import com.transaction.processing.model.Transaction;
+import com.transaction.processing.model.TransactionType;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running totals of the transactions processed by {@link PaymentService}, so daily figures can be read without
+ * parsing the transaction log.
+ * <ul>
+ *   <li>Every processed transaction is counted in the bucket of its minute, hour and day: the number and the
+ *       amount (in the base currency if amounts are converted) of approved transactions and of declined
+ *       transactions per {@link DeclineReason}.</li>
+ *   <li>Day buckets also hold the count and amount, in the currency of the transaction, per type, currency and
+ *       outcome, from which {@link #report(LocalDate)} builds the {@link SettlementReport} of a day.</li>
+ * </ul>
+ * Totals are {@link LongAdder}s, so concurrent updates never lock and rarely contend. Each granularity keeps a
+ * ring of the most recent buckets; the bucket of a new period replaces the oldest one with a single
+ * compare-and-set, and the per-type and per-currency cells of a day are created on first use. Minutes and hours
+ * are aligned to UTC, days to the zone of the clock.
+ * <p>
+ * Reads sum the adders while transactions are being counted, so a bucket that is still current may be read
+ * half-way through counting a transaction; buckets of earlier periods are exact.
+ */
+public class TransactionAggregates {
+    private static final TransactionType[] TYPES = TransactionType.values();
+    private static final CurrencyCode[] CURRENCIES = CurrencyCode.values();
+    private static final DeclineReason[] REASONS = DeclineReason.values();
+    // Outcome 0 is approved, outcome i > 0 is declined for REASONS[i - 1]
+    private static final int OUTCOMES = REASONS.length + 1;
+    // The last type and currency slot hold transactions with an unknown type or currency
+    private static final int TYPE_SLOTS = TYPES.length + 1;
+    private static final int CURRENCY_SLOTS = CURRENCIES.length + 1;
+
+    private final Clock clock;
+    private final ZoneId zone;
+    private final AtomicReferenceArray<Bucket> minutes;
+    private final AtomicReferenceArray<Bucket> hours;
+    private final AtomicReferenceArray<Bucket> days;
+    private volatile Day currentDay;
+
+    private TransactionAggregates(Builder builder) {
+        this.clock = builder.clock;
+        this.zone = builder.clock.getZone();
+        this.minutes = new AtomicReferenceArray<>(builder.minutes);
+        this.hours = new AtomicReferenceArray<>(builder.hours);
+        this.days = new AtomicReferenceArray<>(builder.days);
+        this.currentDay = new Day(LocalDate.now(builder.clock), zone);
+    }
+
+    /**
+     * Creates a builder for aggregates keeping 2 hours of minutes, 2 days of hours and 7 days.
+     *
+     * @return A builder with default settings.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Counts a processed transaction in the buckets of the current minute, hour and day.
+     *
+     * @param transaction The transaction after validation, with its decline reason set.
+     * @param baseAmount  The amount in the base currency, or the amount as is if amounts are not converted.
+     */
+    public void record(Transaction transaction, long baseAmount) {
+        add(clock.millis(), transaction.getDeclineReason(), typeSlot(transaction.getType()),
+                currencySlot(transaction.getCurrency()), transaction.getAmount(), baseAmount);
+    }
+
+    /**
+     * Counts a journaled transaction in the buckets of the minute, hour and day it was processed in, e.g. to
+     * rebuild the aggregates after a restart. Records older than the periods that are kept are ignored.
+     *
+     * @param record     The journal record of the transaction.
+     * @param baseAmount The amount in the base currency, or the amount as is if amounts are not converted.
+     */
+    public void restore(JournalRecord record, long baseAmount) {
+        TransactionType type = record.getType();
+        CurrencyCode currency = CurrencyCode.find(record.getCurrency());
+        add(record.getEpochMillis(), record.getDeclineReason(), type == null ? TYPES.length : type.ordinal(),
+                currency == null ? CURRENCIES.length : currency.ordinal(), record.getAmount(), baseAmount);
+    }
+
+    private void add(long millis, DeclineReason reason, int typeSlot, int currencySlot, int amount,
+                     long baseAmount) {
+        int outcome = reason == null ? 0 : reason.ordinal() + 1;
+
+        Bucket minute = bucket(Granularity.MINUTE, Math.floorDiv(millis, Granularity.MINUTE.millis));
+        if (minute != null) {
+            minute.add(outcome, baseAmount);
+        }
+        Bucket hour = bucket(Granularity.HOUR, Math.floorDiv(millis, Granularity.HOUR.millis));
+        if (hour != null) {
+            hour.add(outcome, baseAmount);
+        }
+        Bucket day = bucket(Granularity.DAY, epochDay(millis));
+        if (day != null) {
+            day.add(outcome, baseAmount);
+            day.cell(typeSlot, currencySlot, outcome).add(amount);
+        }
+    }
+
+    /**
+     * @param granularity The length of the period.
+     * @param time        A time within the period.
+     * @return The totals of the period; all zero if nothing was counted in it or its bucket has been reused for a
+     * later period.
+     */
+    public Rollup rollup(Granularity granularity, Instant time) {
+        long millis = time.toEpochMilli();
+        long period = granularity == Granularity.DAY ? epochDay(millis) : Math.floorDiv(millis, granularity.millis);
+        return rollup(granularity, period);
+    }
+
+    /**
+     * @param granularity The length of the periods.
+     * @param count       The number of periods, at most the number kept for the granularity.
+     * @return The totals of the last periods up to and including the current one, oldest first.
+     * @throws IllegalArgumentException If more periods are requested than are kept.
+     */
+    public List<Rollup> recent(Granularity granularity, int count) {
+        if (count < 0 || count > ring(granularity).length()) {
+            throw new IllegalArgumentException("Only " + ring(granularity).length() + " " + granularity
+                    + " periods are kept: " + count);
+        }
+        long now = clock.millis();
+        long current = granularity == Granularity.DAY ? epochDay(now) : now / granularity.millis;
+        List<Rollup> rollups = new ArrayList<>(count);
+        for (long period = current - count + 1; period <= current; period++) {
+            rollups.add(rollup(granularity, period));
+        }
+        return rollups;
+    }
+
+    /**
+     * Builds the settlement report of a day from the day bucket, without reading any log file.
+     *
+     * @param date The day in the zone of the clock; for the current day the report covers the day so far.
+     * @return The totals of the day per type and currency.
+     * @throws IllegalArgumentException If the day is older than the days that are kept.
+     */
+    public SettlementReport report(LocalDate date) {
+        long period = date.toEpochDay();
+        if (period <= epochDay(clock.millis()) - days.length()) {
+            throw new IllegalArgumentException("Aggregates of " + date + " are no longer kept");
+        }
+        Bucket bucket = find(days, period);
+        List<SettlementReport.Line> lines = new ArrayList<>();
+        if (bucket != null) {
+            for (int type = 0; type < TYPE_SLOTS; type++) {
+                for (int currency = 0; currency < CURRENCY_SLOTS; currency++) {
+                    SettlementReport.Line line = line(bucket, type, currency);
+                    if (line != null) {
+                        lines.add(line);
+                    }
+                }
+            }
+        }
+        return new SettlementReport(date, zone, lines, toRollup(Granularity.DAY, period, bucket));
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    /**
+     * Sums the cells of a type and currency into a report line.
+     *
+     * @return The line, or null if no transaction of the type and currency was counted.
+     */
+    private static SettlementReport.Line line(Bucket bucket, int type, int currency) {
+        long[] counts = new long[OUTCOMES];
+        long[] amounts = new long[OUTCOMES];
+        boolean any = false;
+        for (int outcome = 0; outcome < OUTCOMES; outcome++) {
+            Cell cell = bucket.cells.get(cellIndex(type, currency, outcome));
+            if (cell != null) {
+                counts[outcome] = cell.count.sum();
+                amounts[outcome] = cell.amount.sum();
+                any = true;
+            }
+        }
+        if (!any) {
+            return null;
+        }
+        return new SettlementReport.Line(type < TYPES.length ? TYPES[type] : null,
+                currency < CURRENCIES.length ? CURRENCIES[currency] : null, counts, amounts);
+    }
+
+    private Rollup rollup(Granularity granularity, long period) {
+        return toRollup(granularity, period, find(ring(granularity), period));
+    }
+
+    private Rollup toRollup(Granularity granularity, long period, Bucket bucket) {
+        long[] counts = new long[OUTCOMES];
+        long[] amounts = new long[OUTCOMES];
+        if (bucket != null) {
+            for (int outcome = 0; outcome < OUTCOMES; outcome++) {
+                counts[outcome] = bucket.counts[outcome].sum();
+                amounts[outcome] = bucket.amounts[outcome].sum();
+            }
+        }
+        Instant start = granularity == Granularity.DAY
+                ? LocalDate.ofEpochDay(period).atStartOfDay(zone).toInstant()
+                : Instant.ofEpochMilli(period * granularity.millis);
+        return new Rollup(granularity, start, counts, amounts);
+    }
+
+    private AtomicReferenceArray<Bucket> ring(Granularity granularity) {
+        switch (granularity) {
+            case MINUTE:
+                return minutes;
+            case HOUR:
+                return hours;
+            default:
+                return days;
+        }
+    }
+
+    /**
+     * Returns the bucket of a period, replacing the bucket of an older period in its slot of the ring.
+     *
+     * @return The bucket, or null if the slot already holds a newer period, i.e. the time is too far back.
+     */
+    private Bucket bucket(Granularity granularity, long period) {
+        AtomicReferenceArray<Bucket> ring = ring(granularity);
+        int slot = (int) Math.floorMod(period, (long) ring.length());
+        Bucket bucket = ring.get(slot);
+        while (bucket == null || bucket.period < period) {
+            Bucket fresh = new Bucket(period, granularity == Granularity.DAY);
+            if (ring.compareAndSet(slot, bucket, fresh)) {
+                return fresh;
+            }
+            bucket = ring.get(slot);
+        }
+        return bucket.period == period ? bucket : null;
+    }
+
+    private static Bucket find(AtomicReferenceArray<Bucket> ring, long period) {
+        Bucket bucket = ring.get((int) Math.floorMod(period, (long) ring.length()));
+        return bucket != null && bucket.period == period ? bucket : null;
+    }
+
+    /**
+     * @return The day of the time in the zone of the clock, as a number of days since 1970-01-01.
+     */
+    private long epochDay(long millis) {
+        Day day = currentDay;
+        if (millis >= day.startMillis && millis < day.endMillis) {
+            return day.epochDay;
+        }
+        // Once per day, or for a time outside the current day
+        Day other = new Day(Instant.ofEpochMilli(millis).atZone(zone).toLocalDate(), zone);
+        if (other.epochDay > day.epochDay) {
+            currentDay = other;
+        }
+        return other.epochDay;
+    }
+
+    private static int typeSlot(String code) {
+        TransactionType type = TransactionType.find(code);
+        return type == null ? TYPES.length : type.ordinal();
+    }
+
+    private static int currencySlot(String code) {
+        CurrencyCode currency = CurrencyCode.find(code);
+        return currency == null ? CURRENCIES.length : currency.ordinal();
+    }
+
+    private static int cellIndex(int type, int currency, int outcome) {
+        return (type * CURRENCY_SLOTS + currency) * OUTCOMES + outcome;
+    }
+
+    /**
+     * The length of the periods transactions are counted in.
+     */
+    public enum Granularity {
+        MINUTE(60_000L),
+        HOUR(3_600_000L),
+        DAY(86_400_000L);
+
+        private final long millis;
+
+        /**
+         * @param millis The length of the period; days are calendar days of the zone of the clock.
+         */
+        Granularity(long millis) {
+            this.millis = millis;
+        }
+    }
+
+    /**
+     * The start and end of the current day, so most transactions find their day without a calendar calculation.
+     */
+    private static final class Day {
+        private final long epochDay;
+        private final long startMillis;
+        private final long endMillis;
+
+        private Day(LocalDate date, ZoneId zone) {
+            this.epochDay = date.toEpochDay();
+            this.startMillis = date.atStartOfDay(zone).toInstant().toEpochMilli();
+            this.endMillis = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        }
+    }
+
+    /**
+     * Totals of one period, per outcome; day buckets also hold the cells per type, currency and outcome.
+     */
+    private static final class Bucket {
+        private final long period;
+        private final LongAdder[] counts = new LongAdder[OUTCOMES];
+        private final LongAdder[] amounts = new LongAdder[OUTCOMES];
+        private final AtomicReferenceArray<Cell> cells;
+
+        private Bucket(long period, boolean detailed) {
+            this.period = period;
+            for (int i = 0; i < OUTCOMES; i++) {
+                counts[i] = new LongAdder();
+                amounts[i] = new LongAdder();
+            }
+            this.cells = detailed ? new AtomicReferenceArray<>(TYPE_SLOTS * CURRENCY_SLOTS * OUTCOMES) : null;
+        }
+
+        private void add(int outcome, long amount) {
+            counts[outcome].increment();
+            amounts[outcome].add(amount);
+        }
+
+        private Cell cell(int type, int currency, int outcome) {
+            int index = cellIndex(type, currency, outcome);
+            Cell cell = cells.get(index);
+            if (cell == null) {
+                Cell fresh = new Cell();
+                cell = cells.compareAndSet(index, null, fresh) ? fresh : cells.get(index);
+            }
+            return cell;
+        }
+    }
+
+    /**
+     * Count and amount of the transactions of one type, currency and outcome in a day.
+     */
+    private static final class Cell {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder amount = new LongAdder();
+
+        private void add(long value) {
+            count.increment();
+            amount.add(value);
+        }
+    }
+
+    /**
+     * Totals of one minute, hour or day, see {@link TransactionAggregates#rollup(Granularity, Instant)}.
+     * Amounts are in the base currency if amounts are converted.
+     */
+    public static class Rollup {
+        private final Granularity granularity;
+        private final Instant start;
+        private final long[] counts;
+        private final long[] amounts;
+
+        private Rollup(Granularity granularity, Instant start, long[] counts, long[] amounts) {
+            this.granularity = granularity;
+            this.start = start;
+            this.counts = counts;
+            this.amounts = amounts;
+        }
+
+        public Granularity getGranularity() {
+            return granularity;
+        }
+
+        public Instant getStart() {
+            return start;
+        }
+
+        public long getCount() {
+            return getApprovedCount() + getDeclinedCount();
+        }
+
+        public long getApprovedCount() {
+            return counts[0];
+        }
+
+        public long getApprovedAmount() {
+            return amounts[0];
+        }
+
+        public long getDeclinedCount() {
+            return sumDeclined(counts);
+        }
+
+        public long getDeclinedCount(DeclineReason reason) {
+            return counts[reason.ordinal() + 1];
+        }
+
+        public long getDeclinedAmount() {
+            return sumDeclined(amounts);
+        }
+
+        private static long sumDeclined(long[] values) {
+            long total = 0;
+            for (int i = 1; i < values.length; i++) {
+                total += values[i];
+            }
+            return total;
+        }
+
+        @Override
+        public String toString() {
+            return "Rollup{" +
+                    "granularity=" + granularity +
+                    ", start=" + start +
+                    ", approvedCount=" + getApprovedCount() +
+                    ", approvedAmount=" + getApprovedAmount() +
+                    ", declinedCount=" + getDeclinedCount() +
+                    ", declinedAmount=" + getDeclinedAmount() +
+                    '}';
+        }
+    }
+
+    /**
+     * Builder for {@link TransactionAggregates} instances.
+     */
+    public static class Builder {
+        private Clock clock = Clock.systemDefaultZone();
+        private int minutes = 120;
+        private int hours = 48;
+        private int days = 7;
+
+        private Builder() {
+        }
+
+        /**
+         * @param clock The clock transactions are counted with; days follow its zone (default the system clock).
+         * @return This builder.
+         */
+        public Builder clock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        /**
+         * @param minutes Number of minute buckets kept (default 120).
+         * @return This builder.
+         */
+        public Builder minutes(int minutes) {
+            this.minutes = positive(minutes, "Minute");
+            return this;
+        }
+
+        /**
+         * @param hours Number of hour buckets kept (default 48).
+         * @return This builder.
+         */
+        public Builder hours(int hours) {
+            this.hours = positive(hours, "Hour");
+            return this;
+        }
+
+        /**
+         * @param days Number of day buckets kept, and so the number of days a report can be built for (default 7).
+         * @return This builder.
+         */
+        public Builder days(int days) {
+            this.days = positive(days, "Day");
+            return this;
+        }
+
+        public TransactionAggregates build() {
+            return new TransactionAggregates(this);
+        }
+
+        private static int positive(int count, String name) {
+            if (count <= 0) {
+                throw new IllegalArgumentException(name + " bucket count must be positive: " + count);
+            }
+            return count;
+        }
+    }
+}
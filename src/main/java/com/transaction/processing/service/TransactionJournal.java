@@ -0,0 +1,733 @@
+package com.transaction.processing.service;
+
+import com.transaction.processing.model.DeclineReason;
+import com.transaction.processing.model.Transaction;
+import com.transaction.processing.model.TransactionType;
+import com.transaction.processing.util.PANParser;
+import com.transaction.processing.util.SipHash;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead journal of transaction decisions, from which the state of a {@link PaymentService} is rebuilt after
+ * a restart (see {@link PaymentService#recover()}).
+ * <p>
+ * Appending only encodes the record into an in-memory buffer. A single writer thread swaps that buffer for an
+ * empty one, writes it and forces it to disk, so all records appended while the previous group was being forced
+ * share one {@link FileChannel#force(boolean) force}. Callers that must not acknowledge a decision before it is
+ * durable wait for their record with {@link #awaitDurable(long)}, which {@link PaymentService} does by itself in
+ * {@link Builder#durableAcks(boolean) durable acknowledgement} mode.
+ * <p>
+ * A file starts with an 8 byte header (magic {@code "TXJL"}, version and record size), followed by fixed-size
+ * big-endian records of {@value #RECORD_SIZE} bytes:
+ * <pre>
+ *  offset  size  field
+ *       0     8  sequence number, starting at 1
+ *       8     8  timestamp in milliseconds since the epoch
+ *      16     8  idempotency fingerprint of the transaction, as given to {@link #append(Transaction, long)}
+ *      24     8  {@link #pseudonymize(long) keyed hash} of the PAN, -1 if the PAN is not 16 digits
+ *      32     8  version of the validation rules
+ *      40     4  amount in subunits
+ *      44     2  numeric currency code, -1 if it is not 3 digits
+ *      46     1  numeric transaction type code, -1 if the type is unknown
+ *      47     1  decline reason code, 0 if the transaction was approved
+ *      48     4  CRC-32 of bytes 0 - 47
+ * </pre>
+ * When the journal is opened, records are checked up to the first one with a wrong checksum or sequence number;
+ * that record and everything after it (a write torn by a crash) is cut off, see {@link #getRecoveryResult()}.
+ * <p>
+ * The journal never holds a PAN in clear text: like the logs mask it, the journal stores a SipHash of it with a
+ * secret {@link Builder#panKey(byte[]) key}, which is all the velocity limits need to be rebuilt, and a
+ * {@link PaymentService} with a journal keys its idempotency fingerprints the same way. Without a configured key a
+ * random one is created once in {@code <file>.key}, readable by the owner only where the file system allows it.
+ * Records are kept only as long as they are needed: once the first record of the file is older than the
+ * {@link Builder#retention(Duration) retention}, the writer renames the file to
+ * {@code <file>.<first sequence number>} before it writes the next group into a new file, and deletes the
+ * renamed segments whose last record is older than the retention. A {@link PaymentService} raises the retention
+ * to the longest window of the state it rebuilds from the journal (the idempotency time-to-live and the velocity
+ * windows); without a retention the journal is never rolled over.
+ */
+public class TransactionJournal implements Closeable {
+    /** First four bytes of every journal file. */
+    public static final int MAGIC = 0x54584A4C;
+    public static final short VERSION = 3;
+    public static final int HEADER_SIZE = 8;
+    public static final int RECORD_SIZE = 52;
+    private static final int CHECKED_SIZE = RECORD_SIZE - 4;
+
+    private static final String KEY_SUFFIX = ".key";
+
+    private final Path file;
+    private final Path directory;
+    private final String segmentPrefix;
+    // Replaced by the writer thread when the journal is rolled over
+    private volatile FileChannel channel;
+    private final Clock clock;
+    private final SipHash panHash;
+    private final boolean durableAcks;
+    private final RecoveryResult recoveryResult;
+    private final long recoveredEnd;
+    private final Thread writer;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition written = lock.newCondition();
+    // Guarded by the lock
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer pending;
+    private ByteBuffer spare;
+    private long nextSequence;
+    private IOException failure;
+    private boolean closed;
+    private volatile long durableSequence;
+    private volatile long syncCount;
+    // Records older than this are deleted with their segment, -1 to keep all records
+    private volatile long retentionMillis;
+
+    private TransactionJournal(Builder builder) throws IOException {
+        this.file = builder.file;
+        this.directory = builder.file.toAbsolutePath().getParent();
+        this.segmentPrefix = builder.file.getFileName() + ".";
+        this.clock = builder.clock;
+        this.panHash = new SipHash(builder.panKey != null ? builder.panKey : loadOrCreateKey(file));
+        this.durableAcks = builder.durableAcks;
+        this.retentionMillis = builder.retention == null ? -1 : builder.retention.toMillis();
+        this.pending = ByteBuffer.allocate(builder.bufferRecords * RECORD_SIZE);
+        this.spare = ByteBuffer.allocate(builder.bufferRecords * RECORD_SIZE);
+        deleteExpiredSegments(clock.millis());
+        FileChannel channel = openActive();
+        this.channel = channel;
+        try {
+            long size = channel.size();
+            if (size == HEADER_SIZE) {
+                this.recoveredEnd = HEADER_SIZE;
+            } else {
+                checkHeader(channel, file);
+                this.recoveredEnd = scan(channel, size, 0, null);
+                if (recoveredEnd < size) {
+                    channel.truncate(recoveredEnd);
+                    channel.force(true);
+                }
+            }
+            long records = (recoveredEnd - HEADER_SIZE) / RECORD_SIZE;
+            this.recoveryResult = new RecoveryResult(records, Math.max(0, size - recoveredEnd));
+            this.nextSequence = records > 0 ? readLong(channel, HEADER_SIZE) + records : sequenceAfterSegments();
+            this.durableSequence = nextSequence - 1;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        this.writer = new Thread(this::runWriter, "transaction-journal");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Creates a builder for a journal in the given file, which is created if it does not exist.
+     *
+     * @param file The journal file.
+     * @return A builder with default settings.
+     */
+    public static Builder builder(Path file) {
+        return new Builder(file);
+    }
+
+    /**
+     * Appends the decision on a processed transaction. The record is written with the next group; it is durable
+     * once {@link #awaitDurable(long)} returns for its sequence number.
+     *
+     * @param transaction The processed transaction.
+     * @param fingerprint The idempotency fingerprint of the transaction, taken before it was validated.
+     * @return The sequence number of the record.
+     * @throws UncheckedIOException  If the journal could not be written.
+     * @throws IllegalStateException If the journal is closed.
+     */
+    public long append(Transaction transaction, long fingerprint) {
+        long now = clock.millis();
+        lock.lock();
+        try {
+            // The writer is a whole buffer behind, so wait for it instead of buffering without bound
+            while (pending.remaining() < RECORD_SIZE && failure == null && !closed) {
+                written.awaitUninterruptibly();
+            }
+            checkWritable();
+            if (pending.position() == 0) {
+                notEmpty.signal();
+            }
+            long sequence = nextSequence++;
+            encode(sequence, now, fingerprint, transaction);
+            return sequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Hashes a value derived from a PAN with the key of the journal, so it can be stored as a stable key without
+     * revealing the PAN. The result is never {@link PANParser#INVALID}.
+     *
+     * @param value The PAN as a number, or a fingerprint that includes it.
+     * @return The keyed hash of the value.
+     */
+    public long pseudonymize(long value) {
+        long hash = panHash.hash(value);
+        return hash == PANParser.INVALID ? 0 : hash;
+    }
+
+    /**
+     * Waits until the record with the given sequence number, and all records before it, have been forced to disk.
+     *
+     * @param sequence The sequence number returned by {@link #append(Transaction, long)}.
+     * @throws UncheckedIOException If the journal could not be written.
+     */
+    public void awaitDurable(long sequence) {
+        if (durableSequence >= sequence) {
+            return;
+        }
+        lock.lock();
+        try {
+            while (durableSequence < sequence && failure == null) {
+                written.awaitUninterruptibly();
+            }
+            if (durableSequence < sequence) {
+                throw new UncheckedIOException("Failed to write transaction journal " + file, failure);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads the records that were intact when the journal was opened, those of the rolled over segments first, in
+     * the order they were appended. Records appended since are not included; call it before appending, as the
+     * journal may be rolled over once records are appended.
+     *
+     * @param consumer Receives the records.
+     * @return The number of records read.
+     * @throws IOException If the journal could not be read.
+     */
+    public long replay(Consumer<JournalRecord> consumer) throws IOException {
+        long records = recoveryResult.getRecordCount();
+        for (long firstSequence : segments()) {
+            Path segment = segment(firstSequence);
+            try (FileChannel in = FileChannel.open(segment, StandardOpenOption.READ)) {
+                checkHeader(in, segment);
+                records += (scan(in, in.size(), firstSequence, consumer) - HEADER_SIZE) / RECORD_SIZE;
+            }
+        }
+        scan(channel, recoveredEnd, 0, consumer);
+        return records;
+    }
+
+    /**
+     * @return Whether {@link PaymentService} waits for the record of a transaction to be durable before it
+     * returns the result.
+     */
+    public boolean isDurableAcks() {
+        return durableAcks;
+    }
+
+    /**
+     * @return The sequence number of the last appended record, 0 if the journal is empty.
+     */
+    public long getLastSequence() {
+        lock.lock();
+        try {
+            return nextSequence - 1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The sequence number up to which all records have been forced to disk.
+     */
+    public long getDurableSequence() {
+        return durableSequence;
+    }
+
+    /**
+     * @return The number of times the journal has been forced to disk since it was opened.
+     */
+    public long getSyncCount() {
+        return syncCount;
+    }
+
+    /**
+     * @return The number of records found and the bytes discarded when the journal was opened.
+     */
+    public RecoveryResult getRecoveryResult() {
+        return recoveryResult;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * @return How long records are kept, or null if the journal is never rolled over.
+     */
+    public Duration getRetention() {
+        long retention = retentionMillis;
+        return retention < 0 ? null : Duration.ofMillis(retention);
+    }
+
+    /**
+     * Raises the retention to at least the given time, e.g. to the longest window of the state rebuilt from the
+     * journal.
+     */
+    void retainAtLeast(Duration retention) {
+        lock.lock();
+        try {
+            retentionMillis = Math.max(retentionMillis, retention.toMillis());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes and forces all appended records and closes the file. Appending afterwards fails.
+     *
+     * @throws IOException If the file could not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notEmpty.signal();
+            written.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    private void runWriter() {
+        long position = recoveredEnd;
+        try {
+            // Sequence number and time of the first record of the file, which decide when it is rolled over
+            long firstSequence = position > HEADER_SIZE ? readLong(channel, HEADER_SIZE) : 0;
+            long firstMillis = position > HEADER_SIZE ? readLong(channel, HEADER_SIZE + 8) : 0;
+            while (true) {
+                ByteBuffer group;
+                long lastSequence;
+                lock.lock();
+                try {
+                    while (pending.position() == 0 && !closed) {
+                        notEmpty.awaitUninterruptibly();
+                    }
+                    if (pending.position() == 0) {
+                        return;
+                    }
+                    group = pending;
+                    pending = spare;
+                    spare = group;
+                    lastSequence = nextSequence - 1;
+                    written.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                group.flip();
+                if (position > HEADER_SIZE && isExpired(firstMillis, clock.millis())) {
+                    rollOver(firstSequence);
+                    position = HEADER_SIZE;
+                }
+                if (position == HEADER_SIZE) {
+                    firstSequence = group.getLong(0);
+                    firstMillis = group.getLong(8);
+                }
+                position += writeFully(channel, group, position);
+                channel.force(false);
+                syncCount++;
+                // The group is the spare buffer now, which is only swapped in again by this thread
+                group.clear();
+                lock.lock();
+                try {
+                    durableSequence = lastSequence;
+                    written.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        } catch (IOException e) {
+            LoggingService.logError("Failed to write transaction journal " + file + ": " + e.getMessage());
+            lock.lock();
+            try {
+                failure = e;
+                written.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void checkWritable() {
+        if (failure != null) {
+            throw new UncheckedIOException("Failed to write transaction journal " + file, failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("Transaction journal is closed: " + file);
+        }
+    }
+
+    private void encode(long sequence, long epochMillis, long fingerprint, Transaction transaction) {
+        TransactionType type = TransactionType.find(transaction.getType());
+        DeclineReason reason = transaction.getDeclineReason();
+        int start = pending.position();
+        pending.putLong(sequence);
+        pending.putLong(epochMillis);
+        pending.putLong(fingerprint);
+        long pan = PANParser.parse(transaction.getPan());
+        pending.putLong(pan == PANParser.INVALID ? PANParser.INVALID : pseudonymize(pan));
+        pending.putLong(transaction.getRulesVersion());
+        pending.putInt(transaction.getAmount());
+        pending.putShort((short) BinaryLogFormat.parseCode(transaction.getCurrency(), 3));
+        pending.put(type == null ? -1 : (byte) type.getNumericValue());
+        pending.put(reason == null ? 0 : (byte) reason.getCode());
+        crc.reset();
+        crc.update(pending.array(), pending.arrayOffset() + start, CHECKED_SIZE);
+        pending.putInt((int) crc.getValue());
+    }
+
+    private boolean isExpired(long epochMillis, long now) {
+        long retention = retentionMillis;
+        return retention >= 0 && now - epochMillis >= retention;
+    }
+
+    /**
+     * Renames the file, whose records have all been forced, to a segment and starts a new file.
+     */
+    private void rollOver(long firstSequence) throws IOException {
+        channel.close();
+        Files.move(file, segment(firstSequence), StandardCopyOption.ATOMIC_MOVE);
+        channel = openActive();
+        deleteExpiredSegments(clock.millis());
+    }
+
+    /**
+     * Opens the journal file, writing the header if the file is new or its creation was interrupted. A new file
+     * is made durable together with its directory entry, and with the rename of the segment it replaces, before
+     * any record in it can be acknowledged.
+     */
+    private FileChannel openActive() throws IOException {
+        FileChannel active = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (active.size() < HEADER_SIZE) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putShort(VERSION).putShort((short) RECORD_SIZE);
+                header.flip();
+                active.truncate(0);
+                writeFully(active, header, 0);
+                active.force(true);
+                forceDirectory();
+            }
+            return active;
+        } catch (IOException | RuntimeException e) {
+            active.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Forces the entries of the journal directory, i.e. created and renamed files, to the storage device.
+     */
+    private void forceDirectory() throws IOException {
+        if (File.separatorChar == '\\') {
+            // Windows cannot open a directory as a channel; its file systems persist directory entries themselves
+            return;
+        }
+        try (FileChannel entries = FileChannel.open(directory, StandardOpenOption.READ)) {
+            entries.force(true);
+        }
+    }
+
+    /**
+     * Deletes the rolled over segments whose last record is older than the retention, oldest first.
+     */
+    private void deleteExpiredSegments(long now) throws IOException {
+        if (retentionMillis < 0) {
+            return;
+        }
+        for (long firstSequence : segments()) {
+            Path segment = segment(firstSequence);
+            long lastMillis;
+            try (FileChannel in = FileChannel.open(segment, StandardOpenOption.READ)) {
+                long records = (in.size() - HEADER_SIZE) / RECORD_SIZE;
+                lastMillis = records > 0 ? readLong(in, HEADER_SIZE + (records - 1) * RECORD_SIZE + 8) : now;
+            }
+            if (!isExpired(lastMillis, now)) {
+                return;
+            }
+            Files.deleteIfExists(segment);
+        }
+    }
+
+    /**
+     * @return The first sequence numbers of the rolled over segments, in ascending order.
+     */
+    private List<Long> segments() throws IOException {
+        List<Long> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, segmentPrefix + "*")) {
+            for (Path segment : files) {
+                String suffix = segment.getFileName().toString().substring(segmentPrefix.length());
+                if (!suffix.isEmpty() && suffix.length() <= 18 && suffix.chars().allMatch(Character::isDigit)) {
+                    segments.add(Long.parseLong(suffix));
+                }
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    private Path segment(long firstSequence) {
+        return directory.resolve(segmentPrefix + firstSequence);
+    }
+
+    /**
+     * @return The sequence number following the last record of the newest segment, 1 if there is none.
+     */
+    private long sequenceAfterSegments() throws IOException {
+        List<Long> segments = segments();
+        if (segments.isEmpty()) {
+            return 1;
+        }
+        long firstSequence = segments.get(segments.size() - 1);
+        return firstSequence + (Files.size(segment(firstSequence)) - HEADER_SIZE) / RECORD_SIZE;
+    }
+
+    /**
+     * Reads the PAN key kept next to the journal, creating a random one if there is none yet.
+     */
+    private static byte[] loadOrCreateKey(Path file) throws IOException {
+        Path keyFile = file.resolveSibling(file.getFileName() + KEY_SUFFIX);
+        if (!Files.exists(keyFile)) {
+            byte[] key = new byte[SipHash.KEY_LENGTH];
+            new SecureRandom().nextBytes(key);
+            Path temp = Files.createTempFile(keyFile.toAbsolutePath().getParent(), keyFile.getFileName().toString(),
+                    ".tmp");
+            try {
+                try {
+                    Files.setPosixFilePermissions(temp, PosixFilePermissions.fromString("rw-------"));
+                } catch (UnsupportedOperationException e) {
+                    // Not a POSIX file system; the directory has to be protected instead
+                }
+                Files.write(temp, key);
+                // Another journal on the same file may have created the key in the meantime; keep that one
+                Files.move(temp, keyFile);
+            } catch (FileAlreadyExistsException e) {
+                // Read the key that won below
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+        byte[] key = Files.readAllBytes(keyFile);
+        if (key.length != SipHash.KEY_LENGTH) {
+            throw new IOException("Not a transaction journal key: " + keyFile);
+        }
+        return key;
+    }
+
+    private static void checkHeader(FileChannel channel, Path path) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(channel, header, 0);
+        header.flip();
+        if (header.getInt() != MAGIC || header.getShort() != VERSION || header.getShort() != RECORD_SIZE) {
+            throw new IOException("Not a transaction journal: " + path);
+        }
+    }
+
+    /**
+     * Reads records from the start of a journal file up to the first torn or corrupt record.
+     *
+     * @param channel       The journal file.
+     * @param end           The position to stop at.
+     * @param firstSequence The sequence number of the first record, or 0 to take it from the first record.
+     * @param consumer      Receives the decoded records, or null to only check them.
+     * @return The position after the last intact record.
+     */
+    private static long scan(FileChannel channel, long end, long firstSequence, Consumer<JournalRecord> consumer)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1024 * RECORD_SIZE);
+        CRC32 checksum = new CRC32();
+        long position = HEADER_SIZE;
+        long expectedSequence = firstSequence;
+        while (end - position >= RECORD_SIZE) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), (end - position) / RECORD_SIZE * RECORD_SIZE));
+            readFully(channel, buffer, position);
+            buffer.flip();
+            for (int offset = 0; offset + RECORD_SIZE <= buffer.limit(); offset += RECORD_SIZE) {
+                checksum.reset();
+                checksum.update(buffer.array(), offset, CHECKED_SIZE);
+                long sequence = buffer.getLong(offset);
+                if (buffer.getInt(offset + CHECKED_SIZE) != (int) checksum.getValue()
+                        || (expectedSequence > 0 && sequence != expectedSequence)) {
+                    return position;
+                }
+                if (consumer != null) {
+                    consumer.accept(decode(buffer, offset));
+                }
+                position += RECORD_SIZE;
+                expectedSequence = sequence + 1;
+            }
+        }
+        return position;
+    }
+
+    private static JournalRecord decode(ByteBuffer in, int offset) {
+        return new JournalRecord(
+                in.getLong(offset),
+                in.getLong(offset + 8),
+                in.getLong(offset + 16),
+                in.getLong(offset + 24),
+                in.getLong(offset + 32),
+                in.getInt(offset + 40),
+                in.getShort(offset + 44),
+                TransactionType.find(in.get(offset + 46)),
+                DeclineReason.find(in.get(offset + 47)));
+    }
+
+    private static int writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+        return written;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, offset);
+            if (read < 0) {
+                throw new IOException("Unexpected end of transaction journal");
+            }
+            offset += read;
+        }
+    }
+
+    private static long readLong(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+        readFully(channel, buffer, position);
+        return buffer.getLong(0);
+    }
+
+    /**
+     * Builder for {@link TransactionJournal} instances.
+     */
+    public static class Builder {
+        private final Path file;
+        private int bufferRecords = 4096;
+        private boolean durableAcks;
+        private Duration retention;
+        private byte[] panKey;
+        private Clock clock = Clock.systemUTC();
+
+        private Builder(Path file) {
+            this.file = file;
+        }
+
+        /**
+         * @param bufferRecords Number of records that can be appended while the previous group is being written
+         *                      (default 4096); appending waits when the buffer is full.
+         * @return This builder.
+         */
+        public Builder bufferRecords(int bufferRecords) {
+            if (bufferRecords <= 0) {
+                throw new IllegalArgumentException("Buffer size must be positive: " + bufferRecords);
+            }
+            this.bufferRecords = bufferRecords;
+            return this;
+        }
+
+        /**
+         * @param durableAcks Whether {@link PaymentService} returns the result of a transaction only once its record
+         *                    is durable (default false: records are forced with the next group, and the decisions
+         *                    of the last group can be lost in a crash).
+         * @return This builder.
+         */
+        public Builder durableAcks(boolean durableAcks) {
+            this.durableAcks = durableAcks;
+            return this;
+        }
+
+        /**
+         * @param retention How long records are kept at least (default none: the journal is only rolled over once
+         *                  a {@link PaymentService} sets the retention to the windows of the state it rebuilds).
+         * @return This builder.
+         */
+        public Builder retention(Duration retention) {
+            if (retention.isNegative() || retention.isZero()) {
+                throw new IllegalArgumentException("Retention must be positive: " + retention);
+            }
+            this.retention = retention;
+            return this;
+        }
+
+        /**
+         * @param panKey Secret {@value SipHash#KEY_LENGTH} byte key the PANs are hashed with, e.g. from a secret
+         *               store (default a random key created once in {@code <file>.key}). Changing it makes the
+         *               PANs of earlier records unrecognizable, so their approvals no longer count after a restart.
+         * @return This builder.
+         */
+        public Builder panKey(byte[] panKey) {
+            if (panKey.length != SipHash.KEY_LENGTH) {
+                throw new IllegalArgumentException("PAN key must be " + SipHash.KEY_LENGTH + " bytes: "
+                        + panKey.length);
+            }
+            this.panKey = panKey.clone();
+            return this;
+        }
+
+        /**
+         * @param clock Clock the records are time-stamped with (default the system clock in UTC).
+         * @return This builder.
+         */
+        public Builder clock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        /**
+         * Opens the journal, cuts off a torn tail and starts the writer thread.
+         *
+         * @return The open journal.
+         * @throws IOException If the file could not be opened or is not a transaction journal.
+         */
+        public TransactionJournal build() throws IOException {
+            return new TransactionJournal(this);
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.transaction.processing.service;
+
+import com.transaction.processing.model.CurrencyCode;
+import com.transaction.processing.model.Transaction;
+import com.transaction.processing.model.TransactionType;
+
+import java.text.DecimalFormatSymbols;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Locale;
+
+/**
+ * Formats log entries straight into a reusable character buffer.
+ * The output is identical to the original {@code String.format}/Jackson based formatting, but it is produced
+ * without building intermediate strings, JSON trees or formatters:
+ * <ul>
+ *   <li>Date and time fields are cached per minute and only seconds and milliseconds are computed per entry.</li>
+ *   <li>Amounts are rendered with integer arithmetic instead of dividing a double.</li>
+ *   <li>The PAN is masked while it is copied into the buffer.</li>
+ *   <li>The JSON transaction details are written by hand with the same escaping rules as Jackson.</li>
+ * </ul>
+ * A formatter is not thread-safe; {@link LoggingService} borrows one from a pool for each entry or batch.
+ */
+public class TransactionLogFormatter {
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+    private static final String APPROVED_CODE = "01";
+
+    private final ZoneId zone;
+    private final char decimalSeparator;
+    private final StringBuilder buffer = new StringBuilder(512);
+    // "dd.MM.yyyy HH:mm" of the cached minute; the last five characters are the "HH:mm" log prefix
+    private final char[] minuteChars = new char[16];
+    private long minuteStartMillis = Long.MIN_VALUE;
+    private long minuteEndMillis = Long.MIN_VALUE;
+
+    /**
+     * Constructor for a formatter using the system default time zone and locale.
+     */
+    public TransactionLogFormatter() {
+        this(ZoneId.systemDefault(), Locale.getDefault(Locale.Category.FORMAT));
+    }
+
+    /**
+     * Constructor for initializing a TransactionLogFormatter object with all attributes.
+     *
+     * @param zone   The time zone used for the timestamps.
+     * @param locale The locale whose decimal separator is used for amounts (as {@code String.format} does).
+     */
+    public TransactionLogFormatter(ZoneId zone, Locale locale) {
+        this.zone = zone;
+        this.decimalSeparator = DecimalFormatSymbols.getInstance(locale).getDecimalSeparator();
+    }
+
+    /**
+     * Formats a complete log entry: {@code HH:mm:ss.SSS LEVEL: message}.
+     * The returned buffer is reused by the next call on this formatter.
+     *
+     * @param level       The log level ("INFO", "ERROR").
+     * @param message     The message to log.
+     * @param epochMillis The time of the entry.
+     * @return The formatted entry without a line separator.
+     */
+    public CharSequence formatEntry(String level, String message, long epochMillis) {
+        buffer.setLength(0);
+        appendEntryPrefix(level, epochMillis);
+        buffer.append(message);
+        return buffer;
+    }
+
+    /**
+     * Formats a complete INFO log entry describing a processed transaction.
+     * The returned buffer is reused by the next call on this formatter.
+     *
+     * @param transaction The transaction to format.
+     * @param epochMillis The time of the entry.
+     * @return The formatted entry without a line separator.
+     * @throws IllegalArgumentException If the transaction has an unknown currency or type code.
+     */
+    public CharSequence formatTransactionEntry(Transaction transaction, long epochMillis) {
+        buffer.setLength(0);
+        appendEntryPrefix("INFO", epochMillis);
+        appendTransactionMessage(buffer, transaction, epochMillis);
+        return buffer;
+    }
+
+    /**
+     * Appends the transaction message (the part after {@code "INFO: "}) to the given buffer.
+     *
+     * @param out         The buffer to append to.
+     * @param transaction The transaction to format.
+     * @param epochMillis The time of the entry.
+     * @throws IllegalArgumentException If the transaction has an unknown currency or type code.
+     */
+    public void appendTransactionMessage(StringBuilder out, Transaction transaction, long epochMillis) {
+        // Resolve the codes first so an invalid transaction fails before anything is appended
+        CurrencyCode currency = CurrencyCode.find(transaction.getCurrency());
+        TransactionType type = TransactionType.find(transaction.getType());
+        if (currency == null || type == null) {
+            throw new IllegalArgumentException(findFormatError(transaction));
+        }
+        String pan = transaction.getPan();
+        String status = transaction.getStatus();
+        boolean approved = status.equals(APPROVED_CODE);
+        updateMinute(epochMillis);
+
+        out.append("Processed transaction with card number ");
+        appendMaskedPan(out, pan, false);
+        out.append(" on ").append(minuteChars, 0, minuteChars.length);
+        out.append(", amount ");
+        appendAmount(out, transaction.getAmount(), currency.getMinorUnits());
+        out.append(' ').append(currency.getAlphaCode());
+        out.append(", status ").append(approved ? "Approved" : "Declined");
+        out.append(". Return transaction details: ");
+
+        out.append("{\"data\":{\"transaction\":{\"pan\":");
+        if (pan == null) {
+            out.append("null");
+        } else {
+            out.append('"');
+            appendMaskedPan(out, pan, true);
+            out.append('"');
+        }
+        out.append(",\"type\":");
+        appendJsonString(out, type.getCode());
+        out.append(",\"amount\":").append(transaction.getAmount());
+        out.append(",\"currency\":");
+        appendJsonString(out, currency.getNumericCode());
+        out.append(",\"status\":");
+        appendJsonString(out, status);
+        out.append("}}}");
+    }
+
+    /**
+     * Checks, without throwing, whether a transaction can be formatted.
+     *
+     * @param transaction The transaction to check.
+     * @return The reason the transaction cannot be formatted, or null if it can.
+     */
+    public static String findFormatError(Transaction transaction) {
+        if (CurrencyCode.find(transaction.getCurrency()) == null) {
+            return "Invalid currency code: " + transaction.getCurrency();
+        }
+        if (TransactionType.find(transaction.getType()) == null) {
+            return "Invalid transaction type code: " + transaction.getType();
+        }
+        return null;
+    }
+
+    private void appendEntryPrefix(String level, long epochMillis) {
+        updateMinute(epochMillis);
+        int millisOfMinute = (int) (epochMillis - minuteStartMillis);
+        buffer.append(minuteChars, 11, 5).append(':');
+        appendTwoDigits(buffer, millisOfMinute / 1000);
+        buffer.append('.');
+        int millis = millisOfMinute % 1000;
+        buffer.append((char) ('0' + millis / 100));
+        appendTwoDigits(buffer, millis % 100);
+        buffer.append(' ').append(level).append(": ");
+    }
+
+    /**
+     * Refreshes the cached date and time characters when the timestamp falls outside the cached minute.
+     */
+    private void updateMinute(long epochMillis) {
+        if (epochMillis >= minuteStartMillis && epochMillis < minuteEndMillis) {
+            return;
+        }
+        long minuteStart = Math.floorDiv(epochMillis, 60_000L) * 60_000L;
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(minuteStart), zone);
+        writeTwoDigits(minuteChars, 0, time.getDayOfMonth());
+        minuteChars[2] = '.';
+        writeTwoDigits(minuteChars, 3, time.getMonthValue());
+        minuteChars[5] = '.';
+        int year = time.getYear();
+        writeTwoDigits(minuteChars, 6, year / 100);
+        writeTwoDigits(minuteChars, 8, year % 100);
+        minuteChars[10] = ' ';
+        writeTwoDigits(minuteChars, 11, time.getHour());
+        minuteChars[13] = ':';
+        writeTwoDigits(minuteChars, 14, time.getMinute());
+        minuteStartMillis = minuteStart;
+        minuteEndMillis = minuteStart + 60_000L;
+    }
+
+    /**
+     * Appends an amount in minor units with the number of decimal places of its currency, e.g. "10.00" for 1000
+     * subunits of EUR and "1000" for 1000 JPY.
+     */
+    private void appendAmount(StringBuilder out, int amount, int minorUnits) {
+        long value = amount;
+        if (value < 0) {
+            out.append('-');
+            value = -value;
+        }
+        if (minorUnits == 2) {
+            out.append(value / 100).append(decimalSeparator);
+            appendTwoDigits(out, (int) (value % 100));
+            return;
+        }
+        long divisor = 1;
+        for (int i = 0; i < minorUnits; i++) {
+            divisor *= 10;
+        }
+        out.append(value / divisor);
+        if (minorUnits > 0) {
+            out.append(decimalSeparator);
+            long fraction = value % divisor;
+            for (long digit = divisor / 10; digit > 0; digit /= 10) {
+                out.append((char) ('0' + fraction / digit % 10));
+            }
+        }
+    }
+
+    /**
+     * Appends the PAN keeping the first 6 and last 4 digits of a 16 character PAN and masking the rest.
+     * PANs of any other length are appended unchanged, a null PAN is appended as "null".
+     */
+    private static void appendMaskedPan(StringBuilder out, String pan, boolean jsonEscape) {
+        if (pan == null) {
+            out.append("null");
+            return;
+        }
+        if (pan.length() != 16) {
+            appendChars(out, pan, 0, pan.length(), jsonEscape);
+            return;
+        }
+        appendChars(out, pan, 0, 6, jsonEscape);
+        out.append("******");
+        appendChars(out, pan, 12, 16, jsonEscape);
+    }
+
+    private static void appendChars(StringBuilder out, String value, int from, int to, boolean jsonEscape) {
+        if (!jsonEscape) {
+            out.append(value, from, to);
+            return;
+        }
+        for (int i = from; i < to; i++) {
+            appendJsonChar(out, value.charAt(i));
+        }
+    }
+
+    private static void appendJsonString(StringBuilder out, String value) {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+        out.append('"');
+        appendChars(out, value, 0, value.length(), true);
+        out.append('"');
+    }
+
+    /**
+     * Appends a character escaped the way Jackson's default JSON generator escapes it.
+     */
+    private static void appendJsonChar(StringBuilder out, char c) {
+        if (c >= 0x20 && c != '"' && c != '\\') {
+            out.append(c);
+            return;
+        }
+        out.append('\\');
+        switch (c) {
+            case '"':
+            case '\\':
+                out.append(c);
+                break;
+            case '\b':
+                out.append('b');
+                break;
+            case '\t':
+                out.append('t');
+                break;
+            case '\n':
+                out.append('n');
+                break;
+            case '\f':
+                out.append('f');
+                break;
+            case '\r':
+                out.append('r');
+                break;
+            default:
+                out.append("u00").append(HEX_DIGITS[c >> 4]).append(HEX_DIGITS[c & 0xF]);
+        }
+    }
+
+    private static void appendTwoDigits(StringBuilder out, int value) {
+        out.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    private static void writeTwoDigits(char[] target, int offset, int value) {
+        target[offset] = (char) ('0' + value / 10);
+        target[offset + 1] = (char) ('0' + value % 10);
+    }
+}
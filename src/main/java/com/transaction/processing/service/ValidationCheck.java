@@ -0,0 +1,93 @@
+package com.transaction.processing.service;
+
+import com.transaction.processing.model.DeclineReason;
+import com.transaction.processing.model.Transaction;
+import com.transaction.processing.model.TransactionStatus;
+import com.transaction.processing.model.TransactionType;
+import com.transaction.processing.util.PANParser;
+
+/**
+ * The checks {@link PaymentService} runs on a transaction. The order in which they run is part of the
+ * {@link ValidationRules}; the first failing check determines the {@link DeclineReason}, so putting the most
+ * selective check first declines bad traffic with the least work.
+ * <p>
+ * The transaction type is resolved once before the checks run. The PAN and amount checks depend on it and pass
+ * transactions with an unknown type, which are declined by {@link #TYPE} wherever it runs.
+ * None of the checks throw for invalid input.
+ */
+public enum ValidationCheck {
+    STATUS {
+        @Override
+        DeclineReason check(Transaction transaction, TransactionType type, ValidationRules rules) {
+            return TransactionStatus.find(transaction.getStatus()) == TransactionStatus.ACTIVE
+                    ? null : DeclineReason.INACTIVE_STATUS;
+        }
+    },
+    TYPE {
+        @Override
+        DeclineReason check(Transaction transaction, TransactionType type, ValidationRules rules) {
+            return type != null ? null : DeclineReason.INVALID_TYPE;
+        }
+    },
+    CURRENCY {
+        @Override
+        DeclineReason check(Transaction transaction, TransactionType type, ValidationRules rules) {
+            return rules.isCurrencyAllowed(transaction.getCurrency()) ? null : DeclineReason.INVALID_CURRENCY;
+        }
+    },
+    PAN {
+        @Override
+        DeclineReason check(Transaction transaction, TransactionType type, ValidationRules rules) {
+            if (type == null) {
+                return null;
+            }
+            long panValue = rules.parsePan(transaction.getPan());
+            return panValue != PANParser.INVALID && rules.getPanRanges().contains(type, panValue)
+                    ? null : DeclineReason.INVALID_PAN;
+        }
+    },
+    AMOUNT {
+        @Override
+        DeclineReason check(Transaction transaction, TransactionType type, ValidationRules rules) {
+            return type == null || rules.isWithinLimit(type, transaction.getAmount(), transaction.getCurrency())
+                    ? null : DeclineReason.AMOUNT_EXCEEDS_LIMIT;
+        }
+    };
+
+    /**
+     * Runs the check.
+     *
+     * @param transaction The transaction to check.
+     * @param type        The resolved transaction type, or null if the type code is unknown.
+     * @param rules       The rules snapshot the transaction is validated against.
+     * @return The decline reason, or null if the transaction passes the check.
+     */
+    abstract DeclineReason check(Transaction transaction, TransactionType type, ValidationRules rules);
+
+    /**
+     * @param transaction A transaction declined for the given reason.
+     * @param reason      The decline reason.
+     * @return The log message for the decline, e.g. "Invalid currency code: 999".
+     */
+    static String describe(Transaction transaction, DeclineReason reason) {
+        Object value;
+        switch (reason) {
+            case INACTIVE_STATUS:
+                value = transaction.getStatus();
+                break;
+            case INVALID_TYPE:
+                value = transaction.getType();
+                break;
+            case INVALID_CURRENCY:
+                value = transaction.getCurrency();
+                break;
+            case INVALID_PAN:
+                value = transaction.getPan();
+                break;
+            default:
+                value = transaction.getAmount();
+                break;
+        }
+        return reason.getMessage() + ": " + value;
+    }
+}
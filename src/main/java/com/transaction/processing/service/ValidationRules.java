@@ -0,0 +1,433 @@
+package com.transaction.processing.service;
+
+import com.transaction.processing.model.CurrencyCode;
+import com.transaction.processing.model.TransactionType;
+import com.transaction.processing.util.FxRateTable;
+import com.transaction.processing.util.PANParser;
+import com.transaction.processing.util.PANRangeTable;
+import com.transaction.processing.util.PANValidator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable snapshot of the rules {@link PaymentService} validates transactions against:
+ * the maximum amount per transaction type, the allowed currencies, the exchange rates the maximum amounts are
+ * enforced with, the allowed PAN ranges, whether PANs need a valid Luhn check digit and the order in which the
+ * {@link ValidationCheck}s run.
+ * A snapshot is never modified after it has been built, so a transaction validated against it always
+ * sees one consistent set of rules, even while a new snapshot is being published.
+ * <p>
+ * Rules files contain one rule per line; empty lines and lines starting with {@code #} are ignored:
+ * <pre>
+ * limit APP 5000                                   # maximum amount in subunits
+ * currency 978                                     # allowed numeric currency code
+ * base 978                                         # currency the limits are in, see below
+ * rate 826 1.1712                                  # value of one unit of a currency in the base currency
+ * range APP 1000000000000000 1000005999999999      # allowed inclusive PAN range
+ * luhn on                                          # require a valid check digit (off by default)
+ * order PAN STATUS TYPE CURRENCY AMOUNT             # check order, must list every check once
+ * </pre>
+ * Without a base currency, limits are compared with the amount in whatever currency it is given. With a base
+ * currency, amounts are converted with the {@link FxRateTable} first, and every allowed currency needs a rate.
+ */
+public class ValidationRules {
+    private static final int CURRENCY_CODES = 1000;
+
+    private final long version;
+    private final int[] maxAmounts;
+    private final boolean[] allowedCurrencies;
+    private final FxRateTable fxRates;
+    private final PANRangeTable panRanges;
+    private final boolean luhnCheck;
+    private final ValidationCheck[] checkOrder;
+
+    private ValidationRules(long version, int[] maxAmounts, boolean[] allowedCurrencies, FxRateTable fxRates,
+                            PANRangeTable panRanges, boolean luhnCheck, ValidationCheck[] checkOrder) {
+        this.version = version;
+        this.maxAmounts = maxAmounts;
+        this.allowedCurrencies = allowedCurrencies;
+        this.fxRates = fxRates;
+        this.panRanges = panRanges;
+        this.luhnCheck = luhnCheck;
+        this.checkOrder = checkOrder;
+    }
+
+    /**
+     * Builds the rules compiled into the application: the limits of {@link TransactionType}, the currencies EUR
+     * and USD without conversion, and the PAN ranges of {@link PANValidator} without the Luhn check.
+     *
+     * @return The default rules, with version 0.
+     */
+    public static ValidationRules defaults() {
+        Builder builder = builder();
+        for (TransactionType type : TransactionType.values()) {
+            builder.maxAmount(type, type.getMaxAmount());
+        }
+        builder.allowCurrency(CurrencyCode.EUR.getNumericCode());
+        builder.allowCurrency(CurrencyCode.USD.getNumericCode());
+        return builder.panRanges(PANValidator.getRangeTable()).build();
+    }
+
+    /**
+     * Loads rules from a file, see the class documentation for the format.
+     *
+     * @param file The rules file.
+     * @return The loaded rules, with version 0.
+     * @throws IOException If the file cannot be read.
+     * @throws IllegalArgumentException If the file contains an invalid line.
+     */
+    public static ValidationRules load(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return load(reader);
+        }
+    }
+
+    /**
+     * Loads rules from a reader, see the class documentation for the format.
+     * Types without a {@code limit} line keep the default limit of {@link TransactionType}, and a file without
+     * {@code range} lines keeps the default PAN ranges of {@link PANValidator}.
+     *
+     * @param reader The source of the rule lines.
+     * @return The loaded rules, with version 0.
+     * @throws IOException If the reader fails.
+     * @throws IllegalArgumentException If a line is not a valid rule.
+     */
+    public static ValidationRules load(Reader reader) throws IOException {
+        Builder builder = builder();
+        for (TransactionType type : TransactionType.values()) {
+            builder.maxAmount(type, type.getMaxAmount());
+        }
+        PANRangeTable.Builder ranges = PANRangeTable.builder();
+        boolean hasRanges = false;
+        FxRateTable.Builder rates = null;
+        BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        String line;
+        int lineNumber = 0;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            int comment = line.indexOf('#');
+            String trimmed = (comment >= 0 ? line.substring(0, comment) : line).trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            String[] fields = trimmed.split("\\s+");
+            try {
+                if (fields[0].equals("limit") && fields.length == 3) {
+                    builder.maxAmount(TransactionType.valueOf(fields[1]), Integer.parseInt(fields[2]));
+                } else if (fields[0].equals("currency") && fields.length == 2) {
+                    builder.allowCurrency(fields[1]);
+                } else if (fields[0].equals("base") && fields.length == 2 && rates == null) {
+                    rates = FxRateTable.builder(CurrencyCode.fromNumericCode(fields[1]));
+                } else if (fields[0].equals("rate") && fields.length == 3) {
+                    if (rates == null) {
+                        throw new IllegalArgumentException("Rate before base currency");
+                    }
+                    rates.rate(CurrencyCode.fromNumericCode(fields[1]), fields[2]);
+                } else if (fields[0].equals("range") && fields.length == 4) {
+                    ranges.add(TransactionType.valueOf(fields[1]), PANRangeTable.parseBound(fields[2]),
+                            PANRangeTable.parseBound(fields[3]));
+                    hasRanges = true;
+                } else if (fields[0].equals("luhn") && fields.length == 2) {
+                    builder.luhnCheck(parseSwitch(fields[1]));
+                } else if (fields[0].equals("order") && fields.length > 1) {
+                    ValidationCheck[] order = new ValidationCheck[fields.length - 1];
+                    for (int i = 1; i < fields.length; i++) {
+                        order[i - 1] = ValidationCheck.valueOf(fields[i]);
+                    }
+                    builder.checkOrder(order);
+                } else {
+                    throw new IllegalArgumentException("Unknown rule");
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid rule on line " + lineNumber + ": " + line, e);
+            }
+        }
+        if (rates != null) {
+            builder.fxRates(rates.build());
+        }
+        return builder.panRanges(hasRanges ? ranges.build() : PANValidator.getRangeTable()).build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return The version assigned when the snapshot was published, see {@link RulesRepository}.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @param transactionType The transaction type.
+     * @return Maximum amount allowed for the type (1.00 EUR = 100 subunits).
+     */
+    public int getMaxAmount(TransactionType transactionType) {
+        return maxAmounts[transactionType.ordinal()];
+    }
+
+    /**
+     * Checks an amount against the maximum of its type, converted into the base currency if there is one.
+     * An amount in a currency without a rate passes, as it is declined by the currency check.
+     *
+     * @param transactionType The transaction type.
+     * @param amount          The amount in minor units of its currency.
+     * @param numericCode     The currency code in numeric format (978 = EUR, 840 = USD).
+     * @return True if the amount does not exceed the maximum of the type.
+     */
+    public boolean isWithinLimit(TransactionType transactionType, int amount, String numericCode) {
+        if (fxRates == null) {
+            return amount <= maxAmounts[transactionType.ordinal()];
+        }
+        long baseAmount = fxRates.toBase(amount, parseCurrencyCode(numericCode));
+        return baseAmount == FxRateTable.NO_RATE || baseAmount <= maxAmounts[transactionType.ordinal()];
+    }
+
+    /**
+     * @param amount      The amount in minor units of its currency.
+     * @param numericCode The currency code in numeric format (978 = EUR, 840 = USD).
+     * @return The amount in minor units of the base currency, or the amount as given if there is no base currency
+     * or no rate for the currency.
+     */
+    public long toBaseAmount(int amount, String numericCode) {
+        return toBaseAmount(amount, parseCurrencyCode(numericCode));
+    }
+
+    /**
+     * @param amount      The amount in minor units of its currency.
+     * @param numericCode The currency code as a number (978 = EUR, 840 = USD).
+     * @return The amount in minor units of the base currency, or the amount as given if there is no base currency
+     * or no rate for the currency.
+     */
+    public long toBaseAmount(int amount, int numericCode) {
+        if (fxRates == null) {
+            return amount;
+        }
+        long baseAmount = fxRates.toBase(amount, numericCode);
+        return baseAmount == FxRateTable.NO_RATE ? amount : baseAmount;
+    }
+
+    /**
+     * @return The exchange rates amounts are converted with before they are compared with the limits, or null if
+     * they are compared in their own currency.
+     */
+    public FxRateTable getFxRates() {
+        return fxRates;
+    }
+
+    /**
+     * Checks if the numeric currency code is allowed, without parsing it into an object.
+     *
+     * @param numericCode The currency code in numeric format (978 = EUR, 840 = USD).
+     * @return True if the code has three digits and is allowed, false otherwise.
+     */
+    public boolean isCurrencyAllowed(String numericCode) {
+        return isCurrencyAllowed(parseCurrencyCode(numericCode));
+    }
+
+    /**
+     * @param numericCode The currency code as a number (978 = EUR, 840 = USD).
+     * @return True if the code is allowed, false otherwise.
+     */
+    public boolean isCurrencyAllowed(int numericCode) {
+        return numericCode >= 0 && numericCode < CURRENCY_CODES && allowedCurrencies[numericCode];
+    }
+
+    public PANRangeTable getPanRanges() {
+        return panRanges;
+    }
+
+    /**
+     * @return True if PANs need a valid Luhn check digit.
+     */
+    public boolean isLuhnCheckEnabled() {
+        return luhnCheck;
+    }
+
+    /**
+     * Parses a PAN with the configured checks: 16 digits, plus the Luhn check digit if enabled.
+     *
+     * @param pan The Primary Account Number (PAN) to parse.
+     * @return The numeric value of the PAN, or {@link PANParser#INVALID} if it does not pass the checks.
+     */
+    public long parsePan(CharSequence pan) {
+        return luhnCheck ? PANParser.parseWithLuhn(pan) : PANParser.parse(pan);
+    }
+
+    /**
+     * @return The checks in the order they run.
+     */
+    public List<ValidationCheck> getCheckOrder() {
+        return Collections.unmodifiableList(Arrays.asList(checkOrder));
+    }
+
+    /**
+     * @return The checks in the order they run; the array is shared and must not be modified.
+     */
+    ValidationCheck[] checks() {
+        return checkOrder;
+    }
+
+    /**
+     * @param newVersion The version of the copy.
+     * @return A copy of these rules with another version; the rule tables are shared since they are immutable.
+     */
+    ValidationRules withVersion(long newVersion) {
+        return new ValidationRules(newVersion, maxAmounts, allowedCurrencies, fxRates, panRanges, luhnCheck,
+                checkOrder);
+    }
+
+    /**
+     * @param newRates The exchange rates of the copy.
+     * @return A copy of these rules with other exchange rates.
+     * @throws IllegalArgumentException If an allowed currency has no rate.
+     */
+    ValidationRules withFxRates(FxRateTable newRates) {
+        checkRates(allowedCurrencies, newRates);
+        return new ValidationRules(version, maxAmounts, allowedCurrencies, newRates, panRanges, luhnCheck,
+                checkOrder);
+    }
+
+    private static void checkRates(boolean[] allowedCurrencies, FxRateTable rates) {
+        if (rates == null) {
+            return;
+        }
+        for (int code = 0; code < allowedCurrencies.length; code++) {
+            if (allowedCurrencies[code] && !rates.hasRate(code)) {
+                throw new IllegalArgumentException("No exchange rate for allowed currency " + CurrencyCode.find(code));
+            }
+        }
+    }
+
+    private static boolean parseSwitch(String value) {
+        if (value.equals("on")) {
+            return true;
+        }
+        if (value.equals("off")) {
+            return false;
+        }
+        throw new IllegalArgumentException("Expected on or off: " + value);
+    }
+
+    /**
+     * @return The numeric code as an int, or -1 if it is not exactly three digits.
+     */
+    private static int parseCurrencyCode(String numericCode) {
+        if (numericCode == null || numericCode.length() != 3) {
+            return -1;
+        }
+        int code = 0;
+        for (int i = 0; i < 3; i++) {
+            int digit = numericCode.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            code = code * 10 + digit;
+        }
+        return code;
+    }
+
+    /**
+     * Collects rules and builds an immutable {@link ValidationRules} snapshot.
+     */
+    public static class Builder {
+        private final int[] maxAmounts = new int[TransactionType.values().length];
+        private final boolean[] allowedCurrencies = new boolean[CURRENCY_CODES];
+        private FxRateTable fxRates;
+        private PANRangeTable panRanges = PANRangeTable.builder().build();
+        private boolean luhnCheck;
+        private ValidationCheck[] checkOrder = ValidationCheck.values();
+
+        private Builder() {
+        }
+
+        /**
+         * @param transactionType The transaction type.
+         * @param maxAmount       Maximum amount allowed for the type, in minor units of the base currency if
+         *                        there are exchange rates (1.00 EUR = 100 subunits).
+         * @return This builder.
+         */
+        public Builder maxAmount(TransactionType transactionType, int maxAmount) {
+            maxAmounts[transactionType.ordinal()] = maxAmount;
+            return this;
+        }
+
+        /**
+         * @param numericCode A numeric currency code that transactions may use.
+         * @return This builder.
+         * @throws IllegalArgumentException If the code is not a known currency.
+         */
+        public Builder allowCurrency(String numericCode) {
+            CurrencyCode currency = CurrencyCode.fromNumericCode(numericCode);
+            allowedCurrencies[parseCurrencyCode(currency.getNumericCode())] = true;
+            return this;
+        }
+
+        /**
+         * @param fxRates The exchange rates amounts are converted into the currency of the limits with, or null
+         *                to compare amounts in their own currency.
+         * @return This builder.
+         */
+        public Builder fxRates(FxRateTable fxRates) {
+            this.fxRates = fxRates;
+            return this;
+        }
+
+        /**
+         * @param panRanges The allowed PAN ranges per transaction type.
+         * @return This builder.
+         */
+        public Builder panRanges(PANRangeTable panRanges) {
+            this.panRanges = panRanges;
+            return this;
+        }
+
+        /**
+         * @param luhnCheck True to decline PANs with an invalid Luhn check digit.
+         * @return This builder.
+         */
+        public Builder luhnCheck(boolean luhnCheck) {
+            this.luhnCheck = luhnCheck;
+            return this;
+        }
+
+        /**
+         * @param checks Every {@link ValidationCheck} exactly once, in the order they should run.
+         * @return This builder.
+         * @throws IllegalArgumentException If a check is missing or listed twice.
+         */
+        public Builder checkOrder(ValidationCheck... checks) {
+            boolean[] seen = new boolean[ValidationCheck.values().length];
+            for (ValidationCheck check : checks) {
+                if (seen[check.ordinal()]) {
+                    throw new IllegalArgumentException("Check listed twice: " + check);
+                }
+                seen[check.ordinal()] = true;
+            }
+            if (checks.length != seen.length) {
+                throw new IllegalArgumentException("Check order must list every check: " + Arrays.toString(checks));
+            }
+            this.checkOrder = checks.clone();
+            return this;
+        }
+
+        /**
+         * @return The rules snapshot, with version 0.
+         * @throws IllegalArgumentException If there are exchange rates and an allowed currency has none.
+         */
+        public ValidationRules build() {
+            checkRates(allowedCurrencies, fxRates);
+            return new ValidationRules(0, maxAmounts.clone(), allowedCurrencies.clone(), fxRates, panRanges,
+                    luhnCheck, checkOrder);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.transaction.processing.util;
+
+import com.transaction.processing.model.CurrencyCode;
+
+import java.util.Arrays;
+
+/**
+ * Immutable table of exchange rates into one base currency, for enforcing limits given in the base currency on
+ * amounts in any currency.
+ * <p>
+ * Rates are fixed-point numbers with {@value #RATE_DECIMALS} decimal places ({@link #RATE_SCALE} = 1.0), giving the
+ * value of one unit of a currency in units of the base currency. When the table is built, every rate is turned
+ * into a factor from minor units of the currency to minor units of the base currency, with the difference in
+ * decimal places folded in. Converting an amount is then a lookup in an array indexed by the numeric currency
+ * code and a multiplication in {@code long} arithmetic, without {@code BigDecimal} or {@code double}.
+ * <p>
+ * A new table is built for every rate update and published as a whole, so a conversion never mixes old and new
+ * rates.
+ */
+public final class FxRateTable {
+    public static final int RATE_DECIMALS = 9;
+    /** The fixed-point value of a rate of 1.0. */
+    public static final long RATE_SCALE = 1_000_000_000L;
+    /** Returned by {@link #toBase(long, int)} for a currency without a rate. */
+    public static final long NO_RATE = Long.MIN_VALUE;
+
+    private static final int CURRENCY_CODES = 1000;
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000};
+
+    private final CurrencyCode base;
+    // Per numeric code: the rate as given (0 = none), and base minor units per minor unit, scaled by RATE_SCALE
+    private final long[] rates;
+    private final long[] minorUnitFactors;
+
+    private FxRateTable(CurrencyCode base, long[] rates) {
+        this.base = base;
+        this.rates = rates;
+        this.minorUnitFactors = new long[CURRENCY_CODES];
+        for (CurrencyCode currency : CurrencyCode.values()) {
+            long rate = rates[currency.getNumericValue()];
+            if (rate == 0) {
+                continue;
+            }
+            int shift = base.getMinorUnits() - currency.getMinorUnits();
+            minorUnitFactors[currency.getNumericValue()] = shift >= 0
+                    ? Math.multiplyExact(rate, POWERS_OF_TEN[shift])
+                    : divideRounded(rate, POWERS_OF_TEN[-shift]);
+        }
+    }
+
+    /**
+     * Creates a builder for a table converting into the given base currency, whose own rate is 1.0.
+     *
+     * @param base The currency amounts are converted into.
+     * @return A builder holding only the rate of the base currency.
+     */
+    public static Builder builder(CurrencyCode base) {
+        return new Builder(base);
+    }
+
+    /**
+     * Parses a decimal rate such as {@code "0.9215"} into its fixed-point value.
+     *
+     * @param rate A positive decimal number with at most {@value #RATE_DECIMALS} decimal places.
+     * @return The rate scaled by {@link #RATE_SCALE}.
+     * @throws IllegalArgumentException If the text is not such a number.
+     */
+    public static long parseRate(String rate) {
+        int point = rate.indexOf('.');
+        String integerPart = point < 0 ? rate : rate.substring(0, point);
+        String fractionPart = point < 0 ? "" : rate.substring(point + 1);
+        if (integerPart.isEmpty() && fractionPart.isEmpty() || fractionPart.length() > RATE_DECIMALS
+                || !isDigits(integerPart) || !isDigits(fractionPart)) {
+            throw new IllegalArgumentException("Invalid exchange rate: " + rate);
+        }
+        long value = 0;
+        for (int i = 0; i < integerPart.length(); i++) {
+            value = Math.addExact(Math.multiplyExact(value, 10), integerPart.charAt(i) - '0');
+        }
+        long fraction = 0;
+        for (int i = 0; i < RATE_DECIMALS; i++) {
+            fraction = fraction * 10 + (i < fractionPart.length() ? fractionPart.charAt(i) - '0' : 0);
+        }
+        long scaled = Math.addExact(Math.multiplyExact(value, RATE_SCALE), fraction);
+        if (scaled <= 0) {
+            throw new IllegalArgumentException("Exchange rate must be positive: " + rate);
+        }
+        return scaled;
+    }
+
+    public CurrencyCode getBase() {
+        return base;
+    }
+
+    /**
+     * @param numericCode The numeric currency code (978 = EUR, 840 = USD).
+     * @return True if amounts in the currency can be converted.
+     */
+    public boolean hasRate(int numericCode) {
+        return numericCode >= 0 && numericCode < CURRENCY_CODES && rates[numericCode] != 0;
+    }
+
+    /**
+     * @param numericCode The numeric currency code (978 = EUR, 840 = USD).
+     * @return The value of one unit of the currency in the base currency, scaled by {@link #RATE_SCALE};
+     * 0 if there is no rate for the currency.
+     */
+    public long getRate(int numericCode) {
+        return hasRate(numericCode) ? rates[numericCode] : 0;
+    }
+
+    /**
+     * Converts an amount into the base currency, rounding half away from zero.
+     *
+     * @param amount      The amount in minor units of the currency.
+     * @param numericCode The numeric currency code of the amount.
+     * @return The amount in minor units of the base currency, or {@link #NO_RATE} if there is no rate for the
+     * currency.
+     */
+    public long toBase(long amount, int numericCode) {
+        if (!hasRate(numericCode)) {
+            return NO_RATE;
+        }
+        long factor = minorUnitFactors[numericCode];
+        // Split the factor, so the product stays within a long for any int amount and realistic rates
+        long whole = amount * (factor / RATE_SCALE);
+        long fraction = amount * (factor % RATE_SCALE);
+        long rounding = fraction >= 0 ? RATE_SCALE / 2 : -RATE_SCALE / 2;
+        return whole + (fraction + rounding) / RATE_SCALE;
+    }
+
+    private static long divideRounded(long value, long divisor) {
+        return Math.max(1, (value + divisor / 2) / divisor);
+    }
+
+    private static boolean isDigits(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) < '0' || text.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Collects the rates of an {@link FxRateTable}.
+     */
+    public static class Builder {
+        private final CurrencyCode base;
+        private final long[] rates = new long[CURRENCY_CODES];
+
+        private Builder(CurrencyCode base) {
+            this.base = base;
+            rates[base.getNumericValue()] = RATE_SCALE;
+        }
+
+        /**
+         * @param currency The currency of the rate.
+         * @param rate     The value of one unit of the currency in the base currency, scaled by
+         *                 {@link #RATE_SCALE}.
+         * @return This builder.
+         * @throws IllegalArgumentException If the rate is not positive, or it is a rate for the base currency other
+         *                                  than 1.0.
+         */
+        public Builder rate(CurrencyCode currency, long rate) {
+            if (rate <= 0) {
+                throw new IllegalArgumentException("Exchange rate must be positive: " + rate);
+            }
+            if (currency == base && rate != RATE_SCALE) {
+                throw new IllegalArgumentException("Rate of the base currency must be 1: " + rate);
+            }
+            rates[currency.getNumericValue()] = rate;
+            return this;
+        }
+
+        /**
+         * @param currency The currency of the rate.
+         * @param rate     The value of one unit of the currency in the base currency, e.g. {@code "0.9215"}.
+         * @return This builder.
+         * @throws IllegalArgumentException If the rate is not a positive decimal number, see
+         *                                  {@link #parseRate(String)}.
+         */
+        public Builder rate(CurrencyCode currency, String rate) {
+            return rate(currency, parseRate(rate));
+        }
+
+        public FxRateTable build() {
+            return new FxRateTable(base, Arrays.copyOf(rates, rates.length));
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.transaction.processing.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Streams files into GZIP format (RFC 1952) with a {@link Deflater} and buffers that are reused for every file,
+ * so compressing many files allocates neither native compression state nor large arrays per file.
+ * The output can be read with {@link java.util.zip.GZIPInputStream} or the {@code gzip} tool.
+ * A compressor is not thread-safe; {@link #close()} releases the native memory of the deflater.
+ */
+public class GzipCompressor implements AutoCloseable {
+    private static final byte[] HEADER = {
+            0x1f, (byte) 0x8b,      // magic
+            Deflater.DEFLATED,      // compression method
+            0,                      // flags
+            0, 0, 0, 0,             // modification time (not set)
+            0,                      // extra flags
+            (byte) 0xff             // operating system (unknown)
+    };
+
+    private final Deflater deflater;
+    private final CRC32 crc = new CRC32();
+    private final byte[] input;
+    private final byte[] output;
+
+    /**
+     * Constructor for a compressor with 64 KiB buffers.
+     *
+     * @param level The compression level, 1 (fastest) to 9 (smallest), or {@link Deflater#DEFAULT_COMPRESSION}.
+     */
+    public GzipCompressor(int level) {
+        this(level, 64 * 1024);
+    }
+
+    /**
+     * Constructor for initializing a GzipCompressor object with all attributes.
+     *
+     * @param level      The compression level, 1 (fastest) to 9 (smallest), or {@link Deflater#DEFAULT_COMPRESSION}.
+     * @param bufferSize The size of the input and output buffers.
+     * @throws IllegalArgumentException If the level or buffer size is invalid.
+     */
+    public GzipCompressor(int level, int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+        }
+        // Raw deflate data, the GZIP header and trailer are written here
+        this.deflater = new Deflater(level, true);
+        this.input = new byte[bufferSize];
+        this.output = new byte[bufferSize];
+    }
+
+    /**
+     * Compresses a file into a new GZIP file.
+     *
+     * @param source The file to compress.
+     * @param target The GZIP file; created or replaced.
+     * @return The size of the GZIP file.
+     * @throws IOException If the source cannot be read or the target cannot be written.
+     */
+    public long compress(Path source, Path target) throws IOException {
+        try (InputStream in = Files.newInputStream(source);
+             OutputStream out = Files.newOutputStream(target)) {
+            return compress(in, out);
+        }
+    }
+
+    /**
+     * Compresses a stream into GZIP format. Neither stream is closed.
+     *
+     * @param in  The data to compress.
+     * @param out The destination of the GZIP data.
+     * @return The number of bytes written to {@code out}.
+     * @throws IOException If reading or writing fails.
+     */
+    public long compress(InputStream in, OutputStream out) throws IOException {
+        deflater.reset();
+        crc.reset();
+        out.write(HEADER);
+        long written = HEADER.length;
+        int read;
+        while ((read = in.read(input)) >= 0) {
+            crc.update(input, 0, read);
+            deflater.setInput(input, 0, read);
+            while (!deflater.needsInput()) {
+                written += deflate(out);
+            }
+        }
+        deflater.finish();
+        while (!deflater.finished()) {
+            written += deflate(out);
+        }
+        writeIntLE(out, (int) crc.getValue());
+        // ISIZE is the input size modulo 2^32
+        writeIntLE(out, (int) deflater.getBytesRead());
+        return written + 8;
+    }
+
+    @Override
+    public void close() {
+        deflater.end();
+    }
+
+    private int deflate(OutputStream out) throws IOException {
+        int length = deflater.deflate(output, 0, output.length);
+        out.write(output, 0, length);
+        return length;
+    }
+
+    private static void writeIntLE(OutputStream out, int value) throws IOException {
+        out.write(value);
+        out.write(value >>> 8);
+        out.write(value >>> 16);
+        out.write(value >>> 24);
+    }
+}
@@ -0,0 +1,415 @@
+package com.transaction.processing.util;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrent, size- and time-bounded map from {@code long} keys to {@code long} results, used to recognise
+ * transactions that were already processed. Keys, results and timestamps are kept in primitive arrays, so the
+ * cache holds no boxed entries and a lookup does not allocate.
+ * <p>
+ * The cache is split into stripes, each guarded by its own lock and holding an open-addressing table with
+ * linear probing and a ring of its keys in insertion order. An entry expires once it is older than the
+ * time-to-live, counted from its completion; when a stripe is full, its oldest entry is evicted. Both are counted as evictions. Reserved keys
+ * are never expired or evicted, so a duplicate is not processed again because its original took long; when a
+ * stripe holds only reservations, new keys wait until one of them is completed.
+ * <p>
+ * A caller first {@link #acquire(long) acquires} a key. If the key is known, its result is returned; if it is
+ * new, the key is reserved for the caller, who has to {@link #complete(long, long) complete} it with the result
+ * or {@link #cancel(long) cancel} it. Callers acquiring a reserved key wait until it is completed, so concurrent
+ * duplicates are only processed once. The stripes use {@link ReentrantLock}s rather than monitors, so callers
+ * waiting for a duplicate do not pin the carrier thread when they run on virtual threads.
+ */
+public class IdempotencyCache {
+    /** Returned by {@link #acquire(long)} when the key was not known and is now reserved for the caller. */
+    public static final long NOT_FOUND = Long.MIN_VALUE;
+
+    private static final long PENDING = Long.MIN_VALUE + 1;
+    private static final int DEFAULT_STRIPES = 16;
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final long ttlMillis;
+    private final Clock clock;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Constructor for a cache using the system clock.
+     *
+     * @param maxEntries The maximum number of keys kept.
+     * @param ttl        How long a key is remembered.
+     */
+    public IdempotencyCache(int maxEntries, Duration ttl) {
+        this(maxEntries, ttl, DEFAULT_STRIPES, Clock.systemUTC());
+    }
+
+    /**
+     * Constructor for initializing an IdempotencyCache object with all attributes.
+     *
+     * @param maxEntries The maximum number of keys kept, spread evenly over the stripes.
+     * @param ttl        How long a key is remembered.
+     * @param stripes    The number of independently locked stripes, must be a power of two.
+     * @param clock      The clock entries are time-stamped with.
+     * @throws IllegalArgumentException If a bound is not positive or the stripe count is not a power of two.
+     */
+    public IdempotencyCache(int maxEntries, Duration ttl, int stripes, Clock clock) {
+        if (stripes <= 0 || Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("Stripe count must be a positive power of two: " + stripes);
+        }
+        if (maxEntries < stripes) {
+            throw new IllegalArgumentException("Maximum entries must be at least the stripe count: " + maxEntries);
+        }
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("Time-to-live must be positive: " + ttl);
+        }
+        this.stripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe(maxEntries / stripes);
+        }
+        this.stripeMask = stripes - 1;
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+    }
+
+    /**
+     * Looks up a key and reserves it if it is not known. Waits while another caller holds the reservation.
+     *
+     * @param key The key, e.g. a transaction fingerprint.
+     * @return The result the key was completed with, or {@link #NOT_FOUND} if the key is now reserved for
+     * the caller.
+     */
+    public long acquire(long key) {
+        long hash = mix(key);
+        Stripe stripe = stripes[(int) (hash >>> 32) & stripeMask];
+        stripe.lock.lock();
+        try {
+            while (true) {
+                long now = clock.millis();
+                expire(stripe, now);
+                int slot = stripe.find(key, (int) hash);
+                if (slot < 0) {
+                    if (stripe.isFull() && stripe.evictOldest()) {
+                        evictions.increment();
+                    }
+                    if (!stripe.isFull()) {
+                        stripe.insert(key, (int) hash, PENDING, now);
+                        misses.increment();
+                        return NOT_FOUND;
+                    }
+                    // Every key of the stripe is reserved; wait until one is completed or cancelled
+                } else {
+                    long value = stripe.values[slot];
+                    if (value != PENDING) {
+                        hits.increment();
+                        return value;
+                    }
+                }
+                // An interrupt is kept as the interrupt status of the caller
+                stripe.completed.awaitUninterruptibly();
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Stores the result of a key reserved by {@link #acquire(long)} and wakes up callers waiting for it.
+     *
+     * @param key   The reserved key.
+     * @param value The result, must not be negative.
+     * @throws IllegalArgumentException If the result is negative.
+     */
+    public void complete(long key, long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Result must not be negative: " + value);
+        }
+        long hash = mix(key);
+        Stripe stripe = stripes[(int) (hash >>> 32) & stripeMask];
+        stripe.lock.lock();
+        try {
+            int slot = stripe.find(key, (int) hash);
+            if (slot >= 0) {
+                stripe.values[slot] = value;
+                // The time-to-live counts from the completion, so a reservation that took long does not expire
+                // right away and let a waiting duplicate reserve the key again
+                long now = clock.millis();
+                if (stripe.times[slot] != now) {
+                    stripe.times[slot] = now;
+                    // The old ring entry of the key is stale now and makes sure the loop ends
+                    while (stripe.isFull()) {
+                        if (stripe.popOldest() == Stripe.REMOVED) {
+                            evictions.increment();
+                        }
+                    }
+                    stripe.appendToRing(key, now);
+                }
+            }
+            stripe.completed.signalAll();
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Releases a key reserved by {@link #acquire(long)} without a result, e.g. because processing failed.
+     *
+     * @param key The reserved key.
+     */
+    public void cancel(long key) {
+        long hash = mix(key);
+        Stripe stripe = stripes[(int) (hash >>> 32) & stripeMask];
+        stripe.lock.lock();
+        try {
+            int slot = stripe.find(key, (int) hash);
+            if (slot >= 0 && stripe.values[slot] == PENDING) {
+                stripe.remove(slot);
+            }
+            stripe.completed.signalAll();
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Stores the result of a key as of the given time, e.g. when the cache is rebuilt from a journal after a
+     * restart, so the key expires when it would have without the restart. Keys have to be restored in
+     * chronological order; keys that have expired already, keys that are held already and keys of a stripe that
+     * holds only reservations are ignored.
+     *
+     * @param key         The key.
+     * @param value       The result, must not be negative.
+     * @param epochMillis The time the result was stored originally.
+     * @throws IllegalArgumentException If the result is negative.
+     */
+    public void restore(long key, long value, long epochMillis) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Result must not be negative: " + value);
+        }
+        if (clock.millis() - epochMillis >= ttlMillis) {
+            return;
+        }
+        long hash = mix(key);
+        Stripe stripe = stripes[(int) (hash >>> 32) & stripeMask];
+        stripe.lock.lock();
+        try {
+            if (stripe.find(key, (int) hash) >= 0) {
+                return;
+            }
+            if (stripe.isFull() && stripe.evictOldest()) {
+                evictions.increment();
+            }
+            if (!stripe.isFull()) {
+                stripe.insert(key, (int) hash, value, epochMillis);
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of keys currently held, including expired keys that were not removed yet.
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.size;
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return How long a key is remembered.
+     */
+    public Duration getTtl() {
+        return Duration.ofMillis(ttlMillis);
+    }
+
+    /**
+     * @return The number of lookups that found a result.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return The number of lookups that did not find the key and reserved it.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return The number of keys removed because they expired or their stripe was full.
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Removes the entries of the stripe that are older than the time-to-live; they are at the head of the ring.
+     * Expired reservations are moved to the tail instead, so every ring entry is looked at most once per call.
+     */
+    private void expire(Stripe stripe, long now) {
+        for (int left = stripe.ringSize; left > 0 && now - stripe.ringTimes[stripe.ringHead] >= ttlMillis; left--) {
+            if (stripe.popOldest() == Stripe.REMOVED) {
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Spreads the bits of the key (the finalizer of MurmurHash3), so sequential keys do not cluster.
+     */
+    private static long mix(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * One lock's share of the cache. All fields are guarded by the stripe's lock.
+     */
+    private static final class Stripe {
+        private static final int REMOVED = 0;
+        private static final int STALE = 1;
+        private static final int RESERVED = 2;
+
+        private final ReentrantLock lock = new ReentrantLock();
+        // Signalled when a reservation is completed or cancelled
+        private final Condition completed = lock.newCondition();
+        private final long[] keys;
+        private final long[] values;
+        private final long[] times;
+        private final boolean[] used;
+        private final int tableMask;
+        // Keys in insertion order with the time they were inserted; entries removed early stay in the ring
+        // and are skipped when their time no longer matches the table
+        private final long[] ringKeys;
+        private final long[] ringTimes;
+        private int ringHead;
+        private int ringSize;
+        private int size;
+
+        private Stripe(int capacity) {
+            // Keep the table at most half full, so probe sequences stay short
+            int tableSize = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) * 2;
+            this.keys = new long[tableSize];
+            this.values = new long[tableSize];
+            this.times = new long[tableSize];
+            this.used = new boolean[tableSize];
+            this.tableMask = tableSize - 1;
+            this.ringKeys = new long[capacity];
+            this.ringTimes = new long[capacity];
+        }
+
+        private boolean isFull() {
+            return ringSize == ringKeys.length;
+        }
+
+        private int find(long key, int hash) {
+            for (int slot = hash & tableMask; used[slot]; slot = (slot + 1) & tableMask) {
+                if (keys[slot] == key) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        private void insert(long key, int hash, long value, long time) {
+            int slot = hash & tableMask;
+            while (used[slot]) {
+                slot = (slot + 1) & tableMask;
+            }
+            used[slot] = true;
+            keys[slot] = key;
+            values[slot] = value;
+            times[slot] = time;
+            size++;
+            appendToRing(key, time);
+        }
+
+        private void appendToRing(long key, long time) {
+            int tail = ringHead + ringSize;
+            if (tail >= ringKeys.length) {
+                tail -= ringKeys.length;
+            }
+            ringKeys[tail] = key;
+            ringTimes[tail] = time;
+            ringSize++;
+        }
+
+        /**
+         * Makes room for a new key, skipping ring entries of keys that were cancelled and moving reservations to
+         * the tail until a completed entry is removed.
+         *
+         * @return True if a completed entry was removed; false if the stripe holds only reservations.
+         */
+        private boolean evictOldest() {
+            for (int left = ringSize; left > 0; left--) {
+                if (popOldest() == REMOVED) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Removes the oldest ring entry and its table entry, if the table entry still belongs to it. A reserved
+         * entry is kept and its ring entry is moved to the tail.
+         *
+         * @return {@link #REMOVED}, {@link #STALE} if the table entry was removed earlier, or {@link #RESERVED}.
+         */
+        private int popOldest() {
+            long key = ringKeys[ringHead];
+            long time = ringTimes[ringHead];
+            ringHead = ringHead + 1 == ringKeys.length ? 0 : ringHead + 1;
+            ringSize--;
+            int slot = find(key, (int) mix(key));
+            if (slot < 0 || times[slot] != time) {
+                return STALE;
+            }
+            if (values[slot] == PENDING) {
+                appendToRing(key, time);
+                return RESERVED;
+            }
+            remove(slot);
+            return REMOVED;
+        }
+
+        /**
+         * Removes a table entry, shifting later entries of the probe sequence back so lookups still find them.
+         */
+        private void remove(int slot) {
+            int gap = slot;
+            int next = (gap + 1) & tableMask;
+            while (used[next]) {
+                int home = (int) mix(keys[next]) & tableMask;
+                // Move the entry into the gap unless its home slot lies cyclically in (gap, next]
+                boolean stays = gap <= next ? gap < home && home <= next : gap < home || home <= next;
+                if (!stays) {
+                    keys[gap] = keys[next];
+                    values[gap] = values[next];
+                    times[gap] = times[next];
+                    gap = next;
+                }
+                next = (next + 1) & tableMask;
+            }
+            used[gap] = false;
+            size--;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.transaction.processing.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded, lock-free ring buffer for any number of producer threads and exactly one consumer thread.
+ * Like {@link BoundedRingBuffer}, each slot carries a sequence number telling producers and the consumer whose
+ * turn it is; as only one thread consumes, the head is a plain field and taking an element needs no
+ * compare-and-set. A buffer created for a single producer does without the compare-and-set on the tail as well.
+ *
+ * @param <E> The type of the queued elements.
+ */
+public class MpscRingBuffer<E> {
+    private final Object[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final boolean singleProducer;
+    private final AtomicLong tail = new AtomicLong();
+    // Only read and written by the consumer thread
+    private long head;
+
+    /**
+     * Constructor for a ring buffer that is safe for any number of producers.
+     *
+     * @param capacity The number of slots, must be a positive power of two.
+     * @throws IllegalArgumentException If the capacity is not a positive power of two.
+     */
+    public MpscRingBuffer(int capacity) {
+        this(capacity, false);
+    }
+
+    /**
+     * Constructor for initializing a MpscRingBuffer object with all attributes.
+     *
+     * @param capacity       The number of slots, must be a positive power of two.
+     * @param singleProducer True if only one thread ever offers elements, which makes offering cheaper.
+     * @throws IllegalArgumentException If the capacity is not a positive power of two.
+     */
+    public MpscRingBuffer(int capacity, boolean singleProducer) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a positive power of two: " + capacity);
+        }
+        this.slots = new Object[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        this.singleProducer = singleProducer;
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds an element to the tail of the buffer if there is room for it.
+     *
+     * @param element The element to add, must not be null.
+     * @return True if the element was added, false if the buffer is full.
+     */
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException("Ring buffer does not accept null elements");
+        }
+        long position = tail.get();
+        if (singleProducer) {
+            int index = (int) position & mask;
+            if (sequences.get(index) != position) {
+                return false;
+            }
+            slots[index] = element;
+            sequences.lazySet(index, position + 1);
+            tail.lazySet(position + 1);
+            return true;
+        }
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots[index] = element;
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Removes the element at the head of the buffer. Must only be called by the consumer thread.
+     *
+     * @return The removed element, or null if the buffer is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        int index = (int) head & mask;
+        if (sequences.get(index) != head + 1) {
+            return null;
+        }
+        E element = (E) slots[index];
+        slots[index] = null;
+        sequences.lazySet(index, head + mask + 1);
+        head++;
+        return element;
+    }
+
+    /**
+     * @return The approximate number of queued elements (exact when no thread is modifying the buffer).
+     */
+    public int size() {
+        long size = tail.get() - head;
+        return (int) Math.max(0, Math.min(size, slots.length));
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+}
@@ -0,0 +1,55 @@
+package com.transaction.processing.util;
+
+import java.util.function.Supplier;
+
+/**
+ * Pool of reusable, non-thread-safe objects such as formatting and encoding buffers, kept in a
+ * {@link BoundedRingBuffer}. Unlike a {@link ThreadLocal}, the number of objects follows the number of threads
+ * using one at the same time rather than the number of threads that ever used one, so it also keeps buffers
+ * reusable for virtual threads, which are created per task and would allocate a new thread-local every time.
+ * <p>
+ * {@link #acquire()} takes an idle object or creates one if there is none; {@link #release(Object)} returns it,
+ * and drops it if the pool already holds its capacity of idle objects.
+ *
+ * @param <T> The type of the pooled objects.
+ */
+public class ObjectPool<T> {
+    private final BoundedRingBuffer<T> idle;
+    private final Supplier<? extends T> factory;
+
+    /**
+     * Constructor for initializing a pool with a fixed capacity.
+     *
+     * @param capacity The maximum number of idle objects kept, must be a positive power of two.
+     * @param factory  Creates an object when the pool has no idle one.
+     * @throws IllegalArgumentException If the capacity is not a positive power of two.
+     */
+    public ObjectPool(int capacity, Supplier<? extends T> factory) {
+        this.idle = new BoundedRingBuffer<>(capacity);
+        this.factory = factory;
+    }
+
+    /**
+     * @return An idle object, or a new one if there is none. The caller owns it until it is released.
+     */
+    public T acquire() {
+        T object = idle.poll();
+        return object != null ? object : factory.get();
+    }
+
+    /**
+     * Returns an object for reuse; it must not be used by the caller afterwards.
+     *
+     * @param object The object taken with {@link #acquire()}.
+     */
+    public void release(T object) {
+        idle.offer(object);
+    }
+
+    /**
+     * @return The approximate number of idle objects.
+     */
+    public int size() {
+        return idle.size();
+    }
+}
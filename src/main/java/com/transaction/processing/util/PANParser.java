@@ -0,0 +1,141 @@
+package com.transaction.processing.util;
+
+/**
+ * Single-pass, allocation-free parsing of 16 digit Primary Account Numbers (PANs).
+ * The length check, the digit check, the conversion to a {@code long} and optionally the Luhn
+ * checksum are all done in one loop over the characters. The parsed value can then be reused
+ * for range validation ({@link PANValidator#isValidPANForType(long, com.transaction.processing.model.TransactionType)})
+ * and masking ({@link #appendMasked(StringBuilder, long)}) without touching the string again.
+ */
+public final class PANParser {
+    /** Returned by the parse methods when the PAN is not 16 digits (or fails the Luhn check). */
+    public static final long INVALID = -1L;
+    /** Number of digits in a PAN. */
+    public static final int PAN_LENGTH = 16;
+
+    private static final long PREFIX_DIVISOR = 10_000_000_000L;
+    private static final long SUFFIX_DIVISOR = 10_000L;
+
+    private PANParser() {
+    }
+
+    /**
+     * Parses a PAN consisting of exactly 16 decimal digits.
+     *
+     * @param pan The PAN to parse, may be null.
+     * @return The numeric value of the PAN, or {@link #INVALID} if it is null, not 16 characters long or not all digits.
+     */
+    public static long parse(CharSequence pan) {
+        if (pan == null || pan.length() != PAN_LENGTH) {
+            return INVALID;
+        }
+        long value = 0;
+        for (int i = 0; i < PAN_LENGTH; i++) {
+            int digit = pan.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return INVALID;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Parses a PAN consisting of exactly 16 decimal digits and verifies its Luhn check digit in the same pass.
+     *
+     * @param pan The PAN to parse, may be null.
+     * @return The numeric value of the PAN, or {@link #INVALID} if it is not 16 digits or fails the Luhn check.
+     */
+    public static long parseWithLuhn(CharSequence pan) {
+        if (pan == null || pan.length() != PAN_LENGTH) {
+            return INVALID;
+        }
+        long value = 0;
+        int checksum = 0;
+        for (int i = 0; i < PAN_LENGTH; i++) {
+            int digit = pan.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return INVALID;
+            }
+            value = value * 10 + digit;
+            // With an even length every digit at an even index (counting from the left) is doubled
+            if ((i & 1) == 0) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            checksum += digit;
+        }
+        return checksum % 10 == 0 ? value : INVALID;
+    }
+
+    /**
+     * Checks the Luhn check digit of an already parsed PAN.
+     *
+     * @param panValue The numeric value of a 16 digit PAN.
+     * @return True if the check digit is valid.
+     */
+    public static boolean isLuhnValid(long panValue) {
+        int checksum = 0;
+        long remaining = panValue;
+        for (int i = 0; i < PAN_LENGTH; i++) {
+            int digit = (int) (remaining % 10);
+            remaining /= 10;
+            // Counting from the right, every second digit is doubled
+            if ((i & 1) == 1) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            checksum += digit;
+        }
+        return checksum % 10 == 0;
+    }
+
+    /**
+     * @param panValue The numeric value of a 16 digit PAN.
+     * @return The first 6 digits of the PAN (the part kept visible when masking).
+     */
+    public static int maskedPrefix(long panValue) {
+        return (int) (panValue / PREFIX_DIVISOR);
+    }
+
+    /**
+     * @param panValue The numeric value of a 16 digit PAN.
+     * @return The last 4 digits of the PAN (the part kept visible when masking).
+     */
+    public static int maskedSuffix(long panValue) {
+        return (int) (panValue % SUFFIX_DIVISOR);
+    }
+
+    /**
+     * Appends the masked form of a parsed PAN: the first 6 and last 4 digits with "******" in between.
+     *
+     * @param out      The buffer to append to.
+     * @param panValue The numeric value of a 16 digit PAN.
+     */
+    public static void appendMasked(StringBuilder out, long panValue) {
+        appendMasked(out, maskedPrefix(panValue), maskedSuffix(panValue));
+    }
+
+    /**
+     * Appends a masked PAN from its visible parts, zero-padded to 6 and 4 digits.
+     *
+     * @param out    The buffer to append to.
+     * @param prefix The first 6 digits of the PAN.
+     * @param suffix The last 4 digits of the PAN.
+     */
+    public static void appendMasked(StringBuilder out, int prefix, int suffix) {
+        appendPadded(out, prefix, 100_000);
+        out.append("******");
+        appendPadded(out, suffix, 1_000);
+    }
+
+    private static void appendPadded(StringBuilder out, int value, int highestPlace) {
+        for (int place = highestPlace; place > 0; place /= 10) {
+            out.append((char) ('0' + value / place % 10));
+        }
+    }
+}
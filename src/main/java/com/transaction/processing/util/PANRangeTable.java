@@ -0,0 +1,276 @@
+package com.transaction.processing.util;
+
+import com.transaction.processing.model.TransactionType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Immutable table of allowed PAN ranges per transaction type.
+ * <ul>
+ *   <li>Each type has any number of inclusive {@code [low, high]} ranges.</li>
+ *   <li>Ranges are sorted and overlapping or adjacent ranges are merged when the table is built.</li>
+ *   <li>The bounds are stored in two primitive {@code long[]} arrays per type, so a lookup is a binary search
+ *       over the low bounds followed by one comparison with the matching high bound: O(log n) and no allocation.</li>
+ * </ul>
+ * Tables are loaded from a text file with one range per line: {@code <type> <low PAN> <high PAN>}.
+ * Empty lines and lines starting with {@code #} are ignored.
+ */
+public class PANRangeTable {
+    /** Classpath resource holding the default ranges. */
+    public static final String DEFAULT_RESOURCE = "/pan-ranges.conf";
+
+    private static final long[] EMPTY = new long[0];
+
+    private final long[][] lows;
+    private final long[][] highs;
+
+    private PANRangeTable(long[][] lows, long[][] highs) {
+        this.lows = lows;
+        this.highs = highs;
+    }
+
+    /**
+     * Checks if the PAN value lies in one of the ranges of the given transaction type.
+     *
+     * @param transactionType The transaction type (APP, BRW, 3RI).
+     * @param panValue        The numeric value of the PAN.
+     * @return True if a range of the type contains the PAN, false otherwise.
+     */
+    public boolean contains(TransactionType transactionType, long panValue) {
+        return contains(transactionType.ordinal(), panValue);
+    }
+
+    /**
+     * Checks if the PAN value lies in one of the ranges of the transaction type with the given ordinal.
+     *
+     * @param ordinal  The {@link TransactionType} ordinal.
+     * @param panValue The numeric value of the PAN.
+     * @return True if a range of the type contains the PAN, false otherwise.
+     */
+    public boolean contains(int ordinal, long panValue) {
+        long[] typeLows = lows[ordinal];
+        int length = typeLows.length;
+        if (length == 0 || panValue < typeLows[0]) {
+            return false;
+        }
+        // Branch-free search for the last range whose low bound is <= panValue; the conditional move
+        // keeps the loop free of hard-to-predict branches, which matters for large tables
+        int base = 0;
+        while (length > 1) {
+            int half = length >>> 1;
+            base = typeLows[base + half] <= panValue ? base + half : base;
+            length -= half;
+        }
+        return panValue <= highs[ordinal][base];
+    }
+
+    /**
+     * @param transactionType The transaction type.
+     * @return The number of (merged) ranges of the type.
+     */
+    public int rangeCount(TransactionType transactionType) {
+        return lows[transactionType.ordinal()].length;
+    }
+
+    /**
+     * @param transactionType The transaction type.
+     * @return A copy of the merged low bounds of the type, in ascending order.
+     */
+    public long[] lowBounds(TransactionType transactionType) {
+        return lows[transactionType.ordinal()].clone();
+    }
+
+    /**
+     * @param transactionType The transaction type.
+     * @return A copy of the merged high bounds of the type, matching {@link #lowBounds(TransactionType)}.
+     */
+    public long[] highBounds(TransactionType transactionType) {
+        return highs[transactionType.ordinal()].clone();
+    }
+
+    /**
+     * Loads the default ranges shipped on the classpath ({@value #DEFAULT_RESOURCE}).
+     *
+     * @return The loaded table.
+     * @throws IOException If the resource is missing or cannot be read.
+     * @throws IllegalArgumentException If the resource contains an invalid line.
+     */
+    public static PANRangeTable loadDefault() throws IOException {
+        InputStream in = PANRangeTable.class.getResourceAsStream(DEFAULT_RESOURCE);
+        if (in == null) {
+            throw new IOException("PAN range resource not found: " + DEFAULT_RESOURCE);
+        }
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return load(reader);
+        }
+    }
+
+    /**
+     * Loads ranges from a file.
+     *
+     * @param file The range file.
+     * @return The loaded table.
+     * @throws IOException If the file cannot be read.
+     * @throws IllegalArgumentException If the file contains an invalid line.
+     */
+    public static PANRangeTable load(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return load(reader);
+        }
+    }
+
+    /**
+     * Loads ranges from a reader.
+     *
+     * @param reader The source of the range lines.
+     * @return The loaded table.
+     * @throws IOException If the reader fails.
+     * @throws IllegalArgumentException If a line is not {@code <type> <low PAN> <high PAN>}.
+     */
+    public static PANRangeTable load(Reader reader) throws IOException {
+        Builder builder = builder();
+        BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        String line;
+        int lineNumber = 0;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            String[] fields = trimmed.split("\\s+");
+            if (fields.length != 3) {
+                throw new IllegalArgumentException("Invalid PAN range on line " + lineNumber + ": " + line);
+            }
+            TransactionType type;
+            long low;
+            long high;
+            try {
+                type = TransactionType.valueOf(fields[0]);
+                low = parseBound(fields[1]);
+                high = parseBound(fields[2]);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid PAN range on line " + lineNumber + ": " + line, e);
+            }
+            builder.add(type, low, high);
+        }
+        return builder.build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Parses the lower or upper bound of a PAN range.
+     *
+     * @param value The bound as written in a rules or ranges file.
+     * @return The numeric value of the bound.
+     * @throws IllegalArgumentException If the bound is not exactly 16 decimal digits.
+     */
+    public static long parseBound(String value) {
+        long bound = PANParser.parse(value);
+        if (bound == PANParser.INVALID) {
+            throw new IllegalArgumentException("PAN bound must have 16 digits: " + value);
+        }
+        return bound;
+    }
+
+    /**
+     * Collects ranges and builds a sorted, merged {@link PANRangeTable}.
+     */
+    public static class Builder {
+        private final long[][] lows = new long[TransactionType.values().length][];
+        private final long[][] highs = new long[TransactionType.values().length][];
+        private final int[] sizes = new int[TransactionType.values().length];
+
+        private Builder() {
+            for (int i = 0; i < lows.length; i++) {
+                lows[i] = new long[16];
+                highs[i] = new long[16];
+            }
+        }
+
+        /**
+         * Adds an inclusive range of allowed PAN values for a transaction type.
+         *
+         * @param transactionType The transaction type.
+         * @param low             The lowest allowed PAN value.
+         * @param high            The highest allowed PAN value.
+         * @return This builder.
+         * @throws IllegalArgumentException If {@code low} is greater than {@code high}.
+         */
+        public Builder add(TransactionType transactionType, long low, long high) {
+            if (low > high) {
+                throw new IllegalArgumentException("PAN range low bound " + low + " is greater than high bound " + high);
+            }
+            int ordinal = transactionType.ordinal();
+            int size = sizes[ordinal];
+            if (size == lows[ordinal].length) {
+                lows[ordinal] = Arrays.copyOf(lows[ordinal], size * 2);
+                highs[ordinal] = Arrays.copyOf(highs[ordinal], size * 2);
+            }
+            lows[ordinal][size] = low;
+            highs[ordinal][size] = high;
+            sizes[ordinal] = size + 1;
+            return this;
+        }
+
+        /**
+         * Sorts the ranges of every type and merges overlapping and adjacent ones.
+         *
+         * @return The built table.
+         */
+        public PANRangeTable build() {
+            long[][] mergedLows = new long[lows.length][];
+            long[][] mergedHighs = new long[lows.length][];
+            for (int type = 0; type < lows.length; type++) {
+                merge(type, mergedLows, mergedHighs);
+            }
+            return new PANRangeTable(mergedLows, mergedHighs);
+        }
+
+        private void merge(int type, long[][] mergedLows, long[][] mergedHighs) {
+            int size = sizes[type];
+            if (size == 0) {
+                mergedLows[type] = EMPTY;
+                mergedHighs[type] = EMPTY;
+                return;
+            }
+            // Sort range indexes by low bound
+            long[] typeLows = lows[type];
+            long[] typeHighs = highs[type];
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(typeLows[a], typeLows[b]));
+
+            long[] outLows = new long[size];
+            long[] outHighs = new long[size];
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                long low = typeLows[order[i]];
+                long high = typeHighs[order[i]];
+                long previousHigh = count > 0 ? outHighs[count - 1] : 0;
+                if (count > 0 && (previousHigh == Long.MAX_VALUE || low <= previousHigh + 1)) {
+                    outHighs[count - 1] = Math.max(previousHigh, high);
+                } else {
+                    outLows[count] = low;
+                    outHighs[count] = high;
+                    count++;
+                }
+            }
+            mergedLows[type] = Arrays.copyOf(outLows, count);
+            mergedHighs[type] = Arrays.copyOf(outHighs, count);
+        }
+    }
+}
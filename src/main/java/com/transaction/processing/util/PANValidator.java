@@ -2,10 +2,18 @@ package com.transaction.processing.util;
 
 import com.transaction.processing.model.TransactionType;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
 /**
  * Utility class for validating PANs against allowed customer-defined ranges.
+ * The ranges are kept in a {@link PANRangeTable}, loaded from {@value PANRangeTable#DEFAULT_RESOURCE}.
+ * They are the default ranges of {@code ValidationRules}; the ranges and checks payments are validated with are
+ * configured there.
  */
 public class PANValidator {
+    private static final PANRangeTable DEFAULT_RANGES = loadDefaultRanges();
+
     /**
      * Validates if the given PAN is within the allowed range for the specified transaction type.
      *
@@ -14,22 +22,33 @@ public class PANValidator {
      * @return True if the PAN is valid for the transaction type, false otherwise.
      */
     public static boolean isValidPANForType(String pan, TransactionType transactionType) {
-        // PAN must be 16 numeric characters
-        if (pan == null || !pan.matches("\\d{16}")) {
-            return false;
-        }
+        // A PAN that is not exactly 16 digits parses as INVALID and fails the range check
+        return isValidPANForType(PANParser.parse(pan), transactionType);
+    }
+
+    /**
+     * Validates if an already parsed PAN is within the allowed range for the specified transaction type.
+     *
+     * @param panValue The numeric value of the PAN, as returned by {@link PANParser#parse(CharSequence)}.
+     * @param transactionType The transaction type (APP, BRW, 3RI).
+     * @return True if the PAN is valid for the transaction type, false otherwise.
+     */
+    public static boolean isValidPANForType(long panValue, TransactionType transactionType) {
+        return panValue != PANParser.INVALID && DEFAULT_RANGES.contains(transactionType, panValue);
+    }
 
-        long panValue = Long.parseLong(pan);
+    /**
+     * @return The default PAN ranges.
+     */
+    public static PANRangeTable getRangeTable() {
+        return DEFAULT_RANGES;
+    }
 
-        switch (transactionType) {
-            case APP:
-                return panValue >= 1000000000000000L && panValue <= 1000005999999999L;
-            case BRW:
-                return panValue >= 2000000000000000L && panValue <= 2000001234567890L;
-            case TRI:
-                return panValue >= 3000000000000000L && panValue <= 3000000000000100L;
-            default:
-                return false;
+    private static PANRangeTable loadDefaultRanges() {
+        try {
+            return PANRangeTable.loadDefault();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load PAN ranges", e);
         }
     }
 }
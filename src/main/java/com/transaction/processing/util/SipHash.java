@@ -0,0 +1,81 @@
+package com.transaction.processing.util;
+
+/**
+ * SipHash-2-4 keyed hash of single {@code long} values, for storing values derived from a PAN (the PAN itself or
+ * a fingerprint that includes it) as stable keys that cannot be reversed without the key. A PAN has few enough
+ * possible values to be found from an unkeyed hash by trying them all; with a secret 128-bit key that is not
+ * possible.
+ * <p>
+ * The value is hashed as one 8-byte little-endian message, so {@link #hash(long)} matches the reference
+ * implementation for those 8 bytes. Instances are immutable and thread-safe, and hashing does not allocate.
+ */
+public final class SipHash {
+    /** Length of the key in bytes. */
+    public static final int KEY_LENGTH = 16;
+    private static final long LENGTH_BLOCK = 8L << 56;
+
+    private final long k0;
+    private final long k1;
+
+    /**
+     * @param key The 16 byte key; k0 is read from the first 8 bytes and k1 from the last 8, little-endian.
+     * @throws IllegalArgumentException If the key is not 16 bytes long.
+     */
+    public SipHash(byte[] key) {
+        if (key.length != KEY_LENGTH) {
+            throw new IllegalArgumentException("SipHash key must be " + KEY_LENGTH + " bytes: " + key.length);
+        }
+        this.k0 = readLittleEndian(key, 0);
+        this.k1 = readLittleEndian(key, 8);
+    }
+
+    /**
+     * @param value The value to hash.
+     * @return The keyed hash of the 8 bytes of the value.
+     */
+    public long hash(long value) {
+        long v0 = k0 ^ 0x736f6d6570736575L;
+        long v1 = k1 ^ 0x646f72616e646f6dL;
+        long v2 = k0 ^ 0x6c7967656e657261L;
+        long v3 = k1 ^ 0x7465646279746573L;
+
+        // Two rounds for the message block and for the final block, which only holds the length of 8 bytes,
+        // then four finalization rounds
+        for (int step = 0; step < 3; step++) {
+            long block = step == 0 ? value : LENGTH_BLOCK;
+            if (step < 2) {
+                v3 ^= block;
+            } else {
+                v2 ^= 0xff;
+            }
+            for (int round = step < 2 ? 2 : 4; round > 0; round--) {
+                v0 += v1;
+                v1 = Long.rotateLeft(v1, 13);
+                v1 ^= v0;
+                v0 = Long.rotateLeft(v0, 32);
+                v2 += v3;
+                v3 = Long.rotateLeft(v3, 16);
+                v3 ^= v2;
+                v0 += v3;
+                v3 = Long.rotateLeft(v3, 21);
+                v3 ^= v0;
+                v2 += v1;
+                v1 = Long.rotateLeft(v1, 17);
+                v1 ^= v2;
+                v2 = Long.rotateLeft(v2, 32);
+            }
+            if (step < 2) {
+                v0 ^= block;
+            }
+        }
+        return v0 ^ v1 ^ v2 ^ v3;
+    }
+
+    private static long readLittleEndian(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = 7; i >= 0; i--) {
+            value = value << 8 | (bytes[offset + i] & 0xFF);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,465 @@
+package com.transaction.processing.util;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Enforces limits on the number and the cumulative amount of transactions per PAN over sliding time windows,
+ * e.g. at most 10 transactions per minute and 5000.00 per day.
+ * <p>
+ * Every {@link Limit} divides its window into a ring of time buckets holding the count and amount of the
+ * transactions in that interval; the window total is the sum of the buckets that are not older than the window.
+ * The buckets of all PANs live in primitive arrays of an open-addressing table keyed by the numeric PAN, split
+ * into independently locked stripes, so transactions on PANs of different stripes never contend.
+ * <p>
+ * Memory is bounded by the maximum number of tracked PANs and allocated up front: 20 bytes per bucket and PAN,
+ * e.g. 720 bytes per PAN for a {@link Limit#perMinute per-minute} and a {@link Limit#perDay per-day} limit.
+ * A PAN that has not been seen for the longest window holds no state that matters and can be evicted when a
+ * stripe is full. The entries of a stripe are kept in order of use, so the only candidate is the least recently
+ * seen one and eviction takes constant time. If that PAN is still active, so is every other PAN of the stripe:
+ * evicting it would reset its windows, which a flood of fresh PANs could then use to lift the limits of a PAN.
+ * The limiter fails closed instead and declines the new PAN until an entry becomes idle.
+ */
+public class VelocityLimiter {
+    private static final int DEFAULT_STRIPES = 64;
+
+    private final List<Limit> limits;
+    private final Limit[] limitArray;
+    private final int[] bucketOffsets;
+    private final int bucketsPerPan;
+    private final long idleMillis;
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final Clock clock;
+
+    /**
+     * Constructor for a limiter using the system clock.
+     *
+     * @param maxPans The maximum number of PANs tracked at the same time.
+     * @param limits  The limits every PAN has to stay within.
+     */
+    public VelocityLimiter(int maxPans, Limit... limits) {
+        this(maxPans, DEFAULT_STRIPES, Clock.systemUTC(), Arrays.asList(limits));
+    }
+
+    /**
+     * Constructor for initializing a VelocityLimiter object with all attributes.
+     *
+     * @param maxPans The maximum number of PANs tracked at the same time, spread evenly over the stripes.
+     * @param stripes The number of independently locked stripes, must be a power of two.
+     * @param clock   The clock the windows are measured with.
+     * @param limits  The limits every PAN has to stay within.
+     * @throws IllegalArgumentException If there are no limits, or the PAN or stripe count is invalid.
+     */
+    public VelocityLimiter(int maxPans, int stripes, Clock clock, List<Limit> limits) {
+        if (stripes <= 0 || Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("Stripe count must be a positive power of two: " + stripes);
+        }
+        if (maxPans < stripes) {
+            throw new IllegalArgumentException("Maximum PANs must be at least the stripe count: " + maxPans);
+        }
+        if (limits.isEmpty()) {
+            throw new IllegalArgumentException("At least one velocity limit is required");
+        }
+        this.limits = Collections.unmodifiableList(new ArrayList<>(limits));
+        this.limitArray = limits.toArray(new Limit[0]);
+        this.bucketOffsets = new int[limits.size()];
+        int offset = 0;
+        long longestWindow = 0;
+        for (int i = 0; i < limits.size(); i++) {
+            bucketOffsets[i] = offset;
+            offset += limits.get(i).buckets;
+            longestWindow = Math.max(longestWindow, limits.get(i).windowMillis);
+        }
+        this.bucketsPerPan = offset;
+        this.idleMillis = longestWindow;
+        this.stripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe(maxPans / stripes, bucketsPerPan);
+        }
+        this.stripeMask = stripes - 1;
+        this.clock = clock;
+    }
+
+    /**
+     * Counts a transaction against the limits of its PAN, unless that would exceed one of them.
+     *
+     * @param pan    The numeric value of the PAN.
+     * @param amount The amount of the transaction in subunits, of the base currency if amounts are converted.
+     * @return True if the transaction is within all limits and was counted, false if it exceeds a limit or the PAN
+     * is new and its stripe is full of active PANs.
+     */
+    public boolean tryAcquire(long pan, long amount) {
+        long now = clock.millis();
+        long hash = mix(pan);
+        Stripe stripe = stripes[(int) (hash >>> 32) & stripeMask];
+        stripe.lock.lock();
+        try {
+            int entry = entry(stripe, pan, (int) hash, now);
+            if (entry < 0) {
+                return false;
+            }
+            int base = entry * bucketsPerPan;
+            for (int i = 0; i < limitArray.length; i++) {
+                if (!limitArray[i].allows(stripe, base + bucketOffsets[i], now, amount)) {
+                    return false;
+                }
+            }
+            for (int i = 0; i < limitArray.length; i++) {
+                limitArray[i].add(stripe, base + bucketOffsets[i], now, amount);
+            }
+            return true;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Counts a transaction that was approved at the given time against the limits of its PAN without checking
+     * them, e.g. when the windows are rebuilt from a journal after a restart. Transactions have to be restored
+     * in chronological order; a transaction older than the longest window, or of a new PAN while its stripe is full
+     * of active PANs, is ignored.
+     *
+     * @param pan         The numeric value of the PAN.
+     * @param amount      The amount of the transaction in subunits, of the base currency if amounts are converted.
+     * @param epochMillis The time the transaction was approved.
+     */
+    public void restore(long pan, long amount, long epochMillis) {
+        if (clock.millis() - epochMillis >= idleMillis) {
+            return;
+        }
+        long hash = mix(pan);
+        Stripe stripe = stripes[(int) (hash >>> 32) & stripeMask];
+        stripe.lock.lock();
+        try {
+            int entry = entry(stripe, pan, (int) hash, epochMillis);
+            if (entry < 0) {
+                return;
+            }
+            int base = entry * bucketsPerPan;
+            for (int i = 0; i < limitArray.length; i++) {
+                limitArray[i].add(stripe, base + bucketOffsets[i], epochMillis, amount);
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public List<Limit> getLimits() {
+        return limits;
+    }
+
+    /**
+     * @return The number of PANs currently tracked.
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.size;
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return The entry of the PAN in the stripe, inserted (after evicting an idle PAN if the stripe is full) if
+     * the PAN is not tracked yet; -1 if the stripe is full and no PAN is idle.
+     */
+    private int entry(Stripe stripe, long pan, int hash, long now) {
+        int entry = stripe.find(pan, hash);
+        if (entry < 0) {
+            if (stripe.isFull() && !stripe.evictIdle(now - idleMillis)) {
+                return -1;
+            }
+            entry = stripe.insert(pan, hash);
+        }
+        stripe.touch(entry, now);
+        return entry;
+    }
+
+    /**
+     * Spreads the bits of the PAN (the finalizer of MurmurHash3), so PANs of the same range do not cluster.
+     */
+    private static long mix(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * A maximum count and cumulative amount over a sliding window, tracked in a fixed number of time buckets.
+     * The window slides by one bucket at a time, so more buckets make the limit more precise at the cost of
+     * memory per PAN.
+     */
+    public static class Limit {
+        private final long windowMillis;
+        private final int buckets;
+        private final long bucketMillis;
+        private final int maxCount;
+        private final long maxAmount;
+
+        /**
+         * Constructor for initializing a Limit object with all attributes.
+         *
+         * @param window    The length of the sliding window.
+         * @param buckets   The number of buckets the window is divided into.
+         * @param maxCount  The maximum number of transactions within the window.
+         * @param maxAmount The maximum cumulative amount in subunits within the window.
+         * @throws IllegalArgumentException If a value is not positive or the window is shorter than the buckets.
+         */
+        public Limit(Duration window, int buckets, int maxCount, long maxAmount) {
+            if (buckets <= 0 || window.toMillis() < buckets) {
+                throw new IllegalArgumentException("Window " + window + " cannot be divided into " + buckets + " buckets");
+            }
+            if (maxCount <= 0 || maxAmount <= 0) {
+                throw new IllegalArgumentException("Limits must be positive: count " + maxCount + ", amount " + maxAmount);
+            }
+            this.windowMillis = window.toMillis();
+            this.buckets = buckets;
+            this.bucketMillis = windowMillis / buckets;
+            this.maxCount = maxCount;
+            this.maxAmount = maxAmount;
+        }
+
+        /**
+         * @return A limit over one minute, in 12 buckets of 5 seconds.
+         */
+        public static Limit perMinute(int maxCount, long maxAmount) {
+            return new Limit(Duration.ofMinutes(1), 12, maxCount, maxAmount);
+        }
+
+        /**
+         * @return A limit over one day, in 24 buckets of an hour.
+         */
+        public static Limit perDay(int maxCount, long maxAmount) {
+            return new Limit(Duration.ofDays(1), 24, maxCount, maxAmount);
+        }
+
+        public Duration getWindow() {
+            return Duration.ofMillis(windowMillis);
+        }
+
+        public int getBuckets() {
+            return buckets;
+        }
+
+        public int getMaxCount() {
+            return maxCount;
+        }
+
+        public long getMaxAmount() {
+            return maxAmount;
+        }
+
+        private boolean allows(Stripe stripe, int first, long now, long amount) {
+            long current = now / bucketMillis;
+            int count = 1;
+            long total = amount;
+            for (int i = first; i < first + buckets; i++) {
+                // Buckets of earlier rounds of the ring are older than the window
+                if (current - stripe.bucketTimes[i] < buckets) {
+                    count += stripe.counts[i];
+                    total += stripe.amounts[i];
+                }
+            }
+            return count <= maxCount && total <= maxAmount;
+        }
+
+        private void add(Stripe stripe, int first, long now, long amount) {
+            long current = now / bucketMillis;
+            int i = first + (int) (current % buckets);
+            if (stripe.bucketTimes[i] != current) {
+                stripe.bucketTimes[i] = current;
+                stripe.counts[i] = 0;
+                stripe.amounts[i] = 0;
+            }
+            stripe.counts[i]++;
+            stripe.amounts[i] += amount;
+        }
+    }
+
+    /**
+     * One lock's share of the tracked PANs. All other fields are guarded by the stripe's {@link #lock}.
+     * The hash table maps a PAN to an entry index; the buckets of entry {@code e} are at
+     * {@code [e * bucketsPerPan, (e + 1) * bucketsPerPan)} of the bucket arrays, which are only as large as the
+     * capacity of the stripe.
+     */
+    private static final class Stripe {
+        // A lock rather than a monitor, so virtual threads are not pinned while they hold it
+        private final ReentrantLock lock = new ReentrantLock();
+        private final int capacity;
+        private final int bucketsPerPan;
+        private final long[] keys;
+        private final int[] entries;
+        private final boolean[] used;
+        private final int tableMask;
+        private final long[] lastSeen;
+        // The key of each entry, and a list of the entries from the least to the most recently seen
+        private final long[] entryKeys;
+        private final int[] older;
+        private final int[] newer;
+        private int leastRecent = -1;
+        private int mostRecent = -1;
+        private final int[] freeEntries;
+        private int freeCount;
+        // Bucket number (time / bucket length) the bucket was last reset for, and the totals since then
+        private final long[] bucketTimes;
+        private final int[] counts;
+        private final long[] amounts;
+        private int size;
+
+        private Stripe(int capacity, int bucketsPerPan) {
+            // Keep the table at most half full, so probe sequences stay short
+            int tableSize = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) * 2;
+            this.capacity = capacity;
+            this.bucketsPerPan = bucketsPerPan;
+            this.keys = new long[tableSize];
+            this.entries = new int[tableSize];
+            this.used = new boolean[tableSize];
+            this.tableMask = tableSize - 1;
+            this.lastSeen = new long[capacity];
+            this.entryKeys = new long[capacity];
+            this.older = new int[capacity];
+            this.newer = new int[capacity];
+            this.freeEntries = new int[capacity];
+            for (int i = 0; i < capacity; i++) {
+                freeEntries[i] = capacity - 1 - i;
+            }
+            this.freeCount = capacity;
+            this.bucketTimes = new long[capacity * bucketsPerPan];
+            this.counts = new int[capacity * bucketsPerPan];
+            this.amounts = new long[capacity * bucketsPerPan];
+        }
+
+        private boolean isFull() {
+            return size == capacity;
+        }
+
+        /**
+         * @return The entry index of the PAN, or -1 if it is not tracked.
+         */
+        private int find(long key, int hash) {
+            for (int slot = hash & tableMask; used[slot]; slot = (slot + 1) & tableMask) {
+                if (keys[slot] == key) {
+                    return entries[slot];
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * @return The entry index of the newly tracked PAN, with empty windows.
+         */
+        private int insert(long key, int hash) {
+            int slot = hash & tableMask;
+            while (used[slot]) {
+                slot = (slot + 1) & tableMask;
+            }
+            int entry = freeEntries[--freeCount];
+            used[slot] = true;
+            keys[slot] = key;
+            entries[slot] = entry;
+            entryKeys[entry] = key;
+            link(entry);
+            // Bucket numbers far in the past, so the buckets count as outside every window
+            Arrays.fill(bucketTimes, entry * bucketsPerPan, (entry + 1) * bucketsPerPan, Long.MIN_VALUE / 2);
+            size++;
+            return entry;
+        }
+
+        /**
+         * Records that the PAN of an entry was seen, making it the most recently seen entry.
+         */
+        private void touch(int entry, long now) {
+            lastSeen[entry] = now;
+            if (entry != mostRecent) {
+                unlink(entry);
+                link(entry);
+            }
+        }
+
+        /**
+         * Removes the least recently seen PAN if it is idle; as no other PAN was seen before it, none is idle
+         * otherwise.
+         *
+         * @param idleBefore PANs last seen before this time are idle.
+         * @return Whether a PAN was removed.
+         */
+        private boolean evictIdle(long idleBefore) {
+            int entry = leastRecent;
+            if (entry < 0 || lastSeen[entry] >= idleBefore) {
+                return false;
+            }
+            long key = entryKeys[entry];
+            int slot = (int) mix(key) & tableMask;
+            while (!used[slot] || keys[slot] != key) {
+                slot = (slot + 1) & tableMask;
+            }
+            remove(slot);
+            return true;
+        }
+
+        /**
+         * Appends an entry to the list as the most recently seen one.
+         */
+        private void link(int entry) {
+            older[entry] = mostRecent;
+            newer[entry] = -1;
+            if (mostRecent >= 0) {
+                newer[mostRecent] = entry;
+            } else {
+                leastRecent = entry;
+            }
+            mostRecent = entry;
+        }
+
+        private void unlink(int entry) {
+            if (older[entry] >= 0) {
+                newer[older[entry]] = newer[entry];
+            } else {
+                leastRecent = newer[entry];
+            }
+            if (newer[entry] >= 0) {
+                older[newer[entry]] = older[entry];
+            } else {
+                mostRecent = older[entry];
+            }
+        }
+
+        /**
+         * Removes a table slot, shifting later slots of the probe sequence back so lookups still find them.
+         */
+        private void remove(int slot) {
+            unlink(entries[slot]);
+            freeEntries[freeCount++] = entries[slot];
+            int gap = slot;
+            int next = (gap + 1) & tableMask;
+            while (used[next]) {
+                int home = (int) mix(keys[next]) & tableMask;
+                // Move the slot into the gap unless its home slot lies cyclically in (gap, next]
+                boolean stays = gap <= next ? gap < home && home <= next : gap < home || home <= next;
+                if (!stays) {
+                    keys[gap] = keys[next];
+                    entries[gap] = entries[next];
+                    gap = next;
+                }
+                next = (next + 1) & tableMask;
+            }
+            used[gap] = false;
+            size--;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.transaction.processing.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * How a single consumer thread waits for work when its ring buffer is empty, trading latency against CPU:
+ * <ul>
+ *   <li>{@link #busySpin()} polls without pause, for the lowest latency on a dedicated core.</li>
+ *   <li>{@link #yielding()} spins briefly and then yields the core to other threads between polls.</li>
+ *   <li>{@link #blocking()} spins briefly and then parks until a producer signals new work.</li>
+ * </ul>
+ * Every consumer needs its own instance, as the blocking strategy remembers the thread to wake up.
+ */
+public interface WaitStrategy {
+    /**
+     * Idle count from which every strategy waits the same way, so a consumer can stop counting there instead of
+     * letting the count overflow while it stays idle.
+     */
+    int MAX_IDLE_COUNT = 200;
+
+    /**
+     * Called by the consumer each time it finds nothing to do.
+     *
+     * @param idleCount The number of consecutive times the consumer found nothing to do before, 0 the first time;
+     *                  consumers may stop counting at {@link #MAX_IDLE_COUNT}.
+     */
+    void idle(int idleCount);
+
+    /**
+     * Called by a producer after it published work, to wake up a consumer that is blocked in {@link #idle(int)}.
+     */
+    void signal();
+
+    static WaitStrategy busySpin() {
+        return new BusySpin();
+    }
+
+    static WaitStrategy yielding() {
+        return new Yielding();
+    }
+
+    static WaitStrategy blocking() {
+        return new Blocking();
+    }
+
+    /**
+     * Returns immediately, so the consumer polls in a tight loop.
+     */
+    final class BusySpin implements WaitStrategy {
+        @Override
+        public void idle(int idleCount) {
+            // Poll again straight away
+        }
+
+        @Override
+        public void signal() {
+            // The consumer never blocks
+        }
+    }
+
+    /**
+     * Spins for the first 100 polls, then yields between polls.
+     */
+    final class Yielding implements WaitStrategy {
+        private static final int SPINS = 100;
+
+        @Override
+        public void idle(int idleCount) {
+            if (idleCount >= SPINS) {
+                Thread.yield();
+            }
+        }
+
+        @Override
+        public void signal() {
+            // The consumer never blocks
+        }
+    }
+
+    /**
+     * Spins for the first 100 polls, yields for the next 100 and then parks until signalled. Producers only pay
+     * for the wake-up while the consumer is parked. A signal racing with the consumer going to sleep can be missed;
+     * the park is therefore limited to 1 ms, which bounds the extra latency of that rare case.
+     */
+    final class Blocking implements WaitStrategy {
+        private static final int SPINS = 100;
+        private static final int YIELDS = MAX_IDLE_COUNT - SPINS;
+        private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+        private volatile Thread parked;
+
+        @Override
+        public void idle(int idleCount) {
+            if (idleCount < SPINS) {
+                return;
+            }
+            if (idleCount < SPINS + YIELDS) {
+                Thread.yield();
+                return;
+            }
+            parked = Thread.currentThread();
+            LockSupport.parkNanos(this, MAX_PARK_NANOS);
+            parked = null;
+        }
+
+        @Override
+        public void signal() {
+            Thread thread = parked;
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.transaction.processing.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AsyncLogWriterTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testAllEntriesWrittenFromConcurrentProducers() throws Exception {
+        // Arrange
+        Path logFile = tempDir.resolve("async.log");
+        AsyncLogWriter writer = AsyncLogWriter.builder(logFile)
+                .capacity(64)
+                .batchSize(16)
+                .flushInterval(1, TimeUnit.MILLISECONDS)
+                .overflowPolicy(AsyncLogWriter.OverflowPolicy.BLOCK)
+                .build();
+        int threads = 4;
+        int entriesPerThread = 2500;
+
+        // Act
+        List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int producer = t;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < entriesPerThread; i++) {
+                    try {
+                        writer.write("producer " + producer + " entry " + i);
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+            producers.add(thread);
+            thread.start();
+        }
+        for (Thread thread : producers) {
+            thread.join();
+        }
+        writer.close();
+
+        // Assert
+        List<String> lines = Files.readAllLines(logFile, StandardCharsets.UTF_8);
+        Set<String> unique = new HashSet<>(lines);
+        assertEquals(threads * entriesPerThread, lines.size(), "Every entry should be written exactly once");
+        assertEquals(lines.size(), unique.size(), "No entry should be duplicated");
+        assertEquals(0, writer.getDroppedCount(), "Blocking policy should never drop entries");
+        assertTrue(writer.getBatchCount() < lines.size(), "Entries should be written in batches");
+    }
+
+    @Test
+    void testDropPolicyCountsDiscardedEntries() throws Exception {
+        // Arrange
+        Path logFile = tempDir.resolve("drop.log");
+        AsyncLogWriter writer = AsyncLogWriter.builder(logFile)
+                .capacity(2)
+                .batchSize(1)
+                .flushInterval(1, TimeUnit.SECONDS)
+                .overflowPolicy(AsyncLogWriter.OverflowPolicy.DROP)
+                .build();
+        int entries = 1000;
+
+        // Act
+        for (int i = 0; i < entries; i++) {
+            writer.write("entry " + i);
+        }
+        writer.close();
+
+        // Assert
+        long lines = Files.readAllLines(logFile, StandardCharsets.UTF_8).size();
+        assertEquals(entries, lines + writer.getDroppedCount(),
+                "Every entry should either be written or counted as dropped");
+        assertEquals(lines, writer.getWrittenCount(), "Written counter should match the file");
+    }
+
+    @Test
+    void testCallerRunsPolicyWritesEverything() throws Exception {
+        // Arrange
+        Path logFile = tempDir.resolve("caller-runs.log");
+        AsyncLogWriter writer = AsyncLogWriter.builder(logFile)
+                .capacity(2)
+                .batchSize(1)
+                .overflowPolicy(AsyncLogWriter.OverflowPolicy.CALLER_RUNS)
+                .build();
+
+        // Act
+        for (int i = 0; i < 500; i++) {
+            writer.write("entry " + i);
+        }
+        writer.close();
+
+        // Assert
+        assertEquals(500, Files.readAllLines(logFile, StandardCharsets.UTF_8).size(),
+                "Caller-runs policy should write every entry");
+        assertEquals(0, writer.getDroppedCount(), "Caller-runs policy should never drop entries");
+    }
+
+    @Test
+    void testWriteAfterCloseIsRejected() throws Exception {
+        // Arrange
+        Path logFile = tempDir.resolve("closed.log");
+        AsyncLogWriter writer = AsyncLogWriter.builder(logFile).build();
+        writer.write("before close");
+        writer.close();
+
+        // Act & Assert
+        assertThrows(IOException.class, () -> writer.write("after close"));
+        assertEquals(1, Files.readAllLines(logFile, StandardCharsets.UTF_8).size(),
+                "Only the entry written before closing should be in the file");
+        assertEquals(0, writer.getDroppedCount(), "A rejected entry is reported to the caller, not dropped");
+    }
+}
@@ -0,0 +1,75 @@
+package com.transaction.processing.service;
+
+import com.transaction.processing.model.Transaction;
+import com.transaction.processing.model.TransactionStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AsyncPaymentServiceTest {
+    @Test
+    void testSubmittedTransactionsAreProcessed() throws Exception {
+        // Arrange
+        ConcurrencyTrackingService paymentService = new ConcurrencyTrackingService();
+        AsyncPaymentService asyncService = new AsyncPaymentService(paymentService, 4);
+        List<CompletableFuture<Transaction>> results = new ArrayList<>();
+
+        // Act
+        for (int i = 0; i < 200; i++) {
+            String pan = i % 2 == 0 ? "1000000000000000" : "9999999999999999";
+            results.add(asyncService.submit(new Transaction(pan, "APP", 1000, "978", "00")));
+        }
+        CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).get(30, TimeUnit.SECONDS);
+        asyncService.close();
+
+        // Assert
+        for (int i = 0; i < results.size(); i++) {
+            String expected = i % 2 == 0 ? TransactionStatus.APPROVED.getCode() : TransactionStatus.DECLINED.getCode();
+            assertEquals(expected, results.get(i).get().getStatus(), "Transaction " + i + " has the wrong status");
+        }
+        assertTrue(paymentService.maxObserved.get() <= 4, "Concurrency limit should never be exceeded");
+    }
+
+    @Test
+    void testSubmitAfterCloseFailsTheFuture() {
+        // Arrange
+        AsyncPaymentService asyncService = new AsyncPaymentService(new PaymentService(), 1);
+        asyncService.close();
+
+        // Act
+        CompletableFuture<Transaction> result = asyncService.submit(
+                new Transaction("1000000000000000", "APP", 1000, "978", "00"));
+
+        // Assert
+        ExecutionException exception = assertThrows(ExecutionException.class, result::get);
+        assertInstanceOf(RejectedExecutionException.class, exception.getCause(),
+                "Closed service should reject new transactions");
+    }
+
+    private static class ConcurrencyTrackingService extends PaymentService {
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger maxObserved = new AtomicInteger();
+
+        @Override
+        public Transaction process(Transaction transaction) {
+            int now = running.incrementAndGet();
+            maxObserved.accumulateAndGet(now, Math::max);
+            try {
+                return super.process(transaction);
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.transaction.processing.service;
+
+import com.transaction.processing.model.CompactTransaction;
+import com.transaction.processing.model.DeclineReason;
+import com.transaction.processing.model.Transaction;
+import com.transaction.processing.model.TransactionBatch;
+import com.transaction.processing.model.TransactionResult;
+import com.transaction.processing.model.TransactionStatus;
+import com.transaction.processing.model.TransactionType;
+import com.transaction.processing.util.PANParser;
+import com.transaction.processing.util.PANValidator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class BatchValidatorTest {
+    @Test
+    void testBatchValidationMatchesPaymentService() {
+        // Arrange
+        List<Transaction> transactions = mixedTransactions();
+        TransactionBatch batch = TransactionBatch.from(transactions);
+        byte[] failedChecks = new byte[batch.size()];
+        PaymentService paymentService = new PaymentService();
+
+        // Act
+        int approved = new BatchValidator().validate(batch, failedChecks);
+        batch.copyStatusesTo(transactions);
+        List<Transaction> expected = new ArrayList<>();
+        for (Transaction transaction : mixedTransactions()) {
+            expected.add(paymentService.process(transaction));
+        }
+
+        // Assert
+        for (int i = 0; i < transactions.size(); i++) {
+            assertEquals(expected.get(i).getStatus(), transactions.get(i).getStatus(), "Status of row " + i);
+        }
+        assertEquals(2, approved, "Two transactions should be approved");
+        assertArrayEquals(new byte[]{
+                BatchValidator.PASSED,
+                code(DeclineReason.INACTIVE_STATUS),
+                code(DeclineReason.INVALID_TYPE),
+                code(DeclineReason.INVALID_CURRENCY),
+                code(DeclineReason.INVALID_PAN),
+                code(DeclineReason.INVALID_PAN),
+                code(DeclineReason.AMOUNT_EXCEEDS_LIMIT),
+                BatchValidator.PASSED
+        }, failedChecks, "First failed check of every row");
+    }
+
+    @Test
+    void testBatchConvertsBackToTransactions() {
+        // Arrange
+        TransactionBatch batch = new TransactionBatch(1);
+        batch.add(new Transaction("2000000000000001", "BRW", 1234, "840", "00"));
+        batch.add(new Transaction("123", "XYZ", 5, "EURO", "00"));
+
+        // Act
+        List<Transaction> converted = batch.toTransactions();
+
+        // Assert
+        Transaction valid = converted.get(0);
+        assertEquals("2000000000000001", valid.getPan());
+        assertEquals("BRW", valid.getType());
+        assertEquals(1234, valid.getAmount());
+        assertEquals("840", valid.getCurrency());
+        assertEquals(TransactionStatus.ACTIVE.getCode(), valid.getStatus());
+        Transaction invalid = converted.get(1);
+        assertNull(invalid.getPan(), "Unparsable PAN should be null");
+        assertNull(invalid.getType(), "Unknown type should be null");
+        assertNull(invalid.getCurrency(), "Unparsable currency should be null");
+    }
+
+    @Test
+    void testCompactValidationMatchesPaymentService() {
+        // Arrange
+        PaymentService paymentService = new PaymentService();
+        BatchValidator validator = new BatchValidator();
+        CompactTransaction compact = new CompactTransaction();
+        List<Transaction> transactions = mixedTransactions();
+
+        // Act & Assert
+        for (Transaction transaction : transactions) {
+            // One instance is reused for every transaction
+            boolean approved = validator.validate(compact.set(transaction));
+            Transaction expected = paymentService.process(transaction);
+            assertEquals(expected.getStatus(), compact.getStatus().getCode(), transaction.toString());
+            assertEquals(expected.getDeclineReason(), compact.getDeclineReason(), transaction.toString());
+            assertEquals(expected.getDeclineReason() == null, approved, transaction.toString());
+            assertEquals(expected.getRulesVersion(), compact.getRulesVersion());
+        }
+    }
+
+    @Test
+    void testCompactTransactionConvertsToAndFromTransaction() {
+        // Arrange
+        Transaction transaction = new Transaction("2000000000000001", "BRW", 1234, "840", "00");
+        transaction.setStatus(TransactionStatus.DECLINED.getCode());
+        transaction.setDeclineReason(DeclineReason.AMOUNT_EXCEEDS_LIMIT);
+        transaction.setRulesVersion(3);
+
+        // Act
+        TransactionResult result = TransactionResult.of(transaction);
+        Transaction converted = result.toTransaction();
+        CompactTransaction invalid = CompactTransaction.from(new Transaction("123", "XYZ", 5, "EURO", "00"));
+
+        // Assert
+        assertEquals(2000000000000001L, result.getPan());
+        assertEquals(840, result.getCurrency());
+        assertEquals(TransactionStatus.DECLINED, result.getStatus());
+        assertEquals(transaction.toString(), converted.toString());
+        assertEquals(DeclineReason.AMOUNT_EXCEEDS_LIMIT, converted.getDeclineReason());
+        assertEquals(3, converted.getRulesVersion());
+        assertEquals(result, TransactionResult.of(converted), "Results with the same values should be equal");
+        assertNotEquals(result, invalid.toResult());
+        assertEquals(TransactionBatch.INVALID_PAN, invalid.getPan());
+        assertNull(invalid.getType(), "Unknown type should be null");
+        assertNull(invalid.toTransaction().getCurrency(), "Unparsable currency should be null");
+    }
+
+    @Test
+    void testLuhnCheckIsPartOfTheRules() {
+        // Arrange
+        ValidationRules rules = ValidationRules.builder()
+                .maxAmount(TransactionType.APP, 5000)
+                .allowCurrency("978")
+                .panRanges(PANValidator.getRangeTable())
+                .luhnCheck(true)
+                .build();
+        RulesRepository repository = new RulesRepository(rules);
+        PaymentService paymentService = PaymentService.builder().rules(repository).build();
+        BatchValidator validator = new BatchValidator(repository);
+        List<Transaction> transactions = new ArrayList<>(Arrays.asList(
+                new Transaction("1000000000000008", "APP", 1000, "978", "00"),
+                new Transaction("1000000000000000", "APP", 1000, "978", "00")));
+        TransactionBatch batch = TransactionBatch.from(transactions);
+        byte[] failedChecks = new byte[batch.size()];
+
+        // Act
+        Transaction valid = paymentService.process(transactions.get(0));
+        Transaction invalid = paymentService.process(transactions.get(1));
+        validator.validate(batch, failedChecks);
+        boolean compactInvalid = validator.validate(CompactTransaction.from(transactions.get(1)));
+
+        // Assert
+        assertNull(valid.getDeclineReason(), "PAN with a valid check digit should be approved");
+        assertEquals(DeclineReason.INVALID_PAN, invalid.getDeclineReason());
+        assertArrayEquals(new byte[]{BatchValidator.PASSED, code(DeclineReason.INVALID_PAN)}, failedChecks);
+        assertFalse(compactInvalid, "Compact validation should apply the Luhn check as well");
+        assertNotEquals(PANParser.INVALID, ValidationRules.defaults().parsePan("1000000000000000"),
+                "The default rules should not apply the Luhn check");
+    }
+
+    private static byte code(DeclineReason reason) {
+        return (byte) reason.getCode();
+    }
+
+    private static List<Transaction> mixedTransactions() {
+        return new ArrayList<>(Arrays.asList(
+                new Transaction("1000000000000000", "APP", 1000, "978", "00"),
+                new Transaction("1000000000000000", "APP", 1000, "978", "01"),
+                new Transaction("1000000000000000", "XYZ", 1000, "978", "00"),
+                new Transaction("1000000000000000", "APP", 1000, "123", "00"),
+                new Transaction("9000000000000000", "APP", 1000, "978", "00"),
+                new Transaction("10000000", "APP", 1000, "978", "00"),
+                new Transaction("1000000000000000", "APP", 100_000_000, "978", "00"),
+                new Transaction("2000000000000001", "BRW", 100, "840", "00")
+        ));
+    }
+}
@@ -0,0 +1,127 @@
+package com.transaction.processing.service;
+
+import com.transaction.processing.model.Transaction;
+import com.transaction.processing.model.TransactionType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BinaryLogTest {
+    private static final ZoneId ZONE = ZoneId.of("Europe/Berlin");
+    private static final Instant NOW = Instant.parse("2024-03-01T10:15:30.123456Z");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testDecodedBinaryLogMatchesTextLog() throws IOException {
+        // Arrange
+        DailyLogFile dailyLogFile = new DailyLogFile(tempDir.resolve("Test").toString(), BinaryLogWriter.EXTENSION,
+                Clock.fixed(NOW, ZONE));
+        PaymentService paymentService = PaymentService.builder().metrics(new PaymentMetrics()).build();
+        List<Transaction> transactions = Arrays.asList(
+                new Transaction("1000000000000000", "APP", 1000, "978", "00"),
+                new Transaction("2000000000000001", "BRW", 25000, "840", "00"),
+                new Transaction("1000000000000000", "APP", 1000, "999", "00"));
+        BinaryLogWriter writer = new BinaryLogWriter(dailyLogFile);
+        BinaryLogWriter previous = LoggingService.setBinaryLog(writer);
+
+        // Act
+        try {
+            paymentService.process(transactions.get(0));
+            paymentService.processBatch(transactions.subList(1, 3));
+        } finally {
+            LoggingService.setBinaryLog(previous);
+            writer.close();
+        }
+        StringBuilder decoded = new StringBuilder();
+        long records = new BinaryLogReader(ZONE, Locale.GERMANY).decode(Paths.get(writer.getFileName()), decoded);
+
+        // Assert
+        TransactionLogFormatter formatter = new TransactionLogFormatter(ZONE, Locale.GERMANY);
+        long millis = NOW.toEpochMilli();
+        List<String> expected = Arrays.asList(
+                formatter.formatTransactionEntry(transactions.get(0), millis).toString(),
+                formatter.formatEntry("ERROR", "Transaction amount exceeds limit: 25000", millis).toString(),
+                formatter.formatTransactionEntry(transactions.get(1), millis).toString(),
+                formatter.formatEntry("ERROR", "Invalid currency code: 999", millis).toString(),
+                formatter.formatEntry("ERROR", "Error during logging transaction: Invalid currency code: 999",
+                        millis).toString());
+        assertEquals(3, records);
+        assertEquals(expected, Arrays.asList(decoded.toString().split(System.lineSeparator())));
+        assertEquals(BinaryLogFormat.HEADER_SIZE + 3 * BinaryLogFormat.RECORD_SIZE,
+                Files.size(Paths.get(writer.getFileName())), "Every transaction should be one fixed-size record");
+    }
+
+    @Test
+    void testRecordsOfConcurrentWritersAreGroupedIntoTheFile() throws IOException, InterruptedException {
+        // Arrange
+        Path file = tempDir.resolve("Concurrent" + BinaryLogWriter.EXTENSION);
+        BinaryLogWriter writer = new BinaryLogWriter(file);
+        Transaction transaction = new Transaction("1000000000000000", "APP", 1000, "978", "01");
+        Thread[] threads = new Thread[4];
+        int perThread = 10_000;
+
+        // Act
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                try {
+                    for (int j = 0; j < perThread; j++) {
+                        writer.write(transaction);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        writer.close();
+        long records = new BinaryLogReader(ZONE, Locale.GERMANY).decode(file, new StringBuilder());
+
+        // Assert
+        assertEquals(threads.length * perThread, records);
+        assertEquals(BinaryLogFormat.HEADER_SIZE + records * BinaryLogFormat.RECORD_SIZE, Files.size(file));
+    }
+
+    @Test
+    void testTextFileIsRejected() throws IOException {
+        // Arrange
+        Path textLog = tempDir.resolve("Test.log");
+        Files.write(textLog, "10:15:30.123 INFO: message".getBytes());
+
+        // Act & Assert
+        assertThrows(IOException.class, () -> new BinaryLogReader().decode(textLog, new StringBuilder()));
+    }
+
+    @Test
+    void testTransactionTypeIsStoredAsItsCode() {
+        // Arrange
+        ByteBuffer buffer = ByteBuffer.allocate(BinaryLogFormat.RECORD_SIZE);
+
+        // Act
+        BinaryLogFormat.encode(buffer, new Transaction("2000000000000001", "BRW", 100, "840", "00"), 0);
+        Transaction decoded = BinaryLogFormat.decode(buffer, 0);
+
+        // Assert
+        assertEquals(TransactionType.BRW.getNumericValue(), buffer.get(20), "Type should not be stored as ordinal");
+        assertEquals("BRW", decoded.getType());
+    }
+}
@@ -0,0 +1,115 @@
+package com.transaction.processing.service;
+
+import com.transaction.processing.model.CurrencyCode;
+import com.transaction.processing.model.DeclineReason;
+import com.transaction.processing.model.Transaction;
+import com.transaction.processing.util.FxRateTable;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.ZoneOffset;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CurrencyConversionTest {
+    private static final String RULES = "limit APP 5000\n"
+            + "currency 978\n"
+            + "currency 826\n"
+            + "currency 392\n"
+            + "currency 414\n"
+            + "base 978\n"
+            + "rate 826 1.17\n"
+            + "rate 392 0.0062\n"
+            + "rate 414 2.985\n"
+            + "range APP 1000000000000000 1000005999999999\n";
+
+    @Test
+    void testAmountsAreConvertedWithMinorUnits() {
+        // Arrange
+        FxRateTable rates = FxRateTable.builder(CurrencyCode.EUR)
+                .rate(CurrencyCode.JPY, "0.0062")
+                .rate(CurrencyCode.KWD, "2.985")
+                .rate(CurrencyCode.GBP, FxRateTable.parseRate("1.17"))
+                .build();
+
+        // Act & Assert
+        assertEquals(620, rates.toBase(1000, CurrencyCode.JPY.getNumericValue()), "1000 JPY should be 6.20 EUR");
+        assertEquals(299, rates.toBase(1000, CurrencyCode.KWD.getNumericValue()), "1.000 KWD should be 2.99 EUR");
+        assertEquals(1170, rates.toBase(1000, CurrencyCode.GBP.getNumericValue()));
+        assertEquals(-1170, rates.toBase(-1000, CurrencyCode.GBP.getNumericValue()));
+        assertEquals(1000, rates.toBase(1000, CurrencyCode.EUR.getNumericValue()));
+        assertEquals(FxRateTable.NO_RATE, rates.toBase(1000, CurrencyCode.USD.getNumericValue()));
+        assertThrows(IllegalArgumentException.class, () -> FxRateTable.parseRate("1.2.3"));
+        assertThrows(IllegalArgumentException.class, () -> FxRateTable.parseRate("0"));
+        assertEquals(167, CurrencyCode.values().length);
+        assertEquals(CurrencyCode.CLF, CurrencyCode.find("990"));
+        assertEquals(4, CurrencyCode.CLF.getMinorUnits());
+        assertNull(CurrencyCode.find("999"), "The \"no currency\" code should not be supported");
+    }
+
+    @Test
+    void testLimitsAreEnforcedInTheBaseCurrency() throws IOException {
+        // Arrange
+        RulesRepository repository = new RulesRepository(ValidationRules.load(new StringReader(RULES)));
+        PaymentService paymentService = PaymentService.builder().rules(repository).build();
+
+        // Act
+        Transaction pounds = paymentService.process(new Transaction("1000000000000000", "APP", 4000, "826", "00"));
+        Transaction poundsOverLimit = paymentService.process(
+                new Transaction("1000000000000000", "APP", 4500, "826", "00"));
+        Transaction yen = paymentService.process(new Transaction("1000000000000000", "APP", 8000, "392", "00"));
+        Transaction dinars = paymentService.process(new Transaction("1000000000000000", "APP", 16000, "414", "00"));
+        long versionBefore = repository.current().getVersion();
+        repository.publishFxRates(FxRateTable.builder(CurrencyCode.EUR)
+                .rate(CurrencyCode.GBP, "1.30")
+                .rate(CurrencyCode.JPY, "0.0062")
+                .rate(CurrencyCode.KWD, "2.985")
+                .build());
+        Transaction poundsAfterUpdate = paymentService.process(
+                new Transaction("1000000000000000", "APP", 4000, "826", "00"));
+
+        // Assert
+        assertNull(pounds.getDeclineReason(), "40.00 GBP should be 46.80 EUR");
+        assertEquals(DeclineReason.AMOUNT_EXCEEDS_LIMIT, poundsOverLimit.getDeclineReason(),
+                "45.00 GBP should be 52.65 EUR");
+        assertNull(yen.getDeclineReason(), "8000 JPY should be 49.60 EUR");
+        assertNull(dinars.getDeclineReason(), "16.000 KWD should be 47.76 EUR");
+        assertEquals(DeclineReason.AMOUNT_EXCEEDS_LIMIT, poundsAfterUpdate.getDeclineReason(),
+                "40.00 GBP should be 52.00 EUR after the rate update");
+        assertEquals(versionBefore + 1, poundsAfterUpdate.getRulesVersion());
+    }
+
+    @Test
+    void testAllowedCurrencyWithoutRateIsRejected() {
+        // Arrange
+        String rules = "currency 978\ncurrency 840\nbase 978\n";
+
+        // Act & Assert
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+                () -> ValidationRules.load(new StringReader(rules)));
+        assertTrue(thrown.getMessage().contains("USD"));
+    }
+
+    @Test
+    void testAmountsAreFormattedWithTheDecimalsOfTheirCurrency() {
+        // Arrange
+        TransactionLogFormatter formatter = new TransactionLogFormatter(ZoneOffset.UTC, Locale.US);
+        Transaction yen = new Transaction("1000000000000000", "APP", 1500, "392", "01");
+        Transaction dinars = new Transaction("1000000000000000", "APP", 1500, "414", "01");
+        StringBuilder yenMessage = new StringBuilder();
+        StringBuilder dinarMessage = new StringBuilder();
+
+        // Act
+        formatter.appendTransactionMessage(yenMessage, yen, 0);
+        formatter.appendTransactionMessage(dinarMessage, dinars, 0);
+
+        // Assert
+        assertTrue(yenMessage.toString().contains("amount 1500 jpy"), yenMessage.toString());
+        assertTrue(dinarMessage.toString().contains("amount 1.500 kwd"), dinarMessage.toString());
+    }
+}
@@ -0,0 +1,111 @@
+package com.transaction.processing.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FileIngestServiceTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testCsvFileIsProcessedInChunksInInputOrder() throws IOException {
+        // Arrange
+        String csv = "pan,type,amount,currency,status\n"
+                + "1000000000000000,APP,1000,978,00\n"
+                + "1000000000000000,APP,9000,978,00\r\n"
+                + "1000000000000000,XYZ,1000,978,00\n"
+                + "not,a,record\n"
+                + "\n"
+                + "2000000000000001,BRW,250,840,00\n"
+                + "2000000000000001,BRW,250,840,01";
+        Path input = write("input.csv", csv);
+        Path output = tempDir.resolve("output.csv");
+        // Chunks smaller than a record, so every record ends up in a chunk of its own
+        FileIngestService ingest = FileIngestService.builder(RecordFormat.CSV)
+                .metrics(new PaymentMetrics())
+                .chunkSize(16)
+                .maxChunksInFlight(3)
+                .build();
+
+        // Act
+        IngestResult result = ingest.ingest(input, output);
+
+        // Assert
+        List<String> lines = Files.readAllLines(output, StandardCharsets.US_ASCII);
+        assertEquals(Arrays.asList(
+                "offset,pan,type,amount,currency,status,reason",
+                "32,100000******0000,APP,1000,978,01,",
+                "65,100000******0000,APP,9000,978,02,AMOUNT_EXCEEDS_LIMIT",
+                "99,100000******0000,,1000,978,02,INVALID_TYPE",
+                "132,,,,,02,MALFORMED",
+                "146,200000******0001,BRW,250,840,01,",
+                "178,200000******0001,BRW,250,840,02,INACTIVE_STATUS"
+        ), lines);
+        assertEquals(6, result.getRecordCount());
+        assertEquals(2, result.getApprovedCount());
+        assertEquals(3, result.getDeclinedCount());
+        assertEquals(1, result.getMalformedCount());
+    }
+
+    @Test
+    void testFixedWidthRecordsAreParsed() throws IOException {
+        // Arrange
+        String records = "1000000000000000APP0000001000978" + "00\n"
+                + "3000000000000050TRI      2500978" + "00\n"
+                + "123456789012345 APP0000001000978" + "00\n"
+                + "1000000000000000APP00000010009780\n";
+        Path input = write("input.txt", records);
+        Path output = tempDir.resolve("output.csv");
+        FileIngestService ingest = FileIngestService.builder(RecordFormat.FIXED_WIDTH)
+                .metrics(new PaymentMetrics())
+                .build();
+
+        // Act
+        IngestResult result = ingest.ingest(input, output);
+
+        // Assert
+        List<String> lines = Files.readAllLines(output, StandardCharsets.US_ASCII);
+        assertEquals("0,100000******0000,APP,1000,978,01,", lines.get(1));
+        assertEquals("35,300000******0050,TRI,2500,978,02,AMOUNT_EXCEEDS_LIMIT", lines.get(2));
+        assertEquals("70,,APP,1000,978,02,INVALID_PAN", lines.get(3));
+        assertEquals("105,,,,,02,MALFORMED", lines.get(4));
+        assertEquals(1, result.getApprovedCount());
+        assertEquals(1, result.getMalformedCount());
+    }
+
+    @Test
+    void testOnlyTheExactCsvHeaderIsSkipped() throws IOException {
+        // Arrange
+        Path input = write("input.csv", " 1000000000000000,APP,1000,978,00\n"
+                + "1000000000000000,APP,1000,978,00\n");
+        Path output = tempDir.resolve("output.csv");
+        FileIngestService ingest = FileIngestService.builder(RecordFormat.CSV)
+                .metrics(new PaymentMetrics())
+                .build();
+
+        // Act
+        IngestResult result = ingest.ingest(input, output);
+
+        // Assert
+        List<String> lines = Files.readAllLines(output, StandardCharsets.US_ASCII);
+        assertEquals("0,,APP,1000,978,02,INVALID_PAN", lines.get(1),
+                "A first line that is not the header should be processed as a record");
+        assertEquals(2, result.getRecordCount());
+        assertEquals(1, result.getApprovedCount());
+    }
+
+    private Path write(String fileName, String content) throws IOException {
+        Path file = tempDir.resolve(fileName);
+        Files.write(file, content.getBytes(StandardCharsets.US_ASCII));
+        return file;
+    }
+}
@@ -0,0 +1,142 @@
+package com.transaction.processing.service;
+
+import com.transaction.processing.model.DeclineReason;
+import com.transaction.processing.model.Transaction;
+import com.transaction.processing.util.IdempotencyCache;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IdempotencyCacheTest {
+    @Test
+    void testDuplicateGetsOriginalResultWithoutBeingProcessedAgain() {
+        // Arrange
+        PaymentMetrics metrics = new PaymentMetrics();
+        IdempotencyCache cache = new IdempotencyCache(1024, Duration.ofMinutes(10));
+        PaymentService paymentService = PaymentService.builder()
+                .metrics(metrics)
+                .idempotencyCache(cache)
+                .build();
+
+        // Act
+        paymentService.process(new Transaction("1000000000000000", "APP", 9000, "978", "00"));
+        Transaction retry = paymentService.process(new Transaction("1000000000000000", "APP", 9000, "978", "00"));
+        Transaction other = paymentService.process(new Transaction("1000000000000000", "APP", 1000, "978", "00"));
+        BatchResult batch = paymentService.processBatch(Arrays.asList(
+                new Transaction("1000000000000000", "APP", 1000, "978", "00"),
+                new Transaction("2000000000000001", "BRW", 1000, "840", "00")));
+
+        // Assert
+        assertEquals("02", retry.getStatus(), "Retry should get the original status");
+        assertEquals(DeclineReason.AMOUNT_EXCEEDS_LIMIT, retry.getDeclineReason());
+        assertEquals("01", other.getStatus(), "A different amount is a different transaction");
+        assertEquals(2, batch.getApprovedCount(), "Duplicates should count with their original outcome");
+        assertEquals(3, metrics.getProcessedCount(), "Duplicates should not be validated again");
+        assertEquals(2, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+    }
+
+    @Test
+    void testEntriesAreEvictedBySizeAndAge() {
+        // Arrange
+        MutableClock clock = new MutableClock();
+        IdempotencyCache cache = new IdempotencyCache(4, Duration.ofSeconds(60), 1, clock);
+        for (long key = 1; key <= 4; key++) {
+            cache.acquire(key);
+            cache.complete(key, key * 10);
+        }
+
+        // Act
+        long fifth = cache.acquire(5);
+        cache.complete(5, 50);
+        long oldest = cache.acquire(1);
+        cache.cancel(1);
+        long second = cache.acquire(3);
+        clock.advance(Duration.ofSeconds(60));
+        long expired = cache.acquire(3);
+
+        // Assert
+        assertEquals(IdempotencyCache.NOT_FOUND, fifth);
+        assertEquals(IdempotencyCache.NOT_FOUND, oldest, "The oldest key should be evicted when the cache is full");
+        assertEquals(30, second);
+        assertEquals(IdempotencyCache.NOT_FOUND, expired, "Keys should expire after the time-to-live");
+        assertEquals(1, cache.size(), "All other keys should have expired");
+        assertEquals(5, cache.getEvictionCount());
+    }
+
+    @Test
+    void testReservationsAreNeitherEvictedNorExpired() {
+        // Arrange
+        MutableClock clock = new MutableClock();
+        IdempotencyCache cache = new IdempotencyCache(2, Duration.ofSeconds(60), 1, clock);
+        cache.acquire(1);
+        cache.acquire(2);
+        cache.complete(2, 20);
+
+        // Act
+        long third = cache.acquire(3);
+        cache.complete(3, 30);
+        clock.advance(Duration.ofSeconds(60));
+        long fourth = cache.acquire(4);
+        cache.complete(1, 10);
+        long original = cache.acquire(1);
+
+        // Assert
+        assertEquals(IdempotencyCache.NOT_FOUND, third);
+        assertEquals(IdempotencyCache.NOT_FOUND, fourth);
+        assertEquals(10, original, "A reserved key should survive eviction and expiry");
+        assertEquals(2, cache.getEvictionCount(), "Only the completed keys should be evicted");
+    }
+
+    @Test
+    void testNewKeyWaitsWhileStripeHoldsOnlyReservations() throws InterruptedException {
+        // Arrange
+        IdempotencyCache cache = new IdempotencyCache(1, Duration.ofSeconds(60), 1, new MutableClock());
+        cache.acquire(1);
+        long[] acquired = new long[1];
+        Thread waiting = new Thread(() -> acquired[0] = cache.acquire(2));
+
+        // Act
+        waiting.start();
+        waiting.join(200);
+        boolean waitedForRoom = waiting.isAlive();
+        cache.complete(1, 10);
+        waiting.join(10_000);
+
+        // Assert
+        assertTrue(waitedForRoom, "The reservation should not be evicted for a new key");
+        assertEquals(IdempotencyCache.NOT_FOUND, acquired[0]);
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now = Instant.parse("2024-03-01T10:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.transaction.processing.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.transaction.processing.model.DeclineReason;
+import com.transaction.processing.model.Transaction;
+import com.transaction.processing.model.TransactionType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LoadHarnessTest {
+    private static final long START_MILLIS = Instant.parse("2024-03-01T23:59:55Z").toEpochMilli();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testSameSeedGivesSameTraffic() {
+        // Arrange
+        TrafficGenerator generator = TrafficGenerator.builder()
+                .amounts(TrafficGenerator.AmountDistribution.logNormal(1500, 1.0, 100000))
+                .invalidPanRate(0.1)
+                .build();
+        TrafficGenerator sameSettings = TrafficGenerator.builder()
+                .amounts(TrafficGenerator.AmountDistribution.logNormal(1500, 1.0, 100000))
+                .invalidPanRate(0.1)
+                .build();
+        SplittableRandom first = new SplittableRandom(42);
+        SplittableRandom second = new SplittableRandom(42);
+
+        // Act & Assert
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(generator.next(first).toString(), sameSettings.next(second).toString());
+        }
+    }
+
+    @Test
+    void testSyntheticRunReportsOutcomesAsJson() throws IOException {
+        // Arrange
+        TrafficGenerator generator = TrafficGenerator.builder()
+                .type(TransactionType.APP, 1)
+                .currency("978", 1)
+                .amounts(TrafficGenerator.AmountDistribution.fixed(1000))
+                .invalidPanRate(0.5)
+                .build();
+        LoadHarness harness = LoadHarness.builder(new PaymentService())
+                .synthetic(generator, 1001, 7)
+                .threads(4)
+                .build();
+
+        // Act
+        LoadReport report = harness.run();
+        JsonNode json = new ObjectMapper().readTree(report.toJson());
+
+        // Assert
+        assertEquals(1001, report.getTransactionCount());
+        assertEquals(1001, report.getApprovedCount() + report.getDeclinedCount());
+        assertEquals(report.getDeclinedCount(), report.getDeclinedCount(DeclineReason.INVALID_PAN));
+        assertTrue(report.getApprovedCount() > 400 && report.getApprovedCount() < 600,
+                "About half should be approved: " + report.getApprovedCount());
+        assertEquals("synthetic", json.get("mode").asText());
+        assertEquals(4, json.get("threads").asInt());
+        assertEquals(1001, json.get("transactions").asLong());
+        assertEquals(report.getDeclinedCount(), json.get("declinedByReason").get("INVALID_PAN").asLong());
+        assertTrue(json.get("latencyNanos").get("p99").asLong() > 0);
+        assertTrue(json.get("allocation").has("bytesPerSecond"));
+    }
+
+    @Test
+    void testLogIsReplayedAcrossMidnightAtMaxAndPacedSpeed() throws IOException {
+        // Arrange
+        Path logFile = directory.resolve("TransactionProcessing_240301.log");
+        TransactionLogFormatter formatter = new TransactionLogFormatter(ZoneOffset.UTC, Locale.US);
+        try (Writer out = Files.newBufferedWriter(logFile, StandardCharsets.UTF_8)) {
+            out.append("23:59:54.000 SEVERE: Not a transaction\n");
+            for (int i = 0; i < 10; i++) {
+                Transaction transaction = new Transaction("100000000000000" + i, "APP", i % 2 == 0 ? 1000 : 9000,
+                        "978", i % 2 == 0 ? "01" : "02");
+                out.append(formatter.formatTransactionEntry(transaction, START_MILLIS + i * 1000L)).append('\n');
+            }
+        }
+
+        // Act
+        LoadReport max = LoadHarness.builder(new PaymentService()).replay(logFile).threads(2).build().run();
+        LoadReport paced = LoadHarness.builder(new PaymentService()).replay(logFile).speed(100).build().run();
+
+        // Assert
+        assertEquals(10, max.getTransactionCount());
+        assertEquals(5, max.getApprovedCount());
+        assertEquals(5, max.getDeclinedCount(DeclineReason.AMOUNT_EXCEEDS_LIMIT));
+        assertEquals(10, paced.getTransactionCount());
+        assertTrue(paced.getElapsedNanos() >= TimeUnit.MILLISECONDS.toNanos(90),
+                "Nine seconds of log at 100x should take at least 90 ms: " + paced.getElapsedNanos());
+        assertTrue(paced.getElapsedNanos() < TimeUnit.SECONDS.toNanos(5), "Midnight should not add a day");
+    }
+}
@@ -0,0 +1,96 @@
+package com.transaction.processing.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LogHousekeeperTest {
+    private static final Instant NOW = Instant.parse("2024-03-10T12:00:00Z");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testOldFilesAreCompressedOrDeletedAndStaySearchable() throws IOException {
+        // Arrange
+        DailyLogFile dailyLogFile = new DailyLogFile("Test", Clock.fixed(NOW, ZoneOffset.UTC));
+        Path expired = write(dailyLogFile, LocalDate.of(2024, 2, 1), 0, "01:00:00.000 INFO: expired\n");
+        Path yesterday = write(dailyLogFile, LocalDate.of(2024, 3, 9), 0, "10:00:00.000 INFO: card 100000\n");
+        Path segment = write(dailyLogFile, LocalDate.of(2024, 3, 9), 1, repeat("11:00:00.000 INFO: card 200000\n"));
+        Path today = write(dailyLogFile, LocalDate.of(2024, 3, 10), 0, "09:00:00.000 INFO: card 100000\n");
+        byte[] segmentContent = Files.readAllBytes(segment);
+
+        // Act
+        HousekeepingResult result;
+        List<String> matches;
+        try (LogHousekeeper housekeeper = LogHousekeeper.builder(dailyLogFile)
+                .directory(tempDir)
+                .retentionDays(7)
+                .gracePeriod(Duration.ZERO)
+                .threads(2)
+                .build()) {
+            result = housekeeper.runOnce();
+            matches = housekeeper.search("card", LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 10));
+        }
+
+        // Assert
+        assertEquals(2, result.getCompressedCount());
+        assertEquals(1, result.getDeletedCount());
+        assertFalse(Files.exists(expired), "Files older than the retention should be deleted");
+        assertFalse(Files.exists(yesterday), "Compressed files should be removed");
+        assertTrue(Files.exists(today), "Today's file should not be touched");
+        assertArrayEquals(segmentContent, gunzip(tempDir.resolve(segment.getFileName() + ".gz")));
+        assertTrue(result.getCompressedBytes() < result.getUncompressedBytes());
+        assertEquals(Arrays.asList("10:00:00.000 INFO: card 100000", "11:00:00.000 INFO: card 200000"),
+                matches.subList(0, 2), "Archives should be searched in chronological order");
+        assertEquals("09:00:00.000 INFO: card 100000", matches.get(matches.size() - 1));
+        assertEquals(1002, matches.size());
+    }
+
+    private Path write(DailyLogFile dailyLogFile, LocalDate date, int segment, String content) throws IOException {
+        Path file = tempDir.resolve(dailyLogFile.fileName(date, segment));
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, FileTime.from(date.atStartOfDay(ZoneOffset.UTC).toInstant()));
+        return file;
+    }
+
+    private static String repeat(String line) {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            content.append(line);
+        }
+        return content.toString();
+    }
+
+    private static byte[] gunzip(Path archive) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(archive))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+}
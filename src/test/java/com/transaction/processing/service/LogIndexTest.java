@@ -0,0 +1,111 @@
+package com.transaction.processing.service;
+
+import com.transaction.processing.model.Transaction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LogIndexTest {
+    private static final long START_MILLIS = Instant.parse("2024-03-01T10:00:00Z").toEpochMilli();
+    private static final int PAN_COUNT = 50;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testEntriesAreFoundByPanAndTimeThroughTheIndex() throws IOException {
+        // Arrange
+        Clock clock = Clock.fixed(Instant.parse("2024-03-01T12:00:00Z"), ZoneOffset.UTC);
+        DailyLogFile dailyLogFile = new DailyLogFile("TransactionProcessing", clock);
+        Path logFile = directory.resolve("TransactionProcessing_240301.log");
+        appendEntries(logFile, 0, 2000);
+        LogIndexer indexer = LogIndexer.builder(dailyLogFile).directory(directory).blockSize(4096).build();
+
+        // Act
+        indexer.update();
+        appendEntries(logFile, 2000, 100);
+        List<String> byPan = new ArrayList<>();
+        List<String> byTime = new ArrayList<>();
+        long indexedLength;
+        try (LogIndex index = LogIndex.open(logFile)) {
+            index.findByPan(pan(7), byPan::add);
+            index.findByTime(LocalTime.of(10, 10), LocalTime.of(10, 20), byTime::add);
+            indexedLength = index.getIndexedLength();
+        }
+        indexer.close();
+
+        // Assert
+        assertEquals(2100 / PAN_COUNT, byPan.size(), "Indexed and not yet indexed entries should be found");
+        for (String line : byPan) {
+            assertTrue(line.contains("card number 400000******0007 "), line);
+        }
+        assertEquals(600, byTime.size());
+        assertTrue(byTime.get(0).startsWith("10:10:00.000 INFO: "), byTime.get(0));
+        assertTrue(byTime.get(599).startsWith("10:19:59.000 INFO: "), byTime.get(599));
+        assertTrue(indexedLength > 0 && indexedLength < Files.size(logFile),
+                "Only whole blocks should be indexed while the log is written");
+        try (LogIndex index = LogIndex.open(logFile)) {
+            assertEquals(Files.size(logFile), index.getIndexedLength(), "Closing should complete the index");
+            assertEquals(0, index.findByPan("5000000000000000", line -> { }));
+        }
+    }
+
+    @Test
+    void testIndexCutShortIsRepairedAndCompleted() throws IOException {
+        // Arrange
+        Path logFile = directory.resolve("TransactionProcessing_240301.log");
+        appendEntries(logFile, 0, 1000);
+        LogIndexer.index(logFile, 2048);
+        Path indexFile = LogIndex.indexFileOf(logFile);
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 10);
+        }
+        appendEntries(logFile, 1000, 500);
+
+        // Act
+        long indexed = LogIndexer.index(logFile, 2048);
+        List<String> byPan = new ArrayList<>();
+        try (LogIndex index = LogIndex.open(logFile)) {
+            index.findByPan("400000******0003", byPan::add);
+        }
+
+        // Assert
+        assertEquals(Files.size(logFile), indexed);
+        assertEquals(1500 / PAN_COUNT, byPan.size());
+    }
+
+    private static String pan(int index) {
+        return String.format("4000000000%06d", index);
+    }
+
+    /**
+     * Appends transaction entries one second apart, cycling through the PANs.
+     */
+    private static void appendEntries(Path logFile, int from, int count) throws IOException {
+        TransactionLogFormatter formatter = new TransactionLogFormatter(ZoneOffset.UTC, Locale.US);
+        try (Writer out = Files.newBufferedWriter(logFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (int i = from; i < from + count; i++) {
+                Transaction transaction = new Transaction(pan(i % PAN_COUNT), "APP", 1000, "978", "01");
+                out.append(formatter.formatTransactionEntry(transaction, START_MILLIS + i * 1000L)).append('\n');
+            }
+        }
+    }
+}
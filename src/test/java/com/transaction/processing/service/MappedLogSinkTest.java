@@ -0,0 +1,173 @@
+package com.transaction.processing.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MappedLogSinkTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testCloseTruncatesSegmentToWrittenLength() throws Exception {
+        // Arrange
+        MutableClock clock = new MutableClock(Instant.parse("2024-03-05T10:00:00Z"));
+        MappedLogSink sink = MappedLogSink.builder(new DailyLogFile("Test", clock))
+                .directory(tempDir)
+                .segmentSize(1024 * 1024)
+                .build();
+
+        // Act
+        sink.write("first entry");
+        sink.write("second entry with ümlaut");
+        sink.close();
+
+        // Assert
+        Path file = tempDir.resolve("Test_240305.log");
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(Arrays.asList("first entry", "second entry with ümlaut"), lines,
+                "Entries should be written in order");
+        long expectedSize = ("first entry" + System.lineSeparator() + "second entry with ümlaut"
+                + System.lineSeparator()).getBytes(StandardCharsets.UTF_8).length;
+        assertEquals(expectedSize, Files.size(file), "File should be truncated to the written bytes");
+    }
+
+    @Test
+    void testRollsOverAtMidnight() throws Exception {
+        // Arrange
+        MutableClock clock = new MutableClock(Instant.parse("2024-03-05T23:59:59Z"));
+        MappedLogSink sink = MappedLogSink.builder(new DailyLogFile("Test", clock))
+                .directory(tempDir)
+                .segmentSize(4096)
+                .build();
+
+        // Act
+        sink.write("before midnight");
+        clock.instant = Instant.parse("2024-03-06T00:00:00Z");
+        sink.write("after midnight");
+        sink.close();
+
+        // Assert
+        assertEquals(Arrays.asList("before midnight"),
+                Files.readAllLines(tempDir.resolve("Test_240305.log"), StandardCharsets.UTF_8),
+                "Old day's file should only contain entries written before midnight");
+        assertEquals(Arrays.asList("after midnight"),
+                Files.readAllLines(tempDir.resolve("Test_240306.log"), StandardCharsets.UTF_8),
+                "New day's file should contain entries written after midnight");
+    }
+
+    @Test
+    void testEntryLargerThanSegmentFitsAfterMidnight() throws Exception {
+        // Arrange
+        MutableClock clock = new MutableClock(Instant.parse("2024-03-05T23:59:59Z"));
+        MappedLogSink sink = MappedLogSink.builder(new DailyLogFile("Test", clock))
+                .directory(tempDir)
+                .segmentSize(100)
+                .build();
+        char[] chars = new char[300];
+        Arrays.fill(chars, 'x');
+        String large = new String(chars);
+
+        // Act
+        sink.write("before midnight");
+        clock.instant = Instant.parse("2024-03-06T00:00:00Z");
+        sink.write(large);
+        sink.close();
+
+        // Assert
+        assertEquals(Arrays.asList(large),
+                Files.readAllLines(tempDir.resolve("Test_240306.log"), StandardCharsets.UTF_8),
+                "An entry larger than a segment should get a segment of its own on the new day");
+    }
+
+    @Test
+    void testRollsOverAtSizeLimit() throws Exception {
+        // Arrange
+        MutableClock clock = new MutableClock(Instant.parse("2024-03-05T10:00:00Z"));
+        MappedLogSink sink = MappedLogSink.builder(new DailyLogFile("Test", clock))
+                .directory(tempDir)
+                .segmentSize(100)
+                .build();
+
+        // Act
+        for (int i = 0; i < 20; i++) {
+            sink.write("entry number " + i);
+        }
+        sink.close();
+
+        // Assert
+        assertTrue(Files.exists(tempDir.resolve("Test_240305_1.log")), "A second segment should be created");
+        int total = 0;
+        for (int segment = 0; Files.exists(tempDir.resolve(segmentName(segment))); segment++) {
+            Path file = tempDir.resolve(segmentName(segment));
+            assertTrue(Files.size(file) <= 100, "Segment should not exceed the size limit");
+            total += Files.readAllLines(file, StandardCharsets.UTF_8).size();
+        }
+        assertEquals(20, total, "Every entry should be written to one of the segments");
+    }
+
+    @Test
+    void testResumesAfterUntruncatedSegment() throws Exception {
+        // Arrange: a segment left with zero padding, as after a crash
+        Path file = tempDir.resolve("Test_240305.log");
+        byte[] content = ("existing entry" + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+        byte[] padded = Arrays.copyOf(content, content.length + 500);
+        Files.write(file, padded);
+        MutableClock clock = new MutableClock(Instant.parse("2024-03-05T10:00:00Z"));
+
+        // Act
+        MappedLogSink sink = MappedLogSink.builder(new DailyLogFile("Test", clock))
+                .directory(tempDir)
+                .segmentSize(4096)
+                .build();
+        sink.write("new entry");
+        sink.close();
+
+        // Assert
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(Arrays.asList("existing entry", "new entry"), lines,
+                "New entries should be appended directly after the existing ones");
+        assertFalse(new String(Files.readAllBytes(file), StandardCharsets.UTF_8).contains("\0"),
+                "No zero padding should be left in the file");
+    }
+
+    private static String segmentName(int segment) {
+        return segment == 0 ? "Test_240305.log" : "Test_240305_" + segment + ".log";
+    }
+
+    private static final class MutableClock extends Clock {
+        private volatile Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
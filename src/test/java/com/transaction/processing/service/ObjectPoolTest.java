@@ -0,0 +1,37 @@
+package com.transaction.processing.service;
+
+import com.transaction.processing.util.ObjectPool;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class ObjectPoolTest {
+    @Test
+    void testReleasedObjectsAreReusedUpToTheCapacity() {
+        // Arrange
+        AtomicInteger created = new AtomicInteger();
+        ObjectPool<StringBuilder> pool = new ObjectPool<>(2, () -> {
+            created.incrementAndGet();
+            return new StringBuilder();
+        });
+
+        // Act
+        StringBuilder first = pool.acquire();
+        StringBuilder second = pool.acquire();
+        StringBuilder third = pool.acquire();
+        pool.release(first);
+        pool.release(second);
+        pool.release(third);
+        StringBuilder reused = pool.acquire();
+
+        // Assert
+        assertNotSame(first, second, "Objects in use should not be shared");
+        assertEquals(3, created.get(), "A new object should be created while none is idle");
+        assertSame(first, reused, "A released object should be reused");
+        assertEquals(1, pool.size(), "Objects beyond the capacity should be dropped");
+    }
+}
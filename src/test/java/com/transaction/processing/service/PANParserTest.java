@@ -0,0 +1,76 @@
+package com.transaction.processing.service;
+
+import com.transaction.processing.util.PANParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PANParserTest {
+
+    @Test
+    void testParseMatchesRegexAndParseLong() {
+        // Arrange
+        Random random = new Random(3);
+        String[] samples = {"1000000000000000", "0000000000000001", "9999999999999999", "100000000000000",
+                "10000000000000000", "100000000000000a", "+100000000000000", "-100000000000000", "", null,
+                "1234 5678 9012 3456", "١٠٠٠٠٠٠٠٠٠٠٠٠٠٠٠"};
+
+        for (String pan : samples) {
+            // Act & Assert
+            assertEquals(legacyParse(pan), PANParser.parse(pan), "Parse result differs for " + pan);
+        }
+        for (int i = 0; i < 10000; i++) {
+            StringBuilder pan = new StringBuilder();
+            int length = 14 + random.nextInt(4);
+            for (int j = 0; j < length; j++) {
+                pan.append(random.nextInt(50) == 0 ? (char) ('/' + random.nextInt(13)) : (char) ('0' + random.nextInt(10)));
+            }
+            assertEquals(legacyParse(pan.toString()), PANParser.parse(pan), "Parse result differs for " + pan);
+        }
+    }
+
+    @Test
+    void testLuhnCheckFoldedIntoParse() {
+        // Valid check digits
+        assertEquals(4111111111111111L, PANParser.parseWithLuhn("4111111111111111"),
+                "Well-known test PAN should pass the Luhn check");
+        assertEquals(5555555555554444L, PANParser.parseWithLuhn("5555555555554444"),
+                "Well-known test PAN should pass the Luhn check");
+        assertTrue(PANParser.isLuhnValid(4111111111111111L), "Parsed PAN should pass the Luhn check");
+
+        // Invalid check digit
+        assertEquals(PANParser.INVALID, PANParser.parseWithLuhn("4111111111111112"),
+                "PAN with a wrong check digit should be rejected");
+        assertFalse(PANParser.isLuhnValid(4111111111111112L), "Parsed PAN should fail the Luhn check");
+    }
+
+    @Test
+    void testMaskingFromParsedValue() {
+        // Arrange
+        StringBuilder out = new StringBuilder();
+
+        // Act
+        PANParser.appendMasked(out, 1000001234567890L);
+        out.append(' ');
+        PANParser.appendMasked(out, 12L);
+
+        // Assert
+        assertEquals("100000******7890 000000******0012", out.toString(),
+                "Masked PAN should keep the first 6 and last 4 digits, zero-padded");
+    }
+
+    private static long legacyParse(String pan) {
+        if (pan == null || !pan.matches("\\d{16}")) {
+            return PANParser.INVALID;
+        }
+        try {
+            return Long.parseLong(pan);
+        } catch (NumberFormatException e) {
+            return PANParser.INVALID;
+        }
+    }
+}
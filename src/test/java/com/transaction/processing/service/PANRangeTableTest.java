@@ -0,0 +1,90 @@
+package com.transaction.processing.service;
+
+import com.transaction.processing.model.TransactionType;
+import com.transaction.processing.util.PANRangeTable;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PANRangeTableTest {
+
+    @Test
+    void testOverlappingRangesAreMerged() throws IOException {
+        // Arrange
+        String config = "# comment\n"
+                + "APP 1000000000000500 1000000000000900\n"
+                + "APP 1000000000000000 1000000000000600\n"
+                + "\n"
+                + "APP 1000000000000901 1000000000001000\n"
+                + "APP 1000000000005000 1000000000006000\n"
+                + "BRW 2000000000000000 2000000000000010\n";
+
+        // Act
+        PANRangeTable table = PANRangeTable.load(new StringReader(config));
+
+        // Assert
+        assertArrayEquals(new long[]{1000000000000000L, 1000000000005000L}, table.lowBounds(TransactionType.APP),
+                "Overlapping and adjacent ranges should be merged");
+        assertArrayEquals(new long[]{1000000000001000L, 1000000000006000L}, table.highBounds(TransactionType.APP),
+                "Merged ranges should keep the highest bound");
+        assertEquals(1, table.rangeCount(TransactionType.BRW), "BRW should have its own range");
+        assertEquals(0, table.rangeCount(TransactionType.TRI), "TRI should have no ranges");
+        assertTrue(table.contains(TransactionType.APP, 1000000000000901L), "PAN inside a merged range should match");
+        assertFalse(table.contains(TransactionType.APP, 1000000000001001L), "PAN between ranges should not match");
+        assertFalse(table.contains(TransactionType.TRI, 3000000000000000L), "Type without ranges should not match");
+    }
+
+    @Test
+    void testLookupMatchesLinearScanWithManyRanges() {
+        // Arrange: 100k random ranges
+        Random random = new Random(7);
+        int rangeCount = 100_000;
+        long[] lows = new long[rangeCount];
+        long[] highs = new long[rangeCount];
+        PANRangeTable.Builder builder = PANRangeTable.builder();
+        for (int i = 0; i < rangeCount; i++) {
+            lows[i] = 1000000000000000L + (long) (random.nextDouble() * 1_000_000_000_000L);
+            highs[i] = lows[i] + random.nextInt(1_000_000);
+            builder.add(TransactionType.APP, lows[i], highs[i]);
+        }
+
+        // Act
+        PANRangeTable table = builder.build();
+
+        // Assert
+        for (int query = 0; query < 2000; query++) {
+            long pan = query % 2 == 0
+                    ? lows[random.nextInt(rangeCount)] + random.nextInt(1_000_000)
+                    : 1000000000000000L + (long) (random.nextDouble() * 1_000_000_000_000L);
+            boolean expected = false;
+            for (int i = 0; i < rangeCount && !expected; i++) {
+                expected = pan >= lows[i] && pan <= highs[i];
+            }
+            assertEquals(expected, table.contains(TransactionType.APP, pan), "Lookup result differs for PAN " + pan);
+        }
+    }
+
+    @Test
+    void testInvalidConfigLineIsRejected() {
+        // Arrange
+        String unknownType = "XYZ 1000000000000000 1000000000000001\n";
+        String shortBound = "APP 100 1000000000000001\n";
+        String reversed = "APP 1000000000000002 1000000000000001\n";
+        String signedBound = "APP +100000000000000 1000000000000001\n";
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> PANRangeTable.load(new StringReader(unknownType)));
+        assertThrows(IllegalArgumentException.class, () -> PANRangeTable.load(new StringReader(shortBound)));
+        assertThrows(IllegalArgumentException.class, () -> PANRangeTable.load(new StringReader(reversed)));
+        assertThrows(IllegalArgumentException.class, () -> PANRangeTable.load(new StringReader(signedBound)),
+                "A bound of 16 characters that are not all digits should be rejected");
+    }
+}
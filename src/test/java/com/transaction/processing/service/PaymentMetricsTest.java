@@ -0,0 +1,77 @@
+package com.transaction.processing.service;
+
+import com.transaction.processing.model.DeclineReason;
+import com.transaction.processing.model.Transaction;
+import com.transaction.processing.util.LatencyHistogram;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PaymentMetricsTest {
+    @Test
+    void testOutcomesAndLatenciesAreRecorded() throws Exception {
+        // Arrange
+        PaymentMetrics metrics = new PaymentMetrics();
+        PaymentService paymentService = PaymentService.builder().metrics(metrics).build();
+        metrics.registerMBeans("PaymentMetricsTest");
+
+        try {
+            // Act
+            paymentService.process(new Transaction("1000000000000000", "APP", 1000, "978", "00"));
+            paymentService.process(new Transaction("1000000000000000", "APP", 1000, "978", "00"));
+            paymentService.process(new Transaction("1000000000000000", "APP", 1000, "999", "00"));
+            paymentService.process(new Transaction("1000000000000000", "APP", 9000, "978", "00"));
+            PaymentMetrics.Snapshot snapshot = metrics.snapshot();
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            Object jmxApproved = server.getAttribute(new ObjectName(
+                    "com.transaction.processing:type=PaymentMetrics,name=\"PaymentMetricsTest\""), "ApprovedCount");
+            Object jmxCount = server.getAttribute(new ObjectName(
+                    "com.transaction.processing:type=PaymentLatency,name=\"PaymentMetricsTest\",stage=process"), "Count");
+
+            // Assert
+            assertEquals(2, snapshot.getApprovedCount(), "Two transactions should be approved");
+            assertEquals(1, snapshot.getDeclinedCount(DeclineReason.INVALID_CURRENCY));
+            assertEquals(1, snapshot.getDeclinedCount(DeclineReason.AMOUNT_EXCEEDS_LIMIT));
+            assertEquals(4, snapshot.getProcessLatency().getCount(), "Every call should be timed");
+            assertEquals(4, snapshot.getLoggingLatency().getCount(), "Every call should log");
+            assertEquals(4, snapshot.getCheckLatency(ValidationCheck.CURRENCY).getCount());
+            assertEquals(3, snapshot.getCheckLatency(ValidationCheck.PAN).getCount(),
+                    "Checks after a failed check should not run");
+            assertEquals(2L, jmxApproved, "Counters should be published over JMX");
+            assertEquals(4L, jmxCount, "Histograms should be published over JMX");
+        } finally {
+            metrics.unregisterMBeans();
+        }
+    }
+
+    @Test
+    void testHistogramPercentilesStayWithinBucketPrecision() {
+        // Arrange
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // Act
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1000);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        // Assert
+        assertEquals(100_000, snapshot.getCount());
+        assertEquals(100_000_000, snapshot.getMax());
+        assertEquals(50_000_500, snapshot.getMean(), 1);
+        assertWithinPrecision(50_000_000, snapshot.getValueAtPercentile(50));
+        assertWithinPrecision(99_000_000, snapshot.getValueAtPercentile(99));
+        assertWithinPrecision(99_900_000, snapshot.getValueAtPercentile(99.9));
+        assertEquals(100_000_000, snapshot.getValueAtPercentile(100), "p100 should be the maximum");
+    }
+
+    private static void assertWithinPrecision(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected / 64,
+                "Expected " + expected + " within 1/64, was " + actual);
+    }
+}
@@ -0,0 +1,106 @@
+package com.transaction.processing.service;
+
+import com.transaction.processing.model.DeclineReason;
+import com.transaction.processing.model.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PaymentServerTest {
+    @Test
+    void testPipelinedRequestsAreAnswered() throws IOException {
+        // Arrange
+        ByteBuffer request = ByteBuffer.allocate(1024);
+        PaymentProtocol.writeRequest(request, 7, new Transaction("1000000000000000", "APP", 1000, "978", "00"));
+        PaymentProtocol.writeRequest(request, 8, new Transaction("1000000000000000", "APP", 1000, "978", "01"));
+        request.flip();
+        ByteBuffer response = ByteBuffer.allocate(2 * (PaymentProtocol.RESPONSE_LENGTH + 4));
+
+        // Act
+        try (PaymentServer server = PaymentServer.builder(new PaymentService()).port(0).build();
+             SocketChannel channel = SocketChannel.open(new InetSocketAddress("localhost", server.getPort()))) {
+            channel.write(request);
+            while (response.hasRemaining() && channel.read(response) >= 0) {
+                // Wait for both responses
+            }
+        }
+        response.flip();
+
+        // Assert
+        assertEquals(2 * (PaymentProtocol.RESPONSE_LENGTH + 4), response.remaining());
+        long firstId = response.getLong(4);
+        int approved = firstId == 7 ? 0 : PaymentProtocol.RESPONSE_LENGTH + 4;
+        int declined = PaymentProtocol.RESPONSE_LENGTH + 4 - approved;
+        assertEquals(7, response.getLong(approved + 4));
+        assertEquals(1, response.get(approved + 12), "Request 7 should be approved");
+        assertEquals(0, response.get(approved + 13));
+        assertEquals(8, response.getLong(declined + 4));
+        assertEquals(2, response.get(declined + 12), "Request 8 should be declined");
+        assertEquals(DeclineReason.INACTIVE_STATUS.getCode(), response.get(declined + 13));
+    }
+
+    @Test
+    void testLoadGeneratorReceivesAllResponses() throws IOException {
+        // Arrange
+        LoadGenerator.Result result;
+
+        // Act
+        try (PaymentServer server = PaymentServer.builder(new PaymentService()).port(0).build()) {
+            InetSocketAddress address = new InetSocketAddress("localhost", server.getPort());
+            result = new LoadGenerator(address, 2, 500, 32).run();
+        }
+
+        // Assert
+        assertEquals(1000, result.getRequestCount());
+        assertTrue(result.getApprovedCount() > 0 && result.getApprovedCount() < 1000,
+                "The sample mix should contain approved and declined transactions");
+        assertTrue(result.getLatency().getValueAtPercentile(50) <= result.getLatency().getValueAtPercentile(99.9));
+        assertTrue(result.getThroughput() > 0);
+    }
+
+    @Test
+    void testClientThatNeverReadsIsThrottled() throws IOException, InterruptedException {
+        // Arrange
+        int requests = 1_000_000;
+        PaymentMetrics metrics = new PaymentMetrics();
+        PaymentService service = PaymentService.builder().metrics(metrics).build();
+        ByteBuffer request = ByteBuffer.allocate(1024 * 1024);
+        int sent = 0;
+
+        // Act
+        try (PaymentServer server = PaymentServer.builder(service).port(0).maxRequestsInFlight(64).build();
+             SocketChannel channel = SocketChannel.open()) {
+            channel.socket().setReceiveBufferSize(4096);
+            channel.socket().setSendBufferSize(4096);
+            channel.connect(new InetSocketAddress("localhost", server.getPort()));
+            channel.configureBlocking(false);
+            long stalledSince = System.nanoTime();
+            while (sent < requests && System.nanoTime() - stalledSince < TimeUnit.MILLISECONDS.toNanos(500)) {
+                while (sent < requests && request.remaining() >= PaymentProtocol.MAX_REQUEST_LENGTH + 4) {
+                    PaymentProtocol.writeRequest(request, sent++,
+                            new Transaction("1000000000000000", "APP", 1000, "978", "00"));
+                }
+                request.flip();
+                if (channel.write(request) > 0) {
+                    stalledSince = System.nanoTime();
+                } else {
+                    Thread.sleep(10);
+                }
+                request.compact();
+            }
+        }
+
+        // Assert
+        assertTrue(sent < requests, "The server should stop reading from a client that does not read");
+        assertTrue(metrics.getProcessedCount() < requests / 2,
+                "Only requests whose responses fit into the socket buffers should be processed: "
+                        + metrics.getProcessedCount());
+    }
+}
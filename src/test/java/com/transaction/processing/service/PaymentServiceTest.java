@@ -1,10 +1,21 @@
 package com.transaction.processing.service;
 
+import com.transaction.processing.model.DeclineReason;
 import com.transaction.processing.model.Transaction;
 import com.transaction.processing.model.TransactionStatus;
+import com.transaction.processing.model.TransactionType;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class PaymentServiceTest {
     @Test
@@ -111,4 +122,96 @@ public class PaymentServiceTest {
         assertEquals(TransactionStatus.DECLINED.getCode(), result.getStatus(),
                 "Transaction should be declined due to invalid currency");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testDeclineReasonFollowsConfiguredCheckOrder() {
+        // Arrange
+        ValidationRules rules = ValidationRules.builder()
+                .maxAmount(TransactionType.APP, 5000)
+                .allowCurrency("978")
+                .panRanges(ValidationRules.defaults().getPanRanges())
+                .checkOrder(ValidationCheck.PAN, ValidationCheck.STATUS, ValidationCheck.TYPE,
+                        ValidationCheck.CURRENCY, ValidationCheck.AMOUNT)
+                .build();
+        PaymentService defaultOrder = new PaymentService();
+        PaymentService panFirst = PaymentService.builder().rules(new RulesRepository(rules)).build();
+
+        // Act
+        Transaction first = defaultOrder.process(new Transaction("9999999999999999", "APP", 1000, "978", "01"));
+        Transaction second = panFirst.process(new Transaction("9999999999999999", "APP", 1000, "978", "01"));
+        Transaction approved = panFirst.process(new Transaction("1000000000000000", "APP", 1000, "978", "00"));
+
+        // Assert
+        assertEquals(DeclineReason.INACTIVE_STATUS, first.getDeclineReason(), "Status is checked first by default");
+        assertEquals(DeclineReason.INVALID_PAN, second.getDeclineReason(), "PAN is checked first when configured");
+        assertEquals(TransactionStatus.APPROVED.getCode(), approved.getStatus(), "Transaction should be approved");
+        assertNull(approved.getDeclineReason(), "Approved transaction has no decline reason");
+    }
+
+    @Test
+    void testBatchProcessedInParallelKeepsInputOrder() {
+        // Arrange
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            // Every third transaction exceeds the APP limit
+            int amount = i % 3 == 0 ? 6000 : 1000;
+            transactions.add(new Transaction("1000000000000000", "APP", amount, "978", "00"));
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        PaymentService paymentService = PaymentService.builder().pool(pool).parallelThreshold(100).build();
+        CountingSink sink = new CountingSink();
+        LogSink previous = LoggingService.setSink(sink);
+
+        // Act
+        BatchResult result;
+        try {
+            result = paymentService.processBatch(transactions);
+        } finally {
+            LoggingService.setSink(previous);
+            pool.shutdown();
+        }
+
+        // Assert
+        assertTrue(result.isParallel(), "Large batch should be processed in parallel");
+        assertEquals(transactions.size(), result.size(), "Every transaction should be in the result");
+        for (int i = 0; i < transactions.size(); i++) {
+            Transaction processed = result.getTransactions().get(i);
+            assertSame(transactions.get(i), processed, "Results should keep the input order");
+            String expected = i % 3 == 0 ? TransactionStatus.DECLINED.getCode() : TransactionStatus.APPROVED.getCode();
+            assertEquals(expected, processed.getStatus(), "Transaction " + i + " has the wrong status");
+        }
+        assertEquals(6666, result.getApprovedCount(), "Approved count should match");
+        assertEquals(3334, result.getDeclinedCount(), "Declined count should match");
+        assertTrue(sink.writes.get() < transactions.size(), "Log entries should be written per chunk");
+    }
+
+    @Test
+    void testSmallBatchProcessedOnCallerThread() {
+        // Arrange
+        List<Transaction> transactions = new ArrayList<>();
+        transactions.add(new Transaction("1000000000000000", "APP", 1000, "978", "00"));
+        transactions.add(new Transaction("9999999999999999", "APP", 1000, "978", "00"));
+        PaymentService paymentService = new PaymentService();
+
+        // Act
+        BatchResult result = paymentService.processBatch(transactions.stream());
+
+        // Assert
+        assertFalse(result.isParallel(), "Small batch should stay on the caller's thread");
+        assertEquals(1, result.getApprovedCount(), "One transaction should be approved");
+        assertEquals(1, result.getDeclinedCount(), "One transaction should be declined");
+    }
+
+    private static class CountingSink implements LogSink {
+        private final AtomicInteger writes = new AtomicInteger();
+
+        @Override
+        public void write(CharSequence entry) {
+            writes.incrementAndGet();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.transaction.processing.service;
+
+import com.transaction.processing.model.Transaction;
+import com.transaction.processing.model.TransactionStatus;
+import com.transaction.processing.model.TransactionType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RulesFileWatcherTest {
+    private static final String RULES = "limit APP %d\n"
+            + "currency 978\n"
+            + "range APP 1000000000000000 1000005999999999\n";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testChangedRulesFileIsPublished() throws Exception {
+        // Arrange
+        Path rulesFile = tempDir.resolve("validation-rules.conf");
+        writeAtomically(rulesFile, String.format(RULES, 5000));
+        RulesRepository repository = new RulesRepository();
+        PaymentService paymentService = PaymentService.builder().rules(repository).build();
+
+        RulesFileWatcher watcher = new RulesFileWatcher(rulesFile, repository);
+        try {
+            Transaction before = paymentService.process(new Transaction("1000000000000000", "APP", 3000, "978", "00"));
+            long loadedVersion = repository.current().getVersion();
+
+            // Act
+            writeAtomically(rulesFile, String.format(RULES, 2000));
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (repository.current().getVersion() == loadedVersion && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            Transaction after = paymentService.process(new Transaction("1000000000000000", "APP", 3000, "978", "00"));
+
+            // Assert
+            assertEquals(TransactionStatus.APPROVED.getCode(), before.getStatus(), "Amount is within the first limit");
+            assertEquals(loadedVersion, before.getRulesVersion(), "Result should carry the rules version");
+            assertEquals(TransactionStatus.DECLINED.getCode(), after.getStatus(), "Amount exceeds the reloaded limit");
+            assertTrue(after.getRulesVersion() > loadedVersion, "Result should carry the reloaded rules version");
+        } finally {
+            watcher.close();
+        }
+    }
+
+    @Test
+    void testInvalidRulesFileKeepsPreviousRules() throws Exception {
+        // Arrange
+        Path rulesFile = tempDir.resolve("validation-rules.conf");
+        writeAtomically(rulesFile, String.format(RULES, 5000));
+        RulesRepository repository = new RulesRepository();
+
+        try (RulesFileWatcher watcher = new RulesFileWatcher(rulesFile, repository)) {
+            ValidationRules loaded = repository.current();
+
+            // Act
+            writeAtomically(rulesFile, "limit APP not-a-number\n");
+            boolean reloaded = watcher.reload();
+
+            // Assert
+            assertFalse(reloaded, "Invalid file should not be published");
+            assertEquals(5000, repository.current().getMaxAmount(TransactionType.APP),
+                    "Previous rules should stay in effect");
+            assertTrue(repository.current().getVersion() >= loaded.getVersion(), "Version should never go back");
+        }
+    }
+
+    @Test
+    void testRulesFileWithoutRangesKeepsDefaultRanges() throws Exception {
+        // Arrange
+        Path rulesFile = tempDir.resolve("validation-rules.conf");
+        writeAtomically(rulesFile, "limit APP 5000\ncurrency 978\n");
+
+        // Act
+        ValidationRules rules = ValidationRules.load(rulesFile);
+
+        // Assert
+        assertTrue(rules.getPanRanges().contains(TransactionType.APP, 1000000000000000L),
+                "Default PAN ranges should apply without range lines");
+        assertTrue(rules.getPanRanges().contains(TransactionType.TRI, 3000000000000000L));
+    }
+
+    private static void writeAtomically(Path file, String content) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temp, content.getBytes(StandardCharsets.UTF_8));
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,118 @@
+package com.transaction.processing.service;
+
+import com.transaction.processing.model.DeclineReason;
+import com.transaction.processing.model.Transaction;
+import com.transaction.processing.util.VelocityLimiter;
+import com.transaction.processing.util.WaitStrategy;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ShardedPaymentPipelineTest {
+    private static final String[] PANS = {"1000000000000000", "1000000000000001", "1000000000000002"};
+
+    @Test
+    void testTransactionsOfAPanAreProcessedInSubmissionOrder() {
+        List<Supplier<WaitStrategy>> strategies = Arrays.asList(
+                WaitStrategy::busySpin, WaitStrategy::yielding, WaitStrategy::blocking);
+        for (Supplier<WaitStrategy> strategy : strategies) {
+            // Arrange
+            PaymentService service = PaymentService.builder()
+                    .metrics(new PaymentMetrics())
+                    .velocityLimiter(new VelocityLimiter(64, VelocityLimiter.Limit.perMinute(5, 1_000_000)))
+                    .build();
+            List<CompletableFuture<Transaction>> results = new ArrayList<>();
+
+            // Act
+            try (ShardedPaymentPipeline pipeline = ShardedPaymentPipeline.builder(service)
+                    .shards(4)
+                    .ringCapacity(8)
+                    .singleProducer(true)
+                    .waitStrategy(strategy)
+                    .build()) {
+                for (int i = 0; i < 30; i++) {
+                    results.add(pipeline.submit(new Transaction(PANS[i % PANS.length], "APP", 100, "978", "00")));
+                }
+            }
+
+            // Assert
+            for (int i = 0; i < results.size(); i++) {
+                Transaction result = results.get(i).join();
+                if (i < 5 * PANS.length) {
+                    assertNull(result.getDeclineReason(), "The first 5 transactions of a PAN should be approved");
+                } else {
+                    assertEquals(DeclineReason.VELOCITY_LIMIT_EXCEEDED, result.getDeclineReason(),
+                            "Later transactions of a PAN should exceed the limit");
+                }
+            }
+        }
+    }
+
+    @Test
+    void testConcurrentProducersAreAllProcessed() throws Exception {
+        // Arrange
+        PaymentService service = PaymentService.builder().metrics(new PaymentMetrics()).build();
+        ExecutorService producers = Executors.newFixedThreadPool(4);
+        List<Future<List<CompletableFuture<Transaction>>>> submitted = new ArrayList<>();
+        int approved = 0;
+
+        // Act
+        try (ShardedPaymentPipeline pipeline = ShardedPaymentPipeline.builder(service)
+                .shards(3)
+                .ringCapacity(64)
+                .waitStrategy(WaitStrategy::blocking)
+                .build()) {
+            for (int producer = 0; producer < 4; producer++) {
+                submitted.add(producers.submit(() -> {
+                    List<CompletableFuture<Transaction>> results = new ArrayList<>();
+                    for (int i = 0; i < 1000; i++) {
+                        String pan = String.valueOf(1000000000000000L + i);
+                        results.add(pipeline.submit(new Transaction(pan, "APP", i % 2 == 0 ? 1000 : 1_000_000, "978", "00")));
+                    }
+                    return results;
+                }));
+            }
+            for (Future<List<CompletableFuture<Transaction>>> future : submitted) {
+                for (CompletableFuture<Transaction> result : future.get()) {
+                    if (result.get().getDeclineReason() == null) {
+                        approved++;
+                    }
+                }
+            }
+        } finally {
+            producers.shutdown();
+        }
+
+        // Assert
+        assertEquals(2000, approved);
+    }
+
+    @Test
+    void testSubmitAfterCloseIsRejected() {
+        // Arrange
+        ShardedPaymentPipeline pipeline = ShardedPaymentPipeline.builder(new PaymentService()).shards(2).build();
+        pipeline.close();
+
+        // Act
+        CompletableFuture<Transaction> result = pipeline.submit(
+                new Transaction("1000000000000000", "APP", 1000, "978", "00"));
+
+        // Assert
+        ExecutionException thrown = assertThrows(ExecutionException.class, result::get);
+        assertTrue(thrown.getCause() instanceof RejectedExecutionException);
+    }
+}
@@ -0,0 +1,29 @@
+package com.transaction.processing.service;
+
+import com.transaction.processing.util.SipHash;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class SipHashTest {
+
+    @Test
+    void testMatchesReferenceVectorAndDependsOnKey() {
+        // Arrange
+        byte[] key = new byte[SipHash.KEY_LENGTH];
+        for (int i = 0; i < key.length; i++) {
+            key[i] = (byte) i;
+        }
+        byte[] otherKey = key.clone();
+        otherKey[0] = 1;
+
+        // Act
+        long hash = new SipHash(key).hash(0x0706050403020100L);
+        long otherHash = new SipHash(otherKey).hash(0x0706050403020100L);
+
+        // Assert
+        assertEquals(0x93f5f5799a932462L, hash, "Reference output for the message 00 01 02 .. 07");
+        assertNotEquals(hash, otherHash, "Another key should give another hash");
+    }
+}
@@ -0,0 +1,124 @@
+package com.transaction.processing.service;
+
+import com.transaction.processing.model.CurrencyCode;
+import com.transaction.processing.model.DeclineReason;
+import com.transaction.processing.model.Transaction;
+import com.transaction.processing.model.TransactionType;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TransactionAggregatesTest {
+    @Test
+    void testProcessedTransactionsAreCountedPerTypeCurrencyAndOutcome() throws Exception {
+        // Arrange
+        MutableClock clock = new MutableClock();
+        TransactionAggregates aggregates = TransactionAggregates.builder().clock(clock).build();
+        PaymentService paymentService = PaymentService.builder()
+                .metrics(new PaymentMetrics())
+                .aggregates(aggregates)
+                .build();
+
+        // Act
+        paymentService.process(new Transaction("1000000000000000", "APP", 1000, "978", "00"));
+        paymentService.process(new Transaction("1000000000000000", "APP", 2500, "978", "00"));
+        paymentService.process(new Transaction("1000000000000000", "APP", 6000, "978", "00"));
+        paymentService.process(new Transaction("1000000000000000", "APP", 700, "840", "00"));
+        paymentService.process(new Transaction("1000000000000000", "XXX", 100, "978", "00"));
+        clock.advance(Duration.ofHours(2));
+        paymentService.process(new Transaction("1000000000000000", "APP", 300, "978", "00"));
+        SettlementReport report = aggregates.report(LocalDate.of(2024, 3, 1));
+        StringWriter text = new StringWriter();
+        report.write(text);
+
+        // Assert
+        List<SettlementReport.Line> lines = report.getLines();
+        assertEquals(3, lines.size(), "There should be lines for APP/EUR, APP/USD and the unknown type");
+        SettlementReport.Line euros = lines.get(0);
+        assertEquals(TransactionType.APP, euros.getType());
+        assertEquals(CurrencyCode.EUR, euros.getCurrency());
+        assertEquals(3, euros.getApprovedCount());
+        assertEquals(3800, euros.getApprovedAmount());
+        assertEquals(1, euros.getDeclinedCount(DeclineReason.AMOUNT_EXCEEDS_LIMIT));
+        assertEquals(6000, euros.getDeclinedAmount());
+        assertEquals(CurrencyCode.USD, lines.get(1).getCurrency());
+        assertNull(lines.get(2).getType());
+        assertEquals(1, lines.get(2).getDeclinedCount(DeclineReason.INVALID_TYPE));
+        assertEquals(4, report.getTotals().getApprovedCount());
+        assertEquals(2, report.getTotals().getDeclinedCount());
+        assertTrue(text.toString().contains("APP;eur;3;38.00;1;60.00\n"), text.toString());
+        assertTrue(text.toString().contains("-;eur;0;0.00;1;1.00\n"), text.toString());
+    }
+
+    @Test
+    void testTransactionsAreRolledUpPerMinuteHourAndDay() {
+        // Arrange
+        MutableClock clock = new MutableClock();
+        TransactionAggregates aggregates = TransactionAggregates.builder().clock(clock).minutes(3).days(2).build();
+        PaymentService paymentService = PaymentService.builder().metrics(new PaymentMetrics()).build();
+        Transaction approved = paymentService.process(new Transaction("1000000000000000", "APP", 1000, "978", "00"));
+
+        // Act
+        aggregates.record(approved, 1000);
+        clock.advance(Duration.ofMinutes(1));
+        aggregates.record(approved, 1000);
+        aggregates.record(approved, 1000);
+        clock.advance(Duration.ofMinutes(1));
+        List<TransactionAggregates.Rollup> minutes = aggregates.recent(TransactionAggregates.Granularity.MINUTE, 3);
+        clock.advance(Duration.ofMinutes(4));
+        aggregates.record(approved, 1000);
+        TransactionAggregates.Rollup firstMinute = aggregates.rollup(TransactionAggregates.Granularity.MINUTE,
+                Instant.parse("2024-03-01T10:00:00Z"));
+        TransactionAggregates.Rollup hour = aggregates.rollup(TransactionAggregates.Granularity.HOUR, clock.instant());
+        clock.advance(Duration.ofDays(2));
+
+        // Assert
+        assertEquals(1, minutes.get(0).getApprovedCount());
+        assertEquals(2, minutes.get(1).getApprovedCount());
+        assertEquals(2000, minutes.get(1).getApprovedAmount());
+        assertEquals(0, minutes.get(2).getCount());
+        assertEquals(Instant.parse("2024-03-01T10:02:00Z"), minutes.get(2).getStart());
+        assertEquals(0, firstMinute.getCount(), "The first minute should have been replaced in the ring");
+        assertEquals(4, hour.getApprovedCount());
+        assertEquals(Instant.parse("2024-03-01T10:00:00Z"), hour.getStart());
+        assertThrows(IllegalArgumentException.class, () -> aggregates.report(LocalDate.of(2024, 3, 1)),
+                "Only the last two days should be kept");
+        assertThrows(IllegalArgumentException.class,
+                () -> aggregates.recent(TransactionAggregates.Granularity.MINUTE, 4));
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now = Instant.parse("2024-03-01T10:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.transaction.processing.service;
+
+import com.transaction.processing.model.DeclineReason;
+import com.transaction.processing.model.Transaction;
+import com.transaction.processing.model.TransactionType;
+import com.transaction.processing.util.IdempotencyCache;
+import com.transaction.processing.util.VelocityLimiter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TransactionJournalTest {
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2024-03-01T10:00:00Z"), ZoneOffset.UTC);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testTornAndCorruptRecordsAreDiscardedOnRecovery() throws IOException {
+        // Arrange
+        Path file = tempDir.resolve("transactions.journal");
+        try (TransactionJournal journal = TransactionJournal.builder(file).clock(CLOCK).build()) {
+            Transaction declined = new Transaction("1000000000000000", "APP", 9000, "978", "00");
+            declined.setDeclineReason(DeclineReason.AMOUNT_EXCEEDS_LIMIT);
+            journal.append(new Transaction("1000000000000000", "APP", 1000, "978", "00"), 11);
+            journal.append(declined, 12);
+            journal.append(new Transaction("2000000000000001", "BRW", 2500, "840", "00"), 13);
+            journal.awaitDurable(3);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            // Flip a bit of the third record and leave half a fourth record behind
+            long third = TransactionJournal.HEADER_SIZE + 2L * TransactionJournal.RECORD_SIZE;
+            channel.write(ByteBuffer.wrap(new byte[]{0x02}), third + 40);
+            channel.write(ByteBuffer.allocate(TransactionJournal.RECORD_SIZE / 2), channel.size());
+        }
+
+        // Act
+        List<JournalRecord> records = new ArrayList<>();
+        RecoveryResult result;
+        long next;
+        long panKey;
+        try (TransactionJournal journal = TransactionJournal.builder(file).clock(CLOCK).build()) {
+            panKey = journal.pseudonymize(1000000000000000L);
+            result = journal.getRecoveryResult();
+            journal.replay(records::add);
+            next = journal.append(new Transaction("1000000000000000", "APP", 1000, "978", "00"), 14);
+        }
+
+        // Assert
+        assertEquals(2, result.getRecordCount());
+        assertEquals(TransactionJournal.RECORD_SIZE * 3 / 2, result.getDiscardedBytes());
+        assertEquals(2, records.size());
+        JournalRecord first = records.get(0);
+        assertEquals(1, first.getSequence());
+        assertEquals(CLOCK.millis(), first.getEpochMillis());
+        assertEquals(11, first.getFingerprint());
+        assertEquals(panKey, first.getPanKey(), "The PAN should be journaled as its keyed hash");
+        assertEquals(1000, first.getAmount());
+        assertEquals(978, first.getCurrency());
+        assertEquals(TransactionType.APP, first.getType());
+        assertNull(first.getDeclineReason());
+        assertEquals(DeclineReason.AMOUNT_EXCEEDS_LIMIT, records.get(1).getDeclineReason());
+        assertEquals(3, next, "Appending should continue after the last intact record");
+    }
+
+    @Test
+    void testPanIsNotWrittenInClearText() throws IOException {
+        // Arrange
+        Path file = tempDir.resolve("transactions.journal");
+        byte[] pan = ByteBuffer.allocate(8).putLong(1234567812345678L).array();
+
+        // Act
+        try (TransactionJournal journal = TransactionJournal.builder(file).build()) {
+            journal.awaitDurable(journal.append(new Transaction("1234567812345678", "APP", 1000, "978", "00"), 1));
+        }
+
+        // Assert
+        byte[] content = Files.readAllBytes(file);
+        for (int i = 0; i + pan.length <= content.length; i++) {
+            assertFalse(Arrays.equals(pan, Arrays.copyOfRange(content, i, i + pan.length)),
+                    "The journal should not hold the PAN");
+        }
+        assertEquals(16, Files.size(tempDir.resolve("transactions.journal.key")));
+    }
+
+    @Test
+    void testRecoverRebuildsIdempotencyCacheVelocityLimitsAndAggregates() throws IOException {
+        // Arrange
+        Path file = tempDir.resolve("transactions.journal");
+        try (TransactionJournal journal = TransactionJournal.builder(file).clock(CLOCK).durableAcks(true).build()) {
+            PaymentService before = newService(journal);
+            before.process(new Transaction("1000000000000000", "APP", 1000, "978", "00"));
+            before.process(new Transaction("1000000000000000", "APP", 2000, "978", "00"));
+        }
+
+        // Act
+        Transaction retried;
+        Transaction third;
+        long replayed;
+        TransactionAggregates.Rollup restored;
+        PaymentService after;
+        try (TransactionJournal journal = TransactionJournal.builder(file).clock(CLOCK).durableAcks(true).build()) {
+            after = newService(journal);
+            replayed = after.recover();
+            restored = after.getAggregates().rollup(TransactionAggregates.Granularity.DAY, CLOCK.instant());
+            retried = after.process(new Transaction("1000000000000000", "APP", 1000, "978", "00"));
+            third = after.process(new Transaction("1000000000000000", "APP", 3000, "978", "00"));
+        }
+
+        // Assert
+        assertEquals(2, replayed);
+        assertEquals(2, restored.getApprovedCount(), "Approvals before the restart should be in the aggregates");
+        assertEquals(3000, restored.getApprovedAmount());
+        assertEquals("01", retried.getStatus());
+        assertEquals(1, after.getIdempotencyCache().getHitCount(), "The retry should be answered from the cache");
+        assertEquals(DeclineReason.VELOCITY_LIMIT_EXCEEDED, third.getDeclineReason(),
+                "Approvals before the restart should count against the limit");
+    }
+
+    @Test
+    void testJournalIsRolledOverAndExpiredSegmentsAreDeleted() throws IOException {
+        // Arrange
+        Path file = tempDir.resolve("transactions.journal");
+        Instant start = Instant.parse("2024-03-01T10:00:00Z");
+        MutableClock clock = new MutableClock(start);
+        Transaction transaction = new Transaction("1000000000000000", "APP", 1000, "978", "00");
+        int[] seconds = {0, 50, 70, 100, 135};
+
+        // Act
+        try (TransactionJournal journal = TransactionJournal.builder(file).clock(clock)
+                .retention(Duration.ofMinutes(1)).build()) {
+            for (int i = 0; i < seconds.length; i++) {
+                clock.instant = start.plusSeconds(seconds[i]);
+                journal.awaitDurable(journal.append(transaction, i));
+            }
+        }
+        List<JournalRecord> records = new ArrayList<>();
+        long replayed;
+        long next;
+        try (TransactionJournal journal = TransactionJournal.builder(file).clock(clock)
+                .retention(Duration.ofMinutes(1)).build()) {
+            replayed = journal.replay(records::add);
+            next = journal.append(transaction, 5);
+        }
+
+        // Assert
+        // Records 1 and 2 were rolled over at 70 s, records 3 and 4 at 135 s, when 1 and 2 had expired
+        assertFalse(Files.exists(tempDir.resolve("transactions.journal.1")),
+                "A segment whose last record is older than the retention should be deleted");
+        assertTrue(Files.exists(tempDir.resolve("transactions.journal.3")));
+        assertEquals(3, replayed);
+        assertEquals(3, records.get(0).getSequence());
+        assertEquals(5, records.get(2).getSequence());
+        assertEquals(6, next, "Sequence numbers should continue across segments");
+    }
+
+    @Test
+    void testServiceRetainsJournalForItsLongestWindow() throws IOException {
+        // Arrange
+        Path file = tempDir.resolve("transactions.journal");
+
+        // Act
+        try (TransactionJournal journal = TransactionJournal.builder(file).clock(CLOCK).build()) {
+            newService(journal);
+
+            // Assert
+            assertEquals(Duration.ofMinutes(10), journal.getRetention(),
+                    "The idempotency time-to-live is longer than the per-minute velocity window");
+        }
+    }
+
+    @Test
+    void testConcurrentDurableTransactionsShareForces() throws Exception {
+        // Arrange
+        Path file = tempDir.resolve("transactions.journal");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        long syncCount;
+
+        // Act
+        try (TransactionJournal journal = TransactionJournal.builder(file).durableAcks(true).build()) {
+            PaymentService service = PaymentService.builder().metrics(new PaymentMetrics()).journal(journal).build();
+            for (int thread = 0; thread < 8; thread++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 250; i++) {
+                        service.process(new Transaction("1000000000000000", "APP", 1000, "978", "00"));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            syncCount = journal.getSyncCount();
+            assertEquals(2000, journal.getDurableSequence(), "Every acknowledged record should be durable");
+        } finally {
+            executor.shutdown();
+        }
+
+        // Assert
+        try (TransactionJournal journal = TransactionJournal.builder(file).build()) {
+            assertEquals(2000, journal.getRecoveryResult().getRecordCount());
+        }
+        assertTrue(syncCount <= 2000);
+    }
+
+    private static PaymentService newService(TransactionJournal journal) {
+        return PaymentService.builder()
+                .metrics(new PaymentMetrics())
+                .idempotencyCache(new IdempotencyCache(1024, Duration.ofMinutes(10), 1, CLOCK))
+                .velocityLimiter(new VelocityLimiter(64, 1, CLOCK,
+                        Collections.singletonList(VelocityLimiter.Limit.perMinute(2, 100_000))))
+                .journal(journal)
+                .aggregates(TransactionAggregates.builder().clock(CLOCK).build())
+                .build();
+    }
+
+    private static final class MutableClock extends Clock {
+        private volatile Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
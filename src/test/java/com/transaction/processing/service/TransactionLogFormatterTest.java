@@ -0,0 +1,153 @@
+package com.transaction.processing.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.transaction.processing.model.CurrencyCode;
+import com.transaction.processing.model.Transaction;
+import com.transaction.processing.model.TransactionType;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TransactionLogFormatterTest {
+    // 05.03.2024 09:07:03.045 UTC
+    private static final long TIMESTAMP = 1709629623045L;
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testOutputMatchesGoldenFile() throws IOException {
+        // Arrange
+        TransactionLogFormatter formatter = new TransactionLogFormatter(ZoneOffset.UTC, Locale.ROOT);
+        List<Transaction> transactions = new ArrayList<>();
+        transactions.add(new Transaction("1000000000000000", "APP", 1000, "978", "01"));
+        transactions.add(new Transaction("2000001234567890", "BRW", 10000, "840", "02"));
+        transactions.add(new Transaction("3000000000000100", "TRI", 5, "978", "02"));
+        transactions.add(new Transaction("12345", "APP", -150, "840", "02"));
+        transactions.add(new Transaction("12\"34\\5", "BRW", Integer.MAX_VALUE, "978", "01"));
+        transactions.add(new Transaction(null, "TRI", 0, "840", "02"));
+
+        // Act
+        List<String> actual = new ArrayList<>();
+        for (Transaction transaction : transactions) {
+            actual.add(formatter.formatTransactionEntry(transaction, TIMESTAMP).toString());
+        }
+        actual.add(formatter.formatEntry("ERROR", "Invalid PAN for type: 9999999999999999", TIMESTAMP).toString());
+
+        // Assert
+        assertEquals(readGoldenFile("/golden/transaction-log.txt"), actual,
+                "Formatted entries should match the golden file byte for byte");
+    }
+
+    @Test
+    void testOutputMatchesLegacyFormatting() throws IOException {
+        // Arrange
+        TransactionLogFormatter formatter = new TransactionLogFormatter(ZoneOffset.UTC, Locale.ROOT);
+        Random random = new Random(42);
+        String[] types = {"APP", "BRW", "TRI"};
+        String[] currencies = {"978", "840"};
+        String[] statuses = {"00", "01", "02"};
+
+        for (int i = 0; i < 5000; i++) {
+            Transaction transaction = new Transaction(
+                    randomPan(random),
+                    types[random.nextInt(types.length)],
+                    i % 100 == 0 ? Integer.MIN_VALUE : random.nextInt(),
+                    currencies[random.nextInt(currencies.length)],
+                    statuses[random.nextInt(statuses.length)]
+            );
+            long timestamp = TIMESTAMP + random.nextInt(Integer.MAX_VALUE) * 7L;
+
+            // Act
+            String actual = formatter.formatTransactionEntry(transaction, timestamp).toString();
+
+            // Assert
+            assertEquals(legacyEntry(transaction, timestamp), actual,
+                    "Formatted entry should match the legacy formatting for " + transaction);
+        }
+    }
+
+    @Test
+    void testInvalidCodesAreRejected() {
+        // Arrange
+        TransactionLogFormatter formatter = new TransactionLogFormatter(ZoneOffset.UTC, Locale.ROOT);
+        Transaction invalidCurrency = new Transaction("1000000000000000", "APP", 1000, "999", "02");
+        Transaction invalidType = new Transaction("1000000000000000", "XYZ", 1000, "978", "02");
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> formatter.formatTransactionEntry(invalidCurrency, TIMESTAMP));
+        assertThrows(IllegalArgumentException.class,
+                () -> formatter.formatTransactionEntry(invalidType, TIMESTAMP));
+    }
+
+    private static String randomPan(Random random) {
+        int length = random.nextInt(4) == 0 ? random.nextInt(20) : 16;
+        StringBuilder pan = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            int kind = random.nextInt(20);
+            if (kind == 0) {
+                pan.append((char) random.nextInt(0x20));
+            } else if (kind == 1) {
+                pan.append("\"\\é".charAt(random.nextInt(3)));
+            } else {
+                pan.append((char) ('0' + random.nextInt(10)));
+            }
+        }
+        return pan.toString();
+    }
+
+    /**
+     * The original String.format and Jackson based implementation, kept as the reference for the output format.
+     */
+    private static String legacyEntry(Transaction transaction, long timestamp) throws IOException {
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneId.of("UTC"));
+        String pan = transaction.getPan();
+        String maskedPan = pan != null && pan.length() == 16 ? pan.substring(0, 6) + "******" + pan.substring(12) : pan;
+        String amountFormatted = String.format(Locale.ROOT, "%.2f", transaction.getAmount() / 100.0);
+        String status = transaction.getStatus().equals("01") ? "Approved" : "Declined";
+        CurrencyCode currency = CurrencyCode.fromNumericCode(transaction.getCurrency());
+
+        ObjectNode transactionDetails = objectMapper.createObjectNode();
+        ObjectNode transactionNode = transactionDetails.putObject("data").putObject("transaction");
+        transactionNode.put("pan", maskedPan);
+        transactionNode.put("type", TransactionType.fromCode(transaction.getType()).getCode());
+        transactionNode.put("amount", transaction.getAmount());
+        transactionNode.put("currency", currency.getNumericCode());
+        transactionNode.put("status", transaction.getStatus());
+
+        String message = String.format("Processed transaction with card number %s on %s, amount %s %s, status %s. Return transaction details: %s",
+                maskedPan, time.format(DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm")), amountFormatted,
+                currency.getAlphaCode(), status, objectMapper.writeValueAsString(transactionDetails));
+        return String.format("%s %s: %s", time.format(DateTimeFormatter.ofPattern("HH:mm:ss.SSS")), "INFO", message);
+    }
+
+    private static List<String> readGoldenFile(String resource) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (InputStream in = TransactionLogFormatterTest.class.getResourceAsStream(resource)) {
+            assertNotNull(in, "Golden file should be on the test classpath");
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,121 @@
+package com.transaction.processing.service;
+
+import com.transaction.processing.model.DeclineReason;
+import com.transaction.processing.model.Transaction;
+import com.transaction.processing.util.VelocityLimiter;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class VelocityLimiterTest {
+    @Test
+    void testTransactionsBeyondTheLimitsOfAPanAreDeclined() {
+        // Arrange
+        MutableClock clock = new MutableClock();
+        VelocityLimiter limiter = new VelocityLimiter(64, 1, clock, Arrays.asList(
+                VelocityLimiter.Limit.perMinute(2, 100_000),
+                VelocityLimiter.Limit.perDay(100, 5_000)));
+        PaymentService paymentService = PaymentService.builder()
+                .metrics(new PaymentMetrics())
+                .velocityLimiter(limiter)
+                .build();
+
+        // Act
+        Transaction first = paymentService.process(new Transaction("1000000000000000", "APP", 2000, "978", "00"));
+        Transaction second = paymentService.process(new Transaction("1000000000000000", "APP", 2000, "978", "00"));
+        Transaction third = paymentService.process(new Transaction("1000000000000000", "APP", 100, "978", "00"));
+        Transaction otherPan = paymentService.process(new Transaction("1000000000000001", "APP", 100, "978", "00"));
+        clock.advance(Duration.ofMinutes(1));
+        Transaction nextMinute = paymentService.process(new Transaction("1000000000000000", "APP", 1000, "978", "00"));
+        Transaction overDailyAmount = paymentService.process(
+                new Transaction("1000000000000000", "APP", 1001, "978", "00"));
+
+        // Assert
+        assertEquals("01", first.getStatus());
+        assertEquals("01", second.getStatus());
+        assertEquals(DeclineReason.VELOCITY_LIMIT_EXCEEDED, third.getDeclineReason(),
+                "A third transaction in a minute should exceed the count limit");
+        assertEquals("01", otherPan.getStatus(), "Limits should be tracked per PAN");
+        assertEquals("01", nextMinute.getStatus(), "The minute window should have slid past the first transactions");
+        assertEquals(DeclineReason.VELOCITY_LIMIT_EXCEEDED, overDailyAmount.getDeclineReason(),
+                "The daily amount should only include approved transactions");
+    }
+
+    @Test
+    void testIdlePansAreEvictedWhenFull() {
+        // Arrange
+        MutableClock clock = new MutableClock();
+        VelocityLimiter limiter = new VelocityLimiter(2, 1, clock,
+                Collections.singletonList(VelocityLimiter.Limit.perMinute(1, 1_000)));
+        limiter.tryAcquire(1000000000000000L, 100);
+        clock.advance(Duration.ofMinutes(2));
+        limiter.tryAcquire(1000000000000001L, 100);
+
+        // Act
+        boolean newPan = limiter.tryAcquire(1000000000000002L, 100);
+        boolean activePan = limiter.tryAcquire(1000000000000001L, 100);
+
+        // Assert
+        assertTrue(newPan);
+        assertFalse(activePan, "The active PAN should have been kept and still be at its limit");
+        assertEquals(2, limiter.size());
+    }
+
+    @Test
+    void testNewPansAreDeclinedWhileAllPansAreActive() {
+        // Arrange
+        MutableClock clock = new MutableClock();
+        VelocityLimiter limiter = new VelocityLimiter(2, 1, clock,
+                Collections.singletonList(VelocityLimiter.Limit.perMinute(1, 1_000)));
+        limiter.tryAcquire(1000000000000000L, 100);
+        clock.advance(Duration.ofSeconds(30));
+        limiter.tryAcquire(1000000000000001L, 100);
+        clock.advance(Duration.ofSeconds(40));
+        limiter.tryAcquire(1000000000000000L, 100);
+
+        // Act
+        boolean whileActive = limiter.tryAcquire(1000000000000002L, 100);
+        boolean limitedPan = limiter.tryAcquire(1000000000000000L, 100);
+        clock.advance(Duration.ofSeconds(30));
+        boolean afterIdle = limiter.tryAcquire(1000000000000002L, 100);
+
+        // Assert
+        assertFalse(whileActive, "A new PAN should be declined rather than evict an active PAN");
+        assertFalse(limitedPan, "The active PAN should still be at its limit");
+        assertTrue(afterIdle, "The least recently seen PAN should be evicted once it is idle");
+        assertFalse(limiter.tryAcquire(1000000000000000L, 100), "The recently seen PAN should have been kept");
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now = Instant.parse("2024-03-01T10:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}